@@ -48,9 +48,14 @@ import com.linkedin.pinot.routing.CfgBasedRouting;
 import com.linkedin.pinot.routing.HelixExternalViewBasedRouting;
 import com.linkedin.pinot.routing.RoutingTable;
 import com.linkedin.pinot.routing.TimeBoundaryService;
+import com.linkedin.pinot.transport.common.AdaptiveReplicaSelection;
+import com.linkedin.pinot.transport.common.ReplicaSelection;
+import com.linkedin.pinot.transport.common.ReplicaSelection.ReplicaSelectionPolicy;
+import com.linkedin.pinot.transport.common.RoundRobinReplicaSelection;
 import com.linkedin.pinot.transport.conf.TransportClientConf;
 import com.linkedin.pinot.transport.conf.TransportClientConf.RoutingMode;
 import com.linkedin.pinot.transport.config.ConnectionPoolConfig;
+import com.linkedin.pinot.transport.config.SpeculativeRequestConfig;
 import com.linkedin.pinot.transport.metrics.NettyClientMetrics;
 import com.linkedin.pinot.transport.netty.NettyClientConnection;
 import com.linkedin.pinot.transport.netty.PooledNettyClientResourceManager;
@@ -69,6 +74,8 @@ public class BrokerServerBuilder {
   private static final String CLIENT_CONFIG_PREFIX = "pinot.broker.client";
   private static final String METRICS_CONFIG_PREFIX = "pinot.broker.metrics";
   private static final String BROKER_TIME_OUT_CONFIG = "pinot.broker.time.out";
+  private static final String SPECULATIVE_REQUEST_CONFIG_PREFIX = "pinot.broker.speculativeRequest";
+  private static final String REPLICA_SELECTION_CONFIG = "pinot.broker.replicaSelection";
 
   private static final Logger LOGGER = LoggerFactory.getLogger(BrokerServerBuilder.class);
   private static final long DEFAULT_BROKER_TIME_OUT = 10 * 1000L;
@@ -177,9 +184,22 @@ public class BrokerServerBuilder {
     }
     LOGGER.info("Broker timeout is - " + brokerTimeOut + " ms");
 
+    SpeculativeRequestConfig speculativeRequestConfig = new SpeculativeRequestConfig();
+    speculativeRequestConfig.init(_config.subset(SPECULATIVE_REQUEST_CONFIG_PREFIX));
+
+    ReplicaSelection replicaSelection;
+    String replicaSelectionPolicy =
+        _config.getString(REPLICA_SELECTION_CONFIG, ReplicaSelectionPolicy.ROUND_ROBIN.name());
+    if (ReplicaSelectionPolicy.ADAPTIVE.name().equalsIgnoreCase(replicaSelectionPolicy)) {
+      replicaSelection = new AdaptiveReplicaSelection();
+    } else {
+      replicaSelection = new RoundRobinReplicaSelection();
+    }
+    LOGGER.info("Replica selection is - " + replicaSelection.getClass().getSimpleName());
+
     _requestHandler =
         new BrokerRequestHandler(_routingTable, _timeBoundaryService, _scatterGather, new DefaultReduceService(),
-            _brokerMetrics, brokerTimeOut);
+            _brokerMetrics, brokerTimeOut, speculativeRequestConfig, replicaSelection);
 
     //TODO: Start Broker Server : Code goes here. Broker Server part should use request handler to submit requests
 
@@ -32,6 +32,8 @@ public class IndexingConfig {
   private List<String> sortedColumn = new ArrayList<String>();
   private String loadMode;
   private String lazyLoad;
+  private boolean offHeapDictionary = false;
+  private boolean offHeapInvertedIndex = false;
   private Map<String, String> streamConfigs = new HashMap<String, String>();
 
   public IndexingConfig() {
@@ -54,6 +56,11 @@ public class IndexingConfig {
     this.streamConfigs = streamConfigs;
   }
 
+  /**
+   * Columns to build an inverted index for. In consuming realtime segments, metrics are stored as raw values unless
+   * they are listed here. Raw metrics can still be filtered on, but by scanning their values instead of looking up an
+   * inverted index.
+   */
   public List<String> getInvertedIndexColumns() {
     return invertedIndexColumns;
   }
@@ -78,6 +85,28 @@ public class IndexingConfig {
     this.lazyLoad = lazyLoad;
   }
 
+  /**
+   * Whether the consuming realtime segments of the table keep their dictionaries off heap.
+   */
+  public boolean isOffHeapDictionary() {
+    return offHeapDictionary;
+  }
+
+  public void setOffHeapDictionary(boolean offHeapDictionary) {
+    this.offHeapDictionary = offHeapDictionary;
+  }
+
+  /**
+   * Whether the consuming realtime segments of the table keep their inverted index doc ids off heap.
+   */
+  public boolean isOffHeapInvertedIndex() {
+    return offHeapInvertedIndex;
+  }
+
+  public void setOffHeapInvertedIndex(boolean offHeapInvertedIndex) {
+    this.offHeapInvertedIndex = offHeapInvertedIndex;
+  }
+
   @Override
   public String toString() {
     final StringBuilder result = new StringBuilder();
@@ -30,13 +30,22 @@ import org.apache.commons.configuration.Configuration;
 public class IndexLoadingConfigMetadata {
 
   private final static String KEY_OF_LOADING_INVERTED_INDEX = "metadata.loading.inverted.index.columns";
+  private final static String KEY_OF_LAZY_LOADING_COLUMNS = "metadata.loading.lazy.columns";
+  private final static String KEY_OF_LOADING_BLOOM_FILTER = "metadata.loading.bloom.filter.columns";
   private final Set<String> _loadingInvertedIndexColumnSet = new HashSet<String>();
+  private final Set<String> _loadingBloomFilterColumnSet = new HashSet<String>();
+  private boolean _lazyLoadingColumns = true;
 
   public IndexLoadingConfigMetadata(Configuration tableDataManagerConfig) {
     List<String> valueOfLoadingInvertedIndexConfig = tableDataManagerConfig.getList(KEY_OF_LOADING_INVERTED_INDEX, null);
     if ((valueOfLoadingInvertedIndexConfig != null) && (!valueOfLoadingInvertedIndexConfig.isEmpty())) {
       initLoadingInvertedIndexColumnSet(valueOfLoadingInvertedIndexConfig.toArray(new String[0]));
     }
+    List<String> valueOfLoadingBloomFilterConfig = tableDataManagerConfig.getList(KEY_OF_LOADING_BLOOM_FILTER, null);
+    if ((valueOfLoadingBloomFilterConfig != null) && (!valueOfLoadingBloomFilterConfig.isEmpty())) {
+      initLoadingBloomFilterColumnSet(valueOfLoadingBloomFilterConfig.toArray(new String[0]));
+    }
+    _lazyLoadingColumns = tableDataManagerConfig.getBoolean(KEY_OF_LAZY_LOADING_COLUMNS, true);
   }
 
   public void initLoadingInvertedIndexColumnSet(String[] columnCollections) {
@@ -51,4 +60,30 @@ public class IndexLoadingConfigMetadata {
     return _loadingInvertedIndexColumnSet.contains(columnName);
   }
 
+  public void initLoadingBloomFilterColumnSet(String[] columnCollections) {
+    _loadingBloomFilterColumnSet.addAll(Arrays.asList(columnCollections));
+  }
+
+  public Set<String> getLoadingBloomFilterColumns() {
+    return _loadingBloomFilterColumnSet;
+  }
+
+  /**
+   * Whether a bloom filter is created for the column when a segment without one is loaded.
+   */
+  public boolean isLoadingBloomFilterForColumn(String columnName) {
+    return _loadingBloomFilterColumnSet.contains(columnName);
+  }
+
+  /**
+   * Whether the indexes of mmapped columns are only opened when the column is first queried.
+   */
+  public boolean isLazyLoadingColumns() {
+    return _lazyLoadingColumns;
+  }
+
+  public void setLazyLoadingColumns(boolean lazyLoadingColumns) {
+    _lazyLoadingColumns = lazyLoadingColumns;
+  }
+
 }
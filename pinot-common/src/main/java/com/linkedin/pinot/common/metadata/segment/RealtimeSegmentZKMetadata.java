@@ -31,6 +31,9 @@ import static com.linkedin.pinot.common.utils.EqualityUtils.isNullOrNotSameClass
 public class RealtimeSegmentZKMetadata extends SegmentZKMetadata {
 
   private Status _status = null;
+  // Kafka offsets of the first message of the segment and of the first message after it, for low level consumers
+  private long _startOffset = -1;
+  private long _endOffset = -1;
 
   public RealtimeSegmentZKMetadata() {
     setSegmentType(SegmentType.REALTIME);
@@ -40,6 +43,8 @@ public class RealtimeSegmentZKMetadata extends SegmentZKMetadata {
     super(znRecord);
     setSegmentType(SegmentType.REALTIME);
     _status = Status.valueOf(znRecord.getSimpleField(CommonConstants.Segment.Realtime.STATUS));
+    _startOffset = znRecord.getLongField(CommonConstants.Segment.Realtime.START_OFFSET, -1);
+    _endOffset = znRecord.getLongField(CommonConstants.Segment.Realtime.END_OFFSET, -1);
   }
 
   public Status getStatus() {
@@ -50,6 +55,22 @@ public class RealtimeSegmentZKMetadata extends SegmentZKMetadata {
     _status = status;
   }
 
+  public long getStartOffset() {
+    return _startOffset;
+  }
+
+  public void setStartOffset(long startOffset) {
+    _startOffset = startOffset;
+  }
+
+  public long getEndOffset() {
+    return _endOffset;
+  }
+
+  public void setEndOffset(long endOffset) {
+    _endOffset = endOffset;
+  }
+
   @Override
   public String toString() {
     final StringBuilder result = new StringBuilder();
@@ -61,6 +82,10 @@ public class RealtimeSegmentZKMetadata extends SegmentZKMetadata {
     result.append(newline);
     result.append("  " + CommonConstants.Segment.Realtime.STATUS + " : " + _status);
     result.append(newline);
+    result.append("  " + CommonConstants.Segment.Realtime.START_OFFSET + " : " + _startOffset);
+    result.append(newline);
+    result.append("  " + CommonConstants.Segment.Realtime.END_OFFSET + " : " + _endOffset);
+    result.append(newline);
     result.append("}");
     return result.toString();
   }
@@ -69,6 +94,8 @@ public class RealtimeSegmentZKMetadata extends SegmentZKMetadata {
   public ZNRecord toZNRecord() {
     ZNRecord znRecord = super.toZNRecord();
     znRecord.setSimpleField(CommonConstants.Segment.Realtime.STATUS, _status.toString());
+    znRecord.setLongField(CommonConstants.Segment.Realtime.START_OFFSET, _startOffset);
+    znRecord.setLongField(CommonConstants.Segment.Realtime.END_OFFSET, _endOffset);
     return znRecord;
   }
 
@@ -83,19 +110,24 @@ public class RealtimeSegmentZKMetadata extends SegmentZKMetadata {
     }
 
     RealtimeSegmentZKMetadata metadata = (RealtimeSegmentZKMetadata) segmentMetadata;
-    return super.equals(metadata) && isEqual(_status, metadata._status);
+    return super.equals(metadata) && isEqual(_status, metadata._status) && isEqual(_startOffset, metadata._startOffset)
+        && isEqual(_endOffset, metadata._endOffset);
   }
 
   @Override
   public int hashCode() {
     int result = super.hashCode();
-    return hashCodeOf(result, _status);
+    result = hashCodeOf(result, _status);
+    result = hashCodeOf(result, _startOffset);
+    return hashCodeOf(result, _endOffset);
   }
 
   @Override
   public Map<String, String> toMap() {
     Map<String, String> configMap = super.toMap();
     configMap.put(CommonConstants.Segment.Realtime.STATUS, _status.toString());
+    configMap.put(CommonConstants.Segment.Realtime.START_OFFSET, Long.toString(_startOffset));
+    configMap.put(CommonConstants.Segment.Realtime.END_OFFSET, Long.toString(_endOffset));
     configMap.put(CommonConstants.Segment.SEGMENT_TYPE, SegmentType.REALTIME.toString());
     return configMap;
   }
@@ -34,6 +34,7 @@ public class KafkaStreamMetadata implements StreamMetadata {
   private final String _kafkaTopicName;
   private final ConsumerType _consumerType;
   private final String _zkBrokerUrl;
+  private final String _bootstrapHosts;
   private final String _decoderClass;
   private final Map<String, String> _decoderProperties = new HashMap<String, String>();
   private final Map<String, String> _streamConfigMap = new HashMap<String, String>();
@@ -42,6 +43,9 @@ public class KafkaStreamMetadata implements StreamMetadata {
     _zkBrokerUrl =
         streamConfigMap.get(StringUtil.join(".", Helix.DataSource.STREAM_PREFIX,
             Helix.DataSource.Realtime.Kafka.HighLevelConsumer.ZK_CONNECTION_STRING));
+    _bootstrapHosts =
+        streamConfigMap.get(StringUtil.join(".", Helix.DataSource.STREAM_PREFIX,
+            Helix.DataSource.Realtime.Kafka.LowLevelConsumer.BROKER_LIST));
     _consumerType =
         ConsumerType.valueOf(streamConfigMap.get(StringUtil.join(".", CommonConstants.Helix.DataSource.STREAM_PREFIX,
             CommonConstants.Helix.DataSource.Realtime.Kafka.CONSUMER_TYPE)));
@@ -80,6 +84,13 @@ public class KafkaStreamMetadata implements StreamMetadata {
     return _zkBrokerUrl;
   }
 
+  /**
+   * Comma separated host:port list of the brokers the low level consumer discovers partition leaders from.
+   */
+  public String getBootstrapHosts() {
+    return _bootstrapHosts;
+  }
+
   public String getDecoderClass() {
     return _decoderClass;
   }
@@ -127,6 +138,7 @@ public class KafkaStreamMetadata implements StreamMetadata {
     return isEqual(_kafkaTopicName, that._kafkaTopicName) &&
         isEqual(_consumerType, that._consumerType) &&
         isEqual(_zkBrokerUrl, that._zkBrokerUrl) &&
+        isEqual(_bootstrapHosts, that._bootstrapHosts) &&
         isEqual(_decoderClass, that._decoderClass) &&
         isEqual(_decoderProperties, that._decoderProperties) &&
         isEqual(_streamConfigMap, that._streamConfigMap);
@@ -137,6 +149,7 @@ public class KafkaStreamMetadata implements StreamMetadata {
     int result = hashCodeOf(_kafkaTopicName);
     result = hashCodeOf(result, _consumerType);
     result = hashCodeOf(result, _zkBrokerUrl);
+    result = hashCodeOf(result, _bootstrapHosts);
     result = hashCodeOf(result, _decoderClass);
     result = hashCodeOf(result, _decoderProperties);
     result = hashCodeOf(result, _streamConfigMap);
@@ -116,6 +116,18 @@ public abstract class AbstractMetrics<QP extends AbstractMetrics.QueryPhase, M e
    * @param unitCount The number of units to add to the meter
    */
   public void addMeteredValue(final BrokerRequest request, final M meter, final long unitCount) {
+    getMeter(request, meter).mark(unitCount);
+  }
+
+  /**
+   * Returns the meter {@link #addMeteredValue(BrokerRequest, Meter, long)} adds to, so that callers marking it
+   * often can look it up once.
+   *
+   * @param request The broker request associated with this query or null if this meter applies globally
+   * @param meter The meter to look up
+   * @return The registered meter
+   */
+  public com.yammer.metrics.core.Meter getMeter(final BrokerRequest request, final M meter) {
     final String fullMeterName;
     String meterName = meter.getMeterName();
     if (request != null) {
@@ -125,7 +137,7 @@ public abstract class AbstractMetrics<QP extends AbstractMetrics.QueryPhase, M e
     }
     final MetricName metricName = new MetricName(_clazz, fullMeterName);
 
-    MetricsHelper.newMeter(_metricsRegistry, metricName, meter.getUnit(), TimeUnit.SECONDS).mark(unitCount);
+    return MetricsHelper.newMeter(_metricsRegistry, metricName, meter.getUnit(), TimeUnit.SECONDS);
   }
 
   /**
@@ -26,7 +26,14 @@ public enum ServerMeter implements AbstractMetrics.Meter {
   QUERIES("queries", true),
   UNCAUGHT_EXCEPTIONS("exceptions", true),
   RESPONSE_SERIALIZATION_EXCEPTIONS("exceptions", true),
-  QUERY_EXECUTION_EXCEPTIONS("exceptions", false);
+  QUERY_EXECUTION_EXCEPTIONS("exceptions", false),
+  QUERIES_REJECTED("queries", false),
+  BITMAP_CACHE_HITS("bitmaps", true),
+  BITMAP_CACHE_MISSES("bitmaps", true),
+  BITMAP_CACHE_EVICTIONS("bitmaps", true),
+  RESULT_CACHE_HITS("segments", true),
+  RESULT_CACHE_MISSES("segments", true),
+  RESULT_CACHE_EVICTIONS("segments", true);
 
   private final String meterName;
   private final String unit;
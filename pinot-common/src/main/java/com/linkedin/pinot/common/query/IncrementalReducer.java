@@ -0,0 +1,42 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.query;
+
+import com.linkedin.pinot.common.response.BrokerResponse;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.common.utils.DataTable;
+
+
+/**
+ * Reduces the DataTables of one request as they arrive, so that only the merged state is kept in memory instead
+ * of the responses of all the server instances.
+ */
+public interface IncrementalReducer {
+  /**
+   * Merge the response of one server instance. The DataTable is not referenced after this call returns.
+   *
+   * @param serverInstance
+   * @param instanceResponse
+   */
+  public void merge(ServerInstance serverInstance, DataTable instanceResponse);
+
+  /**
+   * Build the brokerResponse from all the responses merged so far. Called once, after the last merge.
+   *
+   * @return BrokerResponse
+   */
+  public BrokerResponse getBrokerResponse();
+}
@@ -50,4 +50,14 @@ public interface ReduceService {
   public BrokerResponse reduceOnDataTable(BrokerRequest brokerRequest,
       Map<ServerInstance, DataTable> instanceResponseMap);
 
+  /**
+   * Get a reducer that merges DataTables one at a time, as they are received from the server instances, and
+   * produces the same brokerResponse as {@link #reduceOnDataTable(BrokerRequest, Map)} would on all of them.
+   * The returned reducer is used for one request and does not need to be thread safe.
+   *
+   * @param brokerRequest
+   * @return IncrementalReducer
+   */
+  public IncrementalReducer getIncrementalReducer(BrokerRequest brokerRequest);
+
 }
@@ -119,6 +119,14 @@ public class CommonConstants {
             public static final String ZK_CONNECTION_STRING = "kafka.hlc.zk.connect.string";
             public static final String GROUP_ID = "kafka.hlc.group.id";
           }
+
+          public static class LowLevelConsumer {
+            public static final String BROKER_LIST = "kafka.lowlevel.broker.list";
+            public static final String PARTITION = "kafka.lowlevel.partition";
+            public static final String FETCH_SIZE = "kafka.lowlevel.fetch.size";
+            public static final String FETCH_TIMEOUT_MILLIS = "kafka.lowlevel.fetch.timeout.millis";
+            public static final String OFFSET_RESET = "kafka.lowlevel.offset.reset";
+          }
         }
       }
 
@@ -161,11 +169,15 @@ public class CommonConstants {
     public static final String CONFIG_OF_QUERY_EXECUTOR_PRUNER_CLASS = "pinot.server.query.executor.pruner.class";
     public static final String CONFIG_OF_QUERY_EXECUTOR_TIMEOUT = "pinot.server.query.executor.timeout";
     public static final String CONFIG_OF_QUERY_EXECUTOR_CLASS = "pinot.server.query.executor.class";
+    public static final String CONFIG_OF_QUERY_EXECUTOR_DATA_TABLE_VERSION =
+        "pinot.server.query.executor.dataTableVersion";
     public static final String CONFIG_OF_REQUEST_HANDLER_FACTORY_CLASS = "pinot.server.requestHandlerFactory.class";
     public static final String CONFIG_OF_NETTY_PORT = "pinot.server.netty.port";
     public static final String CONFIG_OF_SEGMENT_LOAD_MAX_RETRY_COUNT = "pinot.server.segment.loadMaxRetryCount";
     public static final String CONFIG_OF_SEGMENT_LOAD_MIN_RETRY_DELAY_MILLIS =
         "pinot.server.segment.minRetryDelayMillis";
+    public static final String CONFIG_OF_SEGMENT_DOWNLOAD_MAX_CONCURRENCY =
+        "pinot.server.segment.downloadMaxConcurrency";
 
     public static final String DEFAULT_READ_MODE = "heap";
     public static final String DEFAULT_INSTANCE_DATA_DIR = "/tmp/PinotServer/test/index";
@@ -177,10 +189,13 @@ public class CommonConstants {
     public static final String DEFAULT_QUERY_EXECUTOR_CLASS =
         "com.linkedin.pinot.core.query.executor.ServerQueryExecutorV1Impl";
     public static final String DEFAULT_QUERY_EXECUTOR_TIMEOUT = "150000";
+    // Version 2 data tables can only be read by upgraded brokers
+    public static final String DEFAULT_QUERY_EXECUTOR_DATA_TABLE_VERSION = "1";
     public static final String DEFAULT_REQUEST_HANDLER_FACTORY_CLASS =
         "com.linkedin.pinot.server.request.SimpleRequestHandlerFactory";
     public static final String DEFAULT_SEGMENT_LOAD_MAX_RETRY_COUNT = "5";
     public static final String DEFAULT_SEGMENT_LOAD_MIN_RETRY_DELAY_MILLIS = "60000";
+    public static final String DEFAULT_SEGMENT_DOWNLOAD_MAX_CONCURRENCY = "4";
   }
 
   public static class Metric {
@@ -188,6 +203,12 @@ public class CommonConstants {
       public static final String CURRENT_NUMBER_OF_SEGMENTS = "currentNumberOfSegments";
       public static final String CURRENT_NUMBER_OF_DOCUMENTS = "currentNumberOfDocuments";
       public static final String NUMBER_OF_DELETED_SEGMENTS = "numberOfDeletedSegments";
+      public static final String REALTIME_ROWS_CONSUMED = "realtimeRowsConsumed";
+      public static final String REALTIME_ROWS_INDEXED = "realtimeRowsIndexed";
+      public static final String REALTIME_ROWS_BUFFERED = "realtimeRowsBuffered";
+      public static final String REALTIME_CONSUMER_OFFSET_LAG = "realtimeConsumerOffsetLag";
+      public static final String REALTIME_SEGMENT_CONVERSION_TIME = "realtimeSegmentConversionTime";
+      public static final String REALTIME_SEGMENT_CONVERSION_FAILURES = "realtimeSegmentConversionFailures";
     }
 
   }
@@ -199,6 +220,8 @@ public class CommonConstants {
         DONE
       }
       public static final String STATUS = "segment.realtime.status";
+      public static final String START_OFFSET = "segment.realtime.start.offset";
+      public static final String END_OFFSET = "segment.realtime.end.offset";
     }
 
     public static class Offline {
@@ -15,27 +15,20 @@
  */
 package com.linkedin.pinot.common.utils;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.Closeable;
-import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutput;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.linkedin.pinot.common.Utils;
 import com.linkedin.pinot.common.data.FieldSpec.DataType;
 import com.linkedin.pinot.common.response.ProcessingException;
 import com.linkedin.pinot.common.utils.DataTableBuilder.DataSchema;
@@ -44,6 +37,15 @@ import com.linkedin.pinot.common.utils.DataTableBuilder.DataSchema;
 /**
  *
  * Read only Datatable. Use DataTableBuilder to build the data table
+ *
+ * Versions of the serialized format:
+ * <ul>
+ *   <li>1: object cells use Java serialization, dictionary and metadata lengths are written as ints.</li>
+ *   <li>2: object cells use {@link DataTableObjectSerDe}, dictionary and metadata lengths and ids are varints.</li>
+ * </ul>
+ * Both versions can be read; a table is always written back in the version it was built or read with. Tables are
+ * built in {@link #DEFAULT_VERSION} unless the builder is given another version, so that servers keep writing a
+ * format every broker can read until they are configured otherwise.
  */
 public class DataTable {
   private static final Charset UTF8 = Charset.forName("UTF-8");
@@ -56,7 +58,17 @@ public class DataTable {
 
   DataSchema schema;
 
-  static int VERSION = 1;
+  public static final int VERSION_1 = 1;
+  public static final int VERSION_2 = 2;
+  public static final int DEFAULT_VERSION = VERSION_1;
+
+  private int version = DEFAULT_VERSION;
+
+  public static void checkVersion(int version) {
+    if (version < VERSION_1 || version > VERSION_2) {
+      throw new IllegalArgumentException("Unsupported DataTable version: " + version);
+    }
+  }
 
   private Map<String, Map<Integer, String>> dictionary;
 
@@ -86,6 +98,16 @@ public class DataTable {
    */
   public DataTable(int numRows, Map<String, Map<Integer, String>> dictionary, Map<String, String> metadata,
       DataSchema schema, byte[] fixedSizeDataBytes, byte[] variableSizeDataBytes) throws Exception {
+    this(numRows, dictionary, metadata, schema, fixedSizeDataBytes, variableSizeDataBytes, DEFAULT_VERSION);
+  }
+
+  /**
+   * @param version format version the object cells in variableSizeDataBytes are encoded with
+   */
+  public DataTable(int numRows, Map<String, Map<Integer, String>> dictionary, Map<String, String> metadata,
+      DataSchema schema, byte[] fixedSizeDataBytes, byte[] variableSizeDataBytes, int version) throws Exception {
+    checkVersion(version);
+    this.version = version;
     this.numRows = numRows;
     this.dictionary = dictionary;
     this.metadata = metadata;
@@ -173,10 +195,20 @@ public class DataTable {
    * @param buffer
    */
   public DataTable(byte[] buffer) {
+    this(ByteBuffer.wrap(buffer));
+  }
+
+  /**
+   * Reads a serialized data table. The fixed and variable size data sections are read in place as slices of the
+   * given buffer, so the buffer must not be modified while this data table is in use.
+   *
+   * @param buffer serialized data table, from its position to its limit
+   */
+  public DataTable(ByteBuffer buffer) {
 
-    final ByteBuffer input = ByteBuffer.wrap(buffer);
+    final ByteBuffer input = buffer.slice();
 
-    final int version = input.getInt();
+    version = input.getInt();
     numRows = input.getInt();
     numCols = input.getInt();
     // READ dictionary
@@ -192,16 +224,10 @@ public class DataTable {
     final int variableDataLength = input.getInt();
 
     // READ DICTIONARY
-    final byte[] dictionaryBytes = new byte[dictionaryLength];
-    input.position(dictionaryStart);
-    input.get(dictionaryBytes);
-    dictionary = (Map<String, Map<Integer, String>>) deserializeDictionary(dictionaryBytes);
+    dictionary = deserializeDictionary(slice(input, dictionaryStart, dictionaryLength));
 
     // READ METADATA
-    final byte[] metadataBytes = new byte[metadataLength];
-    input.position(metadataStart);
-    input.get(metadataBytes);
-    metadata = (Map<String, String>) deserializeMetadata(metadataBytes);
+    metadata = deserializeMetadata(slice(input, metadataStart, metadataLength));
 
     // READ SCHEMA
     final byte[] schemaBytes = new byte[schemaLength];
@@ -210,18 +236,19 @@ public class DataTable {
     schema = DataSchema.fromBytes(schemaBytes);
     columnOffsets = computeColumnOffsets(schema);
 
-    // READ FIXED SIZE DATA BYTES 
-    fixedSizeDataBytes = new byte[fixedDataLength];
-    input.position(fixedDataStart);
-    input.get(fixedSizeDataBytes);
-    fixedSizeData = ByteBuffer.wrap(fixedSizeDataBytes);
+    // FIXED SIZE DATA, READ IN PLACE
+    fixedSizeData = slice(input, fixedDataStart, fixedDataLength);
 
-    // READ VARIABLE SIZE DATA BYTES 
-    variableSizeDataBytes = new byte[variableDataLength];
-    input.position(variableDataStart);
-    input.get(variableSizeDataBytes);
-    variableSizeData = ByteBuffer.wrap(variableSizeDataBytes);
+    // VARIABLE SIZE DATA, READ IN PLACE
+    variableSizeData = slice(input, variableDataStart, variableDataLength);
+
+  }
 
+  private static ByteBuffer slice(ByteBuffer buffer, int start, int length) {
+    ByteBuffer duplicate = buffer.duplicate();
+    duplicate.position(start);
+    duplicate.limit(start + length);
+    return duplicate.slice();
   }
 
   public DataTable() {
@@ -251,7 +278,7 @@ public class DataTable {
     // DICTIONARY, METADATA,
     // SCHEMA, DATATABLE, VARIABLE DATA BUFFER --> 4 + 4 + 4 + 5*8 = 52
     // bytes
-    out.writeInt(VERSION);
+    out.writeInt(version);
     out.writeInt(numRows);
     out.writeInt(numCols);
     // dictionary
@@ -272,19 +299,19 @@ public class DataTable {
 
     // datatable
     out.writeInt(baseOffset);
-    if (fixedSizeDataBytes == null) {
+    if (fixedSizeData == null) {
       out.writeInt(0);
     } else {
-      out.writeInt(fixedSizeDataBytes.length);
-      baseOffset += fixedSizeDataBytes.length;
+      out.writeInt(fixedSizeData.capacity());
+      baseOffset += fixedSizeData.capacity();
     }
 
     // variable data
     out.writeInt(baseOffset);
-    if (variableSizeDataBytes == null) {
+    if (variableSizeData == null) {
       out.writeInt(0);
     } else {
-      out.writeInt(variableSizeDataBytes.length);
+      out.writeInt(variableSizeData.capacity());
     }
 
     // write them
@@ -293,26 +320,58 @@ public class DataTable {
     out.write(schemaBytes);
     if (fixedSizeDataBytes != null) {
       out.write(fixedSizeDataBytes);
+    } else if (fixedSizeData != null) {
+      writeBuffer(fixedSizeData, out);
     }
     if (variableSizeDataBytes != null) {
       out.write(variableSizeDataBytes);
+    } else if (variableSizeData != null) {
+      writeBuffer(variableSizeData, out);
     }
     byte[] byteArray = baos.toByteArray();
-    long end = System.currentTimeMillis();
     return byteArray;
   }
 
+  private static void writeBuffer(ByteBuffer buffer, DataOutputStream out) throws IOException {
+    ByteBuffer duplicate = buffer.duplicate();
+    duplicate.clear();
+    Channels.newChannel(out).write(duplicate);
+  }
+
+  private void writeLength(int length, DataOutputStream out) throws IOException {
+    if (version >= 2) {
+      DataTableObjectSerDe.writeVarInt(length, out);
+    } else {
+      out.writeInt(length);
+    }
+  }
+
+  private int readLength(ByteBuffer buffer) {
+    if (version >= 2) {
+      return DataTableObjectSerDe.readVarInt(buffer);
+    } else {
+      return buffer.getInt();
+    }
+  }
+
+  private String readString(ByteBuffer buffer) {
+    int length = readLength(buffer);
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, UTF8);
+  }
+
   private byte[] serializeMetadata() throws Exception {
     if (metadata != null) {
       final ByteArrayOutputStream baos = new ByteArrayOutputStream();
       final DataOutputStream out = new DataOutputStream(baos);
-      out.writeInt(metadata.size());
+      writeLength(metadata.size(), out);
       for (Entry<String, String> entry : metadata.entrySet()) {
         byte[] keyBytes = entry.getKey().getBytes(UTF8);
-        out.writeInt(keyBytes.length);
+        writeLength(keyBytes.length, out);
         out.write(keyBytes);
         byte[] valueBytes = entry.getValue().getBytes(UTF8);
-        out.writeInt(valueBytes.length);
+        writeLength(valueBytes.length, out);
         out.write(valueBytes);
       }
       return baos.toByteArray();
@@ -320,23 +379,16 @@ public class DataTable {
     return new byte[0];
   }
 
-  private Map<String, String> deserializeMetadata(byte[] buffer) {
+  private Map<String, String> deserializeMetadata(ByteBuffer buffer) {
     Map<String, String> map = new HashMap<String, String>();
     try {
-      final ByteArrayInputStream bais = new ByteArrayInputStream(buffer);
-      final DataInputStream in = new DataInputStream(bais);
-      int size = in.readInt();
+      int size = readLength(buffer);
       for (int i = 0; i < size; i++) {
-        Integer keyLength = in.readInt();
-        byte[] keyBytes = new byte[keyLength];
-        in.read(keyBytes);
-        int valueLength = in.readInt();
-        byte[] valueBytes = new byte[valueLength];
-        in.read(valueBytes);
-        map.put(new String(keyBytes), new String(valueBytes));
+        String key = readString(buffer);
+        map.put(key, readString(buffer));
       }
     } catch (Exception e) {
-      LOGGER.error("Exception while deserializing dictionary", e);
+      LOGGER.error("Exception while deserializing metadata", e);
     }
     return map;
   }
@@ -345,17 +397,17 @@ public class DataTable {
     if (dictionary != null) {
       final ByteArrayOutputStream baos = new ByteArrayOutputStream();
       final DataOutputStream out = new DataOutputStream(baos);
-      out.writeInt(dictionary.size());
+      writeLength(dictionary.size(), out);
       for (String key : dictionary.keySet()) {
         byte[] bytes = key.getBytes(UTF8);
-        out.writeInt(bytes.length);
+        writeLength(bytes.length, out);
         out.write(bytes);
         Map<Integer, String> map = dictionary.get(key);
-        out.writeInt(map.size());
+        writeLength(map.size(), out);
         for (Entry<Integer, String> entry : map.entrySet()) {
-          out.writeInt(entry.getKey());
+          writeLength(entry.getKey(), out);
           byte[] valueBytes = entry.getValue().getBytes(UTF8);
-          out.writeInt(valueBytes.length);
+          writeLength(valueBytes.length, out);
           out.write(valueBytes);
         }
       }
@@ -364,26 +416,17 @@ public class DataTable {
     return new byte[0];
   }
 
-  private Map<String, Map<Integer, String>> deserializeDictionary(byte[] buffer) {
+  private Map<String, Map<Integer, String>> deserializeDictionary(ByteBuffer buffer) {
     Map<String, Map<Integer, String>> map = new HashMap<String, Map<Integer, String>>();
     try {
-      final ByteArrayInputStream bais = new ByteArrayInputStream(buffer);
-      final DataInputStream in = new DataInputStream(bais);
-      int size = in.readInt();
-      byte[] temp;
+      int size = readLength(buffer);
       for (int i = 0; i < size; i++) {
-        int readLength = in.readInt();
-        temp = new byte[readLength];
-        in.read(temp);
         Map<Integer, String> childMap = new HashMap<Integer, String>();
-        map.put(new String(temp), childMap);
-        int childMapSize = in.readInt();
+        map.put(readString(buffer), childMap);
+        int childMapSize = readLength(buffer);
         for (int j = 0; j < childMapSize; j++) {
-          Integer key = in.readInt();
-          int valueLength = in.readInt();
-          temp = new byte[valueLength];
-          in.read(temp);
-          childMap.put(key, new String(temp));
+          Integer key = readLength(buffer);
+          childMap.put(key, readString(buffer));
         }
       }
     } catch (Exception e) {
@@ -392,60 +435,6 @@ public class DataTable {
     return map;
   }
 
-  /**
-   *
-   * @param value
-   * @return
-   */
-  private byte[] serializeObject(Object value) {
-    long start = System.nanoTime();
-
-    byte[] bytes;
-    final ByteArrayOutputStream bos = new ByteArrayOutputStream();
-    ObjectOutput out = null;
-
-    try {
-      try {
-        out = new ObjectOutputStream(bos);
-        out.writeObject(value);
-      } catch (final IOException e) {
-        LOGGER.error("Caught exception", e);
-        Utils.rethrowException(e);
-      }
-      bytes = bos.toByteArray();
-
-    } finally {
-      IOUtils.closeQuietly((Closeable) out);
-      IOUtils.closeQuietly(bos);
-    }
-    long end = System.nanoTime();
-    return bytes;
-  }
-
-  @SuppressWarnings("unchecked")
-  private <T extends Serializable> T deserialize(byte[] value) {
-    long start = System.nanoTime();
-    final ByteArrayInputStream bais = new ByteArrayInputStream(value);
-    ObjectInputStream out = null;
-    Object readObject;
-    try {
-      try {
-        out = new ObjectInputStream(bais);
-        readObject = out.readObject();
-
-      } catch (final Exception e) {
-        LOGGER.error("Caught exception while deserializing DataTable", e);
-        return null;
-      }
-    } finally {
-      IOUtils.closeQuietly(out);
-      IOUtils.closeQuietly(bais);
-    }
-    long end = System.nanoTime();
-    return (T) readObject;
-
-  }
-
   /**
    *
    * @return
@@ -702,9 +691,23 @@ public class DataTable {
   @SuppressWarnings("unchecked")
   public <T extends Serializable> T getObject(int rowId, int colId) {
     final int length = positionCursorInVariableBuffer(rowId, colId);
-    final byte[] serData = new byte[length];
-    variableSizeData.get(serData);
-    return (T) deserialize(serData);
+    try {
+      if (version >= 2) {
+        return (T) DataTableObjectSerDe.deserialize(variableSizeData);
+      } else {
+        return (T) DataTableObjectSerDe.javaDeserialize(variableSizeData, length);
+      }
+    } catch (final Exception e) {
+      LOGGER.error("Caught exception while deserializing DataTable", e);
+      return null;
+    }
+  }
+
+  /**
+   * @return the version of the serialized format this data table was built or read with.
+   */
+  public int getVersion() {
+    return version;
   }
 
   /**
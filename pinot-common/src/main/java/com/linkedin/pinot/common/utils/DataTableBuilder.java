@@ -15,17 +15,11 @@
  */
 package com.linkedin.pinot.common.utils;
 
-import com.linkedin.pinot.common.Utils;
-
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.Closeable;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.ObjectOutput;
-import java.io.ObjectOutputStream;
-import java.io.OutputStream;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
 import java.util.HashMap;
@@ -33,7 +27,6 @@ import java.util.Map;
 
 import com.linkedin.pinot.common.data.FieldSpec.DataType;
 
-import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -134,7 +127,18 @@ public class DataTableBuilder {
 
   boolean isOpen = false;
 
+  /**
+   * Format version of the built data table, object cells are encoded as they are set
+   */
+  private final int version;
+
   public DataTableBuilder(DataSchema schema) {
+    this(schema, DataTable.DEFAULT_VERSION);
+  }
+
+  public DataTableBuilder(DataSchema schema, int version) {
+    DataTable.checkVersion(version);
+    this.version = version;
     this.schema = schema;
     this.metadata = new HashMap<String, String>();
     columnOffsets = new int[schema.columnNames.length];
@@ -328,7 +332,11 @@ public class DataTableBuilder {
   public void setColumn(int columnIndex, Object value) throws Exception {
 
     byte[] bytes = new byte[0];
-    bytes = serializeObject(value);
+    if (version >= DataTable.VERSION_2) {
+      bytes = DataTableObjectSerDe.serialize(value);
+    } else {
+      bytes = DataTableObjectSerDe.javaSerialize(value);
+    }
     currentRowData.position(columnOffsets[columnIndex]);
     currentRowData.putInt(variableSizeDataHolder.position());
     variableSizeDataHolder.add(bytes);
@@ -470,32 +478,6 @@ public class DataTableBuilder {
     currentRowData.putInt(values.length);
   }
 
-  /**
-   *
-   * @param value
-   * @return
-   */
-  private byte[] serializeObject(Object value) {
-    byte[] bytes;
-    ByteArrayOutputStream bos = new ByteArrayOutputStream();
-    ObjectOutput out = null;
-
-    try {
-      try {
-        out = new ObjectOutputStream(bos);
-        out.writeObject(value);
-      } catch (IOException e) {
-        LOGGER.error("Caught exception", e);
-        Utils.rethrowException(e);
-      }
-      bytes = bos.toByteArray();
-    } finally {
-      IOUtils.closeQuietly((Closeable) out);
-      IOUtils.closeQuietly(bos);
-    }
-    return bytes;
-  }
-
   /**
    *
    * @throws Exception
@@ -528,7 +510,7 @@ public class DataTableBuilder {
   public DataTable build() throws Exception {
 
     return new DataTable(currentRowId, reverseDictionary, metadata, schema, fixedSizeDataHolder.toBytes(),
-        variableSizeDataHolder.toBytes());
+        variableSizeDataHolder.toBytes(), version);
   }
 
   /**
@@ -0,0 +1,38 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.utils;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+
+/**
+ * Binary encoding for one type of object stored in a DataTable object cell.
+ *
+ * Codecs are registered in {@link DataTableObjectSerDe} under a type id, which is written in front of every encoded
+ * value. An encoded value must be self delimiting: deserialize must consume exactly the bytes written by serialize,
+ * since values can be nested (e.g. in a group by result map).
+ */
+public interface DataTableObjectCodec<T> {
+
+  void serialize(T value, DataOutputStream out) throws IOException;
+
+  /**
+   * Read one value starting at the current position of the buffer, leaving the position right after it.
+   */
+  T deserialize(ByteBuffer buffer) throws IOException;
+}
@@ -0,0 +1,261 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.linkedin.pinot.common.utils.primitive.MutableLongValue;
+
+
+/**
+ * Compact binary encoding of the objects stored in DataTable object cells (version 2 of the DataTable format).
+ *
+ * Every value is written as a one byte type id followed by the payload of the codec registered for that type id.
+ * The common types (numbers, strings, group by result maps) are handled here; modules can register codecs for
+ * their own types (e.g. aggregation function intermediate results) with a type id >= {@link #FIRST_CUSTOM_TYPE}.
+ * Values without a codec fall back to Java serialization, so any Serializable can still be sent.
+ */
+public class DataTableObjectSerDe {
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  public static final byte JAVA_SERIALIZED = 0;
+  public static final byte STRING = 1;
+  public static final byte INTEGER = 2;
+  public static final byte LONG = 3;
+  public static final byte DOUBLE = 4;
+  public static final byte MUTABLE_LONG = 5;
+  public static final byte STRING_MAP = 6;
+
+  /**
+   * Type ids below this value are reserved for the types handled by this class.
+   */
+  public static final byte FIRST_CUSTOM_TYPE = 32;
+
+  private static final Map<Byte, DataTableObjectCodec<?>> CODECS = new ConcurrentHashMap<Byte, DataTableObjectCodec<?>>();
+  private static final Map<Class<?>, Byte> TYPE_IDS = new ConcurrentHashMap<Class<?>, Byte>();
+
+  private DataTableObjectSerDe() {
+  }
+
+  /**
+   * Register a codec for objects of exactly the given class. Registering the same class twice under the same type
+   * id is a no-op.
+   */
+  public static synchronized <T> void register(byte typeId, Class<T> clazz, DataTableObjectCodec<T> codec) {
+    if (typeId < FIRST_CUSTOM_TYPE) {
+      throw new IllegalArgumentException("Type id " + typeId + " is reserved, custom type ids start at "
+          + FIRST_CUSTOM_TYPE);
+    }
+    Byte registeredTypeId = TYPE_IDS.get(clazz);
+    if (registeredTypeId != null) {
+      if (registeredTypeId != typeId) {
+        throw new IllegalStateException("Class " + clazz.getName() + " is already registered with type id "
+            + registeredTypeId);
+      }
+      return;
+    }
+    if (CODECS.containsKey(typeId)) {
+      throw new IllegalStateException("Type id " + typeId + " is already registered");
+    }
+    CODECS.put(typeId, codec);
+    TYPE_IDS.put(clazz, typeId);
+  }
+
+  public static byte[] serialize(Object value) throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bos);
+    serialize(value, out);
+    out.flush();
+    return bos.toByteArray();
+  }
+
+  @SuppressWarnings("unchecked")
+  public static void serialize(Object value, DataOutputStream out) throws IOException {
+    if (value instanceof String) {
+      out.writeByte(STRING);
+      writeString((String) value, out);
+    } else if (value instanceof Integer) {
+      out.writeByte(INTEGER);
+      out.writeInt((Integer) value);
+    } else if (value instanceof Long) {
+      out.writeByte(LONG);
+      out.writeLong((Long) value);
+    } else if (value instanceof Double) {
+      out.writeByte(DOUBLE);
+      out.writeDouble((Double) value);
+    } else if (value != null && value.getClass() == MutableLongValue.class) {
+      out.writeByte(MUTABLE_LONG);
+      out.writeLong(((MutableLongValue) value).getValue());
+    } else if (value instanceof Map && hasOnlyStringKeys((Map<?, ?>) value)) {
+      Map<String, ?> map = (Map<String, ?>) value;
+      out.writeByte(STRING_MAP);
+      writeVarInt(map.size(), out);
+      for (Entry<String, ?> entry : map.entrySet()) {
+        writeString(entry.getKey(), out);
+        serialize(entry.getValue(), out);
+      }
+    } else {
+      Byte typeId = (value == null) ? null : TYPE_IDS.get(value.getClass());
+      if (typeId != null) {
+        out.writeByte(typeId);
+        ((DataTableObjectCodec<Object>) CODECS.get(typeId)).serialize(value, out);
+      } else {
+        out.writeByte(JAVA_SERIALIZED);
+        byte[] bytes = javaSerialize(value);
+        writeVarInt(bytes.length, out);
+        out.write(bytes);
+      }
+    }
+  }
+
+  /**
+   * Read one value starting at the current position of the buffer, leaving the position right after it.
+   */
+  public static Serializable deserialize(ByteBuffer buffer) throws IOException {
+    byte typeId = buffer.get();
+    switch (typeId) {
+      case JAVA_SERIALIZED:
+        int length = readVarInt(buffer);
+        Serializable value = javaDeserialize(buffer, length);
+        buffer.position(buffer.position() + length);
+        return value;
+      case STRING:
+        return readString(buffer);
+      case INTEGER:
+        return buffer.getInt();
+      case LONG:
+        return buffer.getLong();
+      case DOUBLE:
+        return buffer.getDouble();
+      case MUTABLE_LONG:
+        return new MutableLongValue(buffer.getLong());
+      case STRING_MAP:
+        int size = readVarInt(buffer);
+        HashMap<String, Serializable> map = new HashMap<String, Serializable>((int) (size / 0.75f) + 1);
+        for (int i = 0; i < size; i++) {
+          String key = readString(buffer);
+          map.put(key, deserialize(buffer));
+        }
+        return map;
+      default:
+        DataTableObjectCodec<?> codec = CODECS.get(typeId);
+        if (codec == null) {
+          throw new IOException("No codec registered for DataTable object type id " + typeId);
+        }
+        return (Serializable) codec.deserialize(buffer);
+    }
+  }
+
+  /**
+   * Deserialize a cell written with Java serialization (DataTable version 1), reading length bytes from the
+   * current position of the buffer without moving it.
+   */
+  public static Serializable javaDeserialize(ByteBuffer buffer, int length) throws IOException {
+    InputStream in;
+    if (buffer.hasArray()) {
+      in = new ByteArrayInputStream(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+    } else {
+      byte[] bytes = new byte[length];
+      buffer.duplicate().get(bytes);
+      in = new ByteArrayInputStream(bytes);
+    }
+    ObjectInputStream objectInputStream = new ObjectInputStream(in);
+    try {
+      return (Serializable) objectInputStream.readObject();
+    } catch (ClassNotFoundException e) {
+      throw new IOException(e);
+    } finally {
+      objectInputStream.close();
+    }
+  }
+
+  public static byte[] javaSerialize(Object value) throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(bos);
+    try {
+      out.writeObject(value);
+    } finally {
+      out.close();
+    }
+    return bos.toByteArray();
+  }
+
+  public static void writeString(String value, DataOutput out) throws IOException {
+    byte[] bytes = value.getBytes(UTF8);
+    writeVarInt(bytes.length, out);
+    out.write(bytes);
+  }
+
+  public static String readString(ByteBuffer buffer) {
+    int length = readVarInt(buffer);
+    String value;
+    if (buffer.hasArray()) {
+      value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, UTF8);
+      buffer.position(buffer.position() + length);
+    } else {
+      byte[] bytes = new byte[length];
+      buffer.get(bytes);
+      value = new String(bytes, UTF8);
+    }
+    return value;
+  }
+
+  /**
+   * Write a non negative int using 7 bits per byte, the high bit of each byte telling whether more bytes follow.
+   */
+  public static void writeVarInt(int value, DataOutput out) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      out.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  public static int readVarInt(ByteBuffer buffer) {
+    int value = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = buffer.get();
+      value |= (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+
+  private static boolean hasOnlyStringKeys(Map<?, ?> map) {
+    for (Object key : map.keySet()) {
+      if (!(key instanceof String)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
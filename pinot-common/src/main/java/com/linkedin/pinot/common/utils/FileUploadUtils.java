@@ -105,4 +105,30 @@ public class FileUploadUtils {
       throw new AssertionError("Should not reach this");
     }
   }
+
+  /**
+   * Download a tar or tar.gz segment and untar it into outputDir as it is received, without writing the archive to
+   * disk first.
+   *
+   * @return the content length of the response
+   */
+  public static long getFileAndUnTar(String url, File outputDir) {
+    GetMethod httpget = new GetMethod(url);
+    try {
+      HttpClient httpClient = new HttpClient();
+      int responseCode = httpClient.executeMethod(httpget);
+      if (responseCode != 200) {
+        throw new HttpException("Got response code " + responseCode + " while downloading " + url);
+      }
+      long ret = httpget.getResponseContentLength();
+      TarGzCompressionUtils.unTar(httpget.getResponseBodyAsStream(), outputDir);
+      return ret;
+    } catch (Exception ex) {
+      LOGGER.error("Caught exception", ex);
+      Utils.rethrowException(ex);
+      throw new AssertionError("Should not reach this");
+    } finally {
+      httpget.releaseConnection();
+    }
+  }
 }
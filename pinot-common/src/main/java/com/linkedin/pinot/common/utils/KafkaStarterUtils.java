@@ -73,7 +73,11 @@ public class KafkaStarterUtils {
   }
 
   public static void createTopic(String kafkaTopic, String zkStr) {
-    TopicCommand
-        .main(new String[] { "--create", "--zookeeper", zkStr, "--replication-factor", "1", "--partitions", "10", "--topic", kafkaTopic });
+    createTopic(kafkaTopic, zkStr, 10);
+  }
+
+  public static void createTopic(String kafkaTopic, String zkStr, int numPartitions) {
+    TopicCommand.main(new String[] { "--create", "--zookeeper", zkStr, "--replication-factor", "1", "--partitions",
+        Integer.toString(numPartitions), "--topic", kafkaTopic });
   }
 }
@@ -14,6 +14,7 @@
  ******************************************************************************/
 package com.linkedin.pinot.common.utils;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -47,6 +48,8 @@ import org.slf4j.LoggerFactory;
 public class TarGzCompressionUtils {
   private static final Logger LOGGER = LoggerFactory.getLogger(TarGzCompressionUtils.class);
   private static final String TAR_GZ_FILE_EXTENTION = ".tar.gz";
+  private static final String TAR_FILE_EXTENTION = ".tar";
+  private static final int GZIP_MAGIC_LENGTH = 2;
 
   /**
    * Creates a tar.gz file at the specified path with the contents of the
@@ -61,30 +64,61 @@ public class TarGzCompressionUtils {
    *           If anything goes wrong
    */
   public static String createTarGzOfDirectory(String directoryPath, String tarGzPath) throws IOException {
+    if (!tarGzPath.endsWith(TAR_GZ_FILE_EXTENTION)) {
+      tarGzPath = tarGzPath + TAR_GZ_FILE_EXTENTION;
+    }
+    createTarOfDirectory(directoryPath, tarGzPath, true);
+    return tarGzPath;
+  }
+
+  /**
+   * Creates an uncompressed tar file at the specified path with the contents of the specified directory. Such a
+   * file is bigger than a tar.gz, but can be unpacked as it is streamed without spending CPU on decompression;
+   * {@link #unTar(InputStream, File)} reads both formats.
+   *
+   * @param directoryPath
+   *          The path to the directory to create an archive of
+   * @param tarPath
+   *          The path to the archive to create
+   * @return tarPath
+   * @throws IOException
+   *           If anything goes wrong
+   */
+  public static String createTarOfDirectory(String directoryPath, String tarPath) throws IOException {
+    if (!tarPath.endsWith(TAR_FILE_EXTENTION)) {
+      tarPath = tarPath + TAR_FILE_EXTENTION;
+    }
+    createTarOfDirectory(directoryPath, tarPath, false);
+    return tarPath;
+  }
+
+  private static void createTarOfDirectory(String directoryPath, String tarPath, boolean compress) throws IOException {
     FileOutputStream fOut = null;
     BufferedOutputStream bOut = null;
     GzipCompressorOutputStream gzOut = null;
     TarArchiveOutputStream tOut = null;
-    if (!tarGzPath.endsWith(TAR_GZ_FILE_EXTENTION)) {
-      tarGzPath = tarGzPath + TAR_GZ_FILE_EXTENTION;
-    }
 
     try {
-      fOut = new FileOutputStream(new File(tarGzPath));
+      fOut = new FileOutputStream(new File(tarPath));
       bOut = new BufferedOutputStream(fOut);
-      gzOut = new GzipCompressorOutputStream(bOut);
-      tOut = new TarArchiveOutputStream(gzOut);
+      if (compress) {
+        gzOut = new GzipCompressorOutputStream(bOut);
+        tOut = new TarArchiveOutputStream(gzOut);
+      } else {
+        tOut = new TarArchiveOutputStream(bOut);
+      }
       tOut.setLongFileMode(TarArchiveOutputStream.LONGFILE_GNU);
       addFileToTarGz(tOut, directoryPath, "");
     } finally {
       tOut.finish();
 
       tOut.close();
-      gzOut.close();
+      if (gzOut != null) {
+        gzOut.close();
+      }
       bOut.close();
       fOut.close();
     }
-    return tarGzPath;
   }
 
   public static String createTarGzOfDirectory(String directoryPath) throws IOException {
@@ -141,7 +175,7 @@ public class TarGzCompressionUtils {
    * The output file is created in the output folder, having the same name
    * as the input file, minus the '.tar' extension.
    *
-   * @param inputFile     the input .tar file
+   * @param inputFile     the input .tar or .tar.gz file
    * @param outputDir     the output directory file.
    * @throws IOException
    * @throws FileNotFoundException
@@ -151,13 +185,37 @@ public class TarGzCompressionUtils {
    */
   public static List<File> unTar(final File inputFile, final File outputDir) throws FileNotFoundException, IOException,
       ArchiveException {
-
     LOGGER.debug(String.format("Untaring %s to dir %s.", inputFile.getAbsolutePath(), outputDir.getAbsolutePath()));
+    return unTar(new FileInputStream(inputFile), outputDir);
+  }
+
+  /**
+   * Untar a stream into the output directory as it is read, so that nothing but the untared content is written
+   * to disk. The stream may be a tar or a tar.gz, and is closed once done.
+   *
+   * @param inputStream   the tar or tar.gz content
+   * @param outputDir     the output directory file.
+   * @return  The {@link List} of {@link File}s with the untared content.
+   */
+  public static List<File> unTar(final InputStream inputStream, final File outputDir) throws IOException,
+      ArchiveException {
     TarArchiveInputStream debInputStream = null;
     InputStream is = null;
     final List<File> untaredFiles = new LinkedList<File>();
     try {
-      is = new GzipCompressorInputStream(new FileInputStream(inputFile));
+      is = new BufferedInputStream(inputStream);
+      is.mark(GZIP_MAGIC_LENGTH);
+      byte[] magic = new byte[GZIP_MAGIC_LENGTH];
+      int magicLength = 0;
+      int bytesRead;
+      while (magicLength < GZIP_MAGIC_LENGTH
+          && (bytesRead = is.read(magic, magicLength, GZIP_MAGIC_LENGTH - magicLength)) != -1) {
+        magicLength += bytesRead;
+      }
+      is.reset();
+      if (GzipCompressorInputStream.matches(magic, magicLength)) {
+        is = new GzipCompressorInputStream(is);
+      }
       debInputStream = (TarArchiveInputStream) new ArchiveStreamFactory().createArchiveInputStream("tar", is);
       TarArchiveEntry entry = null;
       while ((entry = (TarArchiveEntry) debInputStream.getNextEntry()) != null) {
@@ -193,6 +251,7 @@ public class TarGzCompressionUtils {
     } finally {
       IOUtils.closeQuietly(debInputStream);
       IOUtils.closeQuietly(is);
+      IOUtils.closeQuietly(inputStream);
     }
     return untaredFiles;
   }
@@ -71,6 +71,8 @@ public class SegmentZKMetadataTest {
     record.setSimpleField(CommonConstants.Segment.INDEX_VERSION, "v1");
     record.setEnumField(CommonConstants.Segment.SEGMENT_TYPE, CommonConstants.Segment.SegmentType.REALTIME);
     record.setEnumField(CommonConstants.Segment.Realtime.STATUS, CommonConstants.Segment.Realtime.Status.DONE);
+    record.setLongField(CommonConstants.Segment.Realtime.START_OFFSET, 100);
+    record.setLongField(CommonConstants.Segment.Realtime.END_OFFSET, 200);
     record.setLongField(CommonConstants.Segment.START_TIME, 1000);
     record.setLongField(CommonConstants.Segment.END_TIME, 2000);
     record.setSimpleField(CommonConstants.Segment.TIME_UNIT, TimeUnit.HOURS.toString());
@@ -90,6 +92,8 @@ public class SegmentZKMetadataTest {
     realtimeSegmentMetadata.setEndTime(2000);
     realtimeSegmentMetadata.setTimeUnit(TimeUnit.HOURS);
     realtimeSegmentMetadata.setStatus(Status.DONE);
+    realtimeSegmentMetadata.setStartOffset(100);
+    realtimeSegmentMetadata.setEndOffset(200);
     realtimeSegmentMetadata.setTotalDocs(10000);
     realtimeSegmentMetadata.setCrc(1234);
     realtimeSegmentMetadata.setCreationTime(3000);
@@ -104,6 +108,8 @@ public class SegmentZKMetadataTest {
     record.setSimpleField(CommonConstants.Segment.INDEX_VERSION, "v1");
     record.setEnumField(CommonConstants.Segment.SEGMENT_TYPE, CommonConstants.Segment.SegmentType.REALTIME);
     record.setEnumField(CommonConstants.Segment.Realtime.STATUS, CommonConstants.Segment.Realtime.Status.IN_PROGRESS);
+    record.setLongField(CommonConstants.Segment.Realtime.START_OFFSET, 100);
+    record.setLongField(CommonConstants.Segment.Realtime.END_OFFSET, -1);
     record.setLongField(CommonConstants.Segment.START_TIME, 1000);
     record.setLongField(CommonConstants.Segment.END_TIME, -1);
     record.setSimpleField(CommonConstants.Segment.TIME_UNIT, TimeUnit.HOURS.toString());
@@ -123,6 +129,8 @@ public class SegmentZKMetadataTest {
     realtimeSegmentMetadata.setEndTime(-1);
     realtimeSegmentMetadata.setTimeUnit(TimeUnit.HOURS);
     realtimeSegmentMetadata.setStatus(Status.IN_PROGRESS);
+    realtimeSegmentMetadata.setStartOffset(100);
+    realtimeSegmentMetadata.setEndOffset(-1);
     realtimeSegmentMetadata.setTotalDocs(-1);
     realtimeSegmentMetadata.setCrc(-1);
     realtimeSegmentMetadata.setCreationTime(1000);
@@ -34,6 +34,7 @@ import com.linkedin.pinot.common.data.FieldSpec.DataType;
 import com.linkedin.pinot.common.exception.QueryException;
 import com.linkedin.pinot.common.response.ProcessingException;
 import com.linkedin.pinot.common.utils.DataTableBuilder.DataSchema;
+import com.linkedin.pinot.common.utils.primitive.MutableLongValue;
 
 
 public class DataTableBuilderTest {
@@ -52,6 +53,57 @@ public class DataTableBuilderTest {
     org.testng.Assert.assertEquals(exceptionMsg, exception.toString());
   }
 
+  @Test
+  public void testObjectCells() throws Exception {
+    Map<String, Serializable> groupByResult = new HashMap<String, Serializable>();
+    groupByResult.put("us\tmobile", 3.5);
+    groupByResult.put("fr\tdesktop", 42L);
+    groupByResult.put("unicode \u00e9", "value");
+    groupByResult.put("java serialized", new BigInteger("12345678901234567890"));
+
+    for (int version : new int[] { 1, 2 }) {
+      DataSchema schema = new DataSchema(new String[] { "function", "result" },
+          new DataType[] { DataType.STRING, DataType.OBJECT });
+      DataTableBuilder builder = new DataTableBuilder(schema, version);
+      builder.open();
+      builder.startRow();
+      builder.setColumn(0, "sum_met");
+      builder.setColumn(1, groupByResult);
+      builder.finishRow();
+      builder.startRow();
+      builder.setColumn(0, "count_star");
+      builder.setColumn(1, new MutableLongValue(10L));
+      builder.finishRow();
+      builder.seal();
+      DataTable dataTable = builder.build();
+      dataTable.getMetadata().put("numDocsScanned", "7");
+
+      DataTable desDataTable = new DataTable(dataTable.toBytes());
+      org.testng.Assert.assertEquals(desDataTable.getVersion(), version);
+      org.testng.Assert.assertEquals(desDataTable.getString(0, 0), "sum_met");
+      org.testng.Assert.assertEquals(desDataTable.getObject(0, 1), groupByResult);
+      org.testng.Assert.assertEquals(((MutableLongValue) desDataTable.getObject(1, 1)).getValue(), 10L);
+      org.testng.Assert.assertEquals(desDataTable.getMetadata().get("numDocsScanned"), "7");
+
+      // A deserialized data table is written back in the version it was read with.
+      DataTable reserializedDataTable = new DataTable(desDataTable.toBytes());
+      org.testng.Assert.assertEquals(reserializedDataTable.getVersion(), version);
+      org.testng.Assert.assertEquals(reserializedDataTable.getObject(0, 1), groupByResult);
+    }
+
+    // Version 1 is written unless a version is asked for, so that brokers that are not upgraded can read it
+    DataTableBuilder builder = new DataTableBuilder(new DataSchema(new String[] { "result" },
+        new DataType[] { DataType.OBJECT }));
+    builder.open();
+    builder.startRow();
+    builder.setColumn(0, groupByResult);
+    builder.finishRow();
+    builder.seal();
+    DataTable desDataTable = new DataTable(builder.build().toBytes());
+    org.testng.Assert.assertEquals(desDataTable.getVersion(), DataTable.VERSION_1);
+    org.testng.Assert.assertEquals(desDataTable.getObject(0, 0), groupByResult);
+  }
+
   @Test
   public void testSimple() throws Exception {
     final DataType[] columnTypes = DataType.values();
@@ -0,0 +1,67 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests for the TarGzCompressionUtils class.
+ */
+public class TarGzCompressionUtilsTest {
+  private static final File TEMP_DIR = new File(FileUtils.getTempDirectory(), "TarGzCompressionUtilsTest");
+
+  private File _segmentDir;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    FileUtils.deleteQuietly(TEMP_DIR);
+    _segmentDir = new File(TEMP_DIR, "segment");
+    FileUtils.writeStringToFile(new File(_segmentDir, "metadata.properties"), "segment.name = segment");
+    FileUtils.writeStringToFile(new File(_segmentDir, "column.dict"), "0123456789");
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(TEMP_DIR);
+  }
+
+  @Test
+  public void testUnTarStream() throws Exception {
+    String tarGzPath = TarGzCompressionUtils.createTarGzOfDirectory(_segmentDir.getPath(),
+        new File(TEMP_DIR, "segment").getPath());
+    String tarPath = TarGzCompressionUtils.createTarOfDirectory(_segmentDir.getPath(),
+        new File(TEMP_DIR, "segment").getPath());
+    Assert.assertTrue(tarGzPath.endsWith(".tar.gz"));
+    Assert.assertTrue(tarPath.endsWith(".tar"));
+
+    for (String path : new String[] { tarGzPath, tarPath }) {
+      File outputDir = new File(TEMP_DIR, "untared");
+      FileUtils.deleteQuietly(outputDir);
+      TarGzCompressionUtils.unTar(new FileInputStream(path), outputDir);
+      File untaredSegmentDir = new File(outputDir, "segment");
+      Assert.assertEquals(FileUtils.readFileToString(new File(untaredSegmentDir, "metadata.properties")),
+          "segment.name = segment");
+      Assert.assertEquals(FileUtils.readFileToString(new File(untaredSegmentDir, "column.dict")), "0123456789");
+    }
+  }
+}
@@ -31,8 +31,10 @@ import com.linkedin.pinot.common.metadata.instance.InstanceZKMetadata;
 import com.linkedin.pinot.common.metadata.stream.KafkaStreamMetadata;
 import com.linkedin.pinot.common.utils.CommonConstants;
 import com.linkedin.pinot.common.utils.CommonConstants.Helix;
+import com.linkedin.pinot.common.utils.CommonConstants.Helix.DataSource.Realtime.Kafka.ConsumerType;
 import com.linkedin.pinot.common.utils.ControllerTenantNameBuilder;
 import com.linkedin.pinot.common.utils.StringUtil;
+import com.linkedin.pinot.core.realtime.impl.kafka.KafkaLowLevelConsumerStreamProvider;
 
 
 /**
@@ -169,24 +171,54 @@ public class PinotTableIdealStateBuilder {
         ControllerTenantNameBuilder.getRealtimeTenantNameForTenant(realtimeTableConfig.getTenantConfig().getServer());
     switch (kafkaStreamMetadata.getConsumerType()) {
       case highLevel:
+      case simple:
+        // With the simple consumer, the partition id assigned to an instance is the kafka partition it consumes, so
+        // each replica needs as many instances as the topic has partitions
         IdealState idealState =
             buildInitialKafkaHighLevelConsumerRealtimeIdealStateFor(realtimeTableName, helixAdmin, helixClusterName,
                 zkHelixPropertyStore);
         List<String> realtimeInstances = helixAdmin.getInstancesInClusterWithTag(helixClusterName, realtimeServerTenant);
-        if (realtimeInstances.size() % Integer.parseInt(realtimeTableConfig.getValidationConfig().getReplication()) != 0) {
+        int numReplicas = Integer.parseInt(realtimeTableConfig.getValidationConfig().getReplication());
+        if (realtimeInstances.size() % numReplicas != 0) {
           throw new RuntimeException("Number of instance in current tenant should be an integer multiples of the number of replications");
         }
+        if (kafkaStreamMetadata.getConsumerType() == ConsumerType.simple) {
+          validateKafkaPartitionCount(realtimeTableName, kafkaStreamMetadata, realtimeInstances.size() / numReplicas);
+        }
         setupInstanceConfigForKafkaHighLevelConsumer(realtimeTableName, realtimeInstances.size(),
             Integer.parseInt(realtimeTableConfig.getValidationConfig().getReplication()), realtimeTableConfig
                 .getIndexingConfig().getStreamConfigs(), zkHelixPropertyStore, realtimeInstances);
         return idealState;
-      case simple:
       default:
         throw new UnsupportedOperationException("Not support kafka consumer type: "
             + kafkaStreamMetadata.getConsumerType());
     }
   }
 
+  /**
+   * With the simple consumer, the partition id assigned to an instance is the kafka partition it consumes, so each
+   * replica must have exactly as many instances as the topic has partitions: with fewer, some partitions are never
+   * consumed, with more, some instances are assigned partitions that do not exist.
+   */
+  public static void validateKafkaPartitionCount(String realtimeTableName, KafkaStreamMetadata kafkaStreamMetadata,
+      int numInstancesPerReplica) {
+    validateKafkaPartitionCount(realtimeTableName, kafkaStreamMetadata.getKafkaTopicName(),
+        KafkaLowLevelConsumerStreamProvider.fetchPartitionCount(kafkaStreamMetadata), numInstancesPerReplica);
+  }
+
+  /**
+   * Same as {@link #validateKafkaPartitionCount(String, KafkaStreamMetadata, int)} with a partition count that was
+   * already looked up.
+   */
+  public static void validateKafkaPartitionCount(String realtimeTableName, String topic, int numPartitions,
+      int numInstancesPerReplica) {
+    if (numPartitions != numInstancesPerReplica) {
+      throw new RuntimeException("Table " + realtimeTableName + " consumes topic " + topic
+          + " with the simple consumer, which needs one instance per replica for each of its " + numPartitions
+          + " partitions, but the tenant has " + numInstancesPerReplica + " instances per replica");
+    }
+  }
+
   public static IdealState buildInitialKafkaHighLevelConsumerRealtimeIdealStateFor(String realtimeTableName,
       HelixAdmin helixAdmin, String helixClusterName, ZkHelixPropertyStore<ZNRecord> zkHelixPropertyStore) {
     final CustomModeISBuilder customModeIdealStateBuilder = new CustomModeISBuilder(realtimeTableName);
@@ -23,6 +23,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.helix.model.IdealState;
 import org.apache.helix.store.HelixPropertyListener;
@@ -34,16 +35,21 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.linkedin.pinot.common.Utils;
+import com.linkedin.pinot.common.config.AbstractTableConfig;
 import com.linkedin.pinot.common.config.TableNameBuilder;
 import com.linkedin.pinot.common.metadata.ZKMetadataProvider;
 import com.linkedin.pinot.common.metadata.instance.InstanceZKMetadata;
 import com.linkedin.pinot.common.metadata.segment.RealtimeSegmentZKMetadata;
+import com.linkedin.pinot.common.metadata.stream.KafkaStreamMetadata;
+import com.linkedin.pinot.common.utils.CommonConstants.Helix.DataSource.Realtime.Kafka.ConsumerType;
 import com.linkedin.pinot.common.utils.CommonConstants.Helix.TableType;
 import com.linkedin.pinot.common.utils.CommonConstants.Segment.Realtime.Status;
 import com.linkedin.pinot.common.utils.CommonConstants.Segment.SegmentType;
 import com.linkedin.pinot.common.utils.SegmentNameBuilder;
 import com.linkedin.pinot.controller.helix.core.PinotHelixResourceManager;
 import com.linkedin.pinot.controller.helix.core.PinotTableIdealStateBuilder;
+import com.linkedin.pinot.core.realtime.impl.kafka.KafkaLowLevelConsumerStreamProvider;
+import com.linkedin.pinot.core.realtime.impl.kafka.KafkaLowLevelStreamProviderConfig;
 
 
 public class PinotRealtimeSegmentsManager implements HelixPropertyListener {
@@ -52,7 +58,12 @@ public class PinotRealtimeSegmentsManager implements HelixPropertyListener {
   private static final String REALTIME_SEGMENT_PROPERTY_STORE_PATH_PATTERN =
       "/SEGMENTS/.*_REALTIME|/SEGMENTS/.*_REALTIME/.*";
 
+  private static final long PARTITION_COUNT_REFRESH_MILLIS = TimeUnit.MINUTES.toMillis(10);
+  private static final long PARTITION_COUNT_RETRY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
   private final PinotHelixResourceManager pinotClusterManager;
+  private final KafkaPartitionCountCache kafkaPartitionCounts =
+      new KafkaPartitionCountCache(PARTITION_COUNT_REFRESH_MILLIS, PARTITION_COUNT_RETRY_MILLIS);
 
   public PinotRealtimeSegmentsManager(PinotHelixResourceManager pinotManager) {
     this.pinotClusterManager = pinotManager;
@@ -81,10 +92,23 @@ public class PinotRealtimeSegmentsManager implements HelixPropertyListener {
     }
 
     List<String> listOfSegmentsToAdd = new ArrayList<String>();
+    // Kafka offset each new segment starts consuming from, only known for the low level consumer
+    Map<String, Long> startOffsetOfSegmentsToAdd = new HashMap<String, Long>();
 
     for (String resource : idealStateMap.keySet()) {
       // get ideal state from map
       IdealState state = idealStateMap.get(resource);
+      AbstractTableConfig tableConfig =
+          ZKMetadataProvider.getRealtimeTableConfig(pinotClusterManager.getPropertyStore(), resource);
+      boolean simpleConsumer =
+          new KafkaStreamMetadata(tableConfig.getIndexingConfig().getStreamConfigs()).getConsumerType()
+              == ConsumerType.simple;
+
+      if (!hasValidKafkaPartitionCount(resource, tableConfig)) {
+        continue;
+      }
+      // Offset the first segment of each partition starts from, shared by the replicas of the partition
+      Map<String, Long> resetOffsetOfPartitions = new HashMap<String, Long>();
 
       if (state.getPartitionSet().size() == 0) {
         // this is a brand new ideal state, which means we will add one new segment to every patition,replica
@@ -98,29 +122,44 @@ public class PinotRealtimeSegmentsManager implements HelixPropertyListener {
           InstanceZKMetadata instanceZKMetadata = pinotClusterManager.getInstanceZKMetadata(instanceId);
           String groupId = instanceZKMetadata.getGroupId(resource);
           String partitionId = instanceZKMetadata.getPartition(resource);
-          listOfSegmentsToAdd.add(SegmentNameBuilder.Realtime.build(resource, instanceId, groupId, partitionId,
-              String.valueOf(System.currentTimeMillis())));
+          String segmentId = SegmentNameBuilder.Realtime.build(resource, instanceId, groupId, partitionId,
+              String.valueOf(System.currentTimeMillis()));
+          listOfSegmentsToAdd.add(segmentId);
+          if (simpleConsumer) {
+            addResetOffset(segmentId, tableConfig, instanceZKMetadata, partitionId, resetOffsetOfPartitions,
+                startOffsetOfSegmentsToAdd);
+          }
         }
       } else {
         Set<String> instancesToAssignRealtimeSegment = new HashSet<String>();
         instancesToAssignRealtimeSegment.addAll(pinotClusterManager.getServerInstancesForTable(resource,
             TableType.REALTIME));
+        List<RealtimeSegmentZKMetadata> segmentsOfTable = new ArrayList<RealtimeSegmentZKMetadata>();
 
         for (String partition : state.getPartitionSet()) {
           RealtimeSegmentZKMetadata realtimeSegmentZKMetadata =
               ZKMetadataProvider.getRealtimeSegmentZKMetadata(pinotClusterManager.getPropertyStore(),
                   SegmentNameBuilder.Realtime.extractTableName(partition), partition);
           if (realtimeSegmentZKMetadata.getStatus() == Status.IN_PROGRESS) {
-            String instanceName = SegmentNameBuilder.Realtime.extractInstanceName(partition);
-            instancesToAssignRealtimeSegment.remove(instanceName);
+            instancesToAssignRealtimeSegment.remove(SegmentNameBuilder.Realtime.extractInstanceName(partition));
           }
+          segmentsOfTable.add(realtimeSegmentZKMetadata);
         }
+        Map<String, RealtimeSegmentZKMetadata> latestDoneSegmentOfInstance =
+            getLatestCompletedSegmentOfInstances(segmentsOfTable);
         for (String instanceId : instancesToAssignRealtimeSegment) {
           InstanceZKMetadata instanceZKMetadata = pinotClusterManager.getInstanceZKMetadata(instanceId);
           String groupId = instanceZKMetadata.getGroupId(resource);
           String partitionId = instanceZKMetadata.getPartition(resource);
-          listOfSegmentsToAdd.add(SegmentNameBuilder.Realtime.build(resource, instanceId, groupId, partitionId,
-              String.valueOf(System.currentTimeMillis())));
+          String segmentId = SegmentNameBuilder.Realtime.build(resource, instanceId, groupId, partitionId,
+              String.valueOf(System.currentTimeMillis()));
+          listOfSegmentsToAdd.add(segmentId);
+          if (latestDoneSegmentOfInstance.containsKey(instanceId)) {
+            startOffsetOfSegmentsToAdd.put(segmentId, latestDoneSegmentOfInstance.get(instanceId).getEndOffset());
+          } else if (simpleConsumer) {
+            addResetOffset(segmentId, tableConfig, instanceZKMetadata, partitionId, resetOffsetOfPartitions,
+                startOffsetOfSegmentsToAdd);
+          }
         }
       }
     }
@@ -138,6 +177,9 @@ public class PinotRealtimeSegmentsManager implements HelixPropertyListener {
         realtimeSegmentMetadataToAdd.setSegmentType(SegmentType.REALTIME);
         realtimeSegmentMetadataToAdd.setStatus(Status.IN_PROGRESS);
         realtimeSegmentMetadataToAdd.setSegmentName(segmentId);
+        if (startOffsetOfSegmentsToAdd.containsKey(segmentId)) {
+          realtimeSegmentMetadataToAdd.setStartOffset(startOffsetOfSegmentsToAdd.get(segmentId));
+        }
         // add to property store first
         ZKMetadataProvider.setRealtimeSegmentZKMetadata(pinotClusterManager.getPropertyStore(),
             realtimeSegmentMetadataToAdd);
@@ -151,6 +193,140 @@ public class PinotRealtimeSegmentsManager implements HelixPropertyListener {
     }
   }
 
+  /**
+   * With the simple consumer, the partition id assigned to an instance is the kafka partition it consumes, so no
+   * segment is created once the number of instances per replica of the table no longer matches the partitions of its
+   * topic, e.g. after instances were added to or removed from its tenant. The partition count is cached, and the
+   * segments are still created when it cannot be looked up, so that a Kafka outage does not stop consumption.
+   */
+  private boolean hasValidKafkaPartitionCount(String realtimeTableName, AbstractTableConfig tableConfig) {
+    KafkaStreamMetadata kafkaStreamMetadata =
+        new KafkaStreamMetadata(tableConfig.getIndexingConfig().getStreamConfigs());
+    if (kafkaStreamMetadata.getConsumerType() != ConsumerType.simple) {
+      return true;
+    }
+    int numPartitions = kafkaPartitionCounts.getPartitionCount(realtimeTableName, kafkaStreamMetadata);
+    if (numPartitions == KafkaPartitionCountCache.UNKNOWN) {
+      LOGGER.warn("Unknown partition count for table {}, adding its new segments without checking it",
+          realtimeTableName);
+      return true;
+    }
+    int numReplicas = Integer.parseInt(tableConfig.getValidationConfig().getReplication());
+    int numInstances = pinotClusterManager.getServerInstancesForTable(realtimeTableName, TableType.REALTIME).size();
+    try {
+      PinotTableIdealStateBuilder.validateKafkaPartitionCount(realtimeTableName,
+          kafkaStreamMetadata.getKafkaTopicName(), numPartitions, numInstances / numReplicas);
+      return true;
+    } catch (Exception e) {
+      LOGGER.error("Not adding new segments to table " + realtimeTableName, e);
+      return false;
+    }
+  }
+
+  /**
+   * Sets the start offset of the first segment of a partition to the offset its offset reset resolves to, which is
+   * looked up once for all the replicas of the partition. This way the replicas consume the same rows, and a server
+   * restarting during the segment resumes from the same offset. When the lookup fails, the servers resolve the offset
+   * and checkpoint it in the segment metadata themselves.
+   */
+  private void addResetOffset(String segmentId, AbstractTableConfig tableConfig,
+      InstanceZKMetadata instanceZKMetadata, String partitionId, Map<String, Long> resetOffsetOfPartitions,
+      Map<String, Long> startOffsetOfSegmentsToAdd) {
+    Long resetOffset = resetOffsetOfPartitions.get(partitionId);
+    if (resetOffset == null) {
+      try {
+        KafkaLowLevelStreamProviderConfig streamProviderConfig = new KafkaLowLevelStreamProviderConfig();
+        streamProviderConfig.init(tableConfig, instanceZKMetadata, null);
+        resetOffset = KafkaLowLevelConsumerStreamProvider.fetchResetOffset(streamProviderConfig);
+      } catch (Exception e) {
+        LOGGER.warn("Caught exception while looking up the start offset of partition {} of table {}", partitionId,
+            tableConfig.getTableName(), e);
+        resetOffset = -1L;
+      }
+      resetOffsetOfPartitions.put(partitionId, resetOffset);
+    }
+    if (resetOffset >= 0) {
+      startOffsetOfSegmentsToAdd.put(segmentId, resetOffset);
+    }
+  }
+
+  /**
+   * Returns the latest completed segment of every instance, by sequence number, among the segments that checkpointed
+   * their offset range. The next segment of an instance resumes consuming from the end offset of its latest one.
+   */
+  static Map<String, RealtimeSegmentZKMetadata> getLatestCompletedSegmentOfInstances(
+      List<RealtimeSegmentZKMetadata> segments) {
+    Map<String, RealtimeSegmentZKMetadata> latestDoneSegmentOfInstance =
+        new HashMap<String, RealtimeSegmentZKMetadata>();
+    for (RealtimeSegmentZKMetadata segment : segments) {
+      if (segment.getStatus() == Status.IN_PROGRESS || segment.getEndOffset() < 0) {
+        continue;
+      }
+      String instanceName = SegmentNameBuilder.Realtime.extractInstanceName(segment.getSegmentName());
+      RealtimeSegmentZKMetadata latestDoneSegment = latestDoneSegmentOfInstance.get(instanceName);
+      if (latestDoneSegment == null || extractSequenceNumber(latestDoneSegment.getSegmentName())
+          < extractSequenceNumber(segment.getSegmentName())) {
+        latestDoneSegmentOfInstance.put(instanceName, segment);
+      }
+    }
+    return latestDoneSegmentOfInstance;
+  }
+
+  /**
+   * Partition count of the topic of every simple consumer table, looked up from Kafka at most once per refresh
+   * interval. A failed lookup is remembered as unknown, and retried after a shorter interval.
+   */
+  static class KafkaPartitionCountCache {
+    static final int UNKNOWN = -1;
+
+    private final long refreshMillis;
+    private final long retryMillis;
+    private final Map<String, PartitionCount> partitionCounts = new HashMap<String, PartitionCount>();
+
+    KafkaPartitionCountCache(long refreshMillis, long retryMillis) {
+      this.refreshMillis = refreshMillis;
+      this.retryMillis = retryMillis;
+    }
+
+    synchronized int getPartitionCount(String realtimeTableName, KafkaStreamMetadata kafkaStreamMetadata) {
+      String topic = kafkaStreamMetadata.getKafkaTopicName();
+      long now = System.currentTimeMillis();
+      PartitionCount partitionCount = partitionCounts.get(realtimeTableName);
+      if (partitionCount == null || !partitionCount.topic.equals(topic) || now >= partitionCount.expiryTimeMillis) {
+        try {
+          partitionCount = new PartitionCount(topic, fetchPartitionCount(kafkaStreamMetadata), now + refreshMillis);
+        } catch (Exception e) {
+          LOGGER.warn("Caught exception while looking up the partition count of topic {} of table {}", topic,
+              realtimeTableName, e);
+          partitionCount = new PartitionCount(topic, UNKNOWN, now + retryMillis);
+        }
+        partitionCounts.put(realtimeTableName, partitionCount);
+      }
+      return partitionCount.numPartitions;
+    }
+
+    int fetchPartitionCount(KafkaStreamMetadata kafkaStreamMetadata) {
+      return KafkaLowLevelConsumerStreamProvider.fetchPartitionCount(kafkaStreamMetadata);
+    }
+
+    private static class PartitionCount {
+      private final String topic;
+      private final int numPartitions;
+      private final long expiryTimeMillis;
+
+      private PartitionCount(String topic, int numPartitions, long expiryTimeMillis) {
+        this.topic = topic;
+        this.numPartitions = numPartitions;
+        this.expiryTimeMillis = expiryTimeMillis;
+      }
+    }
+  }
+
+  private static long extractSequenceNumber(String segmentId) {
+    String[] parts = segmentId.split("__");
+    return Long.parseLong(parts[parts.length - 1]);
+  }
+
   private boolean canEval() {
     return this.pinotClusterManager.isLeader();
   }
@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.controller.helix.core.realtime;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.common.metadata.segment.RealtimeSegmentZKMetadata;
+import com.linkedin.pinot.common.metadata.stream.KafkaStreamMetadata;
+import com.linkedin.pinot.common.utils.CommonConstants.Helix.DataSource;
+import com.linkedin.pinot.common.utils.CommonConstants.Segment.Realtime.Status;
+import com.linkedin.pinot.common.utils.SegmentNameBuilder;
+
+
+public class PinotRealtimeSegmentsManagerTest {
+  private static final String TABLE_NAME = "testTable_REALTIME";
+
+  @Test
+  public void testNextSegmentStartsAtEndOffsetOfLatestCompletedSegment() {
+    Map<String, RealtimeSegmentZKMetadata> latestSegments =
+        PinotRealtimeSegmentsManager.getLatestCompletedSegmentOfInstances(Arrays.asList(
+            segment("Server_host1_8000", "0", 999L, Status.DONE, 100L, 200L),
+            // sequence numbers compare as numbers, not strings
+            segment("Server_host1_8000", "0", 1000L, Status.DONE, 200L, 300L),
+            // the consuming segment has no end offset yet
+            segment("Server_host1_8000", "0", 1001L, Status.IN_PROGRESS, 300L, -1L),
+            segment("Server_host2_8000", "1", 1000L, Status.DONE, 50L, 75L),
+            // segments of the high level consumer do not checkpoint offsets
+            segment("Server_host3_8000", "2", 1000L, Status.DONE, -1L, -1L)));
+
+    Assert.assertEquals(latestSegments.size(), 2);
+    Assert.assertEquals(latestSegments.get("Server_host1_8000").getEndOffset(), 300L);
+    Assert.assertEquals(latestSegments.get("Server_host2_8000").getEndOffset(), 75L);
+    Assert.assertFalse(latestSegments.containsKey("Server_host3_8000"));
+  }
+
+  @Test
+  public void testLatestCompletedSegmentIgnoresLaterConsumingSegment() {
+    Map<String, RealtimeSegmentZKMetadata> latestSegments =
+        PinotRealtimeSegmentsManager.getLatestCompletedSegmentOfInstances(Arrays.asList(
+            segment("Server_host1_8000", "0", 2000L, Status.IN_PROGRESS, 500L, 600L),
+            segment("Server_host1_8000", "0", 1000L, Status.DONE, 400L, 500L)));
+
+    Assert.assertEquals(latestSegments.get("Server_host1_8000").getEndOffset(), 500L);
+  }
+
+  @Test
+  public void testPartitionCountIsCached() throws Exception {
+    CountingPartitionCountCache cache = new CountingPartitionCountCache(60000L, 0L);
+    KafkaStreamMetadata topic = streamMetadata("topic");
+    Assert.assertEquals(cache.getPartitionCount(TABLE_NAME, topic), 8);
+    Assert.assertEquals(cache.getPartitionCount(TABLE_NAME, topic), 8);
+    Assert.assertEquals(cache.numLookups, 1);
+
+    // A table moved to another topic looks it up again
+    Assert.assertEquals(cache.getPartitionCount(TABLE_NAME, streamMetadata("otherTopic")), 8);
+    Assert.assertEquals(cache.numLookups, 2);
+  }
+
+  @Test
+  public void testFailedPartitionCountLookupIsUnknown() throws Exception {
+    CountingPartitionCountCache cache = new CountingPartitionCountCache(60000L, 0L);
+    cache.failing = true;
+    KafkaStreamMetadata topic = streamMetadata("topic");
+    Assert.assertEquals(cache.getPartitionCount(TABLE_NAME, topic),
+        PinotRealtimeSegmentsManager.KafkaPartitionCountCache.UNKNOWN);
+
+    // Failed lookups are retried after their shorter interval
+    cache.failing = false;
+    Thread.sleep(10L);
+    Assert.assertEquals(cache.getPartitionCount(TABLE_NAME, topic), 8);
+    Assert.assertEquals(cache.numLookups, 2);
+  }
+
+  private static KafkaStreamMetadata streamMetadata(String topic) {
+    Map<String, String> streamConfigs = new HashMap<String, String>();
+    streamConfigs.put(DataSource.STREAM_PREFIX + "." + DataSource.Realtime.Kafka.CONSUMER_TYPE, "simple");
+    streamConfigs.put(DataSource.STREAM_PREFIX + "." + DataSource.Realtime.Kafka.TOPIC_NAME, topic);
+    return new KafkaStreamMetadata(streamConfigs);
+  }
+
+  private static class CountingPartitionCountCache extends PinotRealtimeSegmentsManager.KafkaPartitionCountCache {
+    private int numLookups = 0;
+    private boolean failing = false;
+
+    CountingPartitionCountCache(long refreshMillis, long retryMillis) {
+      super(refreshMillis, retryMillis);
+    }
+
+    @Override
+    int fetchPartitionCount(KafkaStreamMetadata kafkaStreamMetadata) {
+      numLookups++;
+      if (failing) {
+        throw new RuntimeException("Kafka is down");
+      }
+      return 8;
+    }
+  }
+
+  private static RealtimeSegmentZKMetadata segment(String instanceName, String partitionId, long sequenceNumber,
+      Status status, long startOffset, long endOffset) {
+    RealtimeSegmentZKMetadata segmentMetadata = new RealtimeSegmentZKMetadata();
+    segmentMetadata.setTableName(TABLE_NAME);
+    segmentMetadata.setSegmentName(SegmentNameBuilder.Realtime.build(TABLE_NAME, instanceName, "groupId",
+        partitionId, Long.toString(sequenceNumber)));
+    segmentMetadata.setStatus(status);
+    segmentMetadata.setStartOffset(startOffset);
+    segmentMetadata.setEndOffset(endOffset);
+    return segmentMetadata;
+  }
+}
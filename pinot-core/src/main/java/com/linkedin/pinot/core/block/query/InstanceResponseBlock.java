@@ -38,9 +38,13 @@ public class InstanceResponseBlock implements Block {
   private DataTable _instanceResponseDataTable;
 
   public InstanceResponseBlock(Block block) {
+    this(block, DataTable.DEFAULT_VERSION);
+  }
+
+  public InstanceResponseBlock(Block block, int dataTableVersion) {
     IntermediateResultsBlock intermediateResultsBlock = (IntermediateResultsBlock) block;
     try {
-      _instanceResponseDataTable = intermediateResultsBlock.getDataTable();
+      _instanceResponseDataTable = intermediateResultsBlock.getDataTable(dataTableVersion);
     } catch (Exception e) {
       LOGGER.warn("Caught exception while building InstanceResponseBlock", e);
     }
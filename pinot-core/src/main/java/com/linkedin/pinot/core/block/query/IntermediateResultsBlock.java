@@ -124,15 +124,22 @@ public class IntermediateResultsBlock implements Block {
   }
 
   public DataTable getDataTable() throws Exception {
+    return getDataTable(DataTable.DEFAULT_VERSION);
+  }
+
+  /**
+   * @param dataTableVersion format version of the returned data table, see {@link DataTable}
+   */
+  public DataTable getDataTable(int dataTableVersion) throws Exception {
     if (_aggregationResultList != null) {
-      return getAggregationResultDataTable();
+      return getAggregationResultDataTable(dataTableVersion);
     }
 
     if (_aggregationGroupByOperatorResult != null) {
-      return getAggregationGroupByResultDataTable();
+      return getAggregationGroupByResultDataTable(dataTableVersion);
     }
     if (_selectionResult != null) {
-      return getSelectionResultDataTable();
+      return getSelectionResultDataTable(dataTableVersion);
     }
     if (_processingExceptions != null && _processingExceptions.size() > 0) {
       return getExceptionsDataTable();
@@ -157,13 +164,18 @@ public class IntermediateResultsBlock implements Block {
     return attachMetadataToDataTable(new DataTable());
   }
 
-  private DataTable getSelectionResultDataTable() throws Exception {
-    return attachMetadataToDataTable(SelectionOperatorUtils.getDataTableFromRowSet(_selectionResult, _dataSchema));
+  private DataTable getSelectionResultDataTable(int dataTableVersion) throws Exception {
+    return attachMetadataToDataTable(SelectionOperatorUtils.getDataTableFromRowSet(_selectionResult, _dataSchema,
+        dataTableVersion));
   }
 
   public DataTable getAggregationResultDataTable() throws Exception {
+    return getAggregationResultDataTable(DataTable.DEFAULT_VERSION);
+  }
+
+  private DataTable getAggregationResultDataTable(int dataTableVersion) throws Exception {
     DataSchema schema = AggregationFunctionUtils.getAggregationResultsDataSchema(_aggregationFunctionList);
-    DataTableBuilder builder = new DataTableBuilder(schema);
+    DataTableBuilder builder = new DataTableBuilder(schema, dataTableVersion);
     builder.open();
     builder.startRow();
     for (int i = 0; i < _aggregationResultList.size(); ++i) {
@@ -195,12 +207,16 @@ public class IntermediateResultsBlock implements Block {
   }
 
   public DataTable getAggregationGroupByResultDataTable() throws Exception {
+    return getAggregationGroupByResultDataTable(DataTable.DEFAULT_VERSION);
+  }
+
+  private DataTable getAggregationGroupByResultDataTable(int dataTableVersion) throws Exception {
 
     String[] columnNames = new String[] { "functionName", "GroupByResultMap" };
     DataType[] columnTypes = new DataType[] { DataType.STRING, DataType.OBJECT };
     DataSchema dataSchema = new DataSchema(columnNames, columnTypes);
 
-    DataTableBuilder dataTableBuilder = new DataTableBuilder(dataSchema);
+    DataTableBuilder dataTableBuilder = new DataTableBuilder(dataSchema, dataTableVersion);
     dataTableBuilder.open();
     for (int i = 0; i < _aggregationGroupByOperatorResult.size(); ++i) {
       dataTableBuilder.startRow();
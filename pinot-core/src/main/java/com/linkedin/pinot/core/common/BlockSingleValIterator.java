@@ -30,6 +30,20 @@ public abstract class BlockSingleValIterator implements BlockValIterator {
     throw new UnsupportedOperationException();
   }
 
+  /**
+   * Reads the int values of up to length docs starting at the current doc into the values array, and moves the
+   * iterator past them. Implementations backed by a forward index should override it to read the values in bulk.
+   *
+   * @return the number of values read, 0 when there are no more docs
+   */
+  public int nextIntVals(int[] values, int length) {
+    int numValues = 0;
+    while (numValues < length && hasNext()) {
+      values[numValues++] = nextIntVal();
+    }
+    return numValues;
+  }
+
   public float nextFloatVal(){
     throw new UnsupportedOperationException();
   }
@@ -17,6 +17,7 @@ package com.linkedin.pinot.core.common;
 
 import com.linkedin.pinot.core.operator.BaseOperator;
 import com.linkedin.pinot.core.segment.index.InvertedIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 
 public abstract class DataSource extends BaseOperator {
@@ -28,4 +29,11 @@ public abstract class DataSource extends BaseOperator {
   public abstract InvertedIndexReader getInvertedIndex();
 
   public abstract Dictionary getDictionary();
+
+  /**
+   * Bloom filter of the values of the column, null if the column has none.
+   */
+  public BloomFilterReader getBloomFilter() {
+    return null;
+  }
 }
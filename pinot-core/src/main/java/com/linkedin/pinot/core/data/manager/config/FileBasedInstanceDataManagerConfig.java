@@ -44,6 +44,8 @@ public class FileBasedInstanceDataManagerConfig implements InstanceDataManagerCo
   private static final String INSTANCE_SEGMENT_TAR_DIR = "segmentTarDir";
   // Key of segment directory
   private static final String INSTANCE_BOOTSTRAP_SEGMENT_DIR = "bootstrap.segment.dir";
+  // Key of the number of threads loading the bootstrap segments.
+  private static final String INSTANCE_BOOTSTRAP_SEGMENT_LOAD_THREADS = "bootstrap.segment.load.threads";
   // Key of table names that will be holding from initialization.
   private static final String INSTANCE_TABLE_NAME = "tableName";
   // Key of table data directory
@@ -100,6 +102,11 @@ public class FileBasedInstanceDataManagerConfig implements InstanceDataManagerCo
     return _instanceDataManagerConfiguration.getString(INSTANCE_BOOTSTRAP_SEGMENT_DIR);
   }
 
+  public int getBootstrapSegmentLoadThreads() {
+    return _instanceDataManagerConfiguration.getInt(INSTANCE_BOOTSTRAP_SEGMENT_LOAD_THREADS,
+        Runtime.getRuntime().availableProcessors());
+  }
+
   @SuppressWarnings("unchecked")
   public List<String> getTableNames() {
     return _instanceDataManagerConfiguration.getList(INSTANCE_TABLE_NAME);
@@ -130,6 +137,7 @@ public class FileBasedInstanceDataManagerConfig implements InstanceDataManagerCo
     configString += "\n\tInstance Data Dir: " + getInstanceDataDir();
     configString += "\n\tInstance Segment Tar Dir: " + getInstanceSegmentTarDir();
     configString += "\n\tBootstrap Segment Dir: " + getInstanceBootstrapSegmentDir();
+    configString += "\n\tBootstrap Segment Load Threads: " + getBootstrapSegmentLoadThreads();
     configString += "\n\tSegment Metadata Loader Clas: " + getSegmentMetadataLoaderClass();
     configString += "\n\tRead Mode: " + getReadMode();
     return configString;
@@ -16,9 +16,15 @@
 package com.linkedin.pinot.core.data.manager.offline;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationException;
@@ -33,6 +39,7 @@ import com.linkedin.pinot.common.metadata.instance.InstanceZKMetadata;
 import com.linkedin.pinot.common.metadata.segment.SegmentZKMetadata;
 import com.linkedin.pinot.common.segment.SegmentMetadata;
 import com.linkedin.pinot.common.segment.SegmentMetadataLoader;
+import com.linkedin.pinot.common.utils.NamedThreadFactory;
 import com.linkedin.pinot.core.data.manager.config.FileBasedInstanceDataManagerConfig;
 import com.linkedin.pinot.core.data.manager.config.TableDataManagerConfig;
 
@@ -143,10 +150,31 @@ public class FileBasedInstanceDataManager implements InstanceDataManager {
     if (_instanceDataManagerConfig.getInstanceBootstrapSegmentDir() != null) {
       File bootstrapSegmentDir = new File(_instanceDataManagerConfig.getInstanceBootstrapSegmentDir());
       if (bootstrapSegmentDir.exists()) {
-        for (File segment : bootstrapSegmentDir.listFiles()) {
-          addSegment(_segmentMetadataLoader.load(segment), null);
-          LOGGER.info("Bootstrapped segment from directory : " + segment.getAbsolutePath());
+        long startTime = System.currentTimeMillis();
+        File[] segments = bootstrapSegmentDir.listFiles();
+        ExecutorService executorService =
+            Executors.newFixedThreadPool(_instanceDataManagerConfig.getBootstrapSegmentLoadThreads(),
+                new NamedThreadFactory("bootstrap-segment-loader"));
+        try {
+          List<Future<?>> futures = new ArrayList<Future<?>>(segments.length);
+          for (final File segment : segments) {
+            futures.add(executorService.submit(new Callable<Void>() {
+              @Override
+              public Void call() throws Exception {
+                addSegment(_segmentMetadataLoader.load(segment), null);
+                LOGGER.info("Bootstrapped segment from directory : " + segment.getAbsolutePath());
+                return null;
+              }
+            }));
+          }
+          for (Future<?> future : futures) {
+            future.get();
+          }
+        } finally {
+          executorService.shutdown();
         }
+        LOGGER.info("Bootstrapped " + segments.length + " segments in " + (System.currentTimeMillis() - startTime)
+            + "ms");
       } else {
         LOGGER.info("Bootstrap segment directory : " + _instanceDataManagerConfig.getInstanceBootstrapSegmentDir()
             + " doesn't exist.");
@@ -190,7 +218,7 @@ public class FileBasedInstanceDataManager implements InstanceDataManager {
   }
 
   @Override
-  public synchronized void addSegment(SegmentMetadata segmentMetadata, AbstractTableConfig tableConfig) throws Exception {
+  public void addSegment(SegmentMetadata segmentMetadata, AbstractTableConfig tableConfig) throws Exception {
     String tableName = segmentMetadata.getTableName();
     LOGGER.info("Trying to add segment : " + segmentMetadata.getName());
     if (_tableDataManagerMap.containsKey(tableName)) {
@@ -42,6 +42,7 @@ import com.linkedin.pinot.common.utils.NamedThreadFactory;
 import com.linkedin.pinot.core.data.manager.config.TableDataManagerConfig;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
 import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
 import com.yammer.metrics.Metrics;
 import com.yammer.metrics.core.Counter;
@@ -169,13 +170,16 @@ public class OfflineTableDataManager implements TableDataManager {
         _segmentsMap.put(indexSegmentToAdd.getSegmentName(), new OfflineSegmentDataManager(indexSegmentToAdd));
         markSegmentAsLoaded(indexSegmentToAdd.getSegmentName());
         _referenceCounts.put(indexSegmentToAdd.getSegmentName(), new AtomicInteger(1));
+        SegmentResultCache.getInstance().register(indexSegmentToAdd);
       } else {
         LOGGER.info("Trying to refresh segment - " + indexSegmentToAdd.getSegmentName());
         OfflineSegmentDataManager segment = _segmentsMap.get(indexSegmentToAdd.getSegmentName());
         _segmentsMap.put(indexSegmentToAdd.getSegmentName(), new OfflineSegmentDataManager(indexSegmentToAdd));
+        SegmentResultCache.getInstance().register(indexSegmentToAdd);
         if (segment != null) {
           _currentNumberOfDocuments.dec(segment.getSegment().getTotalDocs());
           _currentNumberOfDocuments.inc(indexSegmentToAdd.getTotalDocs());
+          SegmentResultCache.getInstance().invalidate(segment.getSegment());
           segment.getSegment().destroy();
         }
       }
@@ -227,6 +231,7 @@ public class OfflineTableDataManager implements TableDataManager {
         _currentNumberOfSegments.dec();
         _currentNumberOfDocuments.dec(segment.getSegment().getTotalDocs());
         _numDeletedSegments.inc();
+        SegmentResultCache.getInstance().invalidate(segment.getSegment());
         segment.getSegment().destroy();
       }
       LOGGER.info("Segment " + segmentId + " has been deleted");
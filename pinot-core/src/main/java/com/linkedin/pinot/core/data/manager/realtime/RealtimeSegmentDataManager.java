@@ -16,7 +16,11 @@
 package com.linkedin.pinot.core.data.manager.realtime;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.TimerTask;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.FileUtils;
@@ -24,12 +28,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.linkedin.pinot.common.config.AbstractTableConfig;
+import com.linkedin.pinot.common.config.IndexingConfig;
 import com.linkedin.pinot.common.data.Schema;
 import com.linkedin.pinot.common.metadata.instance.InstanceZKMetadata;
 import com.linkedin.pinot.common.metadata.segment.RealtimeSegmentZKMetadata;
+import com.linkedin.pinot.common.metadata.stream.KafkaStreamMetadata;
 import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.common.utils.CommonConstants;
+import com.linkedin.pinot.common.utils.CommonConstants.Helix.DataSource.Realtime.Kafka.ConsumerType;
 import com.linkedin.pinot.common.utils.CommonConstants.Segment.Realtime.Status;
 import com.linkedin.pinot.common.utils.CommonConstants.Segment.SegmentType;
+import com.linkedin.pinot.core.data.GenericRow;
 import com.linkedin.pinot.core.data.manager.offline.SegmentDataManager;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.realtime.StreamProvider;
@@ -38,12 +47,33 @@ import com.linkedin.pinot.core.realtime.converter.RealtimeSegmentConverter;
 import com.linkedin.pinot.core.realtime.impl.RealtimeSegmentImpl;
 import com.linkedin.pinot.core.realtime.impl.kafka.KafkaHighLevelConsumerStreamProvider;
 import com.linkedin.pinot.core.realtime.impl.kafka.KafkaHighLevelStreamProviderConfig;
+import com.linkedin.pinot.core.realtime.impl.kafka.KafkaLowLevelConsumerStreamProvider;
+import com.linkedin.pinot.core.realtime.impl.kafka.KafkaLowLevelStreamProviderConfig;
 import com.linkedin.pinot.core.segment.index.loader.Loaders;
+import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.Histogram;
+import com.yammer.metrics.core.Meter;
+import com.yammer.metrics.core.Timer;
+import com.yammer.metrics.core.TimerContext;
 
 
+/**
+ * Consumes one realtime segment in two stages: a consumer thread pulls and decodes the messages into a bounded row
+ * buffer, and the indexing thread indexes them in batches. Once the segment is complete, it is converted on the
+ * {@link SegmentConversionService} while it keeps serving queries from memory. With the low level consumer, the
+ * consumed offset range is checkpointed once the segment is handed off for conversion, so that the next segment of
+ * the partition starts consuming right away; a segment that was checkpointed but not converted before a restart is
+ * rebuilt by consuming its range again.
+ */
 public class RealtimeSegmentDataManager implements SegmentDataManager {
   private static final Logger LOGGER = LoggerFactory.getLogger(RealtimeSegmentDataManager.class);
   private final static long ONE_MINUTE_IN_MILLSEC = 1000 * 60;
+  // Rows consumed ahead of the indexing thread
+  private static final int ROW_BUFFER_SIZE = 10000;
+  private static final int INDEXING_BATCH_SIZE = 1000;
+  private static final long ROW_BUFFER_POLL_MILLIS = 100;
+  private static final int MAX_CONVERSION_ATTEMPTS = 3;
+  private static final long CONVERSION_RETRY_BACKOFF_MILLIS = 10000;
 
   private final String segmentName;
   private final Schema schema;
@@ -52,6 +82,11 @@ public class RealtimeSegmentDataManager implements SegmentDataManager {
 
   private final StreamProviderConfig kafkaStreamProviderConfig;
   private final StreamProvider kafkaStreamProvider;
+  private final boolean lowLevelConsumer;
+  // Offset the segment starts consuming from, -1 for the high level consumer which does not expose offsets
+  private final long startOffset;
+  // End offset of a checkpointed segment rebuilt after a restart, -1 when consuming new messages
+  private final long replayEndOffset;
   private final File resourceDir;
   private final File resourceTmpDir;
   private final Object lock = new Object();
@@ -61,16 +96,40 @@ public class RealtimeSegmentDataManager implements SegmentDataManager {
   private long segmentEndTimeThreshold;
 
   private volatile boolean keepIndexing = true;
+  // Set once the consumer thread has put its last row in the row buffer
+  private volatile boolean consuming = true;
+  private final BlockingQueue<GenericRow> rowBuffer = new ArrayBlockingQueue<GenericRow>(ROW_BUFFER_SIZE);
   private TimerTask segmentStatusTask;
   private final RealtimeTableDataManager notifier;
+  private final SegmentConversionService conversionService;
+  private Thread consumerThread;
   private Thread indexingThread;
-  
+
+  private final Meter rowsConsumedMeter;
+  private final Meter rowsIndexedMeter;
+  private final Histogram rowsBufferedHistogram;
+  private final Histogram consumerOffsetLagHistogram;
+  private final Timer segmentConversionTimer;
+  private final Meter segmentConversionFailuresMeter;
+
   private final String sortedColumn;
 
   public RealtimeSegmentDataManager(final RealtimeSegmentZKMetadata segmentMetadata,
       final AbstractTableConfig tableConfig, InstanceZKMetadata instanceMetadata,
       RealtimeTableDataManager realtimeResourceManager, final String resourceDataDir, final ReadMode mode,
       final Schema schema) throws Exception {
+    this(segmentMetadata, tableConfig, createStreamProviderConfig(tableConfig, instanceMetadata, schema),
+        createStreamProvider(tableConfig), isLowLevelConsumer(tableConfig), realtimeResourceManager, resourceDataDir,
+        mode, schema, SegmentConversionService.getInstance());
+  }
+
+  /**
+   * Consumes the segment from the given stream provider, which gets initialized with the given config.
+   */
+  RealtimeSegmentDataManager(final RealtimeSegmentZKMetadata segmentMetadata, final AbstractTableConfig tableConfig,
+      StreamProviderConfig streamProviderConfig, StreamProvider streamProvider, boolean lowLevelConsumer,
+      RealtimeTableDataManager realtimeResourceManager, final String resourceDataDir, final ReadMode mode,
+      final Schema schema, SegmentConversionService conversionService) throws Exception {
     this.schema = schema;
     if (tableConfig.getIndexingConfig().getSortedColumn().isEmpty()) {
       LOGGER.info("RealtimeDataResourceZKMetadata contains no information about sorted column");
@@ -89,11 +148,9 @@ public class RealtimeSegmentDataManager implements SegmentDataManager {
     this.segmentMetatdaZk = segmentMetadata;
     this.segmentName = segmentMetadata.getSegmentName();
 
-    // create and init stream provider config
-    // TODO : ideally resourceMetatda should create and give back a streamProviderConfig
-    this.kafkaStreamProviderConfig = new KafkaHighLevelStreamProviderConfig();
-    this.kafkaStreamProviderConfig.init(tableConfig, instanceMetadata, schema);
-    
+    this.lowLevelConsumer = lowLevelConsumer;
+    this.kafkaStreamProviderConfig = streamProviderConfig;
+
     segmentEndTimeThreshold = start + kafkaStreamProviderConfig.getTimeThresholdToFlushSegment();
     
     this.resourceDir = new File(resourceDataDir);
@@ -102,15 +159,53 @@ public class RealtimeSegmentDataManager implements SegmentDataManager {
       resourceTmpDir.mkdirs();
     }
     this.mode = mode;
-    // create and init stream provider
-    this.kafkaStreamProvider = new KafkaHighLevelConsumerStreamProvider();
+    // init stream provider
+    this.kafkaStreamProvider = streamProvider;
     this.kafkaStreamProvider.init(kafkaStreamProviderConfig);
+    // resume from where the previous segment of the partition ended
+    if (lowLevelConsumer && segmentMetadata.getStartOffset() >= 0) {
+      this.kafkaStreamProvider.setOffset(segmentMetadata.getStartOffset());
+    }
     this.kafkaStreamProvider.start();
+    this.startOffset = lowLevelConsumer ? kafkaStreamProvider.currentOffset() : -1;
+    if (lowLevelConsumer && segmentMetadata.getStartOffset() < 0 && segmentMetadata.getStatus() == Status.IN_PROGRESS) {
+      // the controller could not resolve the offset of the first segment of the partition, checkpoint the offset this
+      // server resolved, so that it resumes from it after a restart
+      segmentMetadata.setStartOffset(startOffset);
+      realtimeResourceManager.checkpointStartOffset(segmentMetadata);
+    }
+    if (lowLevelConsumer && segmentMetadata.getStatus() == Status.DONE && segmentMetadata.getEndOffset() >= 0) {
+      LOGGER.info("Rebuilding segment {} from offset {} to offset {}", segmentName, startOffset,
+          segmentMetadata.getEndOffset());
+      this.replayEndOffset = segmentMetadata.getEndOffset();
+    } else {
+      this.replayEndOffset = -1;
+    }
     // lets create a new realtime segment
-    realtimeSegment = new RealtimeSegmentImpl(schema, kafkaStreamProviderConfig.getSizeThresholdToFlushSegment());
+    IndexingConfig indexingConfig = tableConfig.getIndexingConfig();
+    realtimeSegment = new RealtimeSegmentImpl(schema, kafkaStreamProviderConfig.getSizeThresholdToFlushSegment(),
+        indexingConfig.isOffHeapDictionary(), indexingConfig.isOffHeapInvertedIndex(),
+        indexingConfig.getInvertedIndexColumns());
     ((RealtimeSegmentImpl) (realtimeSegment)).setSegmentName(segmentMetadata.getSegmentName());
     ((RealtimeSegmentImpl) (realtimeSegment)).setSegmentMetadata(segmentMetadata, this.schema);
     notifier = realtimeResourceManager;
+    this.conversionService = conversionService;
+
+    String tableName = segmentMetadata.getTableName();
+    rowsConsumedMeter = Metrics.newMeter(RealtimeSegmentDataManager.class,
+        tableName + "-" + CommonConstants.Metric.Server.REALTIME_ROWS_CONSUMED, "rows", TimeUnit.SECONDS);
+    rowsIndexedMeter = Metrics.newMeter(RealtimeSegmentDataManager.class,
+        tableName + "-" + CommonConstants.Metric.Server.REALTIME_ROWS_INDEXED, "rows", TimeUnit.SECONDS);
+    rowsBufferedHistogram = Metrics.newHistogram(RealtimeSegmentDataManager.class,
+        tableName + "-" + CommonConstants.Metric.Server.REALTIME_ROWS_BUFFERED, false);
+    consumerOffsetLagHistogram = Metrics.newHistogram(RealtimeSegmentDataManager.class,
+        tableName + "-" + CommonConstants.Metric.Server.REALTIME_CONSUMER_OFFSET_LAG, false);
+    segmentConversionTimer = Metrics.newTimer(RealtimeSegmentDataManager.class,
+        tableName + "-" + CommonConstants.Metric.Server.REALTIME_SEGMENT_CONVERSION_TIME, TimeUnit.MILLISECONDS,
+        TimeUnit.SECONDS);
+    segmentConversionFailuresMeter = Metrics.newMeter(RealtimeSegmentDataManager.class,
+        tableName + "-" + CommonConstants.Metric.Server.REALTIME_SEGMENT_CONVERSION_FAILURES, "segments",
+        TimeUnit.SECONDS);
 
     segmentStatusTask = new TimerTask() {
       @Override
@@ -119,13 +214,20 @@ public class RealtimeSegmentDataManager implements SegmentDataManager {
       }
     };
 
+    // start the consumer thread, which fetches and decodes the messages ahead of the indexing thread
+    consumerThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        consume();
+      }
+    }, "realtime-consumer-" + segmentName);
+    consumerThread.start();
+
     // start the indexing thread
     indexingThread = new Thread(new Runnable() {
       @Override
       public void run() {
-        // continue indexing until criteria is met
-        while (((RealtimeSegmentImpl) realtimeSegment).index(kafkaStreamProvider.next()) && keepIndexing) {
-        }
+        index();
 
         LOGGER.info("Indexing threshold reached, proceeding with index conversion");
         // kill the timer first
@@ -133,43 +235,43 @@ public class RealtimeSegmentDataManager implements SegmentDataManager {
         LOGGER.info("Trying to persist a realtimeSegment - " + realtimeSegment.getSegmentName());
         LOGGER.info("Indexed " + ((RealtimeSegmentImpl) realtimeSegment).getRawDocumentCount()
             + " raw events, current number of docs = " + ((RealtimeSegmentImpl) realtimeSegment).getTotalDocs());
-        File tempSegmentFolder = new File(resourceTmpDir, "tmp-" + String.valueOf(System.currentTimeMillis()));
 
-        // lets convert the segment now
-        RealtimeSegmentConverter conveter =
-            new RealtimeSegmentConverter((RealtimeSegmentImpl) realtimeSegment, tempSegmentFolder.getAbsolutePath(),
-                schema, segmentMetadata.getTableName(), segmentMetadata.getSegmentName(), sortedColumn);
+        final RealtimeSegmentZKMetadata completedSegmentMetadata = getCompletedSegmentMetadata();
+        if (lowLevelConsumer) {
+          try {
+            kafkaStreamProvider.commit(completedSegmentMetadata.getEndOffset());
+            kafkaStreamProvider.shutdown();
+          } catch (Exception e) {
+            LOGGER.error("Caught exception while shutting down the consumer of segment " + segmentName, e);
+          }
+        }
+
+        // blocks while too many completed segments wait for their conversion, the next segment of the partition is
+        // only created once this one is handed off
         try {
-          LOGGER.info("Trying to build segment!");
-          conveter.build();
-          File destDir = new File(resourceDataDir, segmentMetadata.getSegmentName());
-          FileUtils.deleteQuietly(destDir);
-          FileUtils.moveDirectory(tempSegmentFolder.listFiles()[0], destDir);
-
-          FileUtils.deleteQuietly(tempSegmentFolder);
-          long startTime = ((RealtimeSegmentImpl) realtimeSegment).getMinTime();
-          long endTime = ((RealtimeSegmentImpl) realtimeSegment).getMaxTime();
-
-          TimeUnit timeUnit = schema.getTimeFieldSpec().getOutgoingGranularitySpec().getTimeType();
-          swap();
-          RealtimeSegmentZKMetadata metadaToOverrite = new RealtimeSegmentZKMetadata();
-          metadaToOverrite.setTableName(segmentMetadata.getTableName());
-          metadaToOverrite.setSegmentName(segmentMetadata.getSegmentName());
-          metadaToOverrite.setSegmentType(SegmentType.OFFLINE);
-          metadaToOverrite.setStatus(Status.DONE);
-          metadaToOverrite.setStartTime(startTime);
-          metadaToOverrite.setEndTime(endTime);
-          metadaToOverrite.setTotalDocs(realtimeSegment.getTotalDocs());
-          metadaToOverrite.setTimeUnit(timeUnit);
-          notifier.notify(metadaToOverrite);
-
-          kafkaStreamProvider.commit();
-          kafkaStreamProvider.shutdown();
-        } catch (Exception e) {
-          LOGGER.error("Caught exception in the realtime indexing thread", e);
+          conversionService.submit(new Runnable() {
+            @Override
+            public void run() {
+              convert(completedSegmentMetadata);
+            }
+          });
+        } catch (InterruptedException e) {
+          LOGGER.warn("Interrupted while handing off segment {} for conversion", segmentName);
+          Thread.currentThread().interrupt();
+          return;
+        }
+
+        if (replayEndOffset >= 0) {
+          // the checkpoint of a rebuilt segment is already in ZK, and the next segment of the partition was created
+          // from it
+          notifier.notifySegmentRebuilt(segmentName);
+        } else if (lowLevelConsumer) {
+          // checkpoint the consumed range, the next segment of the partition starts at the end offset while this one
+          // is being converted
+          notifier.notify(completedSegmentMetadata);
         }
       }
-    });
+    }, "realtime-indexing-" + segmentName);
 
     indexingThread.start();
 
@@ -179,6 +281,164 @@ public class RealtimeSegmentDataManager implements SegmentDataManager {
     LOGGER.debug("finished scheduling keepIndexing timer check");
   }
 
+  /**
+   * Fetch stage: moves the decoded rows into the row buffer until the segment has enough rows, it is told to stop or,
+   * when rebuilding a checkpointed segment, its end offset is reached. The low level consumer returns null when no
+   * message arrived within its fetch timeout.
+   */
+  private void consume() {
+    int numRowsConsumed = 0;
+    try {
+      while (keepIndexing && numRowsConsumed < kafkaStreamProviderConfig.getSizeThresholdToFlushSegment()
+          && (replayEndOffset < 0 || kafkaStreamProvider.currentOffset() < replayEndOffset)) {
+        GenericRow row = kafkaStreamProvider.next();
+        if (row == null) {
+          continue;
+        }
+        // next() skips the messages that fail to decode, so the row can be past the checkpointed range, in which case
+        // the offset after it is past the end offset
+        if (replayEndOffset >= 0 && kafkaStreamProvider.currentOffset() > replayEndOffset) {
+          break;
+        }
+        rowBuffer.put(row);
+        numRowsConsumed++;
+        rowsConsumedMeter.mark();
+        if (numRowsConsumed % INDEXING_BATCH_SIZE == 0
+            && kafkaStreamProvider instanceof KafkaLowLevelConsumerStreamProvider) {
+          long highWatermark = ((KafkaLowLevelConsumerStreamProvider) kafkaStreamProvider).getHighWatermark();
+          if (highWatermark >= 0) {
+            consumerOffsetLagHistogram.update(highWatermark - kafkaStreamProvider.currentOffset());
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      LOGGER.error("Caught exception in the realtime consumer thread", e);
+    } finally {
+      consuming = false;
+    }
+  }
+
+  /**
+   * Indexing stage: indexes the buffered rows in batches until the consumer thread is done and the buffer is empty.
+   * The consumer thread stops at the size threshold, so the segment always has room for the buffered rows.
+   */
+  private void index() {
+    RealtimeSegmentImpl segment = (RealtimeSegmentImpl) realtimeSegment;
+    GenericRow[] batch = new GenericRow[INDEXING_BATCH_SIZE];
+    List<GenericRow> rows = new ArrayList<GenericRow>(INDEXING_BATCH_SIZE);
+    try {
+      while (true) {
+        GenericRow row = rowBuffer.poll(ROW_BUFFER_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (row == null) {
+          if (!consuming && rowBuffer.isEmpty()) {
+            break;
+          }
+          continue;
+        }
+        rows.add(row);
+        rowBuffer.drainTo(rows, INDEXING_BATCH_SIZE - 1);
+        rowsBufferedHistogram.update(rowBuffer.size());
+
+        int numRows = rows.size();
+        int numRowsIndexed = segment.index(rows.toArray(batch), numRows);
+        rowsIndexedMeter.mark(numRowsIndexed);
+        if (numRowsIndexed < numRows) {
+          LOGGER.warn("Segment {} is full, dropped {} rows", segmentName, numRows - numRowsIndexed);
+          break;
+        }
+        rows.clear();
+      }
+      consumerThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Metadata of the completed segment, everything it holds is known from the realtime segment before the conversion.
+   */
+  private RealtimeSegmentZKMetadata getCompletedSegmentMetadata() {
+    RealtimeSegmentImpl segment = (RealtimeSegmentImpl) realtimeSegment;
+    RealtimeSegmentZKMetadata metadaToOverrite = new RealtimeSegmentZKMetadata();
+    metadaToOverrite.setTableName(segmentMetatdaZk.getTableName());
+    metadaToOverrite.setSegmentName(segmentName);
+    metadaToOverrite.setSegmentType(SegmentType.OFFLINE);
+    metadaToOverrite.setStatus(Status.DONE);
+    metadaToOverrite.setStartTime(segment.getMinTime());
+    metadaToOverrite.setEndTime(segment.getMaxTime());
+    metadaToOverrite.setTotalDocs(segment.getTotalDocs());
+    metadaToOverrite.setTimeUnit(schema.getTimeFieldSpec().getOutgoingGranularitySpec().getTimeType());
+    if (startOffset >= 0) {
+      // checkpoint the consumed range, the next segment of the partition starts at the end offset
+      metadaToOverrite.setStartOffset(startOffset);
+      metadaToOverrite.setEndOffset(replayEndOffset >= 0 ? replayEndOffset : kafkaStreamProvider.currentOffset());
+    }
+    return metadaToOverrite;
+  }
+
+  /**
+   * Builds the immutable segment and swaps it in, retrying with a backoff when the build fails. The segment keeps
+   * serving queries from memory when it cannot be converted. The high level consumer only commits its offsets once the
+   * segment is on disk, which is also when the next segment gets created.
+   */
+  private void convert(RealtimeSegmentZKMetadata completedSegmentMetadata) {
+    for (int attempt = 1;; attempt++) {
+      try {
+        buildAndSwap();
+        break;
+      } catch (Exception e) {
+        if (attempt >= MAX_CONVERSION_ATTEMPTS) {
+          segmentConversionFailuresMeter.mark();
+          LOGGER.error("Could not convert realtime segment {} after {} attempts", segmentName, attempt, e);
+          return;
+        }
+        LOGGER.warn("Caught exception while converting realtime segment {}, attempt {} of {}", segmentName, attempt,
+            MAX_CONVERSION_ATTEMPTS, e);
+      }
+      try {
+        Thread.sleep(attempt * CONVERSION_RETRY_BACKOFF_MILLIS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+
+    if (!lowLevelConsumer) {
+      notifier.notify(completedSegmentMetadata);
+      try {
+        kafkaStreamProvider.commit();
+        kafkaStreamProvider.shutdown();
+      } catch (Exception e) {
+        LOGGER.error("Caught exception while shutting down the consumer of segment " + segmentName, e);
+      }
+    }
+  }
+
+  private void buildAndSwap() throws Exception {
+    File tempSegmentFolder = new File(resourceTmpDir, "tmp-" + String.valueOf(System.currentTimeMillis()));
+    try {
+      // lets convert the segment now
+      RealtimeSegmentConverter conveter =
+          new RealtimeSegmentConverter((RealtimeSegmentImpl) realtimeSegment, tempSegmentFolder.getAbsolutePath(),
+              schema, segmentMetatdaZk.getTableName(), segmentName, sortedColumn);
+      LOGGER.info("Trying to build segment!");
+      TimerContext conversionTime = segmentConversionTimer.time();
+      try {
+        conveter.build();
+      } finally {
+        conversionTime.stop();
+      }
+      File destDir = new File(resourceDir, segmentName);
+      FileUtils.deleteQuietly(destDir);
+      FileUtils.moveDirectory(tempSegmentFolder.listFiles()[0], destDir);
+    } finally {
+      FileUtils.deleteQuietly(tempSegmentFolder);
+    }
+    swap();
+  }
+
   public void swap() throws Exception {
     IndexSegment segment = Loaders.IndexSegment.load(new File(resourceDir, segmentMetatdaZk.getSegmentName()), mode);
     synchronized (lock) {
@@ -197,7 +457,7 @@ public class RealtimeSegmentDataManager implements SegmentDataManager {
   }
 
   private void computeKeepIndexing() {
-    if (keepIndexing) {
+    if (keepIndexing && replayEndOffset < 0) {
       LOGGER.debug("Current indexed " + ((RealtimeSegmentImpl) realtimeSegment).getRawDocumentCount()
           + " raw events, success = " + ((RealtimeSegmentImpl) realtimeSegment).getSuccessIndexedCount()
           + " docs, total = " + ((RealtimeSegmentImpl) realtimeSegment).getTotalDocs() + " docs in realtime segment");
@@ -216,4 +476,29 @@ public class RealtimeSegmentDataManager implements SegmentDataManager {
       }
     }
   }
+
+  private static boolean isLowLevelConsumer(AbstractTableConfig tableConfig) {
+    return new KafkaStreamMetadata(tableConfig.getIndexingConfig().getStreamConfigs())
+        .getConsumerType() == ConsumerType.simple;
+  }
+
+  // TODO : ideally resourceMetatda should create and give back a streamProviderConfig
+  private static StreamProviderConfig createStreamProviderConfig(AbstractTableConfig tableConfig,
+      InstanceZKMetadata instanceMetadata, Schema schema) {
+    StreamProviderConfig streamProviderConfig;
+    if (isLowLevelConsumer(tableConfig)) {
+      streamProviderConfig = new KafkaLowLevelStreamProviderConfig();
+    } else {
+      streamProviderConfig = new KafkaHighLevelStreamProviderConfig();
+    }
+    streamProviderConfig.init(tableConfig, instanceMetadata, schema);
+    return streamProviderConfig;
+  }
+
+  private static StreamProvider createStreamProvider(AbstractTableConfig tableConfig) {
+    if (isLowLevelConsumer(tableConfig)) {
+      return new KafkaLowLevelConsumerStreamProvider();
+    }
+    return new KafkaHighLevelConsumerStreamProvider();
+  }
 }
@@ -154,6 +154,21 @@ public class RealtimeTableDataManager implements TableDataManager {
     markSegmentAsLoaded(metadata.getSegmentName());
   }
 
+  /**
+   * Called before a segment starts consuming from the offset its server resolved, to write that offset to its ZK
+   * metadata.
+   */
+  public void checkpointStartOffset(RealtimeSegmentZKMetadata metadata) {
+    ZKMetadataProvider.setRealtimeSegmentZKMetadata(_helixPropertyStore, metadata);
+  }
+
+  /**
+   * Called once a checkpointed segment has been rebuilt after a restart, its ZK metadata is left as is.
+   */
+  public void notifySegmentRebuilt(String segmentName) {
+    markSegmentAsLoaded(segmentName);
+  }
+
   @Override
   public boolean isStarted() {
     return _isStarted;
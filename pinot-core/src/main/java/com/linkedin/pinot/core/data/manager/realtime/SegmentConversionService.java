@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.data.manager.realtime;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.linkedin.pinot.common.utils.NamedThreadFactory;
+
+
+/**
+ * Builds the immutable segments of the completed realtime segments off their indexing threads, so that consumption
+ * moves on to the next segment while the previous one is converted. The number of threads bounds how many segments
+ * are built at once on a server, and the number of pending conversions bounds how many completed segments wait for
+ * their turn in memory: once it is reached, {@link #submit(Runnable)} blocks the indexing thread handing off its
+ * segment, which also holds back the creation of the next segment of its partition.
+ */
+public class SegmentConversionService {
+  private static final int NUM_CONVERSION_THREADS = 2;
+  // Conversions queued or running
+  private static final int MAX_PENDING_CONVERSIONS = 4;
+  private static final long IDLE_THREAD_KEEP_ALIVE_SECONDS = 60L;
+
+  private static final SegmentConversionService INSTANCE =
+      new SegmentConversionService(NUM_CONVERSION_THREADS, MAX_PENDING_CONVERSIONS);
+
+  private final ThreadPoolExecutor executor;
+  private final Semaphore pendingConversions;
+
+  SegmentConversionService(int numThreads, int maxPendingConversions) {
+    executor = new ThreadPoolExecutor(numThreads, numThreads, IDLE_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(), new NamedThreadFactory("RealtimeSegmentConversion"));
+    // The threads are not daemons, let them go when there is nothing to convert
+    executor.allowCoreThreadTimeOut(true);
+    pendingConversions = new Semaphore(maxPendingConversions);
+  }
+
+  public static SegmentConversionService getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Queues the conversion, blocking while the maximum number of conversions are pending.
+   */
+  public void submit(final Runnable conversion) throws InterruptedException {
+    pendingConversions.acquire();
+    try {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            conversion.run();
+          } finally {
+            pendingConversions.release();
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      pendingConversions.release();
+      throw e;
+    }
+  }
+}
@@ -67,15 +67,7 @@ public class FixedBitSkipListSCMVReader implements SingleColumnMultiValueReader
 
   public FixedBitSkipListSCMVReader(File file, int numDocs, int totalNumValues, int columnSizeInBits, boolean signed,
       boolean isMmap) throws Exception {
-    this.numDocs = numDocs;
-    this.totalNumValues = totalNumValues;
-    float averageValuesPerDoc = totalNumValues / numDocs;
-    this.docsPerChunk = (int) (Math.ceil(PREFERRED_NUM_VALUES_PER_CHUNK / averageValuesPerDoc));
-    this.numChunks = (numDocs + docsPerChunk - 1) / docsPerChunk;
-    chunkOffsetHeaderSize = numChunks * SIZE_OF_INT * NUM_COLS_IN_HEADER;
-    bitsetSize = (totalNumValues + 7) / 8;
-    rawDataSize = Ints.checkedCast(((long) totalNumValues * columnSizeInBits + 7) / 8);
-    totalSize = chunkOffsetHeaderSize + bitsetSize + rawDataSize;
+    computeSizes(numDocs, totalNumValues, columnSizeInBits);
     raf = new RandomAccessFile(file, "rw");
     this.isMmap = isMmap;
     if (isMmap) {
@@ -116,6 +108,44 @@ public class FixedBitSkipListSCMVReader implements SingleColumnMultiValueReader
     }
   }
 
+  /**
+   * Reads the index from a buffer holding the content of an index file, e.g. a slice of a single file segment.
+   */
+  public FixedBitSkipListSCMVReader(ByteBuffer buffer, int numDocs, int totalNumValues, int columnSizeInBits,
+      boolean signed) throws Exception {
+    computeSizes(numDocs, totalNumValues, columnSizeInBits);
+    this.isMmap = false;
+    chunkOffsetsBuffer = slice(buffer, 0, chunkOffsetHeaderSize);
+    bitsetBuffer = slice(buffer, chunkOffsetHeaderSize, bitsetSize);
+    rawDataBuffer = slice(buffer, chunkOffsetHeaderSize + bitsetSize, rawDataSize);
+    chunkOffsetsReader =
+        new FixedByteWidthRowColDataFileReader(chunkOffsetsBuffer, numDocs, NUM_COLS_IN_HEADER,
+            new int[] { SIZE_OF_INT });
+    customBitSet = CustomBitSet.withByteBuffer(bitsetSize, bitsetBuffer);
+    rawDataReader =
+        FixedBitWidthRowColDataFileReader.forByteBuffer(rawDataBuffer, totalNumValues, 1,
+            new int[] { columnSizeInBits }, new boolean[] { signed });
+  }
+
+  private void computeSizes(int numDocs, int totalNumValues, int columnSizeInBits) {
+    this.numDocs = numDocs;
+    this.totalNumValues = totalNumValues;
+    float averageValuesPerDoc = totalNumValues / numDocs;
+    this.docsPerChunk = (int) (Math.ceil(PREFERRED_NUM_VALUES_PER_CHUNK / averageValuesPerDoc));
+    this.numChunks = (numDocs + docsPerChunk - 1) / docsPerChunk;
+    chunkOffsetHeaderSize = numChunks * SIZE_OF_INT * NUM_COLS_IN_HEADER;
+    bitsetSize = (totalNumValues + 7) / 8;
+    rawDataSize = Ints.checkedCast(((long) totalNumValues * columnSizeInBits + 7) / 8);
+    totalSize = chunkOffsetHeaderSize + bitsetSize + rawDataSize;
+  }
+
+  private static ByteBuffer slice(ByteBuffer buffer, int offset, int size) {
+    ByteBuffer duplicate = buffer.duplicate();
+    duplicate.position(offset);
+    duplicate.limit(offset + size);
+    return duplicate.slice();
+  }
+
   public int getChunkOffsetHeaderSize() {
     return chunkOffsetHeaderSize;
   }
@@ -271,6 +271,40 @@ public class FixedBitWidthRowColDataFileReader {
 
   }
 
+  /**
+   * Reads the values of the given column for numRows consecutive rows into the values array. Every value is
+   * extracted from a single long read instead of going through {@link CustomBitSet#readInt(long, long)}.
+   *
+   * @param startRow first row to read
+   * @param numRows number of rows to read
+   * @param col column to read
+   * @param values array to fill, starting at index 0
+   */
+  public void getInts(int startRow, int numRows, int col, int[] values) {
+    if (numRows <= 0) {
+      return;
+    }
+    // Range check on the last row
+    computeBitOffset(startRow + numRows - 1, col);
+    final int bitLength = colSizesInBits[col];
+    final long mask = (1L << bitLength) - 1;
+    final int offset = offsets[col];
+    // The last byte a long read can start from
+    final long lastLongBytePosition = totalSizeInBytes - 8;
+    long bitOffset = computeBitOffset(startRow, col);
+    for (int i = 0; i < numRows; i++) {
+      final long bytePosition = bitOffset >>> 3;
+      if (bytePosition <= lastLongBytePosition) {
+        final int bitOffsetInByte = (int) (bitOffset & 7);
+        final long word = byteBuffer.getLong((int) bytePosition);
+        values[i] = (int) ((word >>> (64 - bitOffsetInByte - bitLength)) & mask) - offset;
+      } else {
+        values[i] = customBitSet.readInt(bitOffset, bitOffset + bitLength) - offset;
+      }
+      bitOffset += rowSizeInBits;
+    }
+  }
+
   public int getNumberOfRows() {
     return rows;
   }
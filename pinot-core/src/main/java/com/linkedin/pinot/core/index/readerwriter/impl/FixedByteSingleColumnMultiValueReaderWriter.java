@@ -199,8 +199,15 @@ public class FixedByteSingleColumnMultiValueReaderWriter implements SingleColumn
 
   @Override
   public void setIntArray(int row, int[] intArray) {
-    int newStartIndex = updateHeader(row, intArray.length);
-    for (int i = 0; i < intArray.length; i++) {
+    setIntArray(row, intArray, intArray.length);
+  }
+
+  /**
+   * Sets the first length values of intArray, so that a scratch array can be reused across rows.
+   */
+  public void setIntArray(int row, int[] intArray, int length) {
+    int newStartIndex = updateHeader(row, length);
+    for (int i = 0; i < length; i++) {
       currentDataWriter.setInt(newStartIndex + i, 0, intArray[i]);
     }
   }
@@ -44,6 +44,7 @@ public class SegmentGeneratorConfig {
    */
   private boolean createInvertedIndex = false;
   private List<String> invertedIndexCreationColumns = new ArrayList<String>();
+  private List<String> bloomFilterCreationColumns = new ArrayList<String>();
 
   private String segmentNamePostfix = null;
   private String segmentName = null;
@@ -57,6 +58,8 @@ public class SegmentGeneratorConfig {
   private String segmentEndTime = null;
   private FileFormat inputFileFormat = FileFormat.AVRO;
   private File inputDataFilePath = null;
+  private int numIndexingThreads = Runtime.getRuntime().availableProcessors();
+  private boolean spillRowsToDisk = false;
 
   /*
    *
@@ -114,6 +117,18 @@ public class SegmentGeneratorConfig {
     return invertedIndexCreationColumns;
   }
 
+  /**
+   * Bloom filters let equality and in filters skip the dictionary lookup, and segments be pruned, for values the
+   * segment does not contain. Worth it on high cardinality columns (ids, hashes).
+   */
+  public void createBloomFilterForColumn(String column) {
+    bloomFilterCreationColumns.add(column);
+  }
+
+  public List<String> getBloomFilterCreationColumns() {
+    return bloomFilterCreationColumns;
+  }
+
   public void setSegmentName(String segmentName) {
     this.segmentName = segmentName;
   }
@@ -287,4 +302,27 @@ public class SegmentGeneratorConfig {
   public Schema getSchema() {
     return schema;
   }
+
+  /**
+   * Number of threads building the dictionaries and indexes of the columns, 1 to build them in the calling thread.
+   */
+  public int getNumIndexingThreads() {
+    return numIndexingThreads;
+  }
+
+  public void setNumIndexingThreads(int numIndexingThreads) {
+    this.numIndexingThreads = numIndexingThreads;
+  }
+
+  /**
+   * Whether the rows buffered between the statistics and the indexing passes are spilled to disk instead of being
+   * kept on heap.
+   */
+  public boolean isSpillRowsToDisk() {
+    return spillRowsToDisk;
+  }
+
+  public void setSpillRowsToDisk(boolean spillRowsToDisk) {
+    this.spillRowsToDisk = spillRowsToDisk;
+  }
 }
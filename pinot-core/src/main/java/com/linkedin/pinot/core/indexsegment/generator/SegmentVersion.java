@@ -16,5 +16,7 @@
 package com.linkedin.pinot.core.indexsegment.generator;
 
 public enum SegmentVersion {
-  v1;
+  v1,
+  // All the column indexes in a single file, see SingleFileIndexDirectory
+  v2;
 }
@@ -19,14 +19,10 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
-import com.linkedin.pinot.core.trace.TraceCallable;
 import com.linkedin.pinot.core.trace.TraceRunnable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,9 +37,11 @@ import com.linkedin.pinot.core.common.Operator;
 import com.linkedin.pinot.core.operator.query.MAggregationGroupByOperator;
 import com.linkedin.pinot.core.operator.query.MAggregationOperator;
 import com.linkedin.pinot.core.operator.query.MSelectionOnlyOperator;
+import com.linkedin.pinot.core.operator.query.MSegmentResultCacheOperator;
 import com.linkedin.pinot.core.operator.query.MSelectionOrderByOperator;
 import com.linkedin.pinot.core.query.aggregation.CombineService;
 import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByOperatorService;
+import com.linkedin.pinot.core.query.scheduler.QueryScheduler.QueryExecutorService;
 
 
 /**
@@ -112,7 +110,14 @@ public class MCombineOperator extends BaseOperator {
     final long startTime = System.currentTimeMillis();
     if (_isParallel) {
       final long queryEndTime = System.currentTimeMillis() + _timeOutMs;
-      int numGroups = Math.min(MAX_THREADS_PER_QUERY, (_operators.size() + MIN_SEGMENTS_PER_THREAD - 1) / MIN_SEGMENTS_PER_THREAD);
+      int numGroups;
+      if (_executorService instanceof QueryExecutorService) {
+        // The scheduler bounds the number of threads of the query, so run one task per segment and let idle threads
+        // pick up the remaining segments instead of binding segments to threads upfront.
+        numGroups = _operators.size();
+      } else {
+        numGroups = Math.min(MAX_THREADS_PER_QUERY, (_operators.size() + MIN_SEGMENTS_PER_THREAD - 1) / MIN_SEGMENTS_PER_THREAD);
+      }
 
       final List<List<Operator>> operatorGroups = new ArrayList<List<Operator>>(numGroups);
       for (int i = 0; i < numGroups; i++) {
@@ -150,88 +155,50 @@ public class MCombineOperator extends BaseOperator {
       LOGGER
           .debug("Submitting operators to be run in parallel and it took:" + (System.currentTimeMillis() - startTime));
 
-      // Submit merger job:
-      Future<IntermediateResultsBlock> mergedBlockFuture =
-          _executorService.submit(new TraceCallable<IntermediateResultsBlock>() {
-            @Override
-            public IntermediateResultsBlock callJob() throws Exception {
-              int mergedBlocksNumber = 0;
-              IntermediateResultsBlock mergedBlock = null;
-              while ((queryEndTime > System.currentTimeMillis()) && (mergedBlocksNumber < operatorGroups.size())) {
-                if (mergedBlock == null) {
-                  mergedBlock =
-                      (IntermediateResultsBlock) blockingQueue.poll(queryEndTime - System.currentTimeMillis(),
-                          TimeUnit.MILLISECONDS);
-                  if (mergedBlock != null) {
-                    mergedBlocksNumber++;
-                  }
-                  LOGGER.debug("Got response from operator 0 after: {}", (System.currentTimeMillis() - startTime));
-                } else {
-                  IntermediateResultsBlock blockToMerge =
-                      (IntermediateResultsBlock) blockingQueue.poll(queryEndTime - System.currentTimeMillis(),
-                          TimeUnit.MILLISECONDS);
-                  if (blockToMerge != null) {
-                    try {
-                      LOGGER.debug("Got response from operator {} after: {}", mergedBlocksNumber,
-                          (System.currentTimeMillis() - startTime));
-                      CombineService.mergeTwoBlocks(_brokerRequest, mergedBlock, blockToMerge);
-                      LOGGER.debug("Merged response from operator {} after: {}", mergedBlocksNumber,
-                          (System.currentTimeMillis() - startTime));
-                    } catch (Exception e) {
-                      mergedBlock.getExceptions().add(
-                          QueryException.getException(QueryException.MERGE_RESPONSE_ERROR, e));
-                    }
-                    mergedBlocksNumber++;
-                  }
-                }
-              }
-              return mergedBlock;
-            }
-          });
-
-      // Get merge results.
+      // Merge the blocks in this thread, which waits for them anyway, so that merging does not hold a thread of the
+      // executor while the segment tasks are still queued.
+      int mergedBlocksNumber = 0;
       try {
-        _mergedBlock = mergedBlockFuture.get(queryEndTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
-      } catch (InterruptedException e) {
-        LOGGER.error("InterruptedException ", e);
-        if (_mergedBlock == null) {
-          _mergedBlock = new IntermediateResultsBlock(e);
-        }
-        List<ProcessingException> exceptions = _mergedBlock.getExceptions();
-        if (exceptions == null) {
-          exceptions = new ArrayList<ProcessingException>();
-        }
-        exceptions.add(QueryException.getException(QueryException.FUTURE_CALL_ERROR, e));
-        _mergedBlock.setExceptionsList(exceptions);
-      } catch (ExecutionException e) {
-        LOGGER.error("Execution Exception", e);
-        if (_mergedBlock == null) {
-          _mergedBlock = new IntermediateResultsBlock(e);
-        }
-        List<ProcessingException> exceptions = _mergedBlock.getExceptions();
-        if (exceptions == null) {
-          exceptions = new ArrayList<ProcessingException>();
-        }
-        exceptions.add(QueryException.getException(QueryException.MERGE_RESPONSE_ERROR, e));
-        _mergedBlock.setExceptionsList(exceptions);
-      } catch (TimeoutException e) {
-        LOGGER.error("TimeoutException ", e);
-        if (_mergedBlock == null) {
-          _mergedBlock = new IntermediateResultsBlock(e);
+        while ((queryEndTime > System.currentTimeMillis()) && (mergedBlocksNumber < operatorGroups.size())) {
+          IntermediateResultsBlock blockToMerge =
+              (IntermediateResultsBlock) blockingQueue.poll(queryEndTime - System.currentTimeMillis(),
+                  TimeUnit.MILLISECONDS);
+          if (blockToMerge == null) {
+            continue;
+          }
+          if (_mergedBlock == null) {
+            _mergedBlock = blockToMerge;
+            LOGGER.debug("Got response from operator 0 after: {}", (System.currentTimeMillis() - startTime));
+          } else {
+            try {
+              LOGGER.debug("Got response from operator {} after: {}", mergedBlocksNumber,
+                  (System.currentTimeMillis() - startTime));
+              CombineService.mergeTwoBlocks(_brokerRequest, _mergedBlock, blockToMerge);
+              LOGGER.debug("Merged response from operator {} after: {}", mergedBlocksNumber,
+                  (System.currentTimeMillis() - startTime));
+            } catch (Exception e) {
+              _mergedBlock.getExceptions().add(QueryException.getException(QueryException.MERGE_RESPONSE_ERROR, e));
+            }
+          }
+          mergedBlocksNumber++;
         }
-        List<ProcessingException> exceptions = _mergedBlock.getExceptions();
-        if (exceptions == null) {
-          exceptions = new ArrayList<ProcessingException>();
+        if (mergedBlocksNumber < operatorGroups.size()) {
+          TimeoutException e =
+              new TimeoutException("Merged " + mergedBlocksNumber + " out of " + operatorGroups.size()
+                  + " blocks before timing out");
+          LOGGER.error("TimeoutException ", e);
+          addException(e, QueryException.EXECUTION_TIMEOUT_ERROR);
         }
-        exceptions.add(QueryException.getException(QueryException.EXECUTION_TIMEOUT_ERROR, e));
-        _mergedBlock.setExceptionsList(exceptions);
+      } catch (InterruptedException e) {
+        LOGGER.error("InterruptedException ", e);
+        addException(e, QueryException.FUTURE_CALL_ERROR);
       }
 
     } else {
       for (Operator operator : _operators) {
         if ((operator instanceof MAggregationOperator) || (operator instanceof MSelectionOrderByOperator)
             || (operator instanceof MSelectionOnlyOperator) || (operator instanceof MAggregationGroupByOperator)
-            || (operator instanceof MCombineOperator)) {
+            || (operator instanceof MCombineOperator) || (operator instanceof MSegmentResultCacheOperator)) {
           IntermediateResultsBlock block = (IntermediateResultsBlock) operator.nextBlock();
           if (_mergedBlock == null) {
             _mergedBlock = block;
@@ -252,6 +219,18 @@ public class MCombineOperator extends BaseOperator {
     return _mergedBlock;
   }
 
+  private void addException(Exception e, ProcessingException processingException) {
+    if (_mergedBlock == null) {
+      _mergedBlock = new IntermediateResultsBlock(e);
+    }
+    List<ProcessingException> exceptions = _mergedBlock.getExceptions();
+    if (exceptions == null) {
+      exceptions = new ArrayList<ProcessingException>();
+    }
+    exceptions.add(QueryException.getException(processingException, e));
+    _mergedBlock.setExceptionsList(exceptions);
+  }
+
   private void trimToSize(BrokerRequest brokerRequest, IntermediateResultsBlock mergedBlock) {
     AggregationGroupByOperatorService aggregationGroupByOperatorService =
         new AggregationGroupByOperatorService(brokerRequest.getAggregationsInfo(), brokerRequest.getGroupBy());
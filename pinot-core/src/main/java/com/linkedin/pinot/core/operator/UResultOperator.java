@@ -18,6 +18,7 @@ package com.linkedin.pinot.core.operator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.linkedin.pinot.common.utils.DataTable;
 import com.linkedin.pinot.core.block.query.InstanceResponseBlock;
 import com.linkedin.pinot.core.common.Block;
 import com.linkedin.pinot.core.common.BlockId;
@@ -35,9 +36,15 @@ public class UResultOperator extends BaseOperator {
   private static final Logger LOGGER = LoggerFactory.getLogger(UResultOperator.class);
 
   private final Operator _operator;
+  private final int _dataTableVersion;
 
   public UResultOperator(Operator combinedOperator) {
+    this(combinedOperator, DataTable.DEFAULT_VERSION);
+  }
+
+  public UResultOperator(Operator combinedOperator, int dataTableVersion) {
     _operator = combinedOperator;
+    _dataTableVersion = dataTableVersion;
   }
 
   @Override
@@ -48,7 +55,7 @@ public class UResultOperator extends BaseOperator {
 
   @Override
   public Block getNextBlock() {
-    InstanceResponseBlock instanceResponseBlock = new InstanceResponseBlock(_operator.nextBlock());
+    InstanceResponseBlock instanceResponseBlock = new InstanceResponseBlock(_operator.nextBlock(), _dataTableVersion);
     return instanceResponseBlock;
   }
 
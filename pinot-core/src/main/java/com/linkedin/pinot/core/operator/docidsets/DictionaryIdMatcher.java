@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.docidsets;
+
+/**
+ * Matches dictionary ids against the ids accepted by a predicate without boxing or hashing: a min/max check when
+ * the ids form a contiguous range (e.g. range predicates on a sorted dictionary), and a bit set over the ids
+ * otherwise.
+ */
+public final class DictionaryIdMatcher {
+  private final int _minDictId;
+  private final int _maxDictId;
+  // Null when every id between min and max matches
+  private final long[] _bitSet;
+
+  /**
+   * @param dictIds the matching dictionary ids, must not be empty
+   */
+  public DictionaryIdMatcher(int[] dictIds) {
+    int minDictId = Integer.MAX_VALUE;
+    int maxDictId = Integer.MIN_VALUE;
+    for (int dictId : dictIds) {
+      minDictId = Math.min(minDictId, dictId);
+      maxDictId = Math.max(maxDictId, dictId);
+    }
+    _minDictId = minDictId;
+    _maxDictId = maxDictId;
+
+    long[] bitSet = new long[((maxDictId - minDictId) >>> 6) + 1];
+    int numDistinctDictIds = 0;
+    for (int dictId : dictIds) {
+      int index = dictId - minDictId;
+      long bit = 1L << index;
+      if ((bitSet[index >>> 6] & bit) == 0) {
+        bitSet[index >>> 6] |= bit;
+        numDistinctDictIds++;
+      }
+    }
+    _bitSet = (numDistinctDictIds == maxDictId - minDictId + 1) ? null : bitSet;
+  }
+
+  public boolean matches(int dictId) {
+    if (dictId < _minDictId || dictId > _maxDictId) {
+      return false;
+    }
+    if (_bitSet == null) {
+      return true;
+    }
+    int index = dictId - _minDictId;
+    return (_bitSet[index >>> 6] & (1L << index)) != 0;
+  }
+
+  /**
+   * Writes the positions of the matching dictionary ids among the first length ones into matchingPositions, each
+   * position shifted by offset.
+   *
+   * @return the number of matching positions
+   */
+  public int getMatchingPositions(int[] dictIds, int length, int offset, int[] matchingPositions) {
+    int numMatching = 0;
+    if (_bitSet == null) {
+      for (int i = 0; i < length; i++) {
+        int dictId = dictIds[i];
+        if (dictId >= _minDictId && dictId <= _maxDictId) {
+          matchingPositions[numMatching++] = offset + i;
+        }
+      }
+    } else {
+      for (int i = 0; i < length; i++) {
+        if (matches(dictIds[i])) {
+          matchingPositions[numMatching++] = offset + i;
+        }
+      }
+    }
+    return numMatching;
+  }
+}
@@ -21,8 +21,6 @@ import com.linkedin.pinot.core.common.BlockMultiValIterator;
 import com.linkedin.pinot.core.common.BlockValSet;
 import com.linkedin.pinot.core.common.Constants;
 import com.linkedin.pinot.core.common.FilterBlockDocIdSet;
-import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
-import it.unimi.dsi.fastutil.ints.IntSet;
 import java.util.Arrays;
 
 
@@ -71,20 +69,20 @@ public class ScanBasedMultiValueDocIdSet implements FilterBlockDocIdSet {
   public static class BlockValSetBlockDocIdIterator implements BlockDocIdIterator {
     BlockMultiValIterator valueIterator;
     int currentDocId = -1;
-    private IntSet dictIdSet;
+    private DictionaryIdMatcher dictIdMatcher;
     final int[] intArray;
     private int startDocId;
     private int endDocId;
 
     public BlockValSetBlockDocIdIterator(BlockValSet blockValSet, BlockMetadata blockMetadata, int[] dictIds) {
       if (dictIds.length > 0) {
-        this.dictIdSet = new IntOpenHashSet(dictIds);
+        this.dictIdMatcher = new DictionaryIdMatcher(dictIds);
         this.intArray = new int[blockMetadata.getMaxNumberOfMultiValues()];
         Arrays.fill(intArray, 0);
         setStartDocId(blockMetadata.getStartDocId());
         setEndDocId(blockMetadata.getEndDocId());
       } else {
-        this.dictIdSet = null;
+        this.dictIdMatcher = null;
         this.intArray = new int[0];
         setStartDocId(Constants.EOF);
         setEndDocId(Constants.EOF);
@@ -138,7 +136,7 @@ public class ScanBasedMultiValueDocIdSet implements FilterBlockDocIdSet {
         int length = valueIterator.nextIntVal(intArray);
         boolean found = false;
         for (int i = 0; i < length; i++) {
-          if (dictIdSet.contains(intArray[i])) {
+          if (dictIdMatcher.matches(intArray[i])) {
             found = true;
             break;
           }
@@ -21,8 +21,6 @@ import com.linkedin.pinot.core.common.BlockSingleValIterator;
 import com.linkedin.pinot.core.common.BlockValSet;
 import com.linkedin.pinot.core.common.Constants;
 import com.linkedin.pinot.core.common.FilterBlockDocIdSet;
-import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
-import it.unimi.dsi.fastutil.ints.IntSet;
 
 
 public class ScanBasedSingleValueDocIdSet implements FilterBlockDocIdSet {
@@ -65,21 +63,40 @@ public class ScanBasedSingleValueDocIdSet implements FilterBlockDocIdSet {
     return blockValSetBlockDocIdIterator;
   }
 
+  /**
+   * Scans the dictionary ids a batch of docs at a time: the ids of {@link #BATCH_SIZE} docs are read in bulk from
+   * the value iterator, matched against the predicate, and the matching doc ids are then returned one by one.
+   *
+   * When used inside an AND, the iterator is mostly advanced to the candidate docs of the other children, so after
+   * skipping ahead the batch restarts from {@link #MIN_BATCH_SIZE} docs and doubles with every scan, instead
+   * of reading a full batch of docs which are not candidates.
+   */
   public static class BlockValSetBasedDocIdIterator implements BlockDocIdIterator {
+    public static final int BATCH_SIZE = 2048;
+    public static final int MIN_BATCH_SIZE = 32;
+
     int currentDocId = -1;
     BlockSingleValIterator valueIterator;
-    private IntSet dictIdSet;
+    private DictionaryIdMatcher dictIdMatcher;
     private int startDocId;
     private int endDocId;
 
+    private final int[] dictIdBuffer = new int[BATCH_SIZE];
+    private final int[] matchingDocIds = new int[BATCH_SIZE];
+    private int numMatchingDocIds = 0;
+    private int matchingDocIdIndex = 0;
+    // First doc of the next batch to scan, -1 until the scan starts
+    private int nextDocIdToScan = -1;
+    private int batchSize = BATCH_SIZE;
+
     public BlockValSetBasedDocIdIterator(BlockValSet blockValSet, BlockMetadata blockMetadata, int[] dictIds) {
       if (dictIds.length < 1) {
-        this.dictIdSet = null;
+        this.dictIdMatcher = null;
         currentDocId = Constants.EOF;
         setStartDocId(Constants.EOF);
         setEndDocId(Constants.EOF);
       } else {
-        this.dictIdSet = new IntOpenHashSet(dictIds);
+        this.dictIdMatcher = new DictionaryIdMatcher(dictIds);
         setStartDocId(blockMetadata.getStartDocId());
         setEndDocId(blockMetadata.getEndDocId());
       }
@@ -111,14 +128,22 @@ public class ScanBasedSingleValueDocIdSet implements FilterBlockDocIdSet {
         targetDocId = startDocId;
       } else if (targetDocId > endDocId) {
         currentDocId = Constants.EOF;
+        return currentDocId;
       }
       if (currentDocId >= targetDocId) {
         return currentDocId;
-      } else {
-        currentDocId = targetDocId - 1;
+      }
+
+      // Skip the matching docs of the current batch before the target, or the docs not scanned yet
+      while (matchingDocIdIndex < numMatchingDocIds && matchingDocIds[matchingDocIdIndex] < targetDocId) {
+        matchingDocIdIndex++;
+      }
+      if (matchingDocIdIndex == numMatchingDocIds && targetDocId > nextDocIdToScan) {
+        nextDocIdToScan = targetDocId;
+        batchSize = MIN_BATCH_SIZE;
         valueIterator.skipTo(targetDocId);
-        return next();
       }
+      return next();
     }
 
     @Override
@@ -126,15 +151,35 @@ public class ScanBasedSingleValueDocIdSet implements FilterBlockDocIdSet {
       if (currentDocId == Constants.EOF) {
         return currentDocId;
       }
-      while (valueIterator.hasNext() && currentDocId <= endDocId) {
-        currentDocId = currentDocId + 1;
-        int dictIdForCurrentDoc = valueIterator.nextIntVal();
-        if (dictIdSet.contains(dictIdForCurrentDoc)) {
-          return currentDocId;
+      while (matchingDocIdIndex == numMatchingDocIds) {
+        if (!scanNextBatch()) {
+          currentDocId = Constants.EOF;
+          return Constants.EOF;
+        }
+      }
+      currentDocId = matchingDocIds[matchingDocIdIndex++];
+      return currentDocId;
+    }
+
+    private boolean scanNextBatch() {
+      if (nextDocIdToScan == -1) {
+        nextDocIdToScan = Math.max(startDocId, 0);
+        if (nextDocIdToScan > 0) {
+          valueIterator.skipTo(nextDocIdToScan);
         }
       }
-      currentDocId = Constants.EOF;
-      return Constants.EOF;
+      if (nextDocIdToScan > endDocId) {
+        return false;
+      }
+      int numDocs = valueIterator.nextIntVals(dictIdBuffer, Math.min(batchSize, endDocId - nextDocIdToScan + 1));
+      if (numDocs == 0) {
+        return false;
+      }
+      numMatchingDocIds = dictIdMatcher.getMatchingPositions(dictIdBuffer, numDocs, nextDocIdToScan, matchingDocIds);
+      matchingDocIdIndex = 0;
+      nextDocIdToScan += numDocs;
+      batchSize = Math.min(batchSize << 1, BATCH_SIZE);
+      return true;
     }
 
     @Override
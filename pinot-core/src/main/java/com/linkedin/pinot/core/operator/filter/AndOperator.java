@@ -47,6 +47,23 @@ public class AndOperator extends BaseFilterOperator {
     return true;
   }
 
+  /**
+   * The first child drives the intersection, the others are only advanced to its matching docs.
+   */
+  @Override
+  public boolean isIndexBased() {
+    return !operators.isEmpty() && isIndexBased(operators.get(0));
+  }
+
+  @Override
+  public int getEstimatedNumMatchingDocs(int totalDocs) {
+    int numMatchingDocs = totalDocs;
+    for (Operator operator : operators) {
+      numMatchingDocs = Math.min(numMatchingDocs, getEstimatedNumMatchingDocs(operator, totalDocs));
+    }
+    return numMatchingDocs;
+  }
+
   @Override
   public BaseFilterBlock nextFilterBlock(BlockId BlockId) {
     List<FilterBlockDocIdSet> blockDocIdSets = new ArrayList<FilterBlockDocIdSet>();
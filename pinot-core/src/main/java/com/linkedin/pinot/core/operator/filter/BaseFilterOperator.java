@@ -49,6 +49,45 @@ public abstract class BaseFilterOperator extends BaseOperator {
     return predicate;
   }
 
+  /**
+   * Whether the matching docs come from an index (sorted or inverted) instead of a scan of the forward index, i.e.
+   * whether the doc id iterator can skip to a doc without reading the docs in between.
+   */
+  public boolean isIndexBased() {
+    return false;
+  }
+
+  /**
+   * Estimates the number of docs out of totalDocs matching this filter, so that the filter planner can evaluate the
+   * most selective children of an AND first. 0 is only returned when no doc can match.
+   */
+  public int getEstimatedNumMatchingDocs(int totalDocs) {
+    return totalDocs;
+  }
+
+  /**
+   * Whether the estimate is computed from the same index entries the filter block evaluates, rather than guessed.
+   * Only operators with an exact estimate of 0 are taken out of an AND or an OR by the filter planner.
+   */
+  public boolean isEstimateExact() {
+    return false;
+  }
+
+  public static boolean isIndexBased(Operator operator) {
+    return (operator instanceof BaseFilterOperator) && ((BaseFilterOperator) operator).isIndexBased();
+  }
+
+  public static boolean isEstimateExact(Operator operator) {
+    return (operator instanceof BaseFilterOperator) && ((BaseFilterOperator) operator).isEstimateExact();
+  }
+
+  public static int getEstimatedNumMatchingDocs(Operator operator, int totalDocs) {
+    if (operator instanceof BaseFilterOperator) {
+      return ((BaseFilterOperator) operator).getEstimatedNumMatchingDocs(totalDocs);
+    }
+    return totalDocs;
+  }
+
   @Override
   public final BaseFilterBlock getNextBlock() {
     return getNextBlock(new BlockId(0));
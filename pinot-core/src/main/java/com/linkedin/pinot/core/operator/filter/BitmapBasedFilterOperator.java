@@ -15,6 +15,10 @@
  */
 package com.linkedin.pinot.core.operator.filter;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,6 +35,7 @@ import com.linkedin.pinot.core.common.Predicate;
 import com.linkedin.pinot.core.operator.docidsets.BitmapDocIdSet;
 import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluator;
 import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluatorProvider;
+import com.linkedin.pinot.core.realtime.impl.invertedIndex.RealtimeInvertedIndex;
 import com.linkedin.pinot.core.segment.index.InvertedIndexReader;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 
@@ -41,6 +46,9 @@ public class BitmapBasedFilterOperator extends BaseFilterOperator {
   private DataSource dataSource;
   private BitmapBlock bitmapBlock;
 
+  // Bitmaps of the dictionary ids matching the predicate, looked up once for the planner estimate and the filter block
+  private ImmutableRoaringBitmap[] matchingBitmaps;
+
   public BitmapBasedFilterOperator(DataSource dataSource) {
     this.dataSource = dataSource;
   }
@@ -50,22 +58,73 @@ public class BitmapBasedFilterOperator extends BaseFilterOperator {
     return true;
   }
 
+  @Override
+  public boolean isIndexBased() {
+    return true;
+  }
+
+  /**
+   * The filter block evaluates the same bitmaps, but realtime bitmaps can hold docs that are not searchable yet, so
+   * only an estimate of 0 is exact.
+   */
+  @Override
+  public boolean isEstimateExact() {
+    for (ImmutableRoaringBitmap bitmap : getMatchingBitmaps()) {
+      if (bitmap != null && !bitmap.isEmpty()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int getEstimatedNumMatchingDocs(int totalDocs) {
+    long numMatchingDocs = 0;
+    for (ImmutableRoaringBitmap bitmap : getMatchingBitmaps()) {
+      // Realtime inverted indexes have no bitmap for dictionary ids whose first doc is still being indexed
+      if (bitmap != null) {
+        numMatchingDocs += bitmap.getCardinality();
+      }
+    }
+    return (int) Math.min(numMatchingDocs, totalDocs);
+  }
+
   @Override
   public BaseFilterBlock nextFilterBlock(BlockId BlockId) {
-    Predicate predicate = getPredicate();
-    InvertedIndexReader invertedIndex = dataSource.getInvertedIndex();
     Block dataSourceBlock = dataSource.nextBlock();
-    Dictionary dictionary = dataSource.getDictionary();
-    PredicateEvaluator evaluator = PredicateEvaluatorProvider.getPredicateFunctionFor(predicate, dictionary);
-    int[] dictionaryIds = evaluator.getDictionaryIds();
-    ImmutableRoaringBitmap[] bitmaps = new ImmutableRoaringBitmap[dictionaryIds.length];
-    for (int i = 0; i < dictionaryIds.length; i++) {
-      bitmaps[i] = invertedIndex.getImmutable(dictionaryIds[i]);
-    }
-    bitmapBlock = new BitmapBlock(dataSourceBlock.getMetadata(), bitmaps);
+    bitmapBlock = new BitmapBlock(dataSourceBlock.getMetadata(), getMatchingBitmaps());
     return bitmapBlock;
   }
 
+  private ImmutableRoaringBitmap[] getMatchingBitmaps() {
+    if (matchingBitmaps == null) {
+      Predicate predicate = getPredicate();
+      InvertedIndexReader invertedIndex = dataSource.getInvertedIndex();
+      Dictionary dictionary = dataSource.getDictionary();
+      PredicateEvaluator evaluator = PredicateEvaluatorProvider.getPredicateFunctionFor(predicate, dictionary,
+          dataSource.getBloomFilter());
+      int[] dictionaryIds = evaluator.getDictionaryIds();
+      if (invertedIndex instanceof RealtimeInvertedIndex) {
+        // Keep the parts of the realtime bitmaps apart rather than merging them for every query
+        List<ImmutableRoaringBitmap> bitmaps = new ArrayList<ImmutableRoaringBitmap>();
+        for (int dictionaryId : dictionaryIds) {
+          ImmutableRoaringBitmap[] parts = ((RealtimeInvertedIndex) invertedIndex).getImmutableBitmaps(dictionaryId);
+          if (parts != null) {
+            Collections.addAll(bitmaps, parts);
+          }
+        }
+        matchingBitmaps = bitmaps.toArray(new ImmutableRoaringBitmap[bitmaps.size()]);
+      } else {
+        ImmutableRoaringBitmap[] bitmaps = new ImmutableRoaringBitmap[dictionaryIds.length];
+        for (int i = 0; i < dictionaryIds.length; i++) {
+          bitmaps[i] = invertedIndex.getImmutable(dictionaryIds[i]);
+        }
+        matchingBitmaps = bitmaps;
+      }
+    }
+    return matchingBitmaps;
+  }
+
   @Override
   public boolean close() {
     LOGGER.info("Time spent in BitmapBasedFilterOperator operator:{} is {}", this,
@@ -121,6 +121,9 @@ public class BitmapBasedFilterOperatorWithoutDictionary extends BaseFilterOperat
         MutableRoaringBitmap neqBitmap = invertedIndex.getDocIdSetFor(getNumberObjectFromString(neqValue));
         if (neqBitmap == null) {
           neqBitmap = new MutableRoaringBitmap();
+        } else {
+          // The index bitmap is shared, flip a copy of it
+          neqBitmap = neqBitmap.clone();
         }
         neqBitmap.flip(0, neqBitmap.getCardinality());
         bitmapList.add(neqBitmap);
@@ -47,6 +47,25 @@ public class OrOperator extends BaseFilterOperator {
     return true;
   }
 
+  @Override
+  public boolean isIndexBased() {
+    for (Operator operator : operators) {
+      if (!isIndexBased(operator)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int getEstimatedNumMatchingDocs(int totalDocs) {
+    long numMatchingDocs = 0;
+    for (Operator operator : operators) {
+      numMatchingDocs += getEstimatedNumMatchingDocs(operator, totalDocs);
+    }
+    return (int) Math.min(numMatchingDocs, totalDocs);
+  }
+
   @Override
   public BaseFilterBlock nextFilterBlock(BlockId BlockId) {
     List<FilterBlockDocIdSet> blockDocIdSets = new ArrayList<FilterBlockDocIdSet>();
@@ -41,6 +41,7 @@ public class ScanBasedFilterOperator extends BaseFilterOperator {
   private DataSource dataSource;
   private Integer startDocId;
   private Integer endDocId;
+  private PredicateEvaluator predicateEvaluator;
 
   public ScanBasedFilterOperator(DataSource dataSource) {
     this(dataSource, null, null);
@@ -58,16 +59,40 @@ public class ScanBasedFilterOperator extends BaseFilterOperator {
     return true;
   }
 
+  /**
+   * The estimate is a guess, unless no dictionary id matches the predicate.
+   */
+  @Override
+  public boolean isEstimateExact() {
+    return getPredicateEvaluator().getDictionaryIds().length == 0;
+  }
+
+  /**
+   * Estimates the matching docs from the fraction of the dictionary matching the predicate, assuming the values are
+   * evenly distributed.
+   */
+  @Override
+  public int getEstimatedNumMatchingDocs(int totalDocs) {
+    int numMatchingDictIds = getPredicateEvaluator().getDictionaryIds().length;
+    if (numMatchingDictIds == 0) {
+      return 0;
+    }
+    int cardinality = dataSource.getDataSourceMetadata().cardinality();
+    if (cardinality <= 0) {
+      return totalDocs;
+    }
+    long numMatchingDocs = (long) totalDocs * Math.min(numMatchingDictIds, cardinality) / cardinality;
+    return (int) Math.max(numMatchingDocs, 1);
+  }
+
   @Override
   public BaseFilterBlock nextFilterBlock(BlockId BlockId) {
-    Predicate predicate = getPredicate();
-    Dictionary dictionary = dataSource.getDictionary();
     DataSourceMetadata dataSourceMetadata = dataSource.getDataSourceMetadata();
     FilterBlockDocIdSet docIdSet;
     Block nextBlock = dataSource.nextBlock();
     BlockValSet blockValueSet = nextBlock.getBlockValueSet();
     BlockMetadata blockMetadata = nextBlock.getMetadata();
-    PredicateEvaluator evaluator = PredicateEvaluatorProvider.getPredicateFunctionFor(predicate, dictionary);
+    PredicateEvaluator evaluator = getPredicateEvaluator();
     if (dataSourceMetadata.isSingleValue()) {
       docIdSet = new ScanBasedSingleValueDocIdSet(blockValueSet, blockMetadata, evaluator.getDictionaryIds());
     } else {
@@ -85,6 +110,16 @@ public class ScanBasedFilterOperator extends BaseFilterOperator {
     return new ScanBlock(docIdSet);
   }
 
+  private PredicateEvaluator getPredicateEvaluator() {
+    if (predicateEvaluator == null) {
+      Predicate predicate = getPredicate();
+      Dictionary dictionary = dataSource.getDictionary();
+      predicateEvaluator = PredicateEvaluatorProvider.getPredicateFunctionFor(predicate, dictionary,
+          dataSource.getBloomFilter());
+    }
+    return predicateEvaluator;
+  }
+
   @Override
   public boolean close() {
     dataSource.close();
@@ -0,0 +1,302 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.filter;
+
+import it.unimi.dsi.fastutil.doubles.DoubleOpenHashSet;
+import it.unimi.dsi.fastutil.doubles.DoubleSet;
+import it.unimi.dsi.fastutil.floats.FloatOpenHashSet;
+import it.unimi.dsi.fastutil.floats.FloatSet;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.core.common.BaseFilterBlock;
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockId;
+import com.linkedin.pinot.core.common.BlockSingleValIterator;
+import com.linkedin.pinot.core.common.DataSource;
+import com.linkedin.pinot.core.common.Predicate;
+import com.linkedin.pinot.core.common.predicate.EqPredicate;
+import com.linkedin.pinot.core.common.predicate.InPredicate;
+import com.linkedin.pinot.core.common.predicate.NEqPredicate;
+import com.linkedin.pinot.core.common.predicate.NotInPredicate;
+import com.linkedin.pinot.core.common.predicate.RangePredicate;
+import com.linkedin.pinot.core.operator.filter.BitmapBasedFilterOperatorWithoutDictionary.BitmapBlock;
+
+
+/**
+ * Filters a single value numeric column that has neither a dictionary nor an inverted index, e.g. a raw realtime
+ * metric, by comparing every raw value in the forward index against the predicate. Values are compared in the data
+ * type of the column, the way the dictionary parses them, so that e.g. a float column matches 0.1 and long values
+ * above 2^53 are told apart.
+ */
+public class ScanBasedFilterOperatorWithoutDictionary extends BaseFilterOperator {
+  private static final String UNBOUNDED = "*";
+
+  private final DataSource dataSource;
+
+  public ScanBasedFilterOperatorWithoutDictionary(DataSource dataSource) {
+    this.dataSource = dataSource;
+  }
+
+  @Override
+  public boolean open() {
+    dataSource.open();
+    return true;
+  }
+
+  @Override
+  public BaseFilterBlock nextFilterBlock(BlockId blockId) {
+    ValueMatcher matcher = getValueMatcher(getPredicate(), dataSource.getDataSourceMetadata().getDataType());
+    Block dataSourceBlock = dataSource.nextBlock();
+    BlockSingleValIterator iterator = (BlockSingleValIterator) dataSourceBlock.getBlockValueSet().iterator();
+    MutableRoaringBitmap bitmap = new MutableRoaringBitmap();
+    int docId = 0;
+    while (iterator.hasNext()) {
+      if (matcher.matchesNext(iterator)) {
+        bitmap.add(docId);
+      }
+      docId++;
+    }
+    return new BitmapBlock(dataSourceBlock.getMetadata(), new ImmutableRoaringBitmap[] { bitmap });
+  }
+
+  private static ValueMatcher getValueMatcher(Predicate predicate, DataType dataType) {
+    switch (predicate.getType()) {
+      case EQ:
+        return getSetValueMatcher(new String[] { ((EqPredicate) predicate).getEqualsValue() }, false, dataType);
+      case NEQ:
+        return getSetValueMatcher(new String[] { ((NEqPredicate) predicate).getNotEqualsValue() }, true, dataType);
+      case IN:
+        return getSetValueMatcher(((InPredicate) predicate).getInRange(), false, dataType);
+      case NOT_IN:
+        return getSetValueMatcher(((NotInPredicate) predicate).getNotInRange(), true, dataType);
+      case RANGE:
+        return getRangeValueMatcher((RangePredicate) predicate, dataType);
+      default:
+        throw new UnsupportedOperationException("Predicate type " + predicate.getType()
+            + " is not supported on a column without a dictionary");
+    }
+  }
+
+  private static ValueMatcher getSetValueMatcher(String[] values, boolean exclude, DataType dataType) {
+    switch (dataType) {
+      case INT:
+        return new IntSetValueMatcher(values, exclude);
+      case LONG:
+        return new LongSetValueMatcher(values, exclude);
+      case FLOAT:
+        return new FloatSetValueMatcher(values, exclude);
+      case DOUBLE:
+        return new DoubleSetValueMatcher(values, exclude);
+      default:
+        throw new UnsupportedOperationException("Data type " + dataType
+            + " is not supported on a column without a dictionary");
+    }
+  }
+
+  private static ValueMatcher getRangeValueMatcher(RangePredicate predicate, DataType dataType) {
+    switch (dataType) {
+      case INT:
+        return new IntRangeValueMatcher(predicate);
+      case LONG:
+        return new LongRangeValueMatcher(predicate);
+      case FLOAT:
+        return new FloatRangeValueMatcher(predicate);
+      case DOUBLE:
+        return new DoubleRangeValueMatcher(predicate);
+      default:
+        throw new UnsupportedOperationException("Data type " + dataType
+            + " is not supported on a column without a dictionary");
+    }
+  }
+
+  @Override
+  public boolean close() {
+    dataSource.close();
+    return true;
+  }
+
+  private interface ValueMatcher {
+    /**
+     * Reads the next value of the iterator and returns whether it matches.
+     */
+    boolean matchesNext(BlockSingleValIterator iterator);
+  }
+
+  private static class IntSetValueMatcher implements ValueMatcher {
+    private final IntSet values = new IntOpenHashSet();
+    private final boolean exclude;
+
+    IntSetValueMatcher(String[] values, boolean exclude) {
+      for (String value : values) {
+        this.values.add(Integer.parseInt(value));
+      }
+      this.exclude = exclude;
+    }
+
+    @Override
+    public boolean matchesNext(BlockSingleValIterator iterator) {
+      return values.contains(iterator.nextIntVal()) != exclude;
+    }
+  }
+
+  private static class LongSetValueMatcher implements ValueMatcher {
+    private final LongSet values = new LongOpenHashSet();
+    private final boolean exclude;
+
+    LongSetValueMatcher(String[] values, boolean exclude) {
+      for (String value : values) {
+        this.values.add(Long.parseLong(value));
+      }
+      this.exclude = exclude;
+    }
+
+    @Override
+    public boolean matchesNext(BlockSingleValIterator iterator) {
+      return values.contains(iterator.nextLongVal()) != exclude;
+    }
+  }
+
+  private static class FloatSetValueMatcher implements ValueMatcher {
+    private final FloatSet values = new FloatOpenHashSet();
+    private final boolean exclude;
+
+    FloatSetValueMatcher(String[] values, boolean exclude) {
+      for (String value : values) {
+        this.values.add(Float.parseFloat(value));
+      }
+      this.exclude = exclude;
+    }
+
+    @Override
+    public boolean matchesNext(BlockSingleValIterator iterator) {
+      return values.contains(iterator.nextFloatVal()) != exclude;
+    }
+  }
+
+  private static class DoubleSetValueMatcher implements ValueMatcher {
+    private final DoubleSet values = new DoubleOpenHashSet();
+    private final boolean exclude;
+
+    DoubleSetValueMatcher(String[] values, boolean exclude) {
+      for (String value : values) {
+        this.values.add(Double.parseDouble(value));
+      }
+      this.exclude = exclude;
+    }
+
+    @Override
+    public boolean matchesNext(BlockSingleValIterator iterator) {
+      return values.contains(iterator.nextDoubleVal()) != exclude;
+    }
+  }
+
+  // An unbounded side of a range is the extreme value of the type, included
+
+  private static class IntRangeValueMatcher implements ValueMatcher {
+    private final int lower;
+    private final int upper;
+    private final boolean includeLower;
+    private final boolean includeUpper;
+
+    IntRangeValueMatcher(RangePredicate predicate) {
+      boolean lowerUnbounded = predicate.getLowerBoundary().equals(UNBOUNDED);
+      boolean upperUnbounded = predicate.getUpperBoundary().equals(UNBOUNDED);
+      lower = lowerUnbounded ? Integer.MIN_VALUE : Integer.parseInt(predicate.getLowerBoundary());
+      upper = upperUnbounded ? Integer.MAX_VALUE : Integer.parseInt(predicate.getUpperBoundary());
+      includeLower = lowerUnbounded || predicate.includeLowerBoundary();
+      includeUpper = upperUnbounded || predicate.includeUpperBoundary();
+    }
+
+    @Override
+    public boolean matchesNext(BlockSingleValIterator iterator) {
+      int value = iterator.nextIntVal();
+      return (includeLower ? value >= lower : value > lower) && (includeUpper ? value <= upper : value < upper);
+    }
+  }
+
+  private static class LongRangeValueMatcher implements ValueMatcher {
+    private final long lower;
+    private final long upper;
+    private final boolean includeLower;
+    private final boolean includeUpper;
+
+    LongRangeValueMatcher(RangePredicate predicate) {
+      boolean lowerUnbounded = predicate.getLowerBoundary().equals(UNBOUNDED);
+      boolean upperUnbounded = predicate.getUpperBoundary().equals(UNBOUNDED);
+      lower = lowerUnbounded ? Long.MIN_VALUE : Long.parseLong(predicate.getLowerBoundary());
+      upper = upperUnbounded ? Long.MAX_VALUE : Long.parseLong(predicate.getUpperBoundary());
+      includeLower = lowerUnbounded || predicate.includeLowerBoundary();
+      includeUpper = upperUnbounded || predicate.includeUpperBoundary();
+    }
+
+    @Override
+    public boolean matchesNext(BlockSingleValIterator iterator) {
+      long value = iterator.nextLongVal();
+      return (includeLower ? value >= lower : value > lower) && (includeUpper ? value <= upper : value < upper);
+    }
+  }
+
+  private static class FloatRangeValueMatcher implements ValueMatcher {
+    private final float lower;
+    private final float upper;
+    private final boolean includeLower;
+    private final boolean includeUpper;
+
+    FloatRangeValueMatcher(RangePredicate predicate) {
+      boolean lowerUnbounded = predicate.getLowerBoundary().equals(UNBOUNDED);
+      boolean upperUnbounded = predicate.getUpperBoundary().equals(UNBOUNDED);
+      lower = lowerUnbounded ? Float.NEGATIVE_INFINITY : Float.parseFloat(predicate.getLowerBoundary());
+      upper = upperUnbounded ? Float.POSITIVE_INFINITY : Float.parseFloat(predicate.getUpperBoundary());
+      includeLower = lowerUnbounded || predicate.includeLowerBoundary();
+      includeUpper = upperUnbounded || predicate.includeUpperBoundary();
+    }
+
+    @Override
+    public boolean matchesNext(BlockSingleValIterator iterator) {
+      float value = iterator.nextFloatVal();
+      return (includeLower ? value >= lower : value > lower) && (includeUpper ? value <= upper : value < upper);
+    }
+  }
+
+  private static class DoubleRangeValueMatcher implements ValueMatcher {
+    private final double lower;
+    private final double upper;
+    private final boolean includeLower;
+    private final boolean includeUpper;
+
+    DoubleRangeValueMatcher(RangePredicate predicate) {
+      boolean lowerUnbounded = predicate.getLowerBoundary().equals(UNBOUNDED);
+      boolean upperUnbounded = predicate.getUpperBoundary().equals(UNBOUNDED);
+      lower = lowerUnbounded ? Double.NEGATIVE_INFINITY : Double.parseDouble(predicate.getLowerBoundary());
+      upper = upperUnbounded ? Double.POSITIVE_INFINITY : Double.parseDouble(predicate.getUpperBoundary());
+      includeLower = lowerUnbounded || predicate.includeLowerBoundary();
+      includeUpper = upperUnbounded || predicate.includeUpperBoundary();
+    }
+
+    @Override
+    public boolean matchesNext(BlockSingleValIterator iterator) {
+      double value = iterator.nextDoubleVal();
+      return (includeLower ? value >= lower : value > lower) && (includeUpper ? value <= upper : value < upper);
+    }
+  }
+}
@@ -48,6 +48,9 @@ public class SortedInvertedIndexBasedFilterOperator extends BaseFilterOperator {
 
   private SortedBlock sortedBlock;
 
+  // Doc id ranges matching the predicate, computed once for the planner estimate and the filter block
+  private List<Pair<Integer, Integer>> matchingRanges;
+
   public SortedInvertedIndexBasedFilterOperator(DataSource dataSource) {
     this.dataSource = dataSource;
   }
@@ -58,23 +61,51 @@ public class SortedInvertedIndexBasedFilterOperator extends BaseFilterOperator {
   }
 
   @Override
-  public BaseFilterBlock nextFilterBlock(BlockId BlockId) {
-    Predicate predicate = getPredicate();
-    final SortedInvertedIndexReader invertedIndex = (SortedInvertedIndexReader) dataSource.getInvertedIndex();
-    Dictionary dictionary = dataSource.getDictionary();
-    List<Pair<Integer, Integer>> pairs = new ArrayList<Pair<Integer, Integer>>();
-    PredicateEvaluator evaluator = PredicateEvaluatorProvider.getPredicateFunctionFor(predicate, dictionary);
-    int[] dictionaryIds = evaluator.getDictionaryIds();
-    Arrays.sort(dictionaryIds);
-    for (int i = 0; i < dictionaryIds.length; i++) {
-      int[] minMax = invertedIndex.getMinMaxRangeFor(dictionaryIds[i]);
-      pairs.add(ImmutablePair.of(minMax[0], minMax[1]));
+  public boolean isIndexBased() {
+    return true;
+  }
+
+  @Override
+  public boolean isEstimateExact() {
+    return true;
+  }
+
+  @Override
+  public int getEstimatedNumMatchingDocs(int totalDocs) {
+    int numMatchingDocs = 0;
+    for (Pair<Integer, Integer> pair : getMatchingRanges()) {
+      numMatchingDocs += pair.getRight() - pair.getLeft() + 1;
     }
+    return Math.min(numMatchingDocs, totalDocs);
+  }
+
+  @Override
+  public BaseFilterBlock nextFilterBlock(BlockId BlockId) {
+    List<Pair<Integer, Integer>> pairs = getMatchingRanges();
     LOGGER.debug("Creating a Sorted Block with pairs: {}", pairs);
     sortedBlock = new SortedBlock(pairs);
     return sortedBlock;
   }
 
+  private List<Pair<Integer, Integer>> getMatchingRanges() {
+    if (matchingRanges == null) {
+      Predicate predicate = getPredicate();
+      final SortedInvertedIndexReader invertedIndex = (SortedInvertedIndexReader) dataSource.getInvertedIndex();
+      Dictionary dictionary = dataSource.getDictionary();
+      List<Pair<Integer, Integer>> pairs = new ArrayList<Pair<Integer, Integer>>();
+      PredicateEvaluator evaluator = PredicateEvaluatorProvider.getPredicateFunctionFor(predicate, dictionary,
+          dataSource.getBloomFilter());
+      int[] dictionaryIds = evaluator.getDictionaryIds();
+      Arrays.sort(dictionaryIds);
+      for (int i = 0; i < dictionaryIds.length; i++) {
+        int[] minMax = invertedIndex.getMinMaxRangeFor(dictionaryIds[i]);
+        pairs.add(ImmutablePair.of(minMax[0], minMax[1]));
+      }
+      matchingRanges = pairs;
+    }
+    return matchingRanges;
+  }
+
   @Override
   public boolean close() {
     LOGGER.info("Time spent in SortedInvertedIndexBasedFilterOperator operator:{} is {}", this,
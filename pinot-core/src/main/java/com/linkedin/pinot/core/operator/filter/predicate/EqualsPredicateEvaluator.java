@@ -18,6 +18,7 @@ package com.linkedin.pinot.core.operator.filter.predicate;
 import java.util.Arrays;
 
 import com.linkedin.pinot.core.common.predicate.EqPredicate;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 
 
@@ -27,7 +28,16 @@ public class EqualsPredicateEvaluator implements PredicateEvaluator {
   private int index;
 
   public EqualsPredicateEvaluator(EqPredicate predicate, Dictionary dictionary) {
-    index = dictionary.indexOf(predicate.getEqualsValue());
+    this(predicate, dictionary, null);
+  }
+
+  public EqualsPredicateEvaluator(EqPredicate predicate, Dictionary dictionary, BloomFilterReader bloomFilter) {
+    String value = predicate.getEqualsValue();
+    if (bloomFilter != null && !bloomFilter.mightContain(value)) {
+      index = Dictionary.NULL_VALUE_INDEX;
+    } else {
+      index = dictionary.indexOf(value);
+    }
     if (index >= 0) {
       equalsMatchDicId = new int[1];
       equalsMatchDicId[0] = index;
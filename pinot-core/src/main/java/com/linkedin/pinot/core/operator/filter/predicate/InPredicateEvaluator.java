@@ -16,6 +16,7 @@
 package com.linkedin.pinot.core.operator.filter.predicate;
 
 import com.linkedin.pinot.core.common.predicate.InPredicate;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import it.unimi.dsi.fastutil.ints.IntSet;
@@ -24,9 +25,16 @@ import it.unimi.dsi.fastutil.ints.IntSet;
 public class InPredicateEvaluator extends AbstractPredicateEvaluator {
 
   public InPredicateEvaluator(InPredicate predicate, Dictionary dictionary) {
+    this(predicate, dictionary, null);
+  }
+
+  public InPredicateEvaluator(InPredicate predicate, Dictionary dictionary, BloomFilterReader bloomFilter) {
     IntSet dictIds = new IntOpenHashSet();
     final String[] inValues = predicate.getInRange();
     for (final String value : inValues) {
+      if (bloomFilter != null && !bloomFilter.mightContain(value)) {
+        continue;
+      }
       final int index = dictionary.indexOf(value);
       if (index >= 0) {
         dictIds.add(index);
@@ -22,6 +22,7 @@ import com.linkedin.pinot.core.common.predicate.NEqPredicate;
 import com.linkedin.pinot.core.common.predicate.NotInPredicate;
 import com.linkedin.pinot.core.common.predicate.RangePredicate;
 import com.linkedin.pinot.core.realtime.impl.dictionary.MutableDictionaryReader;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
 
@@ -29,13 +30,22 @@ import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
 public class PredicateEvaluatorProvider {
 
   public static PredicateEvaluator getPredicateFunctionFor(Predicate predicate, Dictionary dictionary) {
+    return getPredicateFunctionFor(predicate, dictionary, null);
+  }
+
+  /**
+   * @param bloomFilter bloom filter of the column, used to skip the dictionary lookup of equality and in values the
+   * column does not contain, may be null
+   */
+  public static PredicateEvaluator getPredicateFunctionFor(Predicate predicate, Dictionary dictionary,
+      BloomFilterReader bloomFilter) {
     switch (predicate.getType()) {
       case EQ:
-        return new EqualsPredicateEvaluator((EqPredicate) predicate, dictionary);
+        return new EqualsPredicateEvaluator((EqPredicate) predicate, dictionary, bloomFilter);
       case NEQ:
         return new NotEqualsPredicateEvaluator((NEqPredicate) predicate, dictionary);
       case IN:
-        return new InPredicateEvaluator((InPredicate) predicate, dictionary);
+        return new InPredicateEvaluator((InPredicate) predicate, dictionary, bloomFilter);
       case NOT_IN:
         return new NotInPredicateEvaluator((NotInPredicate) predicate, dictionary);
       case RANGE:
@@ -15,9 +15,6 @@
  */
 package com.linkedin.pinot.core.operator.filter.predicate;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import com.linkedin.pinot.core.common.predicate.RangePredicate;
 import com.linkedin.pinot.core.realtime.impl.dictionary.MutableDictionaryReader;
 
@@ -25,7 +22,6 @@ import com.linkedin.pinot.core.realtime.impl.dictionary.MutableDictionaryReader;
 public class RangeRealtimeDictionaryPredicateEvaluator extends AbstractPredicateEvaluator {
 
   public RangeRealtimeDictionaryPredicateEvaluator(RangePredicate predicate, MutableDictionaryReader dictionary) {
-    List<Integer> ids = new ArrayList<Integer>();
     String rangeStart;
     String rangeEnd;
 
@@ -51,14 +47,6 @@ public class RangeRealtimeDictionaryPredicateEvaluator extends AbstractPredicate
       rangeEnd = upper;
     }
 
-    for (int dicId = 0; dicId < dictionary.length(); dicId++) {
-      if (dictionary.inRange(rangeStart, rangeEnd, dicId, incLower, incUpper)) {
-        ids.add(dicId);
-      }
-    }
-    matchingIds = new int[ids.size()];
-    for (int i = 0; i < matchingIds.length; i++) {
-      matchingIds[i] = ids.get(i);
-    }
+    matchingIds = dictionary.getDictIdsInRange(rangeStart, rangeEnd, incLower, incUpper);
   }
 }
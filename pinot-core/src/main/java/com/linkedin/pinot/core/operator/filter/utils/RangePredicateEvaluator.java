@@ -54,10 +54,8 @@ public class RangePredicateEvaluator {
     } else {
       rangeEnd = upper;
     }
-    for (int dicId = 0; dicId < dictionary.length(); dicId++) {
-      if (dictionary.inRange(rangeStart, rangeEnd, dicId, incLower, incUpper)) {
-        ids.add(dicId);
-      }
+    for (int dicId : dictionary.getDictIdsInRange(rangeStart, rangeEnd, incLower, incUpper)) {
+      ids.add(dicId);
     }
     return ids;
   }
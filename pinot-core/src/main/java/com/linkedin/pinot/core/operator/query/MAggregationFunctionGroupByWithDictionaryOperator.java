@@ -16,11 +16,13 @@
 package com.linkedin.pinot.core.operator.query;
 
 import com.linkedin.pinot.core.operator.MatchEntireSegmentDocIdSetBlock;
+import it.unimi.dsi.fastutil.longs.Long2DoubleMap;
+import it.unimi.dsi.fastutil.longs.Long2DoubleOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Map;
 
 import com.linkedin.pinot.common.request.AggregationInfo;
@@ -36,12 +38,10 @@ import com.linkedin.pinot.core.common.BlockValSet;
 import com.linkedin.pinot.core.common.Constants;
 import com.linkedin.pinot.core.common.Operator;
 import com.linkedin.pinot.core.operator.DocIdSetBlock;
-import com.linkedin.pinot.core.operator.MProjectionOperator;
-import com.linkedin.pinot.core.operator.UReplicatedProjectionOperator;
 import com.linkedin.pinot.core.query.aggregation.groupby.BitHacks;
 import com.linkedin.pinot.core.query.aggregation.groupby.GroupByConstants;
+import com.linkedin.pinot.core.query.aggregation.groupby.PrimitiveGroupByAccumulator;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
-import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
 
 
 /**
@@ -49,6 +49,10 @@ import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
  * it creates a long value as group key instead of a String.
  * This will make the algorithm performs better.
  *
+ * For count/sum/min/max, the per group state is kept as a primitive double in a long to double map, so no object
+ * is allocated per document; the group keys are only decoded to Strings once per group in
+ * getAggregationGroupByResult.
+ *
  * GetAggregationGroupByResult will return the results.
  *
  *
@@ -57,13 +61,22 @@ public class MAggregationFunctionGroupByWithDictionaryOperator extends Aggregati
 
   private int[] _groupKeyBitSize;
   private final String[] _stringArray;
+  private final StringBuilder _groupKeyBuilder = new StringBuilder();
 
   private final Dictionary[] _dictionaries;
   private final BlockValIterator[] _groupByBlockValIterators;
+  private final int[][] _multiValueEntries;
+  private long[] _groupKeysBuffer = new long[1];
 
   private final Long2ObjectOpenHashMap<Serializable> _tempAggregationResults =
       new Long2ObjectOpenHashMap<Serializable>();
 
+  // Set when the aggregation function can be accumulated on primitive doubles, null otherwise.
+  private final PrimitiveGroupByAccumulator _accumulator;
+  private final Long2DoubleOpenHashMap _primitiveAggregationResults;
+  private final Dictionary _aggregationColumnDictionary;
+  private BlockSingleValIterator _aggregationColumnIterator;
+
   public MAggregationFunctionGroupByWithDictionaryOperator(AggregationInfo aggregationInfo, GroupBy groupBy,
       Operator projectionOperator, boolean hasDictionary) {
     super(aggregationInfo, groupBy, projectionOperator, hasDictionary);
@@ -71,6 +84,27 @@ public class MAggregationFunctionGroupByWithDictionaryOperator extends Aggregati
     _groupByBlockValIterators = new BlockValIterator[_groupBy.getColumnsSize()];
     setGroupKeyOffset();
     _stringArray = new String[_groupKeyBitSize.length];
+
+    _multiValueEntries = new int[_groupBy.getColumnsSize()][];
+    for (int i = 0; i < _groupBy.getColumnsSize(); ++i) {
+      if (!_isSingleValueGroupByColumn[i]) {
+        _multiValueEntries[i] = new int[_groupByBlocks[i].getMetadata().getMaxNumberOfMultiValues()];
+      }
+    }
+
+    _accumulator = PrimitiveGroupByAccumulator.forFunction(_aggregationFunction);
+    if (_accumulator != null) {
+      _primitiveAggregationResults = new Long2DoubleOpenHashMap();
+      _primitiveAggregationResults.defaultReturnValue(_accumulator.getInitialValue());
+      if (_accumulator.needsValue()) {
+        _aggregationColumnDictionary = _aggregationFunctionBlocks[0].getMetadata().getDictionary();
+      } else {
+        _aggregationColumnDictionary = null;
+      }
+    } else {
+      _primitiveAggregationResults = null;
+      _aggregationColumnDictionary = null;
+    }
   }
 
   private void setGroupKeyOffset() {
@@ -101,12 +135,20 @@ public class MAggregationFunctionGroupByWithDictionaryOperator extends Aggregati
     for (int i = 0; i < _groupBy.getColumnsSize(); ++i) {
       _groupByBlockValIterators[i] = block.getBlock(_groupBy.getColumns().get(i)).getBlockValueSet().iterator();
     }
+    if (_aggregationColumnDictionary != null) {
+      _aggregationColumnIterator =
+          (BlockSingleValIterator) _aggregationFunctionBlocks[0].getBlockValueSet().iterator();
+    }
 
     if (!_isGroupByColumnsContainMultiValueColumn) {
       int dictionaryLength = _dictionaries[0].length();
 
       // Special case: 1 column, small dictionary (<=256 values)
       if (_groupBy.getColumnsSize() == 1 && dictionaryLength <= 256) {
+        if (_accumulator != null) {
+          aggregateSmallDictionaryPrimitive(docIdSetBlock, blockDocIdIterator, dictionaryLength);
+          return null;
+        }
         final Serializable[] aggregates = new Serializable[dictionaryLength];
         final BlockSingleValIterator blockValIterator = (BlockSingleValIterator) _groupByBlockValIterators[0];
 
@@ -136,54 +178,114 @@ public class MAggregationFunctionGroupByWithDictionaryOperator extends Aggregati
         }
       } else {
         while ((docId = blockDocIdIterator.next()) != Constants.EOF) {
-          final long groupKey = getGroupKey(docId);
-          _tempAggregationResults.put(groupKey, _aggregationFunction.aggregate(_tempAggregationResults.get(groupKey), docId, _aggregationFunctionBlocks));
+          aggregate(getGroupKey(docId), docId);
         }
       }
     } else {
       while ((docId = blockDocIdIterator.next()) != Constants.EOF) {
-        for (long groupKey : getGroupKeys(docId)) {
-          _tempAggregationResults.put(groupKey,
-              _aggregationFunction.aggregate(_tempAggregationResults.get(groupKey), docId, _aggregationFunctionBlocks));
+        int numGroupKeys = getGroupKeys(docId);
+        for (int i = 0; i < numGroupKeys; ++i) {
+          aggregate(_groupKeysBuffer[i], docId);
         }
       }
     }
     return null;
   }
 
-  private Long[] getGroupKeys(int docId) {
-    List<Long> groupKeysList = new ArrayList<Long>();
-    groupKeysList.add(0L);
-    int i = 0;
-    for (final int element : _groupKeyBitSize) {
+  /**
+   * Single group by column with a small dictionary, accumulated directly into a double array indexed on dictionary
+   * id, then folded into the per segment results.
+   */
+  private void aggregateSmallDictionaryPrimitive(DocIdSetBlock docIdSetBlock, BlockDocIdIterator blockDocIdIterator,
+      int dictionaryLength) {
+    final double[] aggregates = new double[dictionaryLength];
+    final boolean[] hasGroup = new boolean[dictionaryLength];
+    Arrays.fill(aggregates, _accumulator.getInitialValue());
+    final BlockSingleValIterator blockValIterator = (BlockSingleValIterator) _groupByBlockValIterators[0];
+
+    int docId;
+    if (docIdSetBlock instanceof MatchEntireSegmentDocIdSetBlock) {
+      int rowCount = docIdSetBlock.getSearchableLength();
+      blockValIterator.reset();
+      for (int row = 0; row < rowCount; ++row) {
+        int index = blockValIterator.nextIntVal();
+        hasGroup[index] = true;
+        aggregates[index] = accumulate(aggregates[index], row);
+      }
+    } else {
+      while ((docId = blockDocIdIterator.next()) != Constants.EOF) {
+        blockValIterator.skipTo(docId);
+        int index = blockValIterator.nextIntVal();
+        hasGroup[index] = true;
+        aggregates[index] = accumulate(aggregates[index], docId);
+      }
+    }
+
+    for (int i = 0; i < dictionaryLength; i++) {
+      if (hasGroup[i]) {
+        long key = i;
+        _primitiveAggregationResults.put(key,
+            _accumulator.combine(_primitiveAggregationResults.get(key), aggregates[i]));
+      }
+    }
+  }
+
+  private void aggregate(long groupKey, int docId) {
+    if (_accumulator != null) {
+      _primitiveAggregationResults.put(groupKey, accumulate(_primitiveAggregationResults.get(groupKey), docId));
+    } else {
+      _tempAggregationResults.put(groupKey,
+          _aggregationFunction.aggregate(_tempAggregationResults.get(groupKey), docId, _aggregationFunctionBlocks));
+    }
+  }
+
+  private double accumulate(double accumulated, int docId) {
+    if (_aggregationColumnDictionary == null) {
+      return _accumulator.accumulate(accumulated, 0);
+    }
+    if (_aggregationColumnIterator.skipTo(docId)) {
+      int dictionaryIndex = _aggregationColumnIterator.nextIntVal();
+      if (dictionaryIndex != Dictionary.NULL_VALUE_INDEX) {
+        return _accumulator.accumulate(accumulated, _aggregationColumnDictionary.getDoubleValue(dictionaryIndex));
+      }
+    }
+    return accumulated;
+  }
+
+  /**
+   * Fills _groupKeysBuffer with all the group keys for the given doc id and returns the number of group keys.
+   */
+  private int getGroupKeys(int docId) {
+    int numGroupKeys = 1;
+    _groupKeysBuffer[0] = 0L;
+    for (int i = 0; i < _groupKeyBitSize.length; i++) {
+      final int bitSize = _groupKeyBitSize[i];
       if (_isSingleValueGroupByColumn[i]) {
         BlockSingleValIterator blockValIterator = (BlockSingleValIterator) _groupByBlockValIterators[i];
         blockValIterator.skipTo(docId);
         int dictId = blockValIterator.nextIntVal();
-        for (int j = 0; j < groupKeysList.size(); ++j) {
-          groupKeysList.set(j, (groupKeysList.get(j) << element) | dictId);
+        for (int j = 0; j < numGroupKeys; ++j) {
+          _groupKeysBuffer[j] = (_groupKeysBuffer[j] << bitSize) | dictId;
         }
       } else {
         BlockMultiValIterator blockValIterator = (BlockMultiValIterator) _groupByBlockValIterators[i];
         blockValIterator.skipTo(docId);
-        final int maxValue = _groupByBlocks[i].getMetadata().getMaxNumberOfMultiValues();
-        final int[] entries = new int[maxValue];
+        final int[] entries = _multiValueEntries[i];
         int group = blockValIterator.nextIntVal(entries);
-        int originSize = groupKeysList.size();
-        for (int j = 0; j < group - 1; ++j) {
-          for (int k = 0; k < originSize; ++k) {
-            groupKeysList.add(groupKeysList.get(k));
-          }
+        int newNumGroupKeys = numGroupKeys * group;
+        if (newNumGroupKeys > _groupKeysBuffer.length) {
+          _groupKeysBuffer = Arrays.copyOf(_groupKeysBuffer, Math.max(newNumGroupKeys, _groupKeysBuffer.length * 2));
         }
-        for (int j = 0; j < group; ++j) {
-          for (int k = 0; k < originSize; ++k) {
-            groupKeysList.set(j * originSize + k, (groupKeysList.get(j * originSize + k) << element) | entries[j]);
+        // Fill from the back so the existing prefixes (stored in [0, numGroupKeys)) are read before being overwritten.
+        for (int j = group - 1; j >= 0; --j) {
+          for (int k = 0; k < numGroupKeys; ++k) {
+            _groupKeysBuffer[j * numGroupKeys + k] = (_groupKeysBuffer[k] << bitSize) | entries[j];
           }
         }
+        numGroupKeys = newNumGroupKeys;
       }
-      i++;
     }
-    return groupKeysList.toArray(new Long[0]);
+    return numGroupKeys;
   }
 
   private long getGroupKey(int docId) {
@@ -213,8 +315,15 @@ public class MAggregationFunctionGroupByWithDictionaryOperator extends Aggregati
   @Override
   public Map<String, Serializable> getAggregationGroupByResult() {
     _aggregateGroupedValue.clear();
-    for (final long key : _tempAggregationResults.keySet()) {
-      _aggregateGroupedValue.put(decodeGroupedKeyFromLong(key), _tempAggregationResults.get(key));
+    if (_accumulator != null) {
+      for (final Long2DoubleMap.Entry entry : _primitiveAggregationResults.long2DoubleEntrySet()) {
+        _aggregateGroupedValue.put(decodeGroupedKeyFromLong(entry.getLongKey()),
+            _accumulator.toIntermediateResult(entry.getDoubleValue()));
+      }
+    } else {
+      for (final Long2ObjectMap.Entry<Serializable> entry : _tempAggregationResults.long2ObjectEntrySet()) {
+        _aggregateGroupedValue.put(decodeGroupedKeyFromLong(entry.getLongKey()), entry.getValue());
+      }
     }
     return _aggregateGroupedValue;
   }
@@ -228,11 +337,11 @@ public class MAggregationFunctionGroupByWithDictionaryOperator extends Aggregati
       i--;
     }
 
-    final StringBuilder builder = new StringBuilder();
+    _groupKeyBuilder.setLength(0);
     for (int j = 0; j < (_stringArray.length - 1); j++) {
-      builder.append(_stringArray[j]).append(GroupByConstants.GroupByDelimiter.groupByMultiDelimeter.toString());
+      _groupKeyBuilder.append(_stringArray[j]).append(GroupByConstants.GroupByDelimiter.groupByMultiDelimeter.toString());
     }
-    builder.append(_stringArray[_stringArray.length - 1]);
-    return builder.toString();
+    _groupKeyBuilder.append(_stringArray[_stringArray.length - 1]);
+    return _groupKeyBuilder.toString();
   }
 }
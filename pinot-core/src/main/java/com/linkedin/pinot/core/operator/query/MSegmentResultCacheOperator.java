@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.query;
+
+import com.linkedin.pinot.core.block.query.IntermediateResultsBlock;
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockId;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.BaseOperator;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
+
+
+/**
+ * MSegmentResultCacheOperator either returns the cached result of a segment, or runs the inner segment operator and
+ * caches its result.
+ * nextBlock() will return an IntermediateResultBlock for the given IndexSegment.
+ *
+ *
+ */
+public class MSegmentResultCacheOperator extends BaseOperator {
+
+  private final IntermediateResultsBlock _cachedBlock;
+  private final Operator _operator;
+  private final SegmentResultCache _cache;
+  private final IndexSegment _indexSegment;
+  private final String _requestKey;
+
+  public MSegmentResultCacheOperator(IntermediateResultsBlock cachedBlock) {
+    _cachedBlock = cachedBlock;
+    _operator = null;
+    _cache = null;
+    _indexSegment = null;
+    _requestKey = null;
+  }
+
+  public MSegmentResultCacheOperator(Operator operator, SegmentResultCache cache, IndexSegment indexSegment,
+      String requestKey) {
+    _cachedBlock = null;
+    _operator = operator;
+    _cache = cache;
+    _indexSegment = indexSegment;
+    _requestKey = requestKey;
+  }
+
+  @Override
+  public boolean open() {
+    if (_operator != null) {
+      _operator.open();
+    }
+    return true;
+  }
+
+  @Override
+  public Block getNextBlock() {
+    if (_cachedBlock != null) {
+      return _cachedBlock;
+    }
+    IntermediateResultsBlock block = (IntermediateResultsBlock) _operator.nextBlock();
+    _cache.put(_indexSegment, _requestKey, block);
+    return block;
+  }
+
+  @Override
+  public Block getNextBlock(BlockId blockId) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public String getOperatorName() {
+    return "MSegmentResultCacheOperator";
+  }
+
+  @Override
+  public boolean close() {
+    if (_operator != null) {
+      _operator.close();
+    }
+    return true;
+  }
+}
@@ -104,7 +104,12 @@ public class MSelectionOrderByOperator extends BaseOperator {
         _selectionOperatorService.iterateOnBlock(projectionBlock.getDocIdSetBlock().getBlockDocIdSet().iterator(),
             _blocks);
         numDocsScanned += ((DocIdSetBlock) (projectionBlock.getDocIdSetBlock())).getSearchableLength();
+        if (_selectionOperatorService.canTerminate()) {
+          break;
+        }
       }
+      // Rows are only built for the top docs of the whole segment.
+      _selectionOperatorService.mergeToRowEventsSet(_blocks);
 
       final IntermediateResultsBlock resultBlock = new IntermediateResultsBlock();
       resultBlock.setSelectionResult(_selectionOperatorService.getRowEventsSet());
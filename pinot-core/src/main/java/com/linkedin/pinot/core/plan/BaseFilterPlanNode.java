@@ -56,33 +56,67 @@ public abstract class BaseFilterPlanNode implements PlanNode {
   }
 
   /**
-   * Re orders operators, puts Sorted -> Inverted and then Raw scan. TODO: With Inverted, we can further optimize based on cardinality
-   * @param operators
+   * Builds the AND of the given operators. The children are ordered so that the most selective index based one
+   * drives the intersection and the scans only evaluate the docs matched by the children before them. When a child
+   * is known not to match any doc, the AND is replaced by that child.
    */
-  protected void reorder(List<Operator> operators) {
-    final Map<Operator, Integer> operatorPriorityMap = new HashMap<Operator, Integer>();
+  public static Operator buildAndOperator(List<Operator> operators, int totalDocs) {
+    Map<Operator, Integer> estimates = reorder(operators, totalDocs);
     for (Operator operator : operators) {
-      Integer priority = Integer.MAX_VALUE;
-      if (operator instanceof SortedInvertedIndexBasedFilterOperator) {
-        priority = 0;
-      } else if (operator instanceof AndOperator) {
-        priority = 1;
-      } else if (operator instanceof InvertedIndexBasedFilterOperator) {
-        priority = 2;
-      } else if (operator instanceof ScanBasedFilterOperator) {
-        priority = 3;
-      } else if (operator instanceof OrOperator) {
-        priority = 4;
+      if (estimates.get(operator) == 0 && BaseFilterOperator.isEstimateExact(operator)) {
+        LOGGER.debug("Skipping AND evaluation, operator {} matches no doc", operator);
+        return operator;
       }
-      operatorPriorityMap.put(operator, priority);
+    }
+    return new AndOperator(operators);
+  }
+
+  /**
+   * Builds the OR of the given operators, dropping the children that are known not to match any doc.
+   */
+  public static Operator buildOrOperator(List<Operator> operators, int totalDocs) {
+    Map<Operator, Integer> estimates = reorder(operators, totalDocs);
+    List<Operator> matchingOperators = new ArrayList<Operator>(operators.size());
+    for (Operator operator : operators) {
+      if (estimates.get(operator) > 0 || !BaseFilterOperator.isEstimateExact(operator)) {
+        matchingOperators.add(operator);
+      }
+    }
+    if (matchingOperators.isEmpty()) {
+      return operators.get(0);
+    }
+    if (matchingOperators.size() == 1) {
+      return matchingOperators.get(0);
+    }
+    return new OrOperator(matchingOperators);
+  }
+
+  /**
+   * Re orders operators, puts index based (sorted, inverted, AND driven by an index) operators first and then raw
+   * scans, each by increasing estimated number of matching docs.
+   *
+   * @return the estimated number of matching docs of every operator
+   */
+  protected static Map<Operator, Integer> reorder(List<Operator> operators, int totalDocs) {
+    final Map<Operator, Integer> estimates = new HashMap<Operator, Integer>();
+    final Map<Operator, Boolean> indexBased = new HashMap<Operator, Boolean>();
+    for (Operator operator : operators) {
+      estimates.put(operator, BaseFilterOperator.getEstimatedNumMatchingDocs(operator, totalDocs));
+      indexBased.put(operator, BaseFilterOperator.isIndexBased(operator));
     }
 
     Comparator<? super Operator> comparator = new Comparator<Operator>() {
       @Override
       public int compare(Operator o1, Operator o2) {
-        return Integer.compare(operatorPriorityMap.get(o1), operatorPriorityMap.get(o2));
+        boolean indexBased1 = indexBased.get(o1);
+        boolean indexBased2 = indexBased.get(o2);
+        if (indexBased1 != indexBased2) {
+          return indexBased1 ? -1 : 1;
+        }
+        return Integer.compare(estimates.get(o1), estimates.get(o2));
       }
     };
     Collections.sort(operators, comparator);
+    return estimates;
   }
 }
@@ -16,11 +16,7 @@
 package com.linkedin.pinot.core.plan;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,12 +36,10 @@ import com.linkedin.pinot.core.common.predicate.NotInPredicate;
 import com.linkedin.pinot.core.common.predicate.RangePredicate;
 import com.linkedin.pinot.core.common.predicate.RegexPredicate;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
-import com.linkedin.pinot.core.operator.filter.AndOperator;
 import com.linkedin.pinot.core.operator.filter.BaseFilterOperator;
 import com.linkedin.pinot.core.operator.filter.BitmapBasedFilterOperator;
-import com.linkedin.pinot.core.operator.filter.InvertedIndexBasedFilterOperator;
-import com.linkedin.pinot.core.operator.filter.OrOperator;
 import com.linkedin.pinot.core.operator.filter.ScanBasedFilterOperator;
+import com.linkedin.pinot.core.operator.filter.ScanBasedFilterOperatorWithoutDictionary;
 import com.linkedin.pinot.core.operator.filter.SortedInvertedIndexBasedFilterOperator;
 
 
@@ -93,12 +87,10 @@ public class FilterPlanNode implements PlanNode {
       final FilterOperator filterType = filterQueryTree.getOperator();
       switch (filterType) {
         case AND:
-          reorder(operators);
-          ret = new AndOperator(operators);
+          ret = BaseFilterPlanNode.buildAndOperator(operators, _segment.getTotalDocs());
           break;
         case OR:
-          reorder(operators);
-          ret = new OrOperator(operators);
+          ret = BaseFilterPlanNode.buildOrOperator(operators, _segment.getTotalDocs());
           break;
         default:
           throw new UnsupportedOperationException("Not support filter type - " + filterType
@@ -137,7 +129,10 @@ public class FilterPlanNode implements PlanNode {
       DataSourceMetadata dataSourceMetadata = ds.getDataSourceMetadata();
       BaseFilterOperator baseFilterOperator;
 
-      if (dataSourceMetadata.hasInvertedIndex()) {
+      if (!dataSourceMetadata.hasDictionary()) {
+        // Raw realtime metrics, the raw values are compared against the predicate
+        baseFilterOperator = new ScanBasedFilterOperatorWithoutDictionary(ds);
+      } else if (dataSourceMetadata.hasInvertedIndex()) {
         if (dataSourceMetadata.isSingleValue() && dataSourceMetadata.isSorted()) {
           //if the column is sorted use sorted inverted index based implementation
           baseFilterOperator = new SortedInvertedIndexBasedFilterOperator(ds);
@@ -154,38 +149,6 @@ public class FilterPlanNode implements PlanNode {
     return ret;
   }
 
-  /**
-   * Re orders operators, puts Sorted -> Inverted and then Raw scan. TODO: With Inverted, we can further optimize based on cardinality
-   * @param operators
-   */
-  private void reorder(List<Operator> operators) {
-
-    final Map<Operator, Integer> operatorPriorityMap = new HashMap<Operator, Integer>();
-    for (Operator operator : operators) {
-      Integer priority = Integer.MAX_VALUE;
-      if (operator instanceof SortedInvertedIndexBasedFilterOperator) {
-        priority = 0;
-      } else if (operator instanceof AndOperator) {
-        priority = 1;
-      } else if (operator instanceof InvertedIndexBasedFilterOperator) {
-        priority = 2;
-      } else if (operator instanceof ScanBasedFilterOperator) {
-        priority = 3;
-      } else if (operator instanceof OrOperator) {
-        priority = 4;
-      }
-      operatorPriorityMap.put(operator, priority);
-    }
-
-    Comparator<? super Operator> comparator = new Comparator<Operator>() {
-      @Override
-      public int compare(Operator o1, Operator o2) {
-        return Integer.compare(operatorPriorityMap.get(o1), operatorPriorityMap.get(o2));
-      }
-    };
-    Collections.sort(operators, comparator);
-  }
-
   @Override
   public void showTree(String prefix) {
     final String treeStructure =
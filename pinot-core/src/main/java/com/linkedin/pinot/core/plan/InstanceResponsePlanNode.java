@@ -18,6 +18,7 @@ package com.linkedin.pinot.core.plan;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.linkedin.pinot.common.utils.DataTable;
 import com.linkedin.pinot.core.common.Operator;
 import com.linkedin.pinot.core.operator.UResultOperator;
 
@@ -30,6 +31,18 @@ import com.linkedin.pinot.core.operator.UResultOperator;
 public class InstanceResponsePlanNode implements PlanNode {
   private static final Logger LOGGER = LoggerFactory.getLogger(InstanceResponsePlanNode.class);
   private CombinePlanNode _planNode;
+  private final int _dataTableVersion;
+
+  public InstanceResponsePlanNode() {
+    this(DataTable.DEFAULT_VERSION);
+  }
+
+  /**
+   * @param dataTableVersion format version of the instance response, see {@link DataTable}
+   */
+  public InstanceResponsePlanNode(int dataTableVersion) {
+    _dataTableVersion = dataTableVersion;
+  }
 
   public void setPlanNode(CombinePlanNode combinePlanNode) {
     _planNode = combinePlanNode;
@@ -42,7 +55,7 @@ public class InstanceResponsePlanNode implements PlanNode {
   @Override
   public Operator run() {
     long start = System.currentTimeMillis();
-    UResultOperator uResultOperator = new UResultOperator(_planNode.run());
+    UResultOperator uResultOperator = new UResultOperator(_planNode.run(), _dataTableVersion);
     long end = System.currentTimeMillis();
     LOGGER.info("InstanceResponsePlanNode.run took: " + (end - start));
     return uResultOperator;
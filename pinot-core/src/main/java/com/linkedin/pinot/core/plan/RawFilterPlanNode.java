@@ -54,12 +54,10 @@ public class RawFilterPlanNode extends BaseFilterPlanNode {
       final FilterOperator filterType = filterQueryTree.getOperator();
       switch (filterType) {
         case AND:
-          reorder(operators);
-          ret = new AndOperator(operators);
+          ret = buildAndOperator(operators, indexSegment.getTotalDocs());
           break;
         case OR:
-          reorder(operators);
-          ret = new OrOperator(operators);
+          ret = buildOrOperator(operators, indexSegment.getTotalDocs());
           break;
         default:
           throw new UnsupportedOperationException("Not support filter type - " + filterType
@@ -98,7 +96,10 @@ public class RawFilterPlanNode extends BaseFilterPlanNode {
       DataSourceMetadata dataSourceMetadata = ds.getDataSourceMetadata();
       BaseFilterOperator baseFilterOperator;
 
-      if (dataSourceMetadata.hasInvertedIndex()) {
+      if (!dataSourceMetadata.hasDictionary()) {
+        // Raw realtime metrics, the raw values are compared against the predicate
+        baseFilterOperator = new ScanBasedFilterOperatorWithoutDictionary(ds);
+      } else if (dataSourceMetadata.hasInvertedIndex()) {
         if (dataSourceMetadata.isSingleValue() && dataSourceMetadata.isSorted()) {
           //if the column is sorted use sorted inverted index based implementation
           baseFilterOperator = new SortedInvertedIndexBasedFilterOperator(ds);
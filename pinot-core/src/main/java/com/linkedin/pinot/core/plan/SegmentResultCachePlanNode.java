@@ -0,0 +1,70 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.plan;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.core.block.query.IntermediateResultsBlock;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.query.MSegmentResultCacheOperator;
+import com.linkedin.pinot.core.plan.maker.PlanMaker;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
+
+
+/**
+ * SegmentResultCachePlanNode looks up the result of the query on an IndexSegment in the segment result cache, and
+ * only plans the segment when the result is not cached.
+ *
+ *
+ */
+public class SegmentResultCachePlanNode implements PlanNode {
+  private static final Logger LOGGER = LoggerFactory.getLogger("QueryPlanLog");
+  private final PlanMaker _planMaker;
+  private final IndexSegment _indexSegment;
+  private final BrokerRequest _brokerRequest;
+  private final SegmentResultCache _cache;
+  private final String _requestKey;
+
+  public SegmentResultCachePlanNode(PlanMaker planMaker, IndexSegment indexSegment, BrokerRequest brokerRequest,
+      SegmentResultCache cache, String requestKey) {
+    _planMaker = planMaker;
+    _indexSegment = indexSegment;
+    _brokerRequest = brokerRequest;
+    _cache = cache;
+    _requestKey = requestKey;
+  }
+
+  @Override
+  public Operator run() {
+    IntermediateResultsBlock cachedBlock = _cache.get(_indexSegment, _requestKey, _brokerRequest);
+    if (cachedBlock != null) {
+      return new MSegmentResultCacheOperator(cachedBlock);
+    }
+    Operator operator = _planMaker.makeInnerSegmentPlan(_indexSegment, _brokerRequest).run();
+    return new MSegmentResultCacheOperator(operator, _cache, _indexSegment, _requestKey);
+  }
+
+  @Override
+  public void showTree(String prefix) {
+    LOGGER.debug(prefix + "Segment Result Cache Plan Node :");
+    LOGGER.debug(prefix + "Operator: MSegmentResultCacheOperator");
+    LOGGER.debug(prefix + "Argument 0: IndexSegment - " + _indexSegment.getSegmentName());
+    LOGGER.debug(prefix + "Argument 1: RequestKey - " + _requestKey);
+  }
+}
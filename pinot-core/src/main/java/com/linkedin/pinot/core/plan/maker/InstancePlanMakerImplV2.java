@@ -21,6 +21,7 @@ import java.util.Map;
 import java.util.concurrent.ExecutorService;
 
 import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.utils.DataTable;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.plan.AggregationGroupByOperatorPlanNode;
 import com.linkedin.pinot.core.plan.AggregationGroupByOperatorPlanNode.AggregationGroupByImplementationType;
@@ -30,8 +31,10 @@ import com.linkedin.pinot.core.plan.GlobalPlanImplV0;
 import com.linkedin.pinot.core.plan.InstanceResponsePlanNode;
 import com.linkedin.pinot.core.plan.Plan;
 import com.linkedin.pinot.core.plan.PlanNode;
+import com.linkedin.pinot.core.plan.SegmentResultCachePlanNode;
 import com.linkedin.pinot.core.plan.SelectionPlanNode;
 import com.linkedin.pinot.core.query.aggregation.groupby.BitHacks;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
 import com.linkedin.pinot.core.segment.index.IndexSegmentImpl;
 
 
@@ -42,6 +45,18 @@ import com.linkedin.pinot.core.segment.index.IndexSegmentImpl;
  *
  */
 public class InstancePlanMakerImplV2 implements PlanMaker {
+  private final int _dataTableVersion;
+
+  public InstancePlanMakerImplV2() {
+    this(DataTable.DEFAULT_VERSION);
+  }
+
+  /**
+   * @param dataTableVersion format version of the instance responses, see {@link DataTable}
+   */
+  public InstancePlanMakerImplV2(int dataTableVersion) {
+    _dataTableVersion = dataTableVersion;
+  }
 
   @Override
   public PlanNode makeInnerSegmentPlan(IndexSegment indexSegment, BrokerRequest brokerRequest) {
@@ -79,11 +94,21 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
 
   @Override
   public Plan makeInterSegmentPlan(List<IndexSegment> indexSegmentList, BrokerRequest brokerRequest, ExecutorService executorService, long timeOutMs) {
-    final InstanceResponsePlanNode rootNode = new InstanceResponsePlanNode();
+    final InstanceResponsePlanNode rootNode = new InstanceResponsePlanNode(_dataTableVersion);
     final CombinePlanNode combinePlanNode = new CombinePlanNode(brokerRequest, executorService, timeOutMs);
     rootNode.setPlanNode(combinePlanNode);
+    final SegmentResultCache resultCache = SegmentResultCache.getInstance();
+    String requestKey = null;
     for (final IndexSegment indexSegment : indexSegmentList) {
-      combinePlanNode.addPlanNode(makeInnerSegmentPlan(indexSegment, brokerRequest));
+      if (resultCache.isCacheable(indexSegment, brokerRequest)) {
+        if (requestKey == null) {
+          requestKey = SegmentResultCache.getRequestKey(brokerRequest);
+        }
+        combinePlanNode.addPlanNode(new SegmentResultCachePlanNode(this, indexSegment, brokerRequest, resultCache,
+            requestKey));
+      } else {
+        combinePlanNode.addPlanNode(makeInnerSegmentPlan(indexSegment, brokerRequest));
+      }
     }
     return new GlobalPlanImplV0(rootNode);
   }
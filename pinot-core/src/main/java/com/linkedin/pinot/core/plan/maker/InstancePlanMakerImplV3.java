@@ -29,6 +29,7 @@ package com.linkedin.pinot.core.plan.maker;
     import com.linkedin.pinot.core.plan.*;
     import com.linkedin.pinot.core.plan.AggregationGroupByOperatorPlanNode.AggregationGroupByImplementationType;
     import com.linkedin.pinot.core.query.aggregation.groupby.BitHacks;
+    import com.linkedin.pinot.core.query.cache.SegmentResultCache;
     import com.linkedin.pinot.core.segment.index.IndexSegmentImpl;
 
 
@@ -98,8 +99,18 @@ public class InstancePlanMakerImplV3 implements PlanMaker {
     final InstanceResponsePlanNode rootNode = new InstanceResponsePlanNode();
     final CombinePlanNode combinePlanNode = new CombinePlanNode(brokerRequest, executorService, timeOutMs);
     rootNode.setPlanNode(combinePlanNode);
+    final SegmentResultCache resultCache = SegmentResultCache.getInstance();
+    String requestKey = null;
     for (final IndexSegment indexSegment : indexSegmentList) {
-      combinePlanNode.addPlanNode(makeInnerSegmentPlan(indexSegment, brokerRequest));
+      if (resultCache.isCacheable(indexSegment, brokerRequest)) {
+        if (requestKey == null) {
+          requestKey = SegmentResultCache.getRequestKey(brokerRequest);
+        }
+        combinePlanNode.addPlanNode(new SegmentResultCachePlanNode(this, indexSegment, brokerRequest, resultCache,
+            requestKey));
+      } else {
+        combinePlanNode.addPlanNode(makeInnerSegmentPlan(indexSegment, brokerRequest));
+      }
     }
     return new GlobalPlanImplV0(rootNode);
   }
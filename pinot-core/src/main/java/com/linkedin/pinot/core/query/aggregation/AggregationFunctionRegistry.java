@@ -68,12 +68,27 @@ public class AggregationFunctionRegistry {
     keyToFunctionWithDictionary.put("percentile99", Percentile99.class);
   }
 
+  static {
+    // Aggregation results are sent between servers and brokers in DataTables.
+    AggregationResultCodecs.register();
+  }
+
   static {
     keyToFunctionWithoutDictionary.put("max", MaxAggregationNoDictionaryFunction.class);
     keyToFunctionWithoutDictionary.put("min", MinAggregationNoDictionaryFunction.class);
     keyToFunctionWithoutDictionary.put("sum", SumAggregationNoDictionaryFunction.class);
     keyToFunctionWithoutDictionary.put("avg", AvgAggregationNoDictionaryFunction.class);
     keyToFunctionWithoutDictionary.put("distinctcount", DistinctCountAggregationNoDictionaryFunction.class);
+    // These read the raw values themselves when the column has no dictionary
+    keyToFunctionWithoutDictionary.put("distinctcounthll", DistinctCountHLLAggregationFunction.class);
+    keyToFunctionWithoutDictionary.put("percentileest50", Percentileest50.class);
+    keyToFunctionWithoutDictionary.put("percentileest90", Percentileest90.class);
+    keyToFunctionWithoutDictionary.put("percentileest95", Percentileest95.class);
+    keyToFunctionWithoutDictionary.put("percentileest99", Percentileest99.class);
+    keyToFunctionWithoutDictionary.put("percentile50", Percentile50.class);
+    keyToFunctionWithoutDictionary.put("percentile90", Percentile90.class);
+    keyToFunctionWithoutDictionary.put("percentile95", Percentile95.class);
+    keyToFunctionWithoutDictionary.put("percentile99", Percentile99.class);
   }
 
   public static void register(String aggregationKey, Class<? extends AggregationFunction> aggregationFunction) {
@@ -108,6 +123,10 @@ public class AggregationFunctionRegistry {
       if (cls != null) {
         return cls.newInstance();
       }
+      if (keyToFunctionWithDictionary.containsKey(aggregationKey.toLowerCase())) {
+        throw new UnsupportedOperationException("Aggregation function " + aggregationKey
+            + " is not supported on columns without a dictionary");
+      }
       cls = (Class<? extends AggregationFunction>) Class.forName(aggregationKey);
       keyToFunctionWithoutDictionary.put(aggregationKey, cls);
       return cls.newInstance();
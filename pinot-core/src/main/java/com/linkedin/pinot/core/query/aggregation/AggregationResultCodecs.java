@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.aggregation;
+
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.clearspring.analytics.stream.cardinality.HyperLogLog;
+import com.linkedin.pinot.common.utils.DataTableObjectCodec;
+import com.linkedin.pinot.common.utils.DataTableObjectSerDe;
+import com.linkedin.pinot.core.query.aggregation.function.AvgAggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.function.AvgAggregationFunction.AvgPair;
+import com.linkedin.pinot.core.query.aggregation.function.quantile.digest.QuantileDigest;
+
+
+/**
+ * DataTable codecs for the intermediate results of the aggregation functions, so that aggregation and group by
+ * results are sent from servers to brokers without Java serialization.
+ *
+ * The type ids are part of the wire format: never change or reuse one, only append new ones.
+ */
+public class AggregationResultCodecs {
+  public static final byte AVG_PAIR = DataTableObjectSerDe.FIRST_CUSTOM_TYPE;
+  public static final byte INT_OPEN_HASH_SET = DataTableObjectSerDe.FIRST_CUSTOM_TYPE + 1;
+  public static final byte DOUBLE_ARRAY_LIST = DataTableObjectSerDe.FIRST_CUSTOM_TYPE + 2;
+  public static final byte HYPER_LOG_LOG = DataTableObjectSerDe.FIRST_CUSTOM_TYPE + 3;
+  public static final byte QUANTILE_DIGEST = DataTableObjectSerDe.FIRST_CUSTOM_TYPE + 4;
+
+  private static final AvgAggregationFunction AVG_PAIR_FACTORY = new AvgAggregationFunction();
+
+  private static boolean _registered = false;
+
+  private AggregationResultCodecs() {
+  }
+
+  public static synchronized void register() {
+    if (_registered) {
+      return;
+    }
+
+    DataTableObjectSerDe.register(AVG_PAIR, AvgPair.class, new DataTableObjectCodec<AvgPair>() {
+      @Override
+      public void serialize(AvgPair value, DataOutputStream out) throws IOException {
+        out.writeDouble(value.getFirst());
+        out.writeLong(value.getSecond());
+      }
+
+      @Override
+      public AvgPair deserialize(ByteBuffer buffer) {
+        double sum = buffer.getDouble();
+        return AVG_PAIR_FACTORY.getAvgPair(sum, buffer.getLong());
+      }
+    });
+
+    DataTableObjectSerDe.register(INT_OPEN_HASH_SET, IntOpenHashSet.class, new DataTableObjectCodec<IntOpenHashSet>() {
+      @Override
+      public void serialize(IntOpenHashSet value, DataOutputStream out) throws IOException {
+        DataTableObjectSerDe.writeVarInt(value.size(), out);
+        IntIterator iterator = value.iterator();
+        while (iterator.hasNext()) {
+          out.writeInt(iterator.nextInt());
+        }
+      }
+
+      @Override
+      public IntOpenHashSet deserialize(ByteBuffer buffer) {
+        int size = DataTableObjectSerDe.readVarInt(buffer);
+        IntOpenHashSet set = new IntOpenHashSet(size);
+        for (int i = 0; i < size; i++) {
+          set.add(buffer.getInt());
+        }
+        return set;
+      }
+    });
+
+    DataTableObjectSerDe.register(DOUBLE_ARRAY_LIST, DoubleArrayList.class, new DataTableObjectCodec<DoubleArrayList>() {
+      @Override
+      public void serialize(DoubleArrayList value, DataOutputStream out) throws IOException {
+        int size = value.size();
+        DataTableObjectSerDe.writeVarInt(size, out);
+        double[] elements = value.elements();
+        for (int i = 0; i < size; i++) {
+          out.writeDouble(elements[i]);
+        }
+      }
+
+      @Override
+      public DoubleArrayList deserialize(ByteBuffer buffer) {
+        int size = DataTableObjectSerDe.readVarInt(buffer);
+        double[] elements = new double[size];
+        for (int i = 0; i < size; i++) {
+          elements[i] = buffer.getDouble();
+        }
+        return DoubleArrayList.wrap(elements);
+      }
+    });
+
+    DataTableObjectSerDe.register(HYPER_LOG_LOG, HyperLogLog.class, new DataTableObjectCodec<HyperLogLog>() {
+      @Override
+      public void serialize(HyperLogLog value, DataOutputStream out) throws IOException {
+        writeBytes(value.getBytes(), out);
+      }
+
+      @Override
+      public HyperLogLog deserialize(ByteBuffer buffer) throws IOException {
+        return HyperLogLog.Builder.build(readBytes(buffer));
+      }
+    });
+
+    DataTableObjectSerDe.register(QUANTILE_DIGEST, QuantileDigest.class, new DataTableObjectCodec<QuantileDigest>() {
+      @Override
+      public void serialize(QuantileDigest value, DataOutputStream out) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(value.estimatedSerializedSizeInBytes());
+        DataOutputStream digestOut = new DataOutputStream(bos);
+        value.serialize(digestOut);
+        digestOut.flush();
+        writeBytes(bos.toByteArray(), out);
+      }
+
+      @Override
+      public QuantileDigest deserialize(ByteBuffer buffer) {
+        return QuantileDigest.deserialize(new DataInputStream(new ByteArrayInputStream(readBytes(buffer))));
+      }
+    });
+
+    _registered = true;
+  }
+
+  private static void writeBytes(byte[] bytes, DataOutputStream out) throws IOException {
+    DataTableObjectSerDe.writeVarInt(bytes.length, out);
+    out.write(bytes);
+  }
+
+  private static byte[] readBytes(ByteBuffer buffer) {
+    byte[] bytes = new byte[DataTableObjectSerDe.readVarInt(buffer)];
+    buffer.get(bytes);
+    return bytes;
+  }
+}
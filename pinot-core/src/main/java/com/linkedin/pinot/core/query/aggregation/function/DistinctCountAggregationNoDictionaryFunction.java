@@ -32,12 +32,13 @@ public class DistinctCountAggregationNoDictionaryFunction extends DistinctCountA
     int docId = 0;
     BlockDocIdIterator docIdIterator = docIdSetBlock.getBlockDocIdSet().iterator();
     BlockSingleValIterator blockValIterator = (BlockSingleValIterator) block[0].getBlockValueSet().iterator();
+    DataType dataType = block[0].getMetadata().getDataType();
 
     // Assume dictionary is always there for String data type.
     // If data type is String, we shouldn't hit here.
     while ((docId = docIdIterator.next()) != Constants.EOF) {
       if (blockValIterator.skipTo(docId)) {
-        ret.add(blockValIterator.nextIntVal());
+        ret.add(hashNextValue(blockValIterator, dataType));
       }
     }
 
@@ -51,7 +52,9 @@ public class DistinctCountAggregationNoDictionaryFunction extends DistinctCountA
     }
     BlockSingleValIterator blockValIterator = (BlockSingleValIterator) block[0].getBlockValueSet().iterator();
     if (blockValIterator.skipTo(docId)) {
-      if (block[0].getMetadata().getDataType() == DataType.STRING) {
+      if (!block[0].getMetadata().hasDictionary()) {
+        mergedResult.add(hashNextValue(blockValIterator, block[0].getMetadata().getDataType()));
+      } else if (block[0].getMetadata().getDataType() == DataType.STRING) {
         mergedResult.add(block[0].getMetadata().getDictionary().get(blockValIterator.nextIntVal()).hashCode());
       } else {
         mergedResult.add(((Number) block[0].getMetadata().getDictionary().get(blockValIterator.nextIntVal())).intValue());
@@ -60,4 +63,21 @@ public class DistinctCountAggregationNoDictionaryFunction extends DistinctCountA
     return mergedResult;
   }
 
+  /**
+   * Hashes the next raw value the same way the dictionary based function hashes numbers, so that the results of
+   * segments with and without a dictionary for the column can be merged.
+   */
+  private static int hashNextValue(BlockSingleValIterator blockValIterator, DataType dataType) {
+    switch (dataType) {
+      case LONG:
+        return Long.valueOf(blockValIterator.nextLongVal()).hashCode();
+      case FLOAT:
+        return Float.valueOf(blockValIterator.nextFloatVal()).hashCode();
+      case DOUBLE:
+        return Double.valueOf(blockValIterator.nextDoubleVal()).hashCode();
+      default:
+        return blockValIterator.nextIntVal();
+    }
+  }
+
 }
@@ -91,6 +91,11 @@ public class DistinctCountHLLAggregationFunction implements AggregationFunction<
     if (dataType.isSingleValue()) {
       BlockSingleValIterator blockValIterator = (BlockSingleValIterator) block[0].getBlockValueSet().iterator();
       if (blockValIterator.skipTo(docId)) {
+        if (dictionaryReader == null) {
+          // Raw realtime metric, boxed like the dictionary values so that both hash the same
+          hll.offer(nextRawValue(blockValIterator, dataType));
+          return;
+        }
         int dictionaryIndex = blockValIterator.nextIntVal();
         if (dictionaryIndex != Dictionary.NULL_VALUE_INDEX) {
           if (dataType.isNumber()) {
@@ -116,6 +121,19 @@ public class DistinctCountHLLAggregationFunction implements AggregationFunction<
     }
   }
 
+  private static Number nextRawValue(BlockSingleValIterator blockValIterator, DataType dataType) {
+    switch (dataType) {
+      case LONG:
+        return blockValIterator.nextLongVal();
+      case FLOAT:
+        return blockValIterator.nextFloatVal();
+      case DOUBLE:
+        return blockValIterator.nextDoubleVal();
+      default:
+        return blockValIterator.nextIntVal();
+    }
+  }
+
   @Override
   public HyperLogLog aggregate(Block docIdSetBlock, Block[] block) {
     BlockDocIdIterator docIdIterator = docIdSetBlock.getBlockDocIdSet().iterator();
@@ -61,6 +61,11 @@ public class PercentileAggregationFunction implements AggregationFunction<Double
     BlockSingleValIterator blockValIterator = (BlockSingleValIterator) block[0].getBlockValueSet().iterator();
 
     if (blockValIterator.skipTo(docId)) {
+      if (dictionaryReader == null) {
+        // Raw realtime metric
+        list.add(blockValIterator.nextDoubleVal());
+        return;
+      }
       int dictionaryIndex = blockValIterator.nextIntVal();
       if (dictionaryIndex != Dictionary.NULL_VALUE_INDEX) {
         list.add(((Number) dictionaryReader.get(dictionaryIndex)).doubleValue());
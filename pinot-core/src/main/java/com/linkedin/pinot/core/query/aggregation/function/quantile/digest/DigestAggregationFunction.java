@@ -64,6 +64,11 @@ public class DigestAggregationFunction implements AggregationFunction<QuantileDi
     BlockSingleValIterator blockValIterator = (BlockSingleValIterator) block[0].getBlockValueSet().iterator();
 
     if (blockValIterator.skipTo(docId)) {
+      if (dictionaryReader == null) {
+        // Raw realtime metric
+        digest.add(blockValIterator.nextLongVal());
+        return;
+      }
       int dictionaryIndex = blockValIterator.nextIntVal();
       if (dictionaryIndex != Dictionary.NULL_VALUE_INDEX) {
         digest.add(((Number) dictionaryReader.get(dictionaryIndex)).longValue());
@@ -78,39 +78,57 @@ public class AggregationGroupByOperatorService {
     }
     List<Map<String, Serializable>> reducedResult = null;
     for (DataTable toBeReducedGroupByResults : instanceResponseMap.values()) {
-      if (reducedResult == null) {
-        if (toBeReducedGroupByResults != null) {
-          reducedResult = transformDataTableToGroupByResult(toBeReducedGroupByResults);
-        }
-      } else {
-        List<Map<String, Serializable>> toBeReducedResult =
-            transformDataTableToGroupByResult(toBeReducedGroupByResults);
-        for (int i = 0; i < reducedResult.size(); ++i) {
-          for (String key : toBeReducedResult.get(i).keySet()) {
-            if (reducedResult.get(i).containsKey(key)) {
-              reducedResult.get(i).put(
-                  key,
-                  _aggregationFunctionList.get(i).combineTwoValues(reducedResult.get(i).get(key),
-                      toBeReducedResult.get(i).get(key)));
-            } else {
-              reducedResult.get(i).put(key, toBeReducedResult.get(i).get(key));
-            }
-          }
+      reducedResult = mergeGroupByResults(reducedResult, toBeReducedGroupByResults);
+    }
+    reduceMergedGroupByResults(reducedResult);
+    return reducedResult;
+  }
+
+  /**
+   * Merge the group by results of one instance response into the results merged so far.
+   *
+   * @param reducedResult results merged so far, null if none
+   * @param toBeReducedGroupByResults instance response to merge
+   * @return the merged results
+   */
+  public List<Map<String, Serializable>> mergeGroupByResults(List<Map<String, Serializable>> reducedResult,
+      DataTable toBeReducedGroupByResults) {
+    if (toBeReducedGroupByResults == null) {
+      return reducedResult;
+    }
+    if (reducedResult == null) {
+      return transformDataTableToGroupByResult(toBeReducedGroupByResults);
+    }
+    List<Map<String, Serializable>> toBeReducedResult = transformDataTableToGroupByResult(toBeReducedGroupByResults);
+    for (int i = 0; i < reducedResult.size(); ++i) {
+      Map<String, Serializable> functionLevelReducedResult = reducedResult.get(i);
+      for (Map.Entry<String, Serializable> entry : toBeReducedResult.get(i).entrySet()) {
+        String key = entry.getKey();
+        if (functionLevelReducedResult.containsKey(key)) {
+          functionLevelReducedResult.put(key,
+              _aggregationFunctionList.get(i).combineTwoValues(functionLevelReducedResult.get(key), entry.getValue()));
+        } else {
+          functionLevelReducedResult.put(key, entry.getValue());
         }
       }
     }
+    return reducedResult;
+  }
+
+  /**
+   * Turn the merged intermediate results into final results, in place.
+   */
+  public void reduceMergedGroupByResults(List<Map<String, Serializable>> reducedResult) {
     if (reducedResult != null) {
       for (int i = 0; i < reducedResult.size(); ++i) {
         Map<String, Serializable> functionLevelReducedResult = reducedResult.get(i);
-        for (String key : functionLevelReducedResult.keySet()) {
-          if (functionLevelReducedResult.get(key) != null) {
-            functionLevelReducedResult.put(key,
-                _aggregationFunctionList.get(i).reduce(Arrays.asList(functionLevelReducedResult.get(key))));
+        for (Map.Entry<String, Serializable> entry : functionLevelReducedResult.entrySet()) {
+          if (entry.getValue() != null) {
+            entry.setValue(_aggregationFunctionList.get(i).reduce(Arrays.asList(entry.getValue())));
           }
         }
       }
     }
-    return reducedResult;
   }
 
   public List<JSONObject> renderGroupByOperators(List<Map<String, Serializable>> finalAggregationResult) {
@@ -0,0 +1,131 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.aggregation.groupby;
+
+import java.io.Serializable;
+
+import com.linkedin.pinot.common.utils.primitive.MutableLongValue;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.function.CountAggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.function.MaxAggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.function.MinAggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.function.SumAggregationFunction;
+
+
+/**
+ * Primitive accumulators for the aggregation functions whose intermediate result is a single number.
+ *
+ * Group-by operators use these to keep one double per group (keyed on dictionary ids) while scanning a segment,
+ * and only box the value into the function's intermediate result type once per group when the segment result
+ * is materialized.
+ */
+public enum PrimitiveGroupByAccumulator {
+  COUNT(0.0) {
+    @Override
+    public double accumulate(double accumulated, double value) {
+      return accumulated + 1;
+    }
+
+    @Override
+    public double combine(double accumulated0, double accumulated1) {
+      return accumulated0 + accumulated1;
+    }
+
+    @Override
+    public Serializable toIntermediateResult(double accumulated) {
+      return new MutableLongValue((long) accumulated);
+    }
+  },
+  SUM(0.0) {
+    @Override
+    public double accumulate(double accumulated, double value) {
+      return accumulated + value;
+    }
+  },
+  MIN(Double.POSITIVE_INFINITY) {
+    @Override
+    public double accumulate(double accumulated, double value) {
+      return Math.min(accumulated, value);
+    }
+  },
+  MAX(Double.NEGATIVE_INFINITY) {
+    @Override
+    public double accumulate(double accumulated, double value) {
+      return Math.max(accumulated, value);
+    }
+  };
+
+  private final double _initialValue;
+
+  private PrimitiveGroupByAccumulator(double initialValue) {
+    _initialValue = initialValue;
+  }
+
+  /**
+   * @return the value a group starts with before any document is accumulated into it.
+   */
+  public double getInitialValue() {
+    return _initialValue;
+  }
+
+  /**
+   * @return whether the accumulator needs the value of the aggregation column (count does not).
+   */
+  public boolean needsValue() {
+    return this != COUNT;
+  }
+
+  public abstract double accumulate(double accumulated, double value);
+
+  /**
+   * Merge two accumulated values of the same group.
+   */
+  public double combine(double accumulated0, double accumulated1) {
+    return accumulate(accumulated0, accumulated1);
+  }
+
+  /**
+   * Convert the accumulated value to the intermediate result type of the matching aggregation function.
+   */
+  public Serializable toIntermediateResult(double accumulated) {
+    return accumulated;
+  }
+
+  /**
+   * Returns the primitive accumulator matching the given aggregation function, or null if the function keeps a
+   * non primitive intermediate result (avg, distinct count, percentiles, ...) and has to go through
+   * {@link AggregationFunction#aggregate(Serializable, int, com.linkedin.pinot.core.common.Block[])}.
+   *
+   * Only the dictionary based implementations are matched, since the accumulated values are read through the
+   * column dictionary.
+   */
+  public static PrimitiveGroupByAccumulator forFunction(AggregationFunction aggregationFunction) {
+    Class<?> functionClass = aggregationFunction.getClass();
+    if (functionClass == CountAggregationFunction.class) {
+      return COUNT;
+    }
+    if (functionClass == SumAggregationFunction.class) {
+      return SUM;
+    }
+    if (functionClass == MinAggregationFunction.class) {
+      return MIN;
+    }
+    if (functionClass == MaxAggregationFunction.class) {
+      return MAX;
+    }
+    return null;
+  }
+}
@@ -0,0 +1,437 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.linkedin.pinot.common.metrics.ServerMeter;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.request.AggregationInfo;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.FilterOperator;
+import com.linkedin.pinot.common.utils.DataTableObjectSerDe;
+import com.linkedin.pinot.common.utils.request.FilterQueryTree;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
+import com.linkedin.pinot.core.block.query.IntermediateResultsBlock;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionFactory;
+import com.linkedin.pinot.core.query.aggregation.AggregationResultCodecs;
+import com.linkedin.pinot.core.query.config.SegmentResultCacheConfig;
+import com.yammer.metrics.core.Meter;
+
+
+/**
+ * Server wide cache of the per segment results of aggregation and aggregation group by queries.
+ *
+ * Only the segments registered by their table data manager are cached: those never change once loaded, and the
+ * data manager invalidates their results before destroying them on refresh or unload. The keys cached for every
+ * segment are tracked, so that invalidating a segment only drops its own results. Results are keyed on the
+ * segment and on a normalised form of the filter, aggregations and group by of the request, so that the same query
+ * sent with a different request id, time out or order of AND/OR children and IN values shares the entry.
+ *
+ * The results are stored serialized and every hit gets its own copy, as the combine phase merges the segment results
+ * in place. The cache is bounded by the total serialized size and evicts the least recently used results first.
+ */
+public class SegmentResultCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentResultCache.class);
+
+  private static final byte AGGREGATION_RESULTS = 0;
+  private static final byte AGGREGATION_GROUP_BY_RESULTS = 1;
+
+  // Disabled until the query executor initializes it from its config
+  private static volatile SegmentResultCache _instance =
+      new SegmentResultCache(new SegmentResultCacheConfig(disabledConfig()), null);
+
+  private final SegmentResultCacheConfig _config;
+  private final Cache<Key, byte[]> _cache;
+  // Registered segments and the keys cached for them
+  private final ConcurrentMap<IndexSegment, SegmentKeys> _segments = new ConcurrentHashMap<IndexSegment, SegmentKeys>();
+  // Null without server metrics
+  private final Meter _hitsMeter;
+  private final Meter _missesMeter;
+  private final Meter _evictionsMeter;
+
+  public SegmentResultCache(SegmentResultCacheConfig config, ServerMetrics serverMetrics) {
+    _config = config;
+    if (serverMetrics != null) {
+      _hitsMeter = serverMetrics.getMeter(null, ServerMeter.RESULT_CACHE_HITS);
+      _missesMeter = serverMetrics.getMeter(null, ServerMeter.RESULT_CACHE_MISSES);
+      _evictionsMeter = serverMetrics.getMeter(null, ServerMeter.RESULT_CACHE_EVICTIONS);
+    } else {
+      _hitsMeter = null;
+      _missesMeter = null;
+      _evictionsMeter = null;
+    }
+    if (config.getMaxSizeInBytes() > 0) {
+      AggregationResultCodecs.register();
+      _cache = CacheBuilder.newBuilder()
+          .maximumWeight(config.getMaxSizeInBytes())
+          .weigher(new Weigher<Key, byte[]>() {
+            @Override
+            public int weigh(Key key, byte[] result) {
+              return result.length + 2 * key._requestKey.length();
+            }
+          })
+          .removalListener(new RemovalListener<Key, byte[]>() {
+            @Override
+            public void onRemoval(RemovalNotification<Key, byte[]> notification) {
+              Key key = notification.getKey();
+              if (key != null && key._segmentKeys != null) {
+                key._segmentKeys.remove(key);
+              }
+              if (notification.wasEvicted()) {
+                markMeter(_evictionsMeter);
+              }
+            }
+          })
+          .build();
+    } else {
+      _cache = null;
+    }
+  }
+
+  /**
+   * Replaces the server wide cache, dropping all the results cached so far but keeping the registered segments.
+   */
+  public static void init(SegmentResultCacheConfig config, ServerMetrics serverMetrics) {
+    LOGGER.info("Initializing segment result cache with max size {} bytes and max entry size {} bytes",
+        config.getMaxSizeInBytes(), config.getMaxEntrySizeInBytes());
+    SegmentResultCache previous = _instance;
+    SegmentResultCache cache = new SegmentResultCache(config, serverMetrics);
+    for (IndexSegment indexSegment : previous._segments.keySet()) {
+      cache.register(indexSegment);
+    }
+    _instance = cache;
+    previous.invalidateAll();
+  }
+
+  public static SegmentResultCache getInstance() {
+    return _instance;
+  }
+
+  /**
+   * Marks the segment as immutable, so that the results of the queries on it can be cached until it is invalidated.
+   */
+  public void register(IndexSegment indexSegment) {
+    _segments.putIfAbsent(indexSegment, new SegmentKeys());
+  }
+
+  /**
+   * Drops the cached results of the segment and stops caching new ones, to be called before it is destroyed.
+   */
+  public void invalidate(IndexSegment indexSegment) {
+    SegmentKeys segmentKeys = _segments.remove(indexSegment);
+    if (_cache == null || segmentKeys == null) {
+      return;
+    }
+    _cache.invalidateAll(segmentKeys.close());
+  }
+
+  public void invalidateAll() {
+    _segments.clear();
+    if (_cache != null) {
+      _cache.invalidateAll();
+    }
+  }
+
+  public boolean isCacheable(IndexSegment indexSegment, BrokerRequest brokerRequest) {
+    return _cache != null && brokerRequest.isSetAggregationsInfo() && _segments.containsKey(indexSegment);
+  }
+
+  /**
+   * Returns a copy of the cached result of the request on the segment, or null if it is not cached.
+   */
+  public IntermediateResultsBlock get(IndexSegment indexSegment, String requestKey, BrokerRequest brokerRequest) {
+    if (_cache == null) {
+      return null;
+    }
+    byte[] result = _cache.getIfPresent(new Key(indexSegment, requestKey, null));
+    if (result == null) {
+      markMeter(_missesMeter);
+      return null;
+    }
+    try {
+      IntermediateResultsBlock block = deserialize(result, brokerRequest);
+      markMeter(_hitsMeter);
+      return block;
+    } catch (Exception e) {
+      LOGGER.warn("Caught exception while reading the cached result of segment {}, recomputing it",
+          indexSegment.getSegmentName(), e);
+      _cache.invalidate(new Key(indexSegment, requestKey, null));
+      markMeter(_missesMeter);
+      return null;
+    }
+  }
+
+  /**
+   * Caches the result of the request on the segment, unless it failed or is larger than the max entry size. The
+   * block itself is not kept, so the caller is free to modify it afterwards.
+   */
+  public void put(IndexSegment indexSegment, String requestKey, IntermediateResultsBlock block) {
+    if (_cache == null || block == null || (block.getExceptions() != null && !block.getExceptions().isEmpty())) {
+      return;
+    }
+    byte[] result;
+    try {
+      result = serialize(block);
+    } catch (IOException e) {
+      LOGGER.warn("Caught exception while caching the result of segment {}", indexSegment.getSegmentName(), e);
+      return;
+    }
+    if (result == null || result.length > _config.getMaxEntrySizeInBytes()) {
+      return;
+    }
+    SegmentKeys segmentKeys = _segments.get(indexSegment);
+    if (segmentKeys == null) {
+      return;
+    }
+    Key key = new Key(indexSegment, requestKey, segmentKeys);
+    _cache.put(key, result);
+    if (!segmentKeys.add(key)) {
+      // Invalidated while the query was running
+      _cache.asMap().remove(key, result);
+    }
+  }
+
+  public long size() {
+    return (_cache == null) ? 0 : _cache.size();
+  }
+
+  /**
+   * Returns the normalised form of the parts of the request which determine the per segment result.
+   */
+  public static String getRequestKey(BrokerRequest brokerRequest) {
+    StringBuilder builder = new StringBuilder();
+    builder.append("filter:");
+    if (brokerRequest.isSetFilterQuery()) {
+      appendFilter(RequestUtils.generateFilterQueryTree(brokerRequest), builder);
+    }
+    builder.append("|aggregations:");
+    if (brokerRequest.isSetAggregationsInfo()) {
+      for (AggregationInfo aggregationInfo : brokerRequest.getAggregationsInfo()) {
+        appendString(aggregationInfo.getAggregationType().toLowerCase(), builder);
+        Map<String, String> params = aggregationInfo.getAggregationParams();
+        if (params != null) {
+          for (Map.Entry<String, String> param : new TreeMap<String, String>(params).entrySet()) {
+            appendString(param.getKey(), builder);
+            appendString(param.getValue().trim(), builder);
+          }
+        }
+        builder.append(';');
+      }
+    }
+    builder.append("|groupBy:");
+    if (brokerRequest.isSetGroupBy()) {
+      for (String column : brokerRequest.getGroupBy().getColumns()) {
+        appendString(column, builder);
+      }
+      builder.append(";topN:").append(brokerRequest.getGroupBy().getTopN());
+    }
+    return builder.toString();
+  }
+
+  private static void appendFilter(FilterQueryTree filterQueryTree, StringBuilder builder) {
+    builder.append(filterQueryTree.getOperator()).append('(');
+    List<FilterQueryTree> children = filterQueryTree.getChildren();
+    if (children != null && !children.isEmpty()) {
+      // AND and OR are commutative, the children are sorted on their normalised form
+      List<String> childKeys = new ArrayList<String>(children.size());
+      for (FilterQueryTree child : children) {
+        StringBuilder childBuilder = new StringBuilder();
+        appendFilter(child, childBuilder);
+        childKeys.add(childBuilder.toString());
+      }
+      Collections.sort(childKeys);
+      for (String childKey : childKeys) {
+        builder.append(childKey);
+      }
+    } else {
+      appendString(filterQueryTree.getColumn(), builder);
+      List<String> values = filterQueryTree.getValue();
+      FilterOperator operator = filterQueryTree.getOperator();
+      if ((operator == FilterOperator.IN || operator == FilterOperator.NOT_IN) && values.size() == 1) {
+        TreeSet<String> sortedValues = new TreeSet<String>();
+        Collections.addAll(sortedValues, values.get(0).split("\t\t"));
+        values = new ArrayList<String>(sortedValues);
+      }
+      for (String value : values) {
+        appendString(value, builder);
+      }
+    }
+    builder.append(')');
+  }
+
+  /**
+   * Length prefixed, so that no value can be mistaken for a separator.
+   */
+  private static void appendString(String value, StringBuilder builder) {
+    builder.append(value.length()).append(':').append(value);
+  }
+
+  private static byte[] serialize(IntermediateResultsBlock block) throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bos);
+    out.writeLong(block.getNumDocsScanned());
+    out.writeLong(block.getTotalDocs());
+    List<?> results;
+    if (block.getAggregationGroupByOperatorResult() != null) {
+      out.writeByte(AGGREGATION_GROUP_BY_RESULTS);
+      results = block.getAggregationGroupByOperatorResult();
+    } else if (block.getAggregationResult() != null) {
+      out.writeByte(AGGREGATION_RESULTS);
+      results = block.getAggregationResult();
+    } else {
+      return null;
+    }
+    out.writeInt(results.size());
+    for (Object result : results) {
+      DataTableObjectSerDe.serialize(result, out);
+    }
+    out.flush();
+    return bos.toByteArray();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static IntermediateResultsBlock deserialize(byte[] bytes, BrokerRequest brokerRequest) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    long numDocsScanned = buffer.getLong();
+    long totalDocs = buffer.getLong();
+    byte type = buffer.get();
+    int size = buffer.getInt();
+    IntermediateResultsBlock block;
+    if (type == AGGREGATION_GROUP_BY_RESULTS) {
+      List<Map<String, Serializable>> results = new ArrayList<Map<String, Serializable>>(size);
+      for (int i = 0; i < size; i++) {
+        results.add((Map<String, Serializable>) DataTableObjectSerDe.deserialize(buffer));
+      }
+      block = new IntermediateResultsBlock(AggregationFunctionFactory.getAggregationFunction(brokerRequest), results,
+          true);
+    } else {
+      List<Serializable> results = new ArrayList<Serializable>(size);
+      for (int i = 0; i < size; i++) {
+        results.add(DataTableObjectSerDe.deserialize(buffer));
+      }
+      block = new IntermediateResultsBlock(AggregationFunctionFactory.getAggregationFunction(brokerRequest), results);
+    }
+    block.setNumDocsScanned(numDocsScanned);
+    block.setTotalDocs(totalDocs);
+    return block;
+  }
+
+  private static void markMeter(Meter meter) {
+    if (meter != null) {
+      meter.mark();
+    }
+  }
+
+  private static BaseConfiguration disabledConfig() {
+    BaseConfiguration config = new BaseConfiguration();
+    config.setProperty(SegmentResultCacheConfig.MAX_SIZE_IN_BYTES, 0L);
+    return config;
+  }
+
+  /**
+   * Keys cached for a registered segment.
+   */
+  private static final class SegmentKeys {
+    // Guarded by this, the keys by normalised request
+    private final Map<String, Key> _keys = new HashMap<String, Key>();
+    private boolean _closed;
+
+    /**
+     * Tracks the cached key, returns false if the segment was invalidated.
+     */
+    private synchronized boolean add(Key key) {
+      if (_closed) {
+        return false;
+      }
+      _keys.put(key._requestKey, key);
+      return true;
+    }
+
+    private synchronized void remove(Key key) {
+      // Leave the key of the result cached again after this one was evicted
+      if (_keys.get(key._requestKey) == key) {
+        _keys.remove(key._requestKey);
+      }
+    }
+
+    /**
+     * Rejects any further key, returns the keys cached so far.
+     */
+    private synchronized List<Key> close() {
+      _closed = true;
+      List<Key> keys = new ArrayList<Key>(_keys.values());
+      _keys.clear();
+      return keys;
+    }
+  }
+
+  /**
+   * Identifies a result by its segment instance and normalised request, the keys of the segment are only carried
+   * along.
+   */
+  private static final class Key {
+    private final IndexSegment _indexSegment;
+    private final String _requestKey;
+    private final SegmentKeys _segmentKeys;
+
+    private Key(IndexSegment indexSegment, String requestKey, SegmentKeys segmentKeys) {
+      _indexSegment = indexSegment;
+      _requestKey = requestKey;
+      _segmentKeys = segmentKeys;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return _indexSegment == key._indexSegment && _requestKey.equals(key._requestKey);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(_indexSegment) + _requestKey.hashCode();
+    }
+  }
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.config;
+
+import org.apache.commons.configuration.Configuration;
+
+
+/**
+ * Config for the server wide cache of inverted index bitmaps.
+ *
+ *
+ */
+public class BitmapCacheConfig {
+
+  // Key of max total size of the cached bitmaps, 0 disables the cache
+  public static final String MAX_SIZE_IN_BYTES = "maxSizeInBytes";
+  // Key of max size of the cached bitmaps of one table, unless overridden for the table
+  public static final String DEFAULT_TABLE_QUOTA_IN_BYTES = "defaultTableQuotaInBytes";
+  // Prefix key of the per table overrides of the quota, e.g. tableQuotaInBytes.myTable
+  public static final String TABLE_QUOTA_IN_BYTES = "tableQuotaInBytes";
+
+  private static final long DEFAULT_MAX_SIZE_IN_BYTES = 256L * 1024 * 1024;
+
+  private final long _maxSizeInBytes;
+  private final long _defaultTableQuotaInBytes;
+  private final Configuration _tableQuotaConfig;
+
+  public BitmapCacheConfig(Configuration bitmapCacheConfig) {
+    _maxSizeInBytes = bitmapCacheConfig.getLong(MAX_SIZE_IN_BYTES, DEFAULT_MAX_SIZE_IN_BYTES);
+    _defaultTableQuotaInBytes = bitmapCacheConfig.getLong(DEFAULT_TABLE_QUOTA_IN_BYTES, _maxSizeInBytes);
+    _tableQuotaConfig = bitmapCacheConfig.subset(TABLE_QUOTA_IN_BYTES);
+  }
+
+  public long getMaxSizeInBytes() {
+    return _maxSizeInBytes;
+  }
+
+  public long getDefaultTableQuotaInBytes() {
+    return _defaultTableQuotaInBytes;
+  }
+
+  public long getTableQuotaInBytes(String tableName) {
+    if (tableName == null) {
+      return _defaultTableQuotaInBytes;
+    }
+    return _tableQuotaConfig.getLong(tableName, _defaultTableQuotaInBytes);
+  }
+}
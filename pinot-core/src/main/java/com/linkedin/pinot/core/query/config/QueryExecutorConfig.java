@@ -18,6 +18,8 @@ package com.linkedin.pinot.core.query.config;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationException;
 
+import com.linkedin.pinot.common.utils.DataTable;
+
 
 /**
  * Config for QueryExecutor.
@@ -32,20 +34,41 @@ public class QueryExecutorConfig {
   public static final String QUERY_PLANNER = "queryPlanner";
   // Prefix key of TimeOut
   public static final String TIME_OUT = "timeout";
+  // Prefix key of Query Scheduler
+  public static final String QUERY_SCHEDULER = "scheduler";
+  // Prefix key of Bitmap Cache
+  public static final String BITMAP_CACHE = "bitmapCache";
+  // Prefix key of Segment Result Cache
+  public static final String RESULT_CACHE = "resultCache";
+  // Key of the DataTable format version of the responses, only raise it once every broker can read that version
+  public static final String DATA_TABLE_VERSION = "dataTableVersion";
 
   private static final String[] REQUIRED_KEYS = {};
 
   private Configuration _queryExecutorConfig = null;
   private SegmentPrunerConfig _segmentPrunerConfig;
   private QueryPlannerConfig _queryPlannerConfig;
+  private QuerySchedulerConfig _querySchedulerConfig;
+  private BitmapCacheConfig _bitmapCacheConfig;
+  private SegmentResultCacheConfig _segmentResultCacheConfig;
   private final long _timeOutMs;
+  private final int _dataTableVersion;
 
   public QueryExecutorConfig(Configuration config) throws ConfigurationException {
     _queryExecutorConfig = config;
     checkRequiredKeys();
     _segmentPrunerConfig = new SegmentPrunerConfig(_queryExecutorConfig.subset(QUERY_PRUNER));
     _queryPlannerConfig = new QueryPlannerConfig(_queryExecutorConfig.subset(QUERY_PLANNER));
+    _querySchedulerConfig = new QuerySchedulerConfig(_queryExecutorConfig.subset(QUERY_SCHEDULER));
+    _bitmapCacheConfig = new BitmapCacheConfig(_queryExecutorConfig.subset(BITMAP_CACHE));
+    _segmentResultCacheConfig = new SegmentResultCacheConfig(_queryExecutorConfig.subset(RESULT_CACHE));
     _timeOutMs = _queryExecutorConfig.getLong(TIME_OUT, -1);
+    _dataTableVersion = _queryExecutorConfig.getInt(DATA_TABLE_VERSION, DataTable.DEFAULT_VERSION);
+    try {
+      DataTable.checkVersion(_dataTableVersion);
+    } catch (IllegalArgumentException e) {
+      throw new ConfigurationException(e.getMessage());
+    }
   }
 
   private void checkRequiredKeys() throws ConfigurationException {
@@ -68,7 +91,23 @@ public class QueryExecutorConfig {
     return _queryPlannerConfig;
   }
 
+  public QuerySchedulerConfig getQuerySchedulerConfig() {
+    return _querySchedulerConfig;
+  }
+
+  public BitmapCacheConfig getBitmapCacheConfig() {
+    return _bitmapCacheConfig;
+  }
+
+  public SegmentResultCacheConfig getSegmentResultCacheConfig() {
+    return _segmentResultCacheConfig;
+  }
+
   public long getTimeOut() {
     return _timeOutMs;
   }
+
+  public int getDataTableVersion() {
+    return _dataTableVersion;
+  }
 }
@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.config;
+
+import org.apache.commons.configuration.Configuration;
+
+
+/**
+ * Config for QueryScheduler.
+ *
+ *
+ */
+public class QuerySchedulerConfig {
+
+  // Key to run queries through the scheduler instead of the table executors
+  public static final String ENABLED = "enabled";
+  // Key of number of threads shared by all queries
+  public static final String NUM_THREADS = "numThreads";
+  // Key of max number of segment tasks of one query running at the same time
+  public static final String MAX_THREADS_PER_QUERY = "maxThreadsPerQuery";
+  // Key of max number of segment tasks of one table running at the same time
+  public static final String MAX_THREADS_PER_TABLE = "maxThreadsPerTable";
+  // Key of max number of queries admitted at the same time, queries beyond that are rejected
+  public static final String MAX_PENDING_QUERIES = "maxPendingQueries";
+
+  private static final int DEFAULT_MAX_PENDING_QUERIES = 256;
+
+  private final boolean _enabled;
+  private final int _numThreads;
+  private final int _maxThreadsPerQuery;
+  private final int _maxThreadsPerTable;
+  private final int _maxPendingQueries;
+
+  public QuerySchedulerConfig(Configuration schedulerConfig) {
+    _enabled = schedulerConfig.getBoolean(ENABLED, false);
+    _numThreads = schedulerConfig.getInt(NUM_THREADS, Runtime.getRuntime().availableProcessors());
+    _maxThreadsPerQuery = schedulerConfig.getInt(MAX_THREADS_PER_QUERY, Math.max(1, _numThreads / 2));
+    _maxThreadsPerTable = schedulerConfig.getInt(MAX_THREADS_PER_TABLE, _numThreads);
+    _maxPendingQueries = schedulerConfig.getInt(MAX_PENDING_QUERIES, DEFAULT_MAX_PENDING_QUERIES);
+  }
+
+  public boolean isEnabled() {
+    return _enabled;
+  }
+
+  public int getNumThreads() {
+    return _numThreads;
+  }
+
+  public int getMaxThreadsPerQuery() {
+    return _maxThreadsPerQuery;
+  }
+
+  public int getMaxThreadsPerTable() {
+    return _maxThreadsPerTable;
+  }
+
+  public int getMaxPendingQueries() {
+    return _maxPendingQueries;
+  }
+}
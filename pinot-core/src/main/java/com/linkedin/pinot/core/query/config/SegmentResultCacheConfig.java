@@ -0,0 +1,51 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.config;
+
+import org.apache.commons.configuration.Configuration;
+
+
+/**
+ * Config for the server wide cache of the per segment results of the queries on offline segments.
+ *
+ *
+ */
+public class SegmentResultCacheConfig {
+
+  // Key of max total size of the cached results, 0 disables the cache
+  public static final String MAX_SIZE_IN_BYTES = "maxSizeInBytes";
+  // Key of max size of the result of one segment, larger results (e.g. big group bys) are not cached
+  public static final String MAX_ENTRY_SIZE_IN_BYTES = "maxEntrySizeInBytes";
+
+  private static final long DEFAULT_MAX_SIZE_IN_BYTES = 64L * 1024 * 1024;
+  private static final int DEFAULT_MAX_ENTRY_SIZE_IN_BYTES = 1024 * 1024;
+
+  private final long _maxSizeInBytes;
+  private final int _maxEntrySizeInBytes;
+
+  public SegmentResultCacheConfig(Configuration resultCacheConfig) {
+    _maxSizeInBytes = resultCacheConfig.getLong(MAX_SIZE_IN_BYTES, DEFAULT_MAX_SIZE_IN_BYTES);
+    _maxEntrySizeInBytes = resultCacheConfig.getInt(MAX_ENTRY_SIZE_IN_BYTES, DEFAULT_MAX_ENTRY_SIZE_IN_BYTES);
+  }
+
+  public long getMaxSizeInBytes() {
+    return _maxSizeInBytes;
+  }
+
+  public int getMaxEntrySizeInBytes() {
+    return _maxEntrySizeInBytes;
+  }
+}
@@ -20,6 +20,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import com.google.common.collect.Lists;
@@ -45,9 +46,12 @@ import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.plan.Plan;
 import com.linkedin.pinot.core.plan.maker.InstancePlanMakerImplV2;
 import com.linkedin.pinot.core.plan.maker.PlanMaker;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
 import com.linkedin.pinot.core.query.config.QueryExecutorConfig;
 import com.linkedin.pinot.core.query.pruner.SegmentPrunerService;
 import com.linkedin.pinot.core.query.pruner.SegmentPrunerServiceImpl;
+import com.linkedin.pinot.core.query.scheduler.QueryScheduler;
+import com.linkedin.pinot.core.segment.index.BitmapCache;
 import com.yammer.metrics.Metrics;
 import com.yammer.metrics.core.MetricName;
 import com.yammer.metrics.core.Timer;
@@ -67,6 +71,7 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
   private boolean _printQueryPlan = true;
   private final Map<String, Long> _resourceTimeOutMsMap = new ConcurrentHashMap<String, Long>();
   private ServerMetrics _serverMetrics;
+  private QueryScheduler _queryScheduler = null;
 
   public ServerQueryExecutorV1Impl() {
   }
@@ -89,8 +94,17 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
     if (_segmentPrunerService == null) {
       _segmentPrunerService = new SegmentPrunerServiceImpl(_queryExecutorConfig.getPrunerConfig());
     }
+    LOGGER.info("Trying to build BitmapCache");
+    BitmapCache.init(_queryExecutorConfig.getBitmapCacheConfig(), _serverMetrics);
+    LOGGER.info("Trying to build SegmentResultCache");
+    SegmentResultCache.init(_queryExecutorConfig.getSegmentResultCacheConfig(), _serverMetrics);
     LOGGER.info("Trying to build QueryPlanMaker");
-    _planMaker = new InstancePlanMakerImplV2();
+    LOGGER.info("Writing responses as DataTable version {}", _queryExecutorConfig.getDataTableVersion());
+    _planMaker = new InstancePlanMakerImplV2(_queryExecutorConfig.getDataTableVersion());
+    if (_queryExecutorConfig.getQuerySchedulerConfig().isEnabled() && _queryScheduler == null) {
+      LOGGER.info("Trying to build QueryScheduler");
+      _queryScheduler = new QueryScheduler(_queryExecutorConfig.getQuerySchedulerConfig());
+    }
     LOGGER.info("Trying to build QueryExecutorTimer");
     if (_queryExecutorTimer == null) {
       _queryExecutorTimer =
@@ -104,6 +118,7 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
     DataTable instanceResponse;
     long start = System.currentTimeMillis();
     final List<IndexSegment> queryableSegmentDataManagerList = new ArrayList<>();
+    ExecutorService queryExecutorService = null;
     try {
       TraceContext.register(instanceRequest);
       final BrokerRequest brokerRequest = instanceRequest.getQuery();
@@ -116,13 +131,28 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
       if (queryableSegmentDataManagerList.isEmpty()) {
         return null;
       }
+      final String tableName = brokerRequest.getQuerySource().getTableName();
+      final long timeOutMs = getResourceTimeOut(instanceRequest.getQuery());
+      if (_queryScheduler != null) {
+        queryExecutorService = _queryScheduler.admit(tableName, start + timeOutMs);
+        if (queryExecutorService == null) {
+          LOGGER.warn("Rejecting request {} on table {}, {} queries are already pending", instanceRequest.getRequestId(),
+              tableName, _queryScheduler.getNumPendingQueries());
+          _serverMetrics.addMeteredValue(brokerRequest, ServerMeter.QUERIES_REJECTED, 1);
+          instanceResponse = new DataTable();
+          instanceResponse.addException(QueryException.SERVER_OUT_OF_CAPACITY_ERROR);
+          addResponseMetadata(instanceResponse, instanceRequest, start);
+          return instanceResponse;
+        }
+      } else {
+        queryExecutorService = _instanceDataManager.getTableDataManager(tableName).getExecutorService();
+      }
       long startPlanTime = System.nanoTime();
       final Plan globalQueryPlan = _planMaker.makeInterSegmentPlan(
           queryableSegmentDataManagerList,
           brokerRequest,
-          _instanceDataManager.getTableDataManager(brokerRequest.getQuerySource().getTableName())
-              .getExecutorService(),
-          getResourceTimeOut(instanceRequest.getQuery()));
+          queryExecutorService,
+          timeOutMs);
       long planTime = System.nanoTime() - startPlanTime;
       _serverMetrics.addPhaseTiming(brokerRequest, ServerQueryPhase.BUILD_QUERY_PLAN, planTime);
 
@@ -158,6 +188,10 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
       instanceResponse.getMetadata().put("traceInfo", TraceContext.getTraceInfoOfRequestId(instanceRequest.getRequestId()));
       return instanceResponse;
     } finally {
+      if (_queryScheduler != null && queryExecutorService != null) {
+        // Releases the admission and drops the segment tasks that did not start, e.g. after a timeout
+        queryExecutorService.shutdownNow();
+      }
       if (_instanceDataManager.getTableDataManager(instanceRequest.getQuery().getQuerySource().getTableName()) != null) {
        for (IndexSegment segment : queryableSegmentDataManagerList) {
          _instanceDataManager.getTableDataManager(instanceRequest.getQuery().getQuerySource().getTableName())
@@ -168,6 +202,13 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
     }
   }
 
+  private void addResponseMetadata(DataTable instanceResponse, InstanceRequest instanceRequest, long start) {
+    long end = System.currentTimeMillis();
+    instanceResponse.getMetadata().put("timeUsedMs", Long.toString((end - start)));
+    instanceResponse.getMetadata().put("requestId", Long.toString(instanceRequest.getRequestId()));
+    instanceResponse.getMetadata().put("traceInfo", TraceContext.getTraceInfoOfRequestId(instanceRequest.getRequestId()));
+  }
+
   private List<IndexSegment> getPrunedQueryableSegments(final List<IndexSegment> listOfQueryableSegments, final InstanceRequest instanceRequest) {
     LOGGER
         .info("InstanceRequest request {} segments", instanceRequest.getSearchSegments().size());
@@ -195,6 +236,9 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
   public synchronized void shutDown() {
     if (isStarted()) {
       _isStarted = false;
+      if (_queryScheduler != null) {
+        _queryScheduler.shutDown();
+      }
       LOGGER.info("QueryExecutor is shutDown!");
     } else {
       LOGGER.warn("QueryExecutor is already shutDown, won't do anything!");
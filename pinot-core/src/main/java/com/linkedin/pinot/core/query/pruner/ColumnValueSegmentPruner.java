@@ -0,0 +1,198 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.pruner;
+
+import java.util.List;
+
+import org.apache.commons.configuration.Configuration;
+
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.segment.SegmentMetadata;
+import com.linkedin.pinot.common.utils.request.FilterQueryTree;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
+import com.linkedin.pinot.core.common.predicate.InPredicate;
+import com.linkedin.pinot.core.common.predicate.RangePredicate;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.IndexSegmentImpl;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
+
+
+/**
+ * An implementation of SegmentPruner.
+ * Pruner will prune segment if the filter cannot match any doc given the min and max values of the filter columns
+ * recorded in the segment metadata, and their bloom filters if any.
+ *
+ * Equality, in and range predicates are evaluated against the [min, max] range of the column, an AND prunes if any
+ * of its children prunes and an OR only if all of them do. Any other predicate, columns without min/max values and
+ * segments without column metadata (e.g. realtime segments) never prune. Range predicates on string columns are not
+ * evaluated since the dictionary order of padded string values is not the natural order of the raw values.
+ */
+public class ColumnValueSegmentPruner implements SegmentPruner {
+
+  @Override
+  public boolean prune(IndexSegment segment, BrokerRequest brokerRequest) {
+    if (brokerRequest.getFilterQuery() == null) {
+      return false;
+    }
+    SegmentMetadata segmentMetadata = segment.getSegmentMetadata();
+    if (!(segmentMetadata instanceof SegmentMetadataImpl)) {
+      return false;
+    }
+    return pruneSegment(RequestUtils.generateFilterQueryTree(brokerRequest), segment,
+        (SegmentMetadataImpl) segmentMetadata);
+  }
+
+  private static boolean pruneSegment(FilterQueryTree filterQueryTree, IndexSegment segment,
+      SegmentMetadataImpl segmentMetadata) {
+    if (filterQueryTree == null) {
+      return false;
+    }
+    List<FilterQueryTree> children = filterQueryTree.getChildren();
+    switch (filterQueryTree.getOperator()) {
+      case AND:
+        for (FilterQueryTree child : children) {
+          if (pruneSegment(child, segment, segmentMetadata)) {
+            return true;
+          }
+        }
+        return false;
+      case OR:
+        for (FilterQueryTree child : children) {
+          if (!pruneSegment(child, segment, segmentMetadata)) {
+            return false;
+          }
+        }
+        return true;
+      default:
+        break;
+    }
+
+    String column = filterQueryTree.getColumn();
+    ColumnMetadata columnMetadata = segmentMetadata.getColumnMetadataFor(column);
+    if (columnMetadata == null) {
+      return false;
+    }
+    BloomFilterReader bloomFilter = null;
+    if (segment instanceof IndexSegmentImpl) {
+      bloomFilter = ((IndexSegmentImpl) segment).getBloomFilterFor(column);
+    }
+    List<String> value = filterQueryTree.getValue();
+    switch (filterQueryTree.getOperator()) {
+      case EQUALITY:
+        return isMissing(columnMetadata, bloomFilter, value.get(0));
+      case IN:
+        for (String inValue : new InPredicate(column, value).getInRange()) {
+          if (!isMissing(columnMetadata, bloomFilter, inValue)) {
+            return false;
+          }
+        }
+        return true;
+      case RANGE:
+        if (columnMetadata.getDataType() == DataType.STRING || !hasMinMaxValues(columnMetadata)) {
+          return false;
+        }
+        return pruneRange(columnMetadata, new RangePredicate(column, value));
+      default:
+        return false;
+    }
+  }
+
+  private static boolean hasMinMaxValues(ColumnMetadata columnMetadata) {
+    return columnMetadata.getMinValue() != null && columnMetadata.getMaxValue() != null;
+  }
+
+  /**
+   * Whether the segment definitely does not contain the value, either out of the [min, max] range of the column or
+   * rejected by its bloom filter.
+   */
+  private static boolean isMissing(ColumnMetadata columnMetadata, BloomFilterReader bloomFilter, String value) {
+    return isOutOfRange(columnMetadata, value) || (bloomFilter != null && !bloomFilter.mightContain(value));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static boolean isOutOfRange(ColumnMetadata columnMetadata, String stringValue) {
+    if (!hasMinMaxValues(columnMetadata)) {
+      return false;
+    }
+    Comparable value = parseValue(columnMetadata.getDataType(), stringValue);
+    if (value == null) {
+      return false;
+    }
+    return value.compareTo(columnMetadata.getMinValue()) < 0 || value.compareTo(columnMetadata.getMaxValue()) > 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static boolean pruneRange(ColumnMetadata columnMetadata, RangePredicate predicate) {
+    String lowerBoundary = predicate.getLowerBoundary();
+    if (!lowerBoundary.equals("*")) {
+      Comparable lower = parseValue(columnMetadata.getDataType(), lowerBoundary);
+      if (lower != null) {
+        int compare = lower.compareTo(columnMetadata.getMaxValue());
+        if (compare > 0 || (compare == 0 && !predicate.includeLowerBoundary())) {
+          return true;
+        }
+      }
+    }
+    String upperBoundary = predicate.getUpperBoundary();
+    if (!upperBoundary.equals("*")) {
+      Comparable upper = parseValue(columnMetadata.getDataType(), upperBoundary);
+      if (upper != null) {
+        int compare = upper.compareTo(columnMetadata.getMinValue());
+        if (compare < 0 || (compare == 0 && !predicate.includeUpperBoundary())) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Parse a filter value after the data type of the column, null if it cannot be compared with the column values.
+   */
+  private static Comparable parseValue(DataType dataType, String value) {
+    try {
+      switch (dataType) {
+        case INT:
+          return Integer.valueOf(value.trim());
+        case LONG:
+          return Long.valueOf(value.trim());
+        case FLOAT:
+          return Float.valueOf(value.trim());
+        case DOUBLE:
+          return Double.valueOf(value.trim());
+        case STRING:
+          return value;
+        default:
+          return null;
+      }
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public void init(Configuration config) {
+
+  }
+
+  @Override
+  public String toString() {
+    return "ColumnValueSegmentPruner";
+  }
+}
@@ -0,0 +1,196 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.reduce;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linkedin.pinot.common.exception.QueryException;
+import com.linkedin.pinot.common.query.IncrementalReducer;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.response.BrokerResponse;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.common.utils.DataTableBuilder.DataSchema;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionFactory;
+import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByOperatorService;
+import com.linkedin.pinot.core.query.selection.SelectionOperatorService;
+import com.linkedin.pinot.core.query.selection.SelectionOperatorUtils;
+
+
+/**
+ * Reduces the DataTables of one request one at a time, keeping only the merged state:
+ * - aggregation: one intermediate result per aggregation function,
+ * - aggregation group by: one merged map of group key to intermediate result per aggregation function,
+ * - selection: the top rows for order by queries, or the first rows otherwise.
+ *
+ * The brokerResponse is the same as {@link DefaultReduceService#reduceOnDataTable(BrokerRequest, Map)} would return
+ * for all the merged DataTables.
+ */
+public class DefaultIncrementalReducer implements IncrementalReducer {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DefaultIncrementalReducer.class);
+
+  private final BrokerRequest _brokerRequest;
+  private final BrokerResponse _brokerResponse = new BrokerResponse();
+  private int _numInstanceResponses = 0;
+  private Exception _reduceException = null;
+
+  // Selection
+  private final boolean _isSelection;
+  private DataSchema _selectionDataSchema = null;
+  private SelectionOperatorService _selectionOperatorService = null;
+  private Collection<Serializable[]> _selectionRows = null;
+
+  // Aggregation without group by
+  private List<AggregationFunction> _aggregationFunctions = null;
+  private List<Serializable> _aggregationResults = null;
+
+  // Aggregation group by
+  private AggregationGroupByOperatorService _aggregationGroupByOperatorService = null;
+  private List<Map<String, Serializable>> _groupByResults = null;
+
+  public DefaultIncrementalReducer(BrokerRequest brokerRequest) {
+    _brokerRequest = brokerRequest;
+    _isSelection = brokerRequest.isSetSelections() && (brokerRequest.getSelections().getSelectionColumns() != null);
+    if (!_isSelection && brokerRequest.isSetAggregationsInfo()) {
+      if (brokerRequest.isSetGroupBy()) {
+        _aggregationGroupByOperatorService =
+            new AggregationGroupByOperatorService(brokerRequest.getAggregationsInfo(), brokerRequest.getGroupBy());
+      } else {
+        _aggregationFunctions = AggregationFunctionFactory.getAggregationFunction(brokerRequest);
+        _aggregationResults = new ArrayList<Serializable>(Collections.<Serializable> nCopies(
+            _aggregationFunctions.size(), null));
+      }
+    }
+  }
+
+  @Override
+  public void merge(ServerInstance serverInstance, DataTable instanceResponse) {
+    if (instanceResponse == null) {
+      return;
+    }
+    _numInstanceResponses++;
+    if (!DefaultReduceService.reduceOnMetadata(_brokerRequest, _brokerResponse, serverInstance, instanceResponse)) {
+      return;
+    }
+    if (_reduceException != null) {
+      return;
+    }
+
+    try {
+      if (_isSelection) {
+        mergeSelectionResults(instanceResponse);
+      } else if (_aggregationGroupByOperatorService != null) {
+        _groupByResults = _aggregationGroupByOperatorService.mergeGroupByResults(_groupByResults, instanceResponse);
+      } else if (_aggregationFunctions != null) {
+        mergeAggregationResults(instanceResponse);
+      }
+    } catch (Exception e) {
+      LOGGER.error("Caught exception while merging results from " + serverInstance, e);
+      _reduceException = e;
+    }
+  }
+
+  @Override
+  public BrokerResponse getBrokerResponse() {
+    if (_numInstanceResponses == 0) {
+      return BrokerResponse.EMPTY_RESULT;
+    }
+    if (!_isSelection && _aggregationGroupByOperatorService == null && _aggregationFunctions == null) {
+      throw new UnsupportedOperationException(
+          "Should not reach here, the query has no attributes of selection or aggregation!");
+    }
+    if (_reduceException != null) {
+      _brokerResponse.addToExceptions(QueryException.getException(QueryException.BROKER_GATHER_ERROR,
+          _reduceException));
+      return _brokerResponse;
+    }
+
+    try {
+      if (_isSelection) {
+        _brokerResponse.setSelectionResults(renderSelectionResults());
+      } else if (_aggregationGroupByOperatorService != null) {
+        _aggregationGroupByOperatorService.reduceMergedGroupByResults(_groupByResults);
+        _brokerResponse.setAggregationResults(_aggregationGroupByOperatorService
+            .renderGroupByOperators(_groupByResults));
+      } else {
+        List<List<Serializable>> aggregationResultsList = new ArrayList<List<Serializable>>();
+        for (Serializable aggregationResult : _aggregationResults) {
+          List<Serializable> functionResults = new ArrayList<Serializable>();
+          if (aggregationResult != null) {
+            functionResults.add(aggregationResult);
+          }
+          aggregationResultsList.add(functionResults);
+        }
+        _brokerResponse.setAggregationResults(DefaultReduceService.reduceOnAggregationResults(_aggregationFunctions,
+            aggregationResultsList));
+      }
+    } catch (Exception e) {
+      _brokerResponse.addToExceptions(QueryException.getException(QueryException.BROKER_GATHER_ERROR, e));
+    }
+    return _brokerResponse;
+  }
+
+  private void mergeSelectionResults(DataTable instanceResponse) {
+    if (_selectionDataSchema == null) {
+      _selectionDataSchema = instanceResponse.getDataSchema();
+      if (_brokerRequest.getSelections().isSetSelectionSortSequence()) {
+        _selectionOperatorService = new SelectionOperatorService(_brokerRequest.getSelections(), _selectionDataSchema);
+      } else {
+        _selectionRows = new ArrayList<Serializable[]>();
+      }
+    }
+
+    if (_selectionOperatorService != null) {
+      _selectionOperatorService.reduce(instanceResponse);
+    } else {
+      int maxRowSize = _brokerRequest.getSelections().getSize();
+      for (int rowId = 0; rowId < instanceResponse.getNumberOfRows() && _selectionRows.size() < maxRowSize; ++rowId) {
+        _selectionRows.add(SelectionOperatorUtils.extractRowFromDataTable(instanceResponse, rowId));
+      }
+    }
+  }
+
+  private JSONObject renderSelectionResults() throws Exception {
+    if (_selectionOperatorService != null) {
+      return _selectionOperatorService.render(_selectionOperatorService.getRowEventsSet());
+    }
+    if (_selectionRows != null) {
+      return SelectionOperatorUtils.render(_selectionRows, _brokerRequest.getSelections().getSelectionColumns(),
+          _selectionDataSchema);
+    }
+    return null;
+  }
+
+  private void mergeAggregationResults(DataTable instanceResponse) {
+    for (int rowId = 0; rowId < instanceResponse.getNumberOfRows(); ++rowId) {
+      for (int colId = 0; colId < _aggregationFunctions.size(); ++colId) {
+        Serializable value = DefaultReduceService.getAggregationResult(instanceResponse, rowId, colId);
+        _aggregationResults.set(colId,
+            _aggregationFunctions.get(colId).combineTwoValues(_aggregationResults.get(colId), value));
+      }
+    }
+  }
+}
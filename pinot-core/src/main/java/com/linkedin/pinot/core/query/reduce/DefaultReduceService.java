@@ -28,6 +28,7 @@ import org.slf4j.LoggerFactory;
 
 import com.linkedin.pinot.common.Utils;
 import com.linkedin.pinot.common.exception.QueryException;
+import com.linkedin.pinot.common.query.IncrementalReducer;
 import com.linkedin.pinot.common.query.ReduceService;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.response.AggregationResult;
@@ -40,6 +41,7 @@ import com.linkedin.pinot.common.utils.DataTable;
 import com.linkedin.pinot.common.utils.DataTableBuilder.DataSchema;
 import com.linkedin.pinot.core.query.aggregation.AggregationFunction;
 import com.linkedin.pinot.core.query.aggregation.AggregationFunctionFactory;
+import com.linkedin.pinot.core.query.aggregation.AggregationResultCodecs;
 import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByOperatorService;
 import com.linkedin.pinot.core.query.selection.SelectionOperatorService;
 import com.linkedin.pinot.core.query.selection.SelectionOperatorUtils;
@@ -54,6 +56,11 @@ import com.linkedin.pinot.core.query.selection.SelectionOperatorUtils;
 public class DefaultReduceService implements ReduceService {
   private static final Logger LOGGER = LoggerFactory.getLogger(DefaultReduceService.class);
 
+  static {
+    // Server responses carry aggregation results encoded with these codecs.
+    AggregationResultCodecs.register();
+  }
+
   private static String NUM_DOCS_SCANNED = "numDocsScanned";
   private static String TIME_USED_MS = "timeUsedMs";
   private static String TOTAL_DOCS = "totalDocs";
@@ -119,34 +126,8 @@ public class DefaultReduceService implements ReduceService {
       if (instanceResponse == null) {
         continue;
       }
-
-      // reduceOnTraceInfo (put it here so that trace info can show up even exception happens)
-      if (brokerRequest.isEnableTrace() && instanceResponse.getMetadata() != null) {
-        brokerResponse.getTraceInfo().put(serverInstance.getHostname(),
-                instanceResponse.getMetadata().get("traceInfo"));
-      }
-
-      if (instanceResponse.getDataSchema() == null && instanceResponse.getMetadata() != null) {
-        for (String key : instanceResponse.getMetadata().keySet()) {
-          if (key.startsWith("Exception")) {
-            ProcessingException processingException = new ProcessingException();
-            processingException.setErrorCode(Integer.parseInt(key.substring(9)));
-            processingException.setMessage(instanceResponse.getMetadata().get(key));
-            brokerResponse.addToExceptions(processingException);
-          }
-        }
+      if (!reduceOnMetadata(brokerRequest, brokerResponse, serverInstance, instanceResponse)) {
         instanceResponseMap.remove(serverInstance);
-        continue;
-      }
-
-      // reduceOnNumDocsScanned
-      brokerResponse.setNumDocsScanned(brokerResponse.getNumDocsScanned()
-          + Long.parseLong(instanceResponse.getMetadata().get(NUM_DOCS_SCANNED)));
-      // reduceOnTotalDocs
-      brokerResponse.setTotalDocs(brokerResponse.getTotalDocs()
-              + Long.parseLong(instanceResponse.getMetadata().get(TOTAL_DOCS)));
-      if (Long.parseLong(instanceResponse.getMetadata().get(TIME_USED_MS)) > brokerResponse.getTimeUsedMs()) {
-        brokerResponse.setTimeUsedMs(Long.parseLong(instanceResponse.getMetadata().get(TIME_USED_MS)));
       }
     }
     try {
@@ -187,6 +168,49 @@ public class DefaultReduceService implements ReduceService {
         "Should not reach here, the query has no attributes of selection or aggregation!");
   }
 
+  @Override
+  public IncrementalReducer getIncrementalReducer(BrokerRequest brokerRequest) {
+    return new DefaultIncrementalReducer(brokerRequest);
+  }
+
+  /**
+   * Reduce the metadata (trace info, exceptions, number of docs and time used) of one instance response into the
+   * brokerResponse.
+   *
+   * @return false if the instance response only carries exceptions, in which case it has no results to reduce.
+   */
+  static boolean reduceOnMetadata(BrokerRequest brokerRequest, BrokerResponse brokerResponse,
+      ServerInstance serverInstance, DataTable instanceResponse) {
+    // reduceOnTraceInfo (put it here so that trace info can show up even exception happens)
+    if (brokerRequest.isEnableTrace() && instanceResponse.getMetadata() != null) {
+      brokerResponse.getTraceInfo().put(serverInstance.getHostname(),
+              instanceResponse.getMetadata().get("traceInfo"));
+    }
+
+    if (instanceResponse.getDataSchema() == null && instanceResponse.getMetadata() != null) {
+      for (String key : instanceResponse.getMetadata().keySet()) {
+        if (key.startsWith("Exception")) {
+          ProcessingException processingException = new ProcessingException();
+          processingException.setErrorCode(Integer.parseInt(key.substring(9)));
+          processingException.setMessage(instanceResponse.getMetadata().get(key));
+          brokerResponse.addToExceptions(processingException);
+        }
+      }
+      return false;
+    }
+
+    // reduceOnNumDocsScanned
+    brokerResponse.setNumDocsScanned(brokerResponse.getNumDocsScanned()
+        + Long.parseLong(instanceResponse.getMetadata().get(NUM_DOCS_SCANNED)));
+    // reduceOnTotalDocs
+    brokerResponse.setTotalDocs(brokerResponse.getTotalDocs()
+            + Long.parseLong(instanceResponse.getMetadata().get(TOTAL_DOCS)));
+    if (Long.parseLong(instanceResponse.getMetadata().get(TIME_USED_MS)) > brokerResponse.getTimeUsedMs()) {
+      brokerResponse.setTimeUsedMs(Long.parseLong(instanceResponse.getMetadata().get(TIME_USED_MS)));
+    }
+    return true;
+  }
+
   private JSONObject reduceOnSelectionResults(BrokerRequest brokerRequest,
       Map<ServerInstance, DataTable> instanceResponseMap) {
     try {
@@ -219,8 +243,13 @@ public class DefaultReduceService implements ReduceService {
 
   private List<JSONObject> reduceOnAggregationResults(BrokerRequest brokerRequest,
       List<List<Serializable>> aggregationResultsList) {
+    return reduceOnAggregationResults(AggregationFunctionFactory.getAggregationFunction(brokerRequest),
+        aggregationResultsList);
+  }
+
+  static List<JSONObject> reduceOnAggregationResults(List<AggregationFunction> aggregationFunctions,
+      List<List<Serializable>> aggregationResultsList) {
     List<JSONObject> retAggregationResults = new ArrayList<JSONObject>();
-    List<AggregationFunction> aggregationFunctions = AggregationFunctionFactory.getAggregationFunction(brokerRequest);
     for (int i = 0; i < aggregationFunctions.size(); ++i) {
       Serializable retResult = aggregationFunctions.get(i).reduce(aggregationResultsList.get(i));
       try {
@@ -251,32 +280,29 @@ public class DefaultReduceService implements ReduceService {
       // Shuffle AggregationResults
       for (int rowId = 0; rowId < instanceResponse.getNumberOfRows(); ++rowId) {
         for (int colId = 0; colId < brokerRequest.getAggregationsInfoSize(); ++colId) {
-          switch (aggregationResultSchema.getColumnType(colId)) {
-            case INT:
-              aggregationResultsList.get(colId).add(instanceResponse.getInt(rowId, colId));
-              break;
-            case SHORT:
-              aggregationResultsList.get(colId).add(instanceResponse.getShort(rowId, colId));
-              break;
-            case FLOAT:
-              aggregationResultsList.get(colId).add(instanceResponse.getFloat(rowId, colId));
-              break;
-            case LONG:
-              aggregationResultsList.get(colId).add(instanceResponse.getLong(rowId, colId));
-              break;
-            case DOUBLE:
-              aggregationResultsList.get(colId).add(instanceResponse.getDouble(rowId, colId));
-              break;
-            case STRING:
-              aggregationResultsList.get(colId).add(instanceResponse.getString(rowId, colId));
-              break;
-            default:
-              aggregationResultsList.get(colId).add(instanceResponse.getObject(rowId, colId));
-              break;
-          }
+          aggregationResultsList.get(colId).add(getAggregationResult(instanceResponse, rowId, colId));
         }
       }
     }
     return aggregationResultsList;
   }
+
+  static Serializable getAggregationResult(DataTable instanceResponse, int rowId, int colId) {
+    switch (instanceResponse.getDataSchema().getColumnType(colId)) {
+      case INT:
+        return instanceResponse.getInt(rowId, colId);
+      case SHORT:
+        return instanceResponse.getShort(rowId, colId);
+      case FLOAT:
+        return instanceResponse.getFloat(rowId, colId);
+      case LONG:
+        return instanceResponse.getLong(rowId, colId);
+      case DOUBLE:
+        return instanceResponse.getDouble(rowId, colId);
+      case STRING:
+        return instanceResponse.getString(rowId, colId);
+      default:
+        return instanceResponse.getObject(rowId, colId);
+    }
+  }
 }
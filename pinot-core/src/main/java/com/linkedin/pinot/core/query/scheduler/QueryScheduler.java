@@ -0,0 +1,274 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.scheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linkedin.pinot.core.query.config.QuerySchedulerConfig;
+
+
+/**
+ * QueryScheduler runs the segment level tasks of all the queries of a server on one shared work-stealing pool.
+ *
+ * Each admitted query gets its own ExecutorService ({@link QueryExecutorService}), which is handed to the plan maker
+ * in place of the table executor. Tasks submitted to it are queued here and released to the pool:
+ *  - in order of query deadline, earliest first (in submission order for tasks of the same query),
+ *  - only while the query and its table are under their concurrency quota,
+ *  - never more than the number of pool threads at once, so that the order is decided here and not by the pool.
+ * Queries arriving while max pending queries are admitted are rejected right away instead of queueing up.
+ *
+ *
+ */
+public class QueryScheduler {
+  private static final Logger LOGGER = LoggerFactory.getLogger(QueryScheduler.class);
+
+  private final ForkJoinPool _pool;
+  private final int _numThreads;
+  private final int _maxThreadsPerQuery;
+  private final int _maxThreadsPerTable;
+  private final int _maxPendingQueries;
+
+  // All the fields below are guarded by this
+  private final TreeSet<Task> _pendingTasks = new TreeSet<Task>();
+  private final Map<String, Integer> _numRunningTasksPerTable = new HashMap<String, Integer>();
+  private int _numRunningTasks = 0;
+  private int _numPendingQueries = 0;
+  private long _taskSequence = 0;
+  private boolean _isShutDown = false;
+
+  public QueryScheduler(QuerySchedulerConfig config) {
+    this(config.getNumThreads(), config.getMaxThreadsPerQuery(), config.getMaxThreadsPerTable(),
+        config.getMaxPendingQueries());
+  }
+
+  public QueryScheduler(int numThreads, int maxThreadsPerQuery, int maxThreadsPerTable, int maxPendingQueries) {
+    _numThreads = numThreads;
+    _maxThreadsPerQuery = maxThreadsPerQuery;
+    _maxThreadsPerTable = maxThreadsPerTable;
+    _maxPendingQueries = maxPendingQueries;
+    _pool = new ForkJoinPool(numThreads, new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+      @Override
+      public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("query-scheduler-" + thread.getPoolIndex());
+        return thread;
+      }
+    }, null, true);
+    LOGGER.info("Started query scheduler with {} threads, {} threads per query, {} threads per table, "
+        + "{} pending queries", numThreads, maxThreadsPerQuery, maxThreadsPerTable, maxPendingQueries);
+  }
+
+  /**
+   * Admit a query. The returned executor must be shut down once the query is done, which releases the admission
+   * and drops the tasks of the query that did not start yet.
+   *
+   * @param tableName table queried, for the per table quota
+   * @param deadlineMs time at which the query times out, tasks of queries with an earlier deadline run first
+   * @return the executor for the segment tasks of the query, or null if the query is rejected
+   */
+  public synchronized QueryExecutorService admit(String tableName, long deadlineMs) {
+    if (_isShutDown || _numPendingQueries >= _maxPendingQueries) {
+      return null;
+    }
+    _numPendingQueries++;
+    return new QueryExecutorService(tableName, deadlineMs);
+  }
+
+  public synchronized int getNumPendingQueries() {
+    return _numPendingQueries;
+  }
+
+  public synchronized void shutDown() {
+    _isShutDown = true;
+    _pendingTasks.clear();
+    _pool.shutdown();
+  }
+
+  private synchronized void schedule(QueryExecutorService query, Runnable runnable) {
+    if (query._isShutDown || _isShutDown) {
+      throw new RejectedExecutionException("Query on table " + query._tableName + " is already done");
+    }
+    _pendingTasks.add(new Task(query, runnable, _taskSequence++));
+    dispatch();
+  }
+
+  private synchronized List<Runnable> release(QueryExecutorService query) {
+    List<Runnable> droppedRunnables = new ArrayList<Runnable>();
+    if (query._isShutDown) {
+      return droppedRunnables;
+    }
+    query._isShutDown = true;
+    _numPendingQueries--;
+    Iterator<Task> iterator = _pendingTasks.iterator();
+    while (iterator.hasNext()) {
+      Task task = iterator.next();
+      if (task._query == query) {
+        droppedRunnables.add(task._runnable);
+        iterator.remove();
+      }
+    }
+    notifyAll();
+    return droppedRunnables;
+  }
+
+  private synchronized void onTaskDone(Task task) {
+    _numRunningTasks--;
+    task._query._numRunningTasks--;
+    String tableName = task._query._tableName;
+    int numRunningTableTasks = _numRunningTasksPerTable.get(tableName) - 1;
+    if (numRunningTableTasks == 0) {
+      _numRunningTasksPerTable.remove(tableName);
+    } else {
+      _numRunningTasksPerTable.put(tableName, numRunningTableTasks);
+    }
+    dispatch();
+    notifyAll();
+  }
+
+  /**
+   * Release the pending tasks that fit in the quotas to the pool, earliest deadline first. Tasks of a query or table
+   * at its quota are skipped, so that they do not hold back the tasks of other queries.
+   */
+  private void dispatch() {
+    Iterator<Task> iterator = _pendingTasks.iterator();
+    while (_numRunningTasks < _numThreads && iterator.hasNext()) {
+      Task task = iterator.next();
+      QueryExecutorService query = task._query;
+      if (query._numRunningTasks >= _maxThreadsPerQuery) {
+        continue;
+      }
+      Integer numRunningTableTasks = _numRunningTasksPerTable.get(query._tableName);
+      if (numRunningTableTasks == null) {
+        numRunningTableTasks = 0;
+      }
+      if (numRunningTableTasks >= _maxThreadsPerTable) {
+        continue;
+      }
+      iterator.remove();
+      _numRunningTasks++;
+      query._numRunningTasks++;
+      _numRunningTasksPerTable.put(query._tableName, numRunningTableTasks + 1);
+      _pool.execute(task);
+    }
+  }
+
+  /**
+   * ExecutorService of one query, backed by the shared pool of the scheduler.
+   */
+  public class QueryExecutorService extends AbstractExecutorService {
+    private final String _tableName;
+    private final long _deadlineMs;
+
+    // Guarded by the scheduler
+    private volatile boolean _isShutDown = false;
+    private int _numRunningTasks = 0;
+
+    private QueryExecutorService(String tableName, long deadlineMs) {
+      _tableName = tableName;
+      _deadlineMs = deadlineMs;
+    }
+
+    public long getDeadlineMs() {
+      return _deadlineMs;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      schedule(this, command);
+    }
+
+    @Override
+    public void shutdown() {
+      release(this);
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      return release(this);
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return _isShutDown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+      synchronized (QueryScheduler.this) {
+        return _isShutDown && _numRunningTasks == 0;
+      }
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+      long endTimeMs = System.currentTimeMillis() + unit.toMillis(timeout);
+      synchronized (QueryScheduler.this) {
+        while (!isTerminated()) {
+          long remainingMs = endTimeMs - System.currentTimeMillis();
+          if (remainingMs <= 0) {
+            return false;
+          }
+          QueryScheduler.this.wait(remainingMs);
+        }
+        return true;
+      }
+    }
+  }
+
+  private class Task implements Runnable, Comparable<Task> {
+    private final QueryExecutorService _query;
+    private final Runnable _runnable;
+    private final long _sequence;
+
+    private Task(QueryExecutorService query, Runnable runnable, long sequence) {
+      _query = query;
+      _runnable = runnable;
+      _sequence = sequence;
+    }
+
+    @Override
+    public void run() {
+      try {
+        _runnable.run();
+      } catch (Throwable t) {
+        LOGGER.error("Caught exception while running task of query on table " + _query._tableName, t);
+      } finally {
+        onTaskDone(this);
+      }
+    }
+
+    @Override
+    public int compareTo(Task other) {
+      if (_query._deadlineMs != other._query._deadlineMs) {
+        return _query._deadlineMs < other._query._deadlineMs ? -1 : 1;
+      }
+      return _sequence < other._sequence ? -1 : (_sequence == other._sequence ? 0 : 1);
+    }
+  }
+}
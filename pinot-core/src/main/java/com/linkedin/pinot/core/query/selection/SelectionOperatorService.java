@@ -86,8 +86,8 @@ public class SelectionOperatorService {
   private final Comparator<Serializable[]> _rowComparator;
   private final Collection<Serializable[]> _rowEventsSet;
 
-  private Comparator<Integer> _rowDocIdComparator;
-  private Collection<Integer> _rowDocIdSet;
+  private TopKDocIdHeap _docIdHeap;
+  private List<Integer> _rowDocIdSet;
 
   private final IndexSegment _indexSegment;
   private final boolean _doOrdering;
@@ -123,7 +123,7 @@ public class SelectionOperatorService {
     } else {
       _rowEventsSet = new ArrayList<Serializable[]>(_maxRowSize);
     }
-    _rowDocIdComparator = null;
+    _docIdHeap = null;
     _rowDocIdSet = null;
   }
 
@@ -157,7 +157,7 @@ public class SelectionOperatorService {
     } else {
       _rowEventsSet = new ArrayList<Serializable[]>(_maxRowSize);
     }
-    _rowDocIdComparator = null;
+    _docIdHeap = null;
     _rowDocIdSet = null;
   }
 
@@ -207,34 +207,41 @@ public class SelectionOperatorService {
 
   public Collection<Serializable[]> reduce(Map<ServerInstance, DataTable> selectionResults) {
     _rowEventsSet.clear();
+    for (final DataTable dt : selectionResults.values()) {
+      if (!_doOrdering && _rowEventsSet.size() >= _maxRowSize) {
+        break;
+      }
+      reduce(dt);
+    }
+    return _rowEventsSet;
+  }
+
+  /**
+   * Merge the rows of one more DataTable into the rows reduced so far, returned by {@link #getRowEventsSet()}.
+   */
+  public void reduce(DataTable dt) {
     if (_doOrdering) {
       PriorityQueue<Serializable[]> queue = (PriorityQueue<Serializable[]>) _rowEventsSet;
-      for (final DataTable dt : selectionResults.values()) {
-        for (int rowId = 0; rowId < dt.getNumberOfRows(); ++rowId) {
-          final Serializable[] row = getRowFromDataTable(dt, rowId);
-          if (queue.size() < _maxRowSize) {
+      for (int rowId = 0; rowId < dt.getNumberOfRows(); ++rowId) {
+        final Serializable[] row = getRowFromDataTable(dt, rowId);
+        if (queue.size() < _maxRowSize) {
+          queue.add(row);
+        } else {
+          if (_rowComparator.compare(queue.peek(), row) < 0) {
             queue.add(row);
-          } else {
-            if (_rowComparator.compare(queue.peek(), row) < 0) {
-              queue.add(row);
-              queue.poll();
-            }
+            queue.poll();
           }
         }
       }
     } else {
-      for (final DataTable dt : selectionResults.values()) {
-        for (int rowId = 0; rowId < dt.getNumberOfRows(); ++rowId) {
-          final Serializable[] row = getRowFromDataTable(dt, rowId);
-          if (_rowEventsSet.size() < _maxRowSize) {
-            _rowEventsSet.add(row);
-          } else {
-            break;
-          }
+      for (int rowId = 0; rowId < dt.getNumberOfRows(); ++rowId) {
+        if (_rowEventsSet.size() < _maxRowSize) {
+          _rowEventsSet.add(getRowFromDataTable(dt, rowId));
+        } else {
+          break;
         }
       }
     }
-    return _rowEventsSet;
   }
 
   public JSONObject render(Collection<Serializable[]> finalResults, DataSchema dataSchema, int offset) throws Exception {
@@ -366,182 +373,70 @@ public class SelectionOperatorService {
     return new DataSchema(columns.toArray(new String[0]), dataTypes);
   }
 
+  /**
+   * Collect the docs of one projection block. With ordering, the doc ids of the top docs are kept in a heap shared
+   * by all the blocks of the segment and rows are only built for them by {@link #mergeToRowEventsSet(Block[])} once
+   * the segment is done; without ordering, rows are built right away.
+   */
   public void iterateOnBlock(BlockDocIdIterator blockDocIdIterator, Block[] blocks) throws Exception {
     int docId = 0;
-    _rowDocIdComparator = getDocIdComparator(_sortSequence, _dataSchema, blocks);
     if (_doOrdering) {
-      _rowDocIdSet = new PriorityQueue<Integer>(_maxRowSize, _rowDocIdComparator);
-    } else {
-      _rowDocIdSet = new ArrayList<Integer>(_maxRowSize);
-    }
-    while ((docId = blockDocIdIterator.next()) != Constants.EOF) {
-      _numDocsScanned++;
-      if (_rowDocIdSet.size() < _maxRowSize) {
-        _rowDocIdSet.add(docId);
+      if (_docIdHeap == null) {
+        _docIdHeap = new TopKDocIdHeap(_maxRowSize, _sortSequence, blocks);
       } else {
-        if (!_doOrdering) {
+        _docIdHeap.setBlocks(blocks);
+      }
+      while ((docId = blockDocIdIterator.next()) != Constants.EOF) {
+        _numDocsScanned++;
+        if (!_docIdHeap.offer(docId) && _docIdHeap.isTerminated()) {
           break;
         }
-        PriorityQueue<Integer> queue = (PriorityQueue<Integer>) _rowDocIdSet;
-        if (_doOrdering && (_rowDocIdComparator.compare(docId, queue.peek()) > 0)) {
-          queue.add(docId);
-          queue.poll();
-        }
       }
+      return;
+    }
+
+    _rowDocIdSet = new ArrayList<Integer>(_maxRowSize);
+    while ((docId = blockDocIdIterator.next()) != Constants.EOF) {
+      _numDocsScanned++;
+      if (_rowDocIdSet.size() >= _maxRowSize) {
+        break;
+      }
+      _rowDocIdSet.add(docId);
     }
     mergeToRowEventsSet(blocks);
   }
 
+  /**
+   * Build the rows of the collected docs from the given blocks and merge them into the row events set.
+   */
   public Collection<Serializable[]> mergeToRowEventsSet(Block[] blocks) throws Exception {
     if (_doOrdering) {
+      if (_docIdHeap == null) {
+        return _rowEventsSet;
+      }
+      int[] docIds = _docIdHeap.getDocIds();
+      _docIdHeap = null;
       final PriorityQueue<Serializable[]> rowEventsPriorityQueue =
-          new PriorityQueue<Serializable[]>(_maxRowSize, _rowComparator);
-      PriorityQueue<Integer> queue = (PriorityQueue<Integer>) _rowDocIdSet;
-      while (!queue.isEmpty()) {
-        Serializable[] rowFromBlockValSets = getRowFromBlockValSets(queue.poll(), blocks);
-        rowEventsPriorityQueue.add(rowFromBlockValSets);
+          new PriorityQueue<Serializable[]>(Math.max(docIds.length, 1), _rowComparator);
+      for (int docId : docIds) {
+        rowEventsPriorityQueue.add(getRowFromBlockValSets(docId, blocks));
       }
       merge(_rowEventsSet, rowEventsPriorityQueue);
     } else {
+      if (_rowDocIdSet == null) {
+        return _rowEventsSet;
+      }
       final List<Serializable[]> rowEventsList = new ArrayList<Serializable[]>(_maxRowSize);
-      List<Integer> list = (List<Integer>) _rowDocIdSet;
-      for (int i = 0; i < Math.min(_maxRowSize, list.size()); i++) {
-        Serializable[] rowFromBlockValSets = getRowFromBlockValSets(list.get(i), blocks);
-        rowEventsList.add(rowFromBlockValSets);
+      for (int docId : _rowDocIdSet) {
+        rowEventsList.add(getRowFromBlockValSets(docId, blocks));
       }
+      _rowDocIdSet = null;
       merge(_rowEventsSet, rowEventsList);
     }
 
     return _rowEventsSet;
   }
 
-  private Comparator<Integer> getDocIdComparator(final List<SelectionSort> sortSequence, final DataSchema dataSchema,
-      final Block[] blocks) {
-
-    return new Comparator<Integer>() {
-      @Override
-      public int compare(Integer o1, Integer o2) {
-        for (int i = 0; i < sortSequence.size(); ++i) {
-          // Don't compare multi-value column.
-          if (!blocks[i].getMetadata().isSingleValue()) {
-            continue;
-          }
-          if (blocks[i].getMetadata().hasDictionary()) {
-            final BlockSingleValIterator blockValSetIterator =
-                (BlockSingleValIterator) blocks[i].getBlockValueSet().iterator();
-            blockValSetIterator.skipTo(o1);
-            int v1 = blockValSetIterator.nextIntVal();
-            blockValSetIterator.skipTo(o2);
-            int v2 = blockValSetIterator.nextIntVal();
-            if (v1 > v2) {
-              if (!sortSequence.get(i).isIsAsc()) {
-                return 1;
-              } else {
-                return -1;
-              }
-            }
-            if (v1 < v2) {
-              if (!sortSequence.get(i).isIsAsc()) {
-                return -1;
-              } else {
-                return 1;
-              }
-            }
-          } else {
-            final BlockSingleValIterator blockValSetIterator =
-                (BlockSingleValIterator) blocks[i].getBlockValueSet().iterator();
-            switch (blocks[i].getMetadata().getDataType()) {
-              case INT:
-                blockValSetIterator.skipTo(o1);
-                int i1 = blockValSetIterator.nextIntVal();
-                blockValSetIterator.skipTo(o2);
-                int i2 = blockValSetIterator.nextIntVal();
-                if (i1 > i2) {
-                  if (!sortSequence.get(i).isIsAsc()) {
-                    return 1;
-                  } else {
-                    return -1;
-                  }
-                }
-                if (i1 < i2) {
-                  if (!sortSequence.get(i).isIsAsc()) {
-                    return -1;
-                  } else {
-                    return 1;
-                  }
-                }
-                break;
-              case FLOAT:
-                blockValSetIterator.skipTo(o1);
-                float f1 = blockValSetIterator.nextIntVal();
-                blockValSetIterator.skipTo(o2);
-                float f2 = blockValSetIterator.nextIntVal();
-                if (f1 > f2) {
-                  if (!sortSequence.get(i).isIsAsc()) {
-                    return 1;
-                  } else {
-                    return -1;
-                  }
-                }
-                if (f1 < f2) {
-                  if (!sortSequence.get(i).isIsAsc()) {
-                    return -1;
-                  } else {
-                    return 1;
-                  }
-                }
-                break;
-              case LONG:
-                blockValSetIterator.skipTo(o1);
-                long l1 = blockValSetIterator.nextLongVal();
-                blockValSetIterator.skipTo(o2);
-                long l2 = blockValSetIterator.nextLongVal();
-                if (l1 > l2) {
-                  if (!sortSequence.get(i).isIsAsc()) {
-                    return 1;
-                  } else {
-                    return -1;
-                  }
-                }
-                if (l1 < l2) {
-                  if (!sortSequence.get(i).isIsAsc()) {
-                    return -1;
-                  } else {
-                    return 1;
-                  }
-                }
-                break;
-              case DOUBLE:
-                blockValSetIterator.skipTo(o1);
-                double d1 = blockValSetIterator.nextDoubleVal();
-                blockValSetIterator.skipTo(o2);
-                double d2 = blockValSetIterator.nextDoubleVal();
-                if (d1 > d2) {
-                  if (!sortSequence.get(i).isIsAsc()) {
-                    return 1;
-                  } else {
-                    return -1;
-                  }
-                }
-                if (d1 < d2) {
-                  if (!sortSequence.get(i).isIsAsc()) {
-                    return -1;
-                  } else {
-                    return 1;
-                  }
-                }
-                break;
-
-              default:
-                break;
-            }
-          }
-        }
-        return 0;
-      };
-    };
-  }
-
   private Serializable[] getRowFromBlockValSets(int docId, Block[] blocks) throws Exception {
 
     final Serializable[] row = new Serializable[_dataSchema.size()];
@@ -1074,6 +969,6 @@ public class SelectionOperatorService {
     if (!_doOrdering) {
       return getRowEventsSet().size() >= _maxRowSize;
     }
-    return false;
+    return (_docIdHeap != null) && _docIdHeap.isTerminated();
   }
 }
@@ -533,7 +533,12 @@ public class SelectionOperatorUtils {
 
   public static DataTable getDataTableFromRowSet(Collection<Serializable[]> rowEventsSet, DataSchema dataSchema)
       throws Exception {
-    final DataTableBuilder dataTableBuilder = new DataTableBuilder(dataSchema);
+    return getDataTableFromRowSet(rowEventsSet, dataSchema, DataTable.DEFAULT_VERSION);
+  }
+
+  public static DataTable getDataTableFromRowSet(Collection<Serializable[]> rowEventsSet, DataSchema dataSchema,
+      int dataTableVersion) throws Exception {
+    final DataTableBuilder dataTableBuilder = new DataTableBuilder(dataSchema, dataTableVersion);
     dataTableBuilder.open();
     final Iterator<Serializable[]> iterator = rowEventsSet.iterator();
     while (iterator.hasNext()) {
@@ -0,0 +1,387 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.selection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.request.SelectionSort;
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockMetadata;
+import com.linkedin.pinot.core.common.BlockSingleValIterator;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
+
+
+/**
+ * Bounded heap keeping the doc ids of the top K docs of one segment for a selection order by query.
+ *
+ * The sort keys of a doc are read once, when the doc is offered, into primitive arrays indexed by heap slot, so
+ * comparisons never go back to the forward indexes. Columns of offline segments are compared on their dictionary
+ * ids, since those dictionaries are sorted; realtime dictionaries are not, so their values are fetched instead.
+ * The worst of the kept docs is at the root, and a new doc is only fully read when its first sort key does not
+ * already rule it out. Multi value sort columns are not compared.
+ *
+ * When the first sort column is sorted in the segment and the order is ascending, no doc after the first one that
+ * does not make it into a full heap can make it either, and the heap reports itself as terminated.
+ */
+public class TopKDocIdHeap {
+  private final int _maxSize;
+  private final SortKey[] _sortKeys;
+  private final int[] _columnIndexes;
+  private final boolean _canTerminateEarly;
+
+  // Slot _maxSize is a scratch slot for the doc being offered.
+  private final int[] _docIds;
+  private final int[] _heap;
+  private int _size = 0;
+  private boolean _terminated = false;
+
+  /**
+   * @param maxSize number of docs to keep
+   * @param sortSequence the sort columns
+   * @param blocks data blocks of the sort columns, in sort sequence order
+   */
+  public TopKDocIdHeap(int maxSize, List<SelectionSort> sortSequence, Block[] blocks) {
+    _maxSize = maxSize;
+    List<SortKey> sortKeys = new ArrayList<SortKey>();
+    List<Integer> columnIndexes = new ArrayList<Integer>();
+    for (int i = 0; i < sortSequence.size(); i++) {
+      BlockMetadata metadata = blocks[i].getMetadata();
+      if (!metadata.isSingleValue()) {
+        continue;
+      }
+      SortKey sortKey = createSortKey(metadata, sortSequence.get(i).isIsAsc(), maxSize + 1);
+      if (sortKey != null) {
+        sortKeys.add(sortKey);
+        columnIndexes.add(i);
+      }
+    }
+    _sortKeys = sortKeys.toArray(new SortKey[sortKeys.size()]);
+    _columnIndexes = new int[columnIndexes.size()];
+    for (int i = 0; i < _columnIndexes.length; i++) {
+      _columnIndexes[i] = columnIndexes.get(i);
+    }
+    _canTerminateEarly = (_sortKeys.length > 0) && (_columnIndexes[0] == 0) && _sortKeys[0]._isAsc
+        && blocks[0].getMetadata().isSorted() && (_sortKeys[0] instanceof IntSortKey);
+    _docIds = new int[maxSize + 1];
+    _heap = new int[maxSize];
+    setBlocks(blocks);
+  }
+
+  /**
+   * Point the sort keys at the blocks of the next projection block. Blocks must be indexed by segment doc id, the
+   * values already in the heap are kept.
+   */
+  public void setBlocks(Block[] blocks) {
+    for (int i = 0; i < _sortKeys.length; i++) {
+      _sortKeys[i].setBlock(blocks[_columnIndexes[i]]);
+    }
+  }
+
+  /**
+   * Offer a doc, docs must be offered in increasing doc id order.
+   *
+   * @return true if the doc is kept
+   */
+  public boolean offer(int docId) {
+    if (_maxSize == 0 || _terminated) {
+      return false;
+    }
+
+    if (_size < _maxSize) {
+      int slot = _size;
+      _docIds[slot] = docId;
+      for (SortKey sortKey : _sortKeys) {
+        sortKey.load(slot, docId);
+      }
+      _heap[_size++] = slot;
+      siftUp(_size - 1);
+      return true;
+    }
+
+    int scratch = _maxSize;
+    int root = _heap[0];
+    int cmp = 0;
+    int numLoaded = 0;
+    while (cmp == 0 && numLoaded < _sortKeys.length) {
+      SortKey sortKey = _sortKeys[numLoaded++];
+      sortKey.load(scratch, docId);
+      cmp = sortKey.compareInOrder(scratch, root);
+      if (cmp > 0 && numLoaded == 1 && _canTerminateEarly) {
+        _terminated = true;
+      }
+    }
+    if (cmp >= 0) {
+      return false;
+    }
+
+    for (int i = numLoaded; i < _sortKeys.length; i++) {
+      _sortKeys[i].load(scratch, docId);
+    }
+    for (SortKey sortKey : _sortKeys) {
+      sortKey.copy(scratch, root);
+    }
+    _docIds[root] = docId;
+    siftDown(0);
+    return true;
+  }
+
+  /**
+   * Whether no further doc can make it into the heap.
+   */
+  public boolean isTerminated() {
+    return _terminated;
+  }
+
+  public int size() {
+    return _size;
+  }
+
+  /**
+   * The doc ids of the kept docs, in no particular order.
+   */
+  public int[] getDocIds() {
+    int[] docIds = new int[_size];
+    for (int i = 0; i < _size; i++) {
+      docIds[i] = _docIds[_heap[i]];
+    }
+    return docIds;
+  }
+
+  /**
+   * Compare two slots in query order, a positive value meaning the first slot comes after the second.
+   */
+  private int compare(int slot1, int slot2) {
+    for (SortKey sortKey : _sortKeys) {
+      int cmp = sortKey.compareInOrder(slot1, slot2);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return 0;
+  }
+
+  private void siftUp(int index) {
+    int slot = _heap[index];
+    while (index > 0) {
+      int parentIndex = (index - 1) >>> 1;
+      int parentSlot = _heap[parentIndex];
+      if (compare(slot, parentSlot) <= 0) {
+        break;
+      }
+      _heap[index] = parentSlot;
+      index = parentIndex;
+    }
+    _heap[index] = slot;
+  }
+
+  private void siftDown(int index) {
+    int slot = _heap[index];
+    int half = _size >>> 1;
+    while (index < half) {
+      int childIndex = (index << 1) + 1;
+      int childSlot = _heap[childIndex];
+      int rightIndex = childIndex + 1;
+      if (rightIndex < _size && compare(_heap[rightIndex], childSlot) > 0) {
+        childIndex = rightIndex;
+        childSlot = _heap[rightIndex];
+      }
+      if (compare(slot, childSlot) >= 0) {
+        break;
+      }
+      _heap[index] = childSlot;
+      index = childIndex;
+    }
+    _heap[index] = slot;
+  }
+
+  private static SortKey createSortKey(BlockMetadata metadata, boolean isAsc, int numSlots) {
+    Dictionary dictionary = metadata.hasDictionary() ? metadata.getDictionary() : null;
+    if (dictionary instanceof ImmutableDictionaryReader) {
+      return new IntSortKey(isAsc, numSlots);
+    }
+    switch (metadata.getDataType()) {
+      case INT:
+        if (dictionary == null) {
+          return new IntSortKey(isAsc, numSlots);
+        }
+        return new LongSortKey(isAsc, numSlots, dictionary);
+      case LONG:
+        return new LongSortKey(isAsc, numSlots, dictionary);
+      case FLOAT:
+      case DOUBLE:
+        return new DoubleSortKey(isAsc, numSlots, dictionary, metadata.getDataType() == DataType.FLOAT);
+      case STRING:
+        if (dictionary == null) {
+          return null;
+        }
+        return new StringSortKey(isAsc, numSlots, dictionary);
+      default:
+        return null;
+    }
+  }
+
+  private static abstract class SortKey {
+    protected final boolean _isAsc;
+    protected BlockSingleValIterator _iterator;
+
+    protected SortKey(boolean isAsc) {
+      _isAsc = isAsc;
+    }
+
+    void setBlock(Block block) {
+      _iterator = (BlockSingleValIterator) block.getBlockValueSet().iterator();
+    }
+
+    int compareInOrder(int slot1, int slot2) {
+      int cmp = compare(slot1, slot2);
+      return _isAsc ? cmp : -cmp;
+    }
+
+    abstract void load(int slot, int docId);
+
+    abstract int compare(int slot1, int slot2);
+
+    abstract void copy(int fromSlot, int toSlot);
+  }
+
+  /**
+   * Dictionary ids of a sorted dictionary, or raw int values.
+   */
+  private static class IntSortKey extends SortKey {
+    private final int[] _values;
+
+    IntSortKey(boolean isAsc, int numSlots) {
+      super(isAsc);
+      _values = new int[numSlots];
+    }
+
+    @Override
+    void load(int slot, int docId) {
+      _iterator.skipTo(docId);
+      _values[slot] = _iterator.nextIntVal();
+    }
+
+    @Override
+    int compare(int slot1, int slot2) {
+      int v1 = _values[slot1];
+      int v2 = _values[slot2];
+      return (v1 < v2) ? -1 : ((v1 == v2) ? 0 : 1);
+    }
+
+    @Override
+    void copy(int fromSlot, int toSlot) {
+      _values[toSlot] = _values[fromSlot];
+    }
+  }
+
+  private static class LongSortKey extends SortKey {
+    private final long[] _values;
+    private final Dictionary _dictionary;
+
+    LongSortKey(boolean isAsc, int numSlots, Dictionary dictionary) {
+      super(isAsc);
+      _values = new long[numSlots];
+      _dictionary = dictionary;
+    }
+
+    @Override
+    void load(int slot, int docId) {
+      _iterator.skipTo(docId);
+      if (_dictionary != null) {
+        _values[slot] = _dictionary.getLongValue(_iterator.nextIntVal());
+      } else {
+        _values[slot] = _iterator.nextLongVal();
+      }
+    }
+
+    @Override
+    int compare(int slot1, int slot2) {
+      long v1 = _values[slot1];
+      long v2 = _values[slot2];
+      return (v1 < v2) ? -1 : ((v1 == v2) ? 0 : 1);
+    }
+
+    @Override
+    void copy(int fromSlot, int toSlot) {
+      _values[toSlot] = _values[fromSlot];
+    }
+  }
+
+  private static class DoubleSortKey extends SortKey {
+    private final double[] _values;
+    private final Dictionary _dictionary;
+    private final boolean _isFloat;
+
+    DoubleSortKey(boolean isAsc, int numSlots, Dictionary dictionary, boolean isFloat) {
+      super(isAsc);
+      _values = new double[numSlots];
+      _dictionary = dictionary;
+      _isFloat = isFloat;
+    }
+
+    @Override
+    void load(int slot, int docId) {
+      _iterator.skipTo(docId);
+      if (_dictionary != null) {
+        _values[slot] = _dictionary.getDoubleValue(_iterator.nextIntVal());
+      } else if (_isFloat) {
+        _values[slot] = _iterator.nextFloatVal();
+      } else {
+        _values[slot] = _iterator.nextDoubleVal();
+      }
+    }
+
+    @Override
+    int compare(int slot1, int slot2) {
+      return Double.compare(_values[slot1], _values[slot2]);
+    }
+
+    @Override
+    void copy(int fromSlot, int toSlot) {
+      _values[toSlot] = _values[fromSlot];
+    }
+  }
+
+  private static class StringSortKey extends SortKey {
+    private final String[] _values;
+    private final Dictionary _dictionary;
+
+    StringSortKey(boolean isAsc, int numSlots, Dictionary dictionary) {
+      super(isAsc);
+      _values = new String[numSlots];
+      _dictionary = dictionary;
+    }
+
+    @Override
+    void load(int slot, int docId) {
+      _iterator.skipTo(docId);
+      _values[slot] = _dictionary.getStringValue(_iterator.nextIntVal());
+    }
+
+    @Override
+    int compare(int slot1, int slot2) {
+      return _values[slot1].compareTo(_values[slot2]);
+    }
+
+    @Override
+    void copy(int fromSlot, int toSlot) {
+      _values[toSlot] = _values[fromSlot];
+    }
+  }
+}
@@ -16,17 +16,25 @@
 package com.linkedin.pinot.core.realtime.converter;
 
 import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
 
+import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.data.Schema;
 import com.linkedin.pinot.common.data.TimeFieldSpec;
 import com.linkedin.pinot.common.data.TimeGranularitySpec;
-import com.linkedin.pinot.core.data.readers.RecordReader;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentVersion;
 import com.linkedin.pinot.core.realtime.impl.RealtimeSegmentImpl;
+import com.linkedin.pinot.core.segment.creator.ColumnIndexCreationInfo;
 import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
 
 
+/**
+ * Converts a sealed realtime segment into an immutable segment straight from its indexes: the realtime dictionaries
+ * give the statistics and distinct values of the columns, the forward indexes are rewritten by remapping the realtime
+ * dictionary ids to the sorted ones, and the realtime inverted indexes are reused as is unless the rows get sorted.
+ */
 public class RealtimeSegmentConverter {
 
   private RealtimeSegmentImpl realtimeSegmentImpl;
@@ -35,6 +43,8 @@ public class RealtimeSegmentConverter {
   private String tableName;
   private String segmentName;
   private String sortedColumn;
+  // Name of the time column in the realtime segment
+  private String realtimeTimeColumnName;
 
   public RealtimeSegmentConverter(RealtimeSegmentImpl realtimeSegment, String outputPath, Schema schema,
       String tableName, String segmentName, String sortedColumn) {
@@ -46,6 +56,7 @@ public class RealtimeSegmentConverter {
     this.tableName = tableName;
     this.segmentName = segmentName;
     TimeFieldSpec original = schema.getTimeFieldSpec();
+    realtimeTimeColumnName = original.getOutGoingTimeColumnName();
     TimeGranularitySpec incoming = original.getIncomingGranularitySpec();
     // incoming.setDataType(DataType.LONG);
 
@@ -65,14 +76,13 @@ public class RealtimeSegmentConverter {
   }
 
   public void build() throws Exception {
-    // lets create a record reader
-    RecordReader reader;
-
-    if (sortedColumn == null) {
-      reader = new RealtimeSegmentRecordReader(realtimeSegmentImpl, dataSchema);
-    } else {
-      reader = new RealtimeSegmentRecordReader(realtimeSegmentImpl, dataSchema, sortedColumn);
+    RealtimeSegmentRowSource rowSource =
+        new RealtimeSegmentRowSource(realtimeSegmentImpl, dataSchema, realtimeTimeColumnName, sortedColumn);
+    Map<String, ColumnIndexCreationInfo> indexCreationInfoMap = new HashMap<String, ColumnIndexCreationInfo>();
+    for (FieldSpec spec : dataSchema.getAllFieldSpecs()) {
+      indexCreationInfoMap.put(spec.getName(), rowSource.getIndexCreationInfo(spec.getName()));
     }
+
     SegmentGeneratorConfig genConfig = new SegmentGeneratorConfig(dataSchema);
     genConfig.setInputFilePath(null);
 
@@ -83,8 +93,14 @@ public class RealtimeSegmentConverter {
     genConfig.setTableName(tableName);
     genConfig.setIndexOutputDir(outputPath);
     genConfig.setSegmentName(segmentName);
+    // Columns indexed in the realtime segment keep their inverted index, the others get one on load if configured
+    for (FieldSpec spec : dataSchema.getAllFieldSpecs()) {
+      if (rowSource.hasInvertedIndex(spec.getName())) {
+        genConfig.createInvertedIndexForColumn(spec.getName());
+      }
+    }
     final SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
-    driver.init(genConfig, reader);
+    driver.init(genConfig, dataSchema, rowSource, indexCreationInfoMap);
     driver.build();
   }
 }
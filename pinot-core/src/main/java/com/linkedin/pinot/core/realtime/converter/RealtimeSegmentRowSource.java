@@ -0,0 +1,308 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.converter;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.core.index.readerwriter.impl.FixedByteSingleColumnMultiValueReaderWriter;
+import com.linkedin.pinot.core.index.readerwriter.impl.FixedByteSingleColumnSingleValueReaderWriter;
+import com.linkedin.pinot.core.realtime.impl.RealtimeSegmentImpl;
+import com.linkedin.pinot.core.realtime.impl.dictionary.MutableDictionaryReader;
+import com.linkedin.pinot.core.realtime.impl.invertedIndex.RealtimeInvertedIndex;
+import com.linkedin.pinot.core.segment.creator.ColumnIndexCreationInfo;
+import com.linkedin.pinot.core.segment.creator.ForwardIndexType;
+import com.linkedin.pinot.core.segment.creator.InvertedIndexType;
+import com.linkedin.pinot.core.segment.creator.impl.ColumnarRowSource;
+
+
+/**
+ * Exposes a sealed realtime segment as columnar rows for segment creation, without decoding its rows.
+ *
+ * The distinct values of a column are the entries of its realtime dictionary and the ids read are the realtime
+ * dictionary ids, so the segment creator only has to map each realtime dictionary id to its sorted dictionary id once.
+ * The realtime inverted index bitmaps are handed over as is when the rows keep their realtime order. Raw metrics are
+ * dictionary encoded here, as immutable segments have a dictionary for every column.
+ */
+public class RealtimeSegmentRowSource implements ColumnarRowSource {
+  private final int numRows;
+  // Realtime doc id of each row, null when the rows keep their realtime order
+  private final int[] docIds;
+  private final Map<String, Column> columns = new HashMap<String, Column>();
+
+  /**
+   * @param schema schema of the segment to create
+   * @param timeColumnName name of the time column in the realtime segment, which holds the values of the time column
+   *          of the schema
+   * @param sortedColumn column of the realtime segment to sort the rows on, or null to keep the realtime order
+   */
+  public RealtimeSegmentRowSource(RealtimeSegmentImpl realtimeSegment, Schema schema, String timeColumnName,
+      String sortedColumn) {
+    numRows = realtimeSegment.getAggregateDocumentCount();
+    if (sortedColumn == null) {
+      docIds = null;
+    } else {
+      docIds = new int[numRows];
+      Iterator<Integer> docIdIterator = realtimeSegment.getSortedDocIdIteratorOnColumn(sortedColumn);
+      for (int i = 0; i < numRows; i++) {
+        docIds[i] = docIdIterator.next();
+      }
+    }
+
+    String schemaTimeColumnName = schema.getTimeFieldSpec().getOutGoingTimeColumnName();
+    for (FieldSpec spec : schema.getAllFieldSpecs()) {
+      String realtimeColumn = spec.getName().equals(schemaTimeColumnName) ? timeColumnName : spec.getName();
+      columns.put(spec.getName(), new Column(realtimeSegment, realtimeColumn, spec, numRows));
+    }
+  }
+
+  @Override
+  public int getNumRows() {
+    return numRows;
+  }
+
+  @Override
+  public Object[] getDistinctValues(String column) {
+    return columns.get(column).distinctValues;
+  }
+
+  @Override
+  public ColumnIdReader getColumnReader(String column) {
+    final Column columnToRead = columns.get(column);
+    return new ColumnIdReader() {
+      private int row = 0;
+      private final int[] ids = new int[Math.max(columnToRead.maxNumberOfMultiValues, 1)];
+
+      @Override
+      public int nextSingleValueId() {
+        return columnToRead.getId(getDocId(row++));
+      }
+
+      @Override
+      public int[] nextMultiValueIds() {
+        int numValues = columnToRead.multiValueReader.getIntArray(getDocId(row++), ids);
+        return Arrays.copyOf(ids, numValues);
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+  }
+
+  /**
+   * The realtime bitmaps hold realtime doc ids, they can only be reused if the rows are not reordered.
+   */
+  @Override
+  public ImmutableRoaringBitmap[] getDistinctValueRows(String column) {
+    Column columnToRead = columns.get(column);
+    if (docIds != null || columnToRead.invertedIndex == null) {
+      return null;
+    }
+    ImmutableRoaringBitmap[] distinctValueRows = new ImmutableRoaringBitmap[columnToRead.distinctValues.length];
+    for (int i = 0; i < distinctValueRows.length; i++) {
+      ImmutableRoaringBitmap rows = columnToRead.invertedIndex.getImmutable(i);
+      distinctValueRows[i] = rows == null ? new MutableRoaringBitmap() : rows;
+    }
+    return distinctValueRows;
+  }
+
+  /**
+   * Returns whether the realtime segment has an inverted index for the column, which can be reused as is.
+   */
+  public boolean hasInvertedIndex(String column) {
+    return columns.get(column).invertedIndex != null;
+  }
+
+  /**
+   * Computes the statistics of the column from its distinct values, with a single pass over its ids to find out
+   * whether the rows are sorted on it.
+   */
+  public ColumnIndexCreationInfo getIndexCreationInfo(String column) {
+    Column columnToRead = columns.get(column);
+    Object[] sortedValues = columnToRead.distinctValues.clone();
+    Arrays.sort(sortedValues);
+    Object min = null;
+    Object max = null;
+    if (sortedValues.length > 0) {
+      min = sortedValues[0];
+      max = sortedValues[sortedValues.length - 1];
+    }
+
+    boolean isSorted = false;
+    int totalNumberOfEntries = numRows;
+    if (columnToRead.spec.isSingleValueField()) {
+      int[] ranks = new int[sortedValues.length];
+      for (int i = 0; i < ranks.length; i++) {
+        ranks[i] = Arrays.binarySearch(sortedValues, columnToRead.distinctValues[i]);
+      }
+      isSorted = true;
+      int previousRank = -1;
+      for (int row = 0; row < numRows && isSorted; row++) {
+        int rank = ranks[columnToRead.getId(getDocId(row))];
+        isSorted = rank >= previousRank;
+        previousRank = rank;
+      }
+    } else {
+      totalNumberOfEntries = 0;
+      int[] ids = new int[Math.max(columnToRead.maxNumberOfMultiValues, 1)];
+      for (int docId = 0; docId < numRows; docId++) {
+        totalNumberOfEntries += columnToRead.multiValueReader.getIntArray(docId, ids);
+      }
+    }
+
+    return new ColumnIndexCreationInfo(true, min, max, toSortedUniqueElementsArray(columnToRead.spec.getDataType(),
+        sortedValues), ForwardIndexType.FIXED_BIT_COMPRESSED, InvertedIndexType.P4_DELTA, isSorted, false,
+        totalNumberOfEntries, columnToRead.maxNumberOfMultiValues);
+  }
+
+  private int getDocId(int row) {
+    return docIds == null ? row : docIds[row];
+  }
+
+  private static Object toSortedUniqueElementsArray(DataType dataType, Object[] sortedValues) {
+    switch (dataType) {
+      case INT:
+        int[] ints = new int[sortedValues.length];
+        for (int i = 0; i < ints.length; i++) {
+          ints[i] = (Integer) sortedValues[i];
+        }
+        return ints;
+      case LONG:
+        long[] longs = new long[sortedValues.length];
+        for (int i = 0; i < longs.length; i++) {
+          longs[i] = (Long) sortedValues[i];
+        }
+        return longs;
+      case FLOAT:
+        float[] floats = new float[sortedValues.length];
+        for (int i = 0; i < floats.length; i++) {
+          floats[i] = (Float) sortedValues[i];
+        }
+        return floats;
+      case DOUBLE:
+        double[] doubles = new double[sortedValues.length];
+        for (int i = 0; i < doubles.length; i++) {
+          doubles[i] = (Double) sortedValues[i];
+        }
+        return doubles;
+      default:
+        return Arrays.copyOf(sortedValues, sortedValues.length, String[].class);
+    }
+  }
+
+  /**
+   * Converts a realtime value to the data type of the column of the segment to create.
+   */
+  private static Object convert(DataType dataType, Object value) {
+    switch (dataType) {
+      case INT:
+        return ((Number) value).intValue();
+      case LONG:
+        return ((Number) value).longValue();
+      case FLOAT:
+        return ((Number) value).floatValue();
+      case DOUBLE:
+        return ((Number) value).doubleValue();
+      default:
+        return value.toString();
+    }
+  }
+
+  private static class Column {
+    private final FieldSpec spec;
+    private final FixedByteSingleColumnSingleValueReaderWriter singleValueReader;
+    private final FixedByteSingleColumnMultiValueReaderWriter multiValueReader;
+    private final RealtimeInvertedIndex invertedIndex;
+    private final int maxNumberOfMultiValues;
+    // Indexed by realtime dictionary id, or by the ids assigned to the raw values
+    private final Object[] distinctValues;
+    // Id of the raw value of each realtime doc, null for dictionary encoded columns
+    private final int[] rawValueIds;
+
+    private Column(RealtimeSegmentImpl realtimeSegment, String realtimeColumn, FieldSpec spec, int numRows) {
+      this.spec = spec;
+      if (spec.isSingleValueField()) {
+        singleValueReader =
+            (FixedByteSingleColumnSingleValueReaderWriter) realtimeSegment.getForwardIndexFor(realtimeColumn);
+        multiValueReader = null;
+        maxNumberOfMultiValues = 0;
+      } else {
+        singleValueReader = null;
+        multiValueReader =
+            (FixedByteSingleColumnMultiValueReaderWriter) realtimeSegment.getForwardIndexFor(realtimeColumn);
+        maxNumberOfMultiValues = realtimeSegment.getMaxNumberOfMultiValues(realtimeColumn);
+      }
+      invertedIndex = realtimeSegment.getInvertedIndexFor(realtimeColumn);
+
+      MutableDictionaryReader dictionary = realtimeSegment.getDictionaryFor(realtimeColumn);
+      if (dictionary != null) {
+        distinctValues = new Object[dictionary.length()];
+        for (int i = 0; i < distinctValues.length; i++) {
+          distinctValues[i] = convert(spec.getDataType(), dictionary.get(i));
+        }
+        rawValueIds = null;
+      } else {
+        Object2IntOpenHashMap<Object> valueToId = new Object2IntOpenHashMap<Object>();
+        valueToId.defaultReturnValue(-1);
+        List<Object> values = new ArrayList<Object>();
+        rawValueIds = new int[numRows];
+        for (int docId = 0; docId < numRows; docId++) {
+          Object value = convert(spec.getDataType(), getRawValue(spec.getDataType(), docId));
+          int id = valueToId.getInt(value);
+          if (id == -1) {
+            id = values.size();
+            valueToId.put(value, id);
+            values.add(value);
+          }
+          rawValueIds[docId] = id;
+        }
+        distinctValues = values.toArray(new Object[values.size()]);
+      }
+    }
+
+    private Number getRawValue(DataType dataType, int docId) {
+      switch (dataType) {
+        case INT:
+          return singleValueReader.getInt(docId);
+        case LONG:
+          return singleValueReader.getLong(docId);
+        case FLOAT:
+          return singleValueReader.getFloat(docId);
+        case DOUBLE:
+          return singleValueReader.getDouble(docId);
+        default:
+          throw new UnsupportedOperationException("Unsupported raw metric data type: " + dataType);
+      }
+    }
+
+    private int getId(int docId) {
+      return rawValueIds == null ? singleValueReader.getInt(docId) : rawValueIds[docId];
+    }
+  }
+}
@@ -19,6 +19,7 @@ import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -35,6 +36,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
 import com.linkedin.pinot.common.data.FieldSpec.FieldType;
 import com.linkedin.pinot.common.data.Schema;
 import com.linkedin.pinot.common.metadata.segment.RealtimeSegmentZKMetadata;
@@ -91,7 +93,26 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
 
   private final Map<String, DataFileReader> columnIndexReaderWriterMap;
 
+  // Dimensions and metrics, the time column is indexed from the converted incoming time value
+  private final IndexedColumn[] indexedColumns;
+  private final IndexedColumn timeColumn;
+
+  /**
+   * Dictionary encodes every metric and builds an inverted index for it.
+   */
   public RealtimeSegmentImpl(Schema schema, int capacity) throws IOException {
+    this(schema, capacity, false, false, schema.getMetricNames());
+  }
+
+  /**
+   * @param offHeapDictionary whether to keep the column dictionaries in direct byte buffers instead of heap objects.
+   * @param offHeapInvertedIndex whether to keep the inverted index doc ids in direct byte buffers.
+   * @param invertedIndexColumns metrics to dictionary encode and build an inverted index for, so that they can be
+   *          filtered on. The other metrics are stored as raw values. Dimensions and the time column always have a
+   *          dictionary and an inverted index.
+   */
+  public RealtimeSegmentImpl(Schema schema, int capacity, boolean offHeapDictionary, boolean offHeapInvertedIndex,
+      Collection<String> invertedIndexColumns) throws IOException {
     // initial variable setup
     dataSchema = schema;
     dictionaryMap = new HashMap<String, MutableDictionaryReader>();
@@ -105,14 +126,19 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
     }
     // dictionary assignment for dimensions and time column
     for (String column : dataSchema.getDimensionNames()) {
-      dictionaryMap.put(column, RealtimeDictionaryProvider.getDictionaryFor(dataSchema.getFieldSpecFor(column)));
+      dictionaryMap.put(column, RealtimeDictionaryProvider.getDictionaryFor(dataSchema.getFieldSpecFor(column),
+          offHeapDictionary));
     }
 
     dictionaryMap.put(outgoingTimeColumnName,
-        RealtimeDictionaryProvider.getDictionaryFor(dataSchema.getFieldSpecFor(outgoingTimeColumnName)));
+        RealtimeDictionaryProvider.getDictionaryFor(dataSchema.getFieldSpecFor(outgoingTimeColumnName),
+            offHeapDictionary));
 
     for (String metric : dataSchema.getMetricNames()) {
-      dictionaryMap.put(metric, RealtimeDictionaryProvider.getDictionaryFor(dataSchema.getFieldSpecFor(metric)));
+      if (invertedIndexColumns != null && invertedIndexColumns.contains(metric)) {
+        dictionaryMap.put(metric, RealtimeDictionaryProvider.getDictionaryFor(dataSchema.getFieldSpecFor(metric),
+            offHeapDictionary));
+      }
     }
 
     // docId generator and tiem granularity converter
@@ -124,7 +150,7 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
     invertedIndexMap = new HashMap<String, RealtimeInvertedIndex>();
 
     for (String dimension : schema.getDimensionNames()) {
-      invertedIndexMap.put(dimension, new DimensionInvertertedIndex(dimension));
+      invertedIndexMap.put(dimension, new DimensionInvertertedIndex(dimension, offHeapInvertedIndex));
       if (schema.getFieldSpecFor(dimension).isSingleValueField()) {
         columnIndexReaderWriterMap.put(dimension, new FixedByteSingleColumnSingleValueReaderWriter(capacity,
             V1Constants.Dict.INT_DICTIONARY_COL_SIZE));
@@ -135,15 +161,36 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
     }
 
     for (String metric : schema.getMetricNames()) {
-      invertedIndexMap.put(metric, new MetricInvertedIndex(metric));
-      columnIndexReaderWriterMap.put(metric, new FixedByteSingleColumnSingleValueReaderWriter(capacity,
-          V1Constants.Dict.INT_DICTIONARY_COL_SIZE));
+      if (dictionaryMap.containsKey(metric)) {
+        invertedIndexMap.put(metric, new MetricInvertedIndex(metric, offHeapInvertedIndex));
+        columnIndexReaderWriterMap.put(metric, new FixedByteSingleColumnSingleValueReaderWriter(capacity,
+            V1Constants.Dict.INT_DICTIONARY_COL_SIZE));
+      } else {
+        // Raw metric values, read by the no dictionary aggregation functions
+        columnIndexReaderWriterMap.put(metric, new FixedByteSingleColumnSingleValueReaderWriter(capacity,
+            V1Constants.Dict.getSingleValueColumnSizeFor(schema.getFieldSpecFor(metric))));
+      }
     }
 
-    invertedIndexMap.put(outgoingTimeColumnName, new TimeInvertedIndex(outgoingTimeColumnName));
+    invertedIndexMap.put(outgoingTimeColumnName,
+        new TimeInvertedIndex(outgoingTimeColumnName, offHeapInvertedIndex));
     columnIndexReaderWriterMap.put(outgoingTimeColumnName, new FixedByteSingleColumnSingleValueReaderWriter(capacity,
         V1Constants.Dict.INT_DICTIONARY_COL_SIZE));
 
+    List<IndexedColumn> columns = new ArrayList<IndexedColumn>();
+    for (String dimension : schema.getDimensionNames()) {
+      columns.add(getIndexedColumn(dimension));
+    }
+    for (String metric : schema.getMetricNames()) {
+      columns.add(getIndexedColumn(metric));
+    }
+    indexedColumns = columns.toArray(new IndexedColumn[columns.size()]);
+    timeColumn = getIndexedColumn(outgoingTimeColumnName);
+  }
+
+  private IndexedColumn getIndexedColumn(String column) {
+    return new IndexedColumn(column, dataSchema.getFieldSpecFor(column).getDataType(), dictionaryMap.get(column),
+        columnIndexReaderWriterMap.get(column), invertedIndexMap.get(column));
   }
 
   @Override
@@ -166,23 +213,63 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
     if (numDocsIndexed >= capacity) {
       return false;
     }
-    // updating dictionary for dimensions only
-    // its ok to insert this first
-    // since filtering won't return back anything unless a new entry is made in the inverted index
-    for (String dimension : dataSchema.getDimensionNames()) {
-      dictionaryMap.get(dimension).index(row.getValue(dimension));
-      if (!dataSchema.getFieldSpecFor(dimension).isSingleValueField()) {
-        Object[] entries = (Object[]) row.getValue(dimension);
-        if ((entries != null) && (maxNumberOfMultivaluesMap.get(dimension) < entries.length)) {
-          maxNumberOfMultivaluesMap.put(dimension, entries.length);
+    indexRow(row, docIdGenerator.incrementAndGet());
+    docIdSearchableOffset = docIdGenerator.get();
+    return true;
+  }
+
+  /**
+   * Indexes the first numRows rows in order, stopping when the segment is full. The rows only become searchable
+   * once the whole batch is indexed, which saves publishing every single doc to the queries.
+   *
+   * @return the number of rows indexed, less than numRows if the segment got full
+   */
+  public int index(GenericRow[] rows, int numRows) {
+    int numRowsToIndex = Math.min(numRows, capacity - numDocsIndexed);
+    if (numRowsToIndex <= 0) {
+      return 0;
+    }
+    for (int i = 0; i < numRowsToIndex; i++) {
+      indexRow(rows[i], docIdGenerator.incrementAndGet());
+    }
+    docIdSearchableOffset = docIdGenerator.get();
+    return numRowsToIndex;
+  }
+
+  private void indexRow(GenericRow row, int docId) {
+    // Each column is added to its dictionary first, then to the forward index and the inverted index. Filtering
+    // won't return back anything for the doc until it is searchable anyway.
+    for (IndexedColumn indexedColumn : indexedColumns) {
+      Object value = row.getValue(indexedColumn.column);
+      MutableDictionaryReader dictionary = indexedColumn.dictionary;
+      if (dictionary == null) {
+        setRawValue(indexedColumn.singleValueWriter, indexedColumn.dataType, docId, (Number) value);
+        continue;
+      }
+      dictionary.index(value);
+      if (indexedColumn.singleValueWriter != null) {
+        int dictId = dictionary.indexOf(value);
+        indexedColumn.singleValueWriter.setInt(docId, dictId);
+        indexedColumn.invertedIndex.add(dictId, docId);
+      } else {
+        Object[] values = (Object[]) value;
+        int numValues = values.length;
+        if (numValues > indexedColumn.maxNumberOfMultiValues) {
+          indexedColumn.maxNumberOfMultiValues = numValues;
+          indexedColumn.dictIds = new int[numValues];
+          maxNumberOfMultivaluesMap.put(indexedColumn.column, numValues);
+        }
+        int[] dictIds = indexedColumn.dictIds;
+        for (int i = 0; i < numValues; i++) {
+          dictIds[i] = dictionary.indexOf(values[i]);
+        }
+        indexedColumn.multiValueWriter.setIntArray(docId, dictIds, numValues);
+        for (int i = 0; i < numValues; i++) {
+          indexedColumn.invertedIndex.add(dictIds[i], docId);
         }
       }
     }
 
-    for (String metric : dataSchema.getMetricNames()) {
-      dictionaryMap.get(metric).index(row.getValue(metric));
-    }
-
     // convert time granularity and add the time value to dictionary
     Object timeValueObj = timeConverter.convert(row.getValue(incomingTimeColumnName));
 
@@ -193,73 +280,68 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
       timeValue = (Long) timeValueObj;
     }
 
-    dictionaryMap.get(outgoingTimeColumnName).index(timeValueObj);
-
     // update the min max time values
     minTimeVal = Math.min(minTimeVal, timeValue);
     maxTimeVal = Math.max(maxTimeVal, timeValue);
 
-    // also lets collect all dicIds to update inverted index later
-    Map<String, Object> rawRowToDicIdMap = new HashMap<String, Object>();
+    timeColumn.dictionary.index(timeValueObj);
+    int timeDicId = timeColumn.dictionary.indexOf(timeValueObj);
+    timeColumn.singleValueWriter.setInt(docId, timeDicId);
+    timeColumn.invertedIndex.add(timeDicId, docId);
 
-    // lets update forward index now
-    int docId = docIdGenerator.incrementAndGet();
-
-    for (String dimension : dataSchema.getDimensionNames()) {
-      if (dataSchema.getFieldSpecFor(dimension).isSingleValueField()) {
-        int dicId = dictionaryMap.get(dimension).indexOf(row.getValue(dimension));
-        ((FixedByteSingleColumnSingleValueReaderWriter) columnIndexReaderWriterMap.get(dimension)).setInt(docId, dicId);
-        rawRowToDicIdMap.put(dimension, dicId);
-      } else {
-        Object[] mValues = (Object[]) row.getValue(dimension);
-        int[] dicIds = new int[mValues.length];
-        for (int i = 0; i < dicIds.length; i++) {
-          dicIds[i] = dictionaryMap.get(dimension).indexOf(mValues[i]);
-        }
-        ((FixedByteSingleColumnMultiValueReaderWriter) columnIndexReaderWriterMap.get(dimension)).setIntArray(docId,
-            dicIds);
-        rawRowToDicIdMap.put(dimension, dicIds);
-      }
-    }
-
-    for (String metric : dataSchema.getMetricNames()) {
-      FixedByteSingleColumnSingleValueReaderWriter readerWriter =
-          (FixedByteSingleColumnSingleValueReaderWriter) columnIndexReaderWriterMap.get(metric);
-      int dicId = dictionaryMap.get(metric).indexOf(row.getValue(metric));
-      readerWriter.setInt(docId, dicId);
-      rawRowToDicIdMap.put(metric, dicId);
-    }
-
-    int timeDicId = dictionaryMap.get(outgoingTimeColumnName).indexOf(timeValueObj);
-
-    ((FixedByteSingleColumnSingleValueReaderWriter) columnIndexReaderWriterMap.get(outgoingTimeColumnName)).setInt(
-        docId, timeDicId);
-    rawRowToDicIdMap.put(outgoingTimeColumnName, timeDicId);
+    numDocsIndexed += 1;
+    numSuccessIndexed += 1;
+  }
 
-    // lets update the inverted index now
-    // metrics
-    for (String metric : dataSchema.getMetricNames()) {
-      invertedIndexMap.get(metric).add(rawRowToDicIdMap.get(metric), docId);
+  private static void setRawValue(FixedByteSingleColumnSingleValueReaderWriter writer, DataType dataType, int docId,
+      Number value) {
+    switch (dataType) {
+      case INT:
+        writer.setInt(docId, value.intValue());
+        break;
+      case LONG:
+        writer.setLong(docId, value.longValue());
+        break;
+      case FLOAT:
+        writer.setFloat(docId, value.floatValue());
+        break;
+      case DOUBLE:
+        writer.setDouble(docId, value.doubleValue());
+        break;
+      default:
+        throw new UnsupportedOperationException("Unsupported raw metric data type: " + dataType);
     }
+  }
 
-    //dimension
-    for (String dimension : dataSchema.getDimensionNames()) {
-      if (dataSchema.getFieldSpecFor(dimension).isSingleValueField()) {
-        invertedIndexMap.get(dimension).add(rawRowToDicIdMap.get(dimension), docId);
+  /**
+   * Dictionary (null for raw metrics), forward index and inverted index of a column, resolved once so that indexing a row does not look
+   * them up by column name.
+   */
+  private static class IndexedColumn {
+    private final String column;
+    private final DataType dataType;
+    private final MutableDictionaryReader dictionary;
+    private final FixedByteSingleColumnSingleValueReaderWriter singleValueWriter;
+    private final FixedByteSingleColumnMultiValueReaderWriter multiValueWriter;
+    private final RealtimeInvertedIndex invertedIndex;
+    // Scratch dictionary ids of a multi value row
+    private int[] dictIds = new int[0];
+    private int maxNumberOfMultiValues = 0;
+
+    private IndexedColumn(String column, DataType dataType, MutableDictionaryReader dictionary,
+        DataFileReader forwardIndex, RealtimeInvertedIndex invertedIndex) {
+      this.column = column;
+      this.dataType = dataType;
+      this.dictionary = dictionary;
+      if (forwardIndex instanceof FixedByteSingleColumnSingleValueReaderWriter) {
+        singleValueWriter = (FixedByteSingleColumnSingleValueReaderWriter) forwardIndex;
+        multiValueWriter = null;
       } else {
-        int[] dicIds = (int[]) rawRowToDicIdMap.get(dimension);
-        for (int dicId : dicIds) {
-          invertedIndexMap.get(dimension).add(dicId, docId);
-        }
+        singleValueWriter = null;
+        multiValueWriter = (FixedByteSingleColumnMultiValueReaderWriter) forwardIndex;
       }
+      this.invertedIndex = invertedIndex;
     }
-    //time
-    invertedIndexMap.get(outgoingTimeColumnName).add(rawRowToDicIdMap.get(outgoingTimeColumnName), docId);
-
-    docIdSearchableOffset = docId;
-    numDocsIndexed += 1;
-    numSuccessIndexed += 1;
-    return true;
   }
 
   @Override
@@ -362,6 +444,11 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
       }
     }
     invertedIndexMap.clear();
+
+    for (MutableDictionaryReader dictionary : dictionaryMap.values()) {
+      dictionary.close();
+    }
+    dictionaryMap.clear();
     _segmentMetadata.close();
   }
 
@@ -548,6 +635,12 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
     }
 
     for (String metric : dataSchema.getMetricNames()) {
+      MutableDictionaryReader dictionary = dictionaryMap.get(metric);
+      if (dictionary != null) {
+        rowValues.put(metric, dictionary.get(
+            ((FixedByteSingleColumnSingleValueReaderWriter) columnIndexReaderWriterMap.get(metric)).getInt(docId)));
+        continue;
+      }
       switch (dataSchema.getFieldSpecFor(metric).getDataType()) {
         case INT:
           rowValues.put(metric,
@@ -598,6 +691,31 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
     return dictionaryMap.containsKey(columnName);
   }
 
+  /**
+   * Returns the dictionary of the column, null for raw metrics.
+   */
+  public MutableDictionaryReader getDictionaryFor(String columnName) {
+    return dictionaryMap.get(columnName);
+  }
+
+  /**
+   * Returns the forward index of the column, which holds dictionary ids, or raw values for raw metrics.
+   */
+  public DataFileReader getForwardIndexFor(String columnName) {
+    return columnIndexReaderWriterMap.get(columnName);
+  }
+
+  /**
+   * Returns the inverted index of the column, null for raw metrics.
+   */
+  public RealtimeInvertedIndex getInvertedIndexFor(String columnName) {
+    return invertedIndexMap.get(columnName);
+  }
+
+  public int getMaxNumberOfMultiValues(String columnName) {
+    return maxNumberOfMultivaluesMap.get(columnName);
+  }
+
   @Override
   public StarTreeIndexNode getStarTreeRoot() {
     return null;
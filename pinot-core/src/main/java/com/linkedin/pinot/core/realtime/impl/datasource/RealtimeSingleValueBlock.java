@@ -121,6 +121,52 @@ public class RealtimeSingleValueBlock implements Block {
             return ret;
           }
 
+          // The value getters below read raw metric columns, which have no dictionary
+
+          @Override
+          public long nextLongVal() {
+            if (!hasNext()) {
+              return Constants.EOF;
+            }
+            long ret = spec.getDataType() == DataType.LONG ? reader.getLong(counter) : reader.getInt(counter);
+            counter++;
+            return ret;
+          }
+
+          @Override
+          public float nextFloatVal() {
+            if (!hasNext()) {
+              return Constants.EOF;
+            }
+            float ret = reader.getFloat(counter);
+            counter++;
+            return ret;
+          }
+
+          @Override
+          public double nextDoubleVal() {
+            if (!hasNext()) {
+              return Constants.EOF;
+            }
+            double ret;
+            switch (spec.getDataType()) {
+              case INT:
+                ret = reader.getInt(counter);
+                break;
+              case LONG:
+                ret = reader.getLong(counter);
+                break;
+              case FLOAT:
+                ret = reader.getFloat(counter);
+                break;
+              default:
+                ret = reader.getDouble(counter);
+                break;
+            }
+            counter++;
+            return ret;
+          }
+
           @Override
           public boolean hasNext() {
             return (counter < max);
@@ -180,12 +226,12 @@ public class RealtimeSingleValueBlock implements Block {
 
       @Override
       public boolean hasInvertedIndex() {
-        return true;
+        return dictionary != null;
       }
 
       @Override
       public boolean hasDictionary() {
-        return true;
+        return dictionary != null;
       }
 
       @Override
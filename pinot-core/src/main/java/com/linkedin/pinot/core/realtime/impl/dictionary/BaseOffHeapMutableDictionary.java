@@ -0,0 +1,295 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.dictionary;
+
+import it.unimi.dsi.fastutil.ints.AbstractIntComparator;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.utils.MmapUtils;
+
+
+/**
+ * Base class for the mutable dictionaries keeping their values in direct byte buffers.
+ *
+ * Values are stored densely by dictionary id (in the subclasses), and looked up through an open addressing hash
+ * table of dictionary ids with linear probing, so indexing a value neither boxes it nor adds objects to the heap.
+ * A value is written before its dictionary id is published in the hash table, and buffers are replaced (never
+ * modified in place) when they grow, so that queries can read the dictionary while the single indexing thread
+ * adds values to it.
+ *
+ * Range lookups go through a list of dictionary ids sorted by value, which is only extended with the ids added
+ * since the previous range lookup.
+ */
+public abstract class BaseOffHeapMutableDictionary extends MutableDictionaryReader {
+  protected static final int DEFAULT_INITIAL_CAPACITY = 1024;
+
+  private static final int EMPTY_SLOT = 0;
+
+  // Dictionary id + 1 for every slot, EMPTY_SLOT for the free ones
+  private volatile ByteBuffer _hashTable;
+  private volatile int _numEntries = 0;
+
+  // Buffers replaced after growing, they are only released on close since queries may still be reading them
+  private final List<ByteBuffer> _retiredBuffers = new ArrayList<ByteBuffer>();
+
+  private int[] _sortedDictIds = new int[0];
+  private int _numSortedDictIds = 0;
+
+  public BaseOffHeapMutableDictionary(FieldSpec spec, int initialCapacity) {
+    super(spec);
+    _hashTable = allocate(getNumHashSlots(initialCapacity) * 4, "hash table");
+  }
+
+  @Override
+  public int length() {
+    return _numEntries;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return _numEntries == 0;
+  }
+
+  protected ByteBuffer getHashTable() {
+    return _hashTable;
+  }
+
+  protected static int getHashMask(ByteBuffer hashTable) {
+    return (hashTable.capacity() >>> 2) - 1;
+  }
+
+  /**
+   * Returns the dictionary id stored in the given slot of the hash table, -1 if the slot is free.
+   */
+  protected static int getDictIdInSlot(ByteBuffer hashTable, int slot) {
+    return hashTable.getInt(slot << 2) - 1;
+  }
+
+  /**
+   * Publish a new dictionary id, its value must already be stored. Only called from the indexing thread.
+   */
+  protected void addDictId(int hash, int dictId) {
+    ByteBuffer hashTable = _hashTable;
+    if ((_numEntries + 1) * 2 > hashTable.capacity() >>> 2) {
+      hashTable = rehash(hashTable);
+    }
+    putDictId(hashTable, hash, dictId);
+    _numEntries = dictId + 1;
+  }
+
+  private ByteBuffer rehash(ByteBuffer hashTable) {
+    ByteBuffer newHashTable = allocate(hashTable.capacity() * 2, "hash table");
+    for (int dictId = 0; dictId < _numEntries; dictId++) {
+      putDictId(newHashTable, hashOf(dictId), dictId);
+    }
+    _hashTable = newHashTable;
+    retire(hashTable);
+    return newHashTable;
+  }
+
+  private static void putDictId(ByteBuffer hashTable, int hash, int dictId) {
+    int mask = getHashMask(hashTable);
+    int slot = hash & mask;
+    while (hashTable.getInt(slot << 2) != EMPTY_SLOT) {
+      slot = (slot + 1) & mask;
+    }
+    hashTable.putInt(slot << 2, dictId + 1);
+  }
+
+  /**
+   * Returns the hash of the value stored for the given dictionary id, used when the hash table grows.
+   */
+  protected abstract int hashOf(int dictId);
+
+  /**
+   * Compares the values stored for two dictionary ids.
+   */
+  protected abstract int compareDictIds(int dictId0, int dictId1);
+
+  /**
+   * Parses a range boundary into the representation taken by {@link #compareToValue(int, Object)}.
+   */
+  protected abstract Object parseBoundary(String boundary);
+
+  /**
+   * Compares the value stored for the dictionary id with a parsed range boundary.
+   */
+  protected abstract int compareToValue(int dictId, Object value);
+
+  @Override
+  public boolean inRange(String lower, String upper, int indexOfValueToCompare, boolean includeLower,
+      boolean includeUpper) {
+    int lowerComparison = compareToValue(indexOfValueToCompare, parseBoundary(lower));
+    if (lowerComparison < 0 || (lowerComparison == 0 && !includeLower)) {
+      return false;
+    }
+    int upperComparison = compareToValue(indexOfValueToCompare, parseBoundary(upper));
+    return upperComparison < 0 || (upperComparison == 0 && includeUpper);
+  }
+
+  @Override
+  public int[] getDictIdsInRange(String lower, String upper, boolean includeLower, boolean includeUpper) {
+    int[] sortedDictIds;
+    int numSortedDictIds;
+    synchronized (this) {
+      updateSortedDictIds();
+      sortedDictIds = _sortedDictIds;
+      numSortedDictIds = _numSortedDictIds;
+    }
+    int start = findPosition(sortedDictIds, numSortedDictIds, parseBoundary(lower), !includeLower);
+    int end = findPosition(sortedDictIds, numSortedDictIds, parseBoundary(upper), includeUpper);
+    if (start >= end) {
+      return new int[0];
+    }
+    int[] dictIds = Arrays.copyOfRange(sortedDictIds, start, end);
+    Arrays.sort(dictIds);
+    return dictIds;
+  }
+
+  /**
+   * Sort the dictionary ids added since the last call and merge them into the sorted ones.
+   */
+  private void updateSortedDictIds() {
+    int numEntries = _numEntries;
+    if (numEntries == _numSortedDictIds) {
+      return;
+    }
+    int numNewDictIds = numEntries - _numSortedDictIds;
+    int[] newDictIds = new int[numNewDictIds];
+    for (int i = 0; i < numNewDictIds; i++) {
+      newDictIds[i] = _numSortedDictIds + i;
+    }
+    AbstractIntComparator comparator = new AbstractIntComparator() {
+      @Override
+      public int compare(int dictId0, int dictId1) {
+        return compareDictIds(dictId0, dictId1);
+      }
+    };
+    IntArrays.quickSort(newDictIds, comparator);
+
+    int[] mergedDictIds = new int[numEntries];
+    int i = 0;
+    int j = 0;
+    int k = 0;
+    while (i < _numSortedDictIds && j < numNewDictIds) {
+      if (compareDictIds(_sortedDictIds[i], newDictIds[j]) <= 0) {
+        mergedDictIds[k++] = _sortedDictIds[i++];
+      } else {
+        mergedDictIds[k++] = newDictIds[j++];
+      }
+    }
+    System.arraycopy(_sortedDictIds, i, mergedDictIds, k, _numSortedDictIds - i);
+    System.arraycopy(newDictIds, j, mergedDictIds, k + _numSortedDictIds - i, numNewDictIds - j);
+    _sortedDictIds = mergedDictIds;
+    _numSortedDictIds = numEntries;
+  }
+
+  /**
+   * Returns the position of the first sorted dictionary id whose value is greater than (or equal to, if
+   * includeEqual is false) the given value.
+   */
+  private int findPosition(int[] sortedDictIds, int numSortedDictIds, Object value, boolean includeEqual) {
+    int low = 0;
+    int high = numSortedDictIds;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      int comparison = compareToValue(sortedDictIds[mid], value);
+      if (comparison < 0 || (comparison == 0 && includeEqual)) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  protected ByteBuffer allocate(int size, String details) {
+    return MmapUtils.allocateDirectByteBuffer(size, null, getClass().getSimpleName() + " " + details + " for column "
+        + spec.getName());
+  }
+
+  /**
+   * Returns a copy of the buffer with the given size, the buffer itself is released on close.
+   */
+  protected ByteBuffer expand(ByteBuffer buffer, int size, String details) {
+    ByteBuffer expandedBuffer = allocate(size, details);
+    ByteBuffer source = buffer.duplicate();
+    source.clear();
+    expandedBuffer.put(source);
+    expandedBuffer.clear();
+    retire(buffer);
+    return expandedBuffer;
+  }
+
+  private void retire(ByteBuffer buffer) {
+    synchronized (_retiredBuffers) {
+      _retiredBuffers.add(buffer);
+    }
+  }
+
+  @Override
+  public void print() {
+    System.out.println("************* printing dictionary for column : " + spec.getName() + " ***************");
+    for (int dictId = 0; dictId < _numEntries; dictId++) {
+      System.out.println(dictId + "," + toString(dictId));
+    }
+    System.out.println("************************************");
+  }
+
+  @Override
+  public void close() {
+    MmapUtils.unloadByteBuffer(_hashTable);
+    synchronized (_retiredBuffers) {
+      for (ByteBuffer buffer : _retiredBuffers) {
+        MmapUtils.unloadByteBuffer(buffer);
+      }
+      _retiredBuffers.clear();
+    }
+  }
+
+  private static int getNumHashSlots(int capacity) {
+    // Keep the load factor under 0.5
+    int numSlots = 16;
+    while (numSlots < capacity * 2) {
+      numSlots <<= 1;
+    }
+    return numSlots;
+  }
+
+  protected static int hash(int value) {
+    value ^= value >>> 16;
+    value *= 0x85ebca6b;
+    value ^= value >>> 13;
+    value *= 0xc2b2ae35;
+    value ^= value >>> 16;
+    return value;
+  }
+
+  protected static int hash(long value) {
+    value ^= value >>> 33;
+    value *= 0xff51afd7ed558ccdL;
+    value ^= value >>> 33;
+    value *= 0xc4ceb9fe1a85ec53L;
+    value ^= value >>> 33;
+    return (int) value;
+  }
+}
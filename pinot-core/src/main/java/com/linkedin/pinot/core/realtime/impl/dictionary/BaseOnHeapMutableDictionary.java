@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.dictionary;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.collect.BiMap;
+import com.google.common.collect.HashBiMap;
+import com.linkedin.pinot.common.data.FieldSpec;
+
+
+/**
+ * Mutable dictionary keeping the values on heap in a bidirectional map from dictionary id to boxed value.
+ */
+public abstract class BaseOnHeapMutableDictionary extends MutableDictionaryReader {
+  protected BiMap<Integer, Object> dictionaryIdBiMap;
+  private final AtomicInteger dictionaryIdGenerator;
+
+  public BaseOnHeapMutableDictionary(FieldSpec spec) {
+    super(spec);
+    this.dictionaryIdBiMap = HashBiMap.<Integer, Object> create();
+    dictionaryIdGenerator = new AtomicInteger(-1);
+  }
+
+  protected void addToDictionaryBiMap(Object val) {
+    if (!dictionaryIdBiMap.inverse().containsKey(val)) {
+      dictionaryIdBiMap.put(new Integer(dictionaryIdGenerator.incrementAndGet()), val);
+      return;
+    }
+  }
+
+  @Override
+  public int length() {
+    return dictionaryIdGenerator.get() + 1;
+  }
+
+  protected Integer getIndexOfFromBiMap(Object val) {
+    Integer ret = dictionaryIdBiMap.inverse().get(val);
+    if (ret == null) {
+      ret = -1;
+    }
+    return ret;
+  }
+
+  protected Object getRawValueFromBiMap(int dictionaryId) {
+    return dictionaryIdBiMap.get(new Integer(dictionaryId));
+  }
+
+  @Override
+  public void print() {
+    System.out.println("************* printing dictionary for column : " + spec.getName() + " ***************");
+    for (Integer key : dictionaryIdBiMap.keySet()) {
+      System.out.println(key + "," + dictionaryIdBiMap.get(key));
+    }
+    System.out.println("************************************");
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return dictionaryIdBiMap.isEmpty();
+  }
+}
@@ -18,7 +18,7 @@ package com.linkedin.pinot.core.realtime.impl.dictionary;
 import com.linkedin.pinot.common.data.FieldSpec;
 
 
-public class DoubleMutableDictionary extends MutableDictionaryReader {
+public class DoubleMutableDictionary extends BaseOnHeapMutableDictionary {
 
   private Double min = Double.MAX_VALUE;
   private Double max = Double.MIN_VALUE;
@@ -0,0 +1,181 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.dictionary;
+
+import java.nio.ByteBuffer;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.utils.MmapUtils;
+
+
+/**
+ * Off heap mutable dictionary for double columns, see {@link BaseOffHeapMutableDictionary}.
+ */
+public class DoubleOffHeapMutableDictionary extends BaseOffHeapMutableDictionary {
+  private volatile ByteBuffer _values;
+
+  private double min = Double.POSITIVE_INFINITY;
+  private double max = Double.NEGATIVE_INFINITY;
+
+  public DoubleOffHeapMutableDictionary(FieldSpec spec) {
+    this(spec, DEFAULT_INITIAL_CAPACITY);
+  }
+
+  public DoubleOffHeapMutableDictionary(FieldSpec spec, int initialCapacity) {
+    super(spec, initialCapacity);
+    _values = allocate(initialCapacity * 8, "values");
+  }
+
+  @Override
+  public void index(Object rawValue) {
+    if (rawValue == null) {
+      hasNull = true;
+      return;
+    }
+
+    if (rawValue instanceof Object[]) {
+      for (Object value : (Object[]) rawValue) {
+        if (value != null) {
+          indexDouble(toDouble(value));
+        }
+      }
+      return;
+    }
+
+    indexDouble(toDouble(rawValue));
+  }
+
+  private void indexDouble(double value) {
+    if (indexOfDouble(value) != -1) {
+      return;
+    }
+    int dictId = length();
+    if ((dictId + 1) * 8 > _values.capacity()) {
+      _values = expand(_values, _values.capacity() * 2, "values");
+    }
+    _values.putDouble(dictId * 8, value);
+    addDictId(hash(Double.doubleToLongBits(value)), dictId);
+
+    if (value < min) {
+      min = value;
+    }
+    if (value > max) {
+      max = value;
+    }
+  }
+
+  public int indexOfDouble(double value) {
+    ByteBuffer hashTable = getHashTable();
+    ByteBuffer values = _values;
+    int mask = getHashMask(hashTable);
+    int slot = hash(Double.doubleToLongBits(value)) & mask;
+    while (true) {
+      int dictId = getDictIdInSlot(hashTable, slot);
+      if (dictId == -1 || Double.doubleToLongBits(values.getDouble(dictId * 8)) == Double.doubleToLongBits(value)) {
+        return dictId;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  private static double toDouble(Object value) {
+    if (value instanceof Number) {
+      return ((Number) value).doubleValue();
+    }
+    return Double.parseDouble(value.toString());
+  }
+
+  @Override
+  public boolean contains(Object rawValue) {
+    if (rawValue == null) {
+      return hasNull;
+    }
+    return indexOfDouble(toDouble(rawValue)) != -1;
+  }
+
+  @Override
+  public int indexOf(Object rawValue) {
+    if (rawValue == null) {
+      return -1;
+    }
+    return indexOfDouble(toDouble(rawValue));
+  }
+
+  public double getDouble(int dictionaryId) {
+    return _values.getDouble(dictionaryId * 8);
+  }
+
+  @Override
+  public Object get(int dictionaryId) {
+    return getDouble(dictionaryId);
+  }
+
+  @Override
+  public long getLongValue(int dictionaryId) {
+    return (long) getDouble(dictionaryId);
+  }
+
+  @Override
+  public double getDoubleValue(int dictionaryId) {
+    return getDouble(dictionaryId);
+  }
+
+  @Override
+  public String toString(int dictionaryId) {
+    return Double.toString(getDouble(dictionaryId));
+  }
+
+  @Override
+  public String getStringValue(int dictionaryId) {
+    return Double.toString(getDouble(dictionaryId));
+  }
+
+  @Override
+  protected int hashOf(int dictId) {
+    return hash(Double.doubleToLongBits(getDouble(dictId)));
+  }
+
+  @Override
+  protected int compareDictIds(int dictId0, int dictId1) {
+    return Double.compare(getDouble(dictId0), getDouble(dictId1));
+  }
+
+  @Override
+  protected Object parseBoundary(String boundary) {
+    return Double.parseDouble(boundary);
+  }
+
+  @Override
+  protected int compareToValue(int dictId, Object value) {
+    return Double.compare(getDouble(dictId), (Double) value);
+  }
+
+  @Override
+  public Object getMinVal() {
+    return min;
+  }
+
+  @Override
+  public Object getMaxVal() {
+    return max;
+  }
+
+  @Override
+  public void close() {
+    super.close();
+    MmapUtils.unloadByteBuffer(_values);
+  }
+}
@@ -0,0 +1,181 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.dictionary;
+
+import java.nio.ByteBuffer;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.utils.MmapUtils;
+
+
+/**
+ * Off heap mutable dictionary for float columns, see {@link BaseOffHeapMutableDictionary}.
+ */
+public class FloatOffHeapMutableDictionary extends BaseOffHeapMutableDictionary {
+  private volatile ByteBuffer _values;
+
+  private float min = Float.POSITIVE_INFINITY;
+  private float max = Float.NEGATIVE_INFINITY;
+
+  public FloatOffHeapMutableDictionary(FieldSpec spec) {
+    this(spec, DEFAULT_INITIAL_CAPACITY);
+  }
+
+  public FloatOffHeapMutableDictionary(FieldSpec spec, int initialCapacity) {
+    super(spec, initialCapacity);
+    _values = allocate(initialCapacity * 4, "values");
+  }
+
+  @Override
+  public void index(Object rawValue) {
+    if (rawValue == null) {
+      hasNull = true;
+      return;
+    }
+
+    if (rawValue instanceof Object[]) {
+      for (Object value : (Object[]) rawValue) {
+        if (value != null) {
+          indexFloat(toFloat(value));
+        }
+      }
+      return;
+    }
+
+    indexFloat(toFloat(rawValue));
+  }
+
+  private void indexFloat(float value) {
+    if (indexOfFloat(value) != -1) {
+      return;
+    }
+    int dictId = length();
+    if ((dictId + 1) * 4 > _values.capacity()) {
+      _values = expand(_values, _values.capacity() * 2, "values");
+    }
+    _values.putFloat(dictId * 4, value);
+    addDictId(hash(Float.floatToIntBits(value)), dictId);
+
+    if (value < min) {
+      min = value;
+    }
+    if (value > max) {
+      max = value;
+    }
+  }
+
+  public int indexOfFloat(float value) {
+    ByteBuffer hashTable = getHashTable();
+    ByteBuffer values = _values;
+    int mask = getHashMask(hashTable);
+    int slot = hash(Float.floatToIntBits(value)) & mask;
+    while (true) {
+      int dictId = getDictIdInSlot(hashTable, slot);
+      if (dictId == -1 || Float.floatToIntBits(values.getFloat(dictId * 4)) == Float.floatToIntBits(value)) {
+        return dictId;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  private static float toFloat(Object value) {
+    if (value instanceof Number) {
+      return ((Number) value).floatValue();
+    }
+    return Float.parseFloat(value.toString());
+  }
+
+  @Override
+  public boolean contains(Object rawValue) {
+    if (rawValue == null) {
+      return hasNull;
+    }
+    return indexOfFloat(toFloat(rawValue)) != -1;
+  }
+
+  @Override
+  public int indexOf(Object rawValue) {
+    if (rawValue == null) {
+      return -1;
+    }
+    return indexOfFloat(toFloat(rawValue));
+  }
+
+  public float getFloat(int dictionaryId) {
+    return _values.getFloat(dictionaryId * 4);
+  }
+
+  @Override
+  public Object get(int dictionaryId) {
+    return getFloat(dictionaryId);
+  }
+
+  @Override
+  public long getLongValue(int dictionaryId) {
+    return (long) getFloat(dictionaryId);
+  }
+
+  @Override
+  public double getDoubleValue(int dictionaryId) {
+    return getFloat(dictionaryId);
+  }
+
+  @Override
+  public String toString(int dictionaryId) {
+    return Float.toString(getFloat(dictionaryId));
+  }
+
+  @Override
+  public String getStringValue(int dictionaryId) {
+    return Float.toString(getFloat(dictionaryId));
+  }
+
+  @Override
+  protected int hashOf(int dictId) {
+    return hash(Float.floatToIntBits(getFloat(dictId)));
+  }
+
+  @Override
+  protected int compareDictIds(int dictId0, int dictId1) {
+    return Float.compare(getFloat(dictId0), getFloat(dictId1));
+  }
+
+  @Override
+  protected Object parseBoundary(String boundary) {
+    return Float.parseFloat(boundary);
+  }
+
+  @Override
+  protected int compareToValue(int dictId, Object value) {
+    return Float.compare(getFloat(dictId), (Float) value);
+  }
+
+  @Override
+  public Object getMinVal() {
+    return min;
+  }
+
+  @Override
+  public Object getMaxVal() {
+    return max;
+  }
+
+  @Override
+  public void close() {
+    super.close();
+    MmapUtils.unloadByteBuffer(_values);
+  }
+}
@@ -0,0 +1,181 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.dictionary;
+
+import java.nio.ByteBuffer;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.utils.MmapUtils;
+
+
+/**
+ * Off heap mutable dictionary for int columns, see {@link BaseOffHeapMutableDictionary}.
+ */
+public class IntOffHeapMutableDictionary extends BaseOffHeapMutableDictionary {
+  private volatile ByteBuffer _values;
+
+  private int min = Integer.MAX_VALUE;
+  private int max = Integer.MIN_VALUE;
+
+  public IntOffHeapMutableDictionary(FieldSpec spec) {
+    this(spec, DEFAULT_INITIAL_CAPACITY);
+  }
+
+  public IntOffHeapMutableDictionary(FieldSpec spec, int initialCapacity) {
+    super(spec, initialCapacity);
+    _values = allocate(initialCapacity * 4, "values");
+  }
+
+  @Override
+  public void index(Object rawValue) {
+    if (rawValue == null) {
+      hasNull = true;
+      return;
+    }
+
+    if (rawValue instanceof Object[]) {
+      for (Object value : (Object[]) rawValue) {
+        if (value != null) {
+          indexInt(toInt(value));
+        }
+      }
+      return;
+    }
+
+    indexInt(toInt(rawValue));
+  }
+
+  private void indexInt(int value) {
+    if (indexOfInt(value) != -1) {
+      return;
+    }
+    int dictId = length();
+    if ((dictId + 1) * 4 > _values.capacity()) {
+      _values = expand(_values, _values.capacity() * 2, "values");
+    }
+    _values.putInt(dictId * 4, value);
+    addDictId(hash(value), dictId);
+
+    if (value < min) {
+      min = value;
+    }
+    if (value > max) {
+      max = value;
+    }
+  }
+
+  public int indexOfInt(int value) {
+    ByteBuffer hashTable = getHashTable();
+    ByteBuffer values = _values;
+    int mask = getHashMask(hashTable);
+    int slot = hash(value) & mask;
+    while (true) {
+      int dictId = getDictIdInSlot(hashTable, slot);
+      if (dictId == -1 || values.getInt(dictId * 4) == value) {
+        return dictId;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  private static int toInt(Object value) {
+    if (value instanceof Number) {
+      return ((Number) value).intValue();
+    }
+    return Integer.parseInt(value.toString());
+  }
+
+  @Override
+  public boolean contains(Object rawValue) {
+    if (rawValue == null) {
+      return hasNull;
+    }
+    return indexOfInt(toInt(rawValue)) != -1;
+  }
+
+  @Override
+  public int indexOf(Object rawValue) {
+    if (rawValue == null) {
+      return -1;
+    }
+    return indexOfInt(toInt(rawValue));
+  }
+
+  public int getInt(int dictionaryId) {
+    return _values.getInt(dictionaryId * 4);
+  }
+
+  @Override
+  public Object get(int dictionaryId) {
+    return getInt(dictionaryId);
+  }
+
+  @Override
+  public long getLongValue(int dictionaryId) {
+    return getInt(dictionaryId);
+  }
+
+  @Override
+  public double getDoubleValue(int dictionaryId) {
+    return getInt(dictionaryId);
+  }
+
+  @Override
+  public String toString(int dictionaryId) {
+    return Integer.toString(getInt(dictionaryId));
+  }
+
+  @Override
+  public String getStringValue(int dictionaryId) {
+    return Integer.toString(getInt(dictionaryId));
+  }
+
+  @Override
+  protected int hashOf(int dictId) {
+    return hash(getInt(dictId));
+  }
+
+  @Override
+  protected int compareDictIds(int dictId0, int dictId1) {
+    return Integer.compare(getInt(dictId0), getInt(dictId1));
+  }
+
+  @Override
+  protected Object parseBoundary(String boundary) {
+    return Integer.parseInt(boundary);
+  }
+
+  @Override
+  protected int compareToValue(int dictId, Object value) {
+    return Integer.compare(getInt(dictId), (Integer) value);
+  }
+
+  @Override
+  public Object getMinVal() {
+    return min;
+  }
+
+  @Override
+  public Object getMaxVal() {
+    return max;
+  }
+
+  @Override
+  public void close() {
+    super.close();
+    MmapUtils.unloadByteBuffer(_values);
+  }
+}
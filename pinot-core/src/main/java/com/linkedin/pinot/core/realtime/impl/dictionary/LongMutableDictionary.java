@@ -18,7 +18,7 @@ package com.linkedin.pinot.core.realtime.impl.dictionary;
 import com.linkedin.pinot.common.data.FieldSpec;
 
 
-public class LongMutableDictionary extends MutableDictionaryReader {
+public class LongMutableDictionary extends BaseOnHeapMutableDictionary {
 
   private Long min = Long.MAX_VALUE;
   private Long max = Long.MIN_VALUE;
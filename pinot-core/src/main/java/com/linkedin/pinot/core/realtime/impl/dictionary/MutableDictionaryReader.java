@@ -15,48 +15,16 @@
  */
 package com.linkedin.pinot.core.realtime.impl.dictionary;
 
-import java.util.concurrent.atomic.AtomicInteger;
-
-import com.google.common.collect.BiMap;
-import com.google.common.collect.HashBiMap;
 import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 
 
 public abstract class MutableDictionaryReader implements Dictionary {
-  protected BiMap<Integer, Object> dictionaryIdBiMap;
   protected FieldSpec spec;
   protected boolean hasNull = false;
-  private final AtomicInteger dictionaryIdGenerator;
 
   public MutableDictionaryReader(FieldSpec spec) {
     this.spec = spec;
-    this.dictionaryIdBiMap = HashBiMap.<Integer, Object> create();
-    dictionaryIdGenerator = new AtomicInteger(-1);
-  }
-
-  protected void addToDictionaryBiMap(Object val) {
-    if (!dictionaryIdBiMap.inverse().containsKey(val)) {
-      dictionaryIdBiMap.put(new Integer(dictionaryIdGenerator.incrementAndGet()), val);
-      return;
-    }
-  }
-
-  @Override
-  public int length() {
-    return dictionaryIdGenerator.get() + 1;
-  }
-
-  protected Integer getIndexOfFromBiMap(Object val) {
-    Integer ret = dictionaryIdBiMap.inverse().get(val);
-    if (ret == null) {
-      ret = -1;
-    }
-    return ret;
-  }
-
-  protected Object getRawValueFromBiMap(int dictionaryId) {
-    return dictionaryIdBiMap.get(new Integer(dictionaryId));
   }
 
   public boolean hasNull() {
@@ -84,6 +52,24 @@ public abstract class MutableDictionaryReader implements Dictionary {
     return inRange(lower, upper, valueToCompare, true, true);
   }
 
+  /**
+   * Returns the ids of all the values within the given range, in ascending order. This implementation checks every
+   * dictionary id, subclasses that can locate the range directly override it.
+   */
+  public int[] getDictIdsInRange(String lower, String upper, boolean includeLower, boolean includeUpper) {
+    int length = length();
+    int[] dictIds = new int[length];
+    int numMatching = 0;
+    for (int dictId = 0; dictId < length; dictId++) {
+      if (inRange(lower, upper, dictId, includeLower, includeUpper)) {
+        dictIds[numMatching++] = dictId;
+      }
+    }
+    int[] matchingDictIds = new int[numMatching];
+    System.arraycopy(dictIds, 0, matchingDictIds, 0, numMatching);
+    return matchingDictIds;
+  }
+
   @Override
   public abstract long getLongValue(int dictionaryId);
 
@@ -93,15 +79,13 @@ public abstract class MutableDictionaryReader implements Dictionary {
   @Override
   public abstract String toString(int dictionaryId);
 
-  public void print() {
-    System.out.println("************* printing dictionary for column : " + spec.getName() + " ***************");
-    for (Integer key : dictionaryIdBiMap.keySet()) {
-      System.out.println(key + "," + dictionaryIdBiMap.get(key));
-    }
-    System.out.println("************************************");
-  }
+  public abstract void print();
+
+  public abstract boolean isEmpty();
 
-  public boolean isEmpty() {
-    return dictionaryIdBiMap.isEmpty();
+  /**
+   * Release the memory held by the dictionary, it must not be used afterwards.
+   */
+  public void close() {
   }
 }
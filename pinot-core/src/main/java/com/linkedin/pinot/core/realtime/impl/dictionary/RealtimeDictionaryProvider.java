@@ -21,6 +21,16 @@ import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 public class RealtimeDictionaryProvider {
 
   public static MutableDictionaryReader getDictionaryFor(FieldSpec spec) {
+    return getDictionaryFor(spec, false);
+  }
+
+  /**
+   * @param offHeap whether to keep the dictionary values in direct byte buffers instead of heap objects.
+   */
+  public static MutableDictionaryReader getDictionaryFor(FieldSpec spec, boolean offHeap) {
+    if (offHeap) {
+      return getOffHeapDictionaryFor(spec);
+    }
     switch (spec.getDataType()) {
       case INT:
         return new IntMutableDictionary(spec);
@@ -36,4 +46,21 @@ public class RealtimeDictionaryProvider {
     }
     throw new UnsupportedOperationException();
   }
+
+  private static MutableDictionaryReader getOffHeapDictionaryFor(FieldSpec spec) {
+    switch (spec.getDataType()) {
+      case INT:
+        return new IntOffHeapMutableDictionary(spec);
+      case LONG:
+        return new LongOffHeapMutableDictionary(spec);
+      case FLOAT:
+        return new FloatOffHeapMutableDictionary(spec);
+      case DOUBLE:
+        return new DoubleOffHeapMutableDictionary(spec);
+      case BOOLEAN:
+      case STRING:
+        return new StringOffHeapMutableDictionary(spec);
+    }
+    throw new UnsupportedOperationException();
+  }
 }
@@ -18,7 +18,7 @@ package com.linkedin.pinot.core.realtime.impl.dictionary;
 import com.linkedin.pinot.common.data.FieldSpec;
 
 
-public class StringMutableDictionary extends MutableDictionaryReader {
+public class StringMutableDictionary extends BaseOnHeapMutableDictionary {
 
   private String min = null;
   private String max = null;
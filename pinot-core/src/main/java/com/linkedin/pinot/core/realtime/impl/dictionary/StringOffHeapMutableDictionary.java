@@ -0,0 +1,229 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.dictionary;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.utils.MmapUtils;
+
+
+/**
+ * Off heap mutable dictionary for string columns, see {@link BaseOffHeapMutableDictionary}.
+ *
+ * The UTF-8 bytes of the values are appended to one buffer, and the end offset of every value is kept in a second
+ * buffer indexed by dictionary id.
+ */
+public class StringOffHeapMutableDictionary extends BaseOffHeapMutableDictionary {
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  private static final int DEFAULT_VALUE_LENGTH = 16;
+
+  private volatile ByteBuffer _endOffsets;
+  private volatile ByteBuffer _bytes;
+  private int _numBytes = 0;
+
+  private String min = null;
+  private String max = null;
+
+  public StringOffHeapMutableDictionary(FieldSpec spec) {
+    this(spec, DEFAULT_INITIAL_CAPACITY);
+  }
+
+  public StringOffHeapMutableDictionary(FieldSpec spec, int initialCapacity) {
+    super(spec, initialCapacity);
+    _endOffsets = allocate(initialCapacity * 4, "end offsets");
+    _bytes = allocate(initialCapacity * DEFAULT_VALUE_LENGTH, "bytes");
+  }
+
+  @Override
+  public void index(Object rawValue) {
+    if (rawValue == null) {
+      hasNull = true;
+      return;
+    }
+
+    if (rawValue instanceof Object[]) {
+      for (Object value : (Object[]) rawValue) {
+        if (value != null) {
+          indexString(value.toString());
+        }
+      }
+      return;
+    }
+
+    indexString(rawValue.toString());
+  }
+
+  private void indexString(String value) {
+    byte[] bytes = value.getBytes(UTF8);
+    int hash = hash(bytes);
+    if (indexOfBytes(bytes, hash) != -1) {
+      return;
+    }
+
+    int dictId = length();
+    if ((dictId + 1) * 4 > _endOffsets.capacity()) {
+      _endOffsets = expand(_endOffsets, _endOffsets.capacity() * 2, "end offsets");
+    }
+    if (_numBytes + bytes.length > _bytes.capacity()) {
+      _bytes = expand(_bytes, Math.max(_bytes.capacity() * 2, _numBytes + bytes.length), "bytes");
+    }
+    ByteBuffer buffer = _bytes.duplicate();
+    buffer.position(_numBytes);
+    buffer.put(bytes);
+    _numBytes += bytes.length;
+    _endOffsets.putInt(dictId * 4, _numBytes);
+    addDictId(hash, dictId);
+
+    if (min == null || value.compareTo(min) < 0) {
+      min = value;
+    }
+    if (max == null || value.compareTo(max) > 0) {
+      max = value;
+    }
+  }
+
+  private int indexOfBytes(byte[] bytes, int hash) {
+    ByteBuffer hashTable = getHashTable();
+    int mask = getHashMask(hashTable);
+    int slot = hash & mask;
+    while (true) {
+      int dictId = getDictIdInSlot(hashTable, slot);
+      if (dictId == -1 || equalsValue(dictId, bytes)) {
+        return dictId;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  private boolean equalsValue(int dictId, byte[] bytes) {
+    ByteBuffer endOffsets = _endOffsets;
+    ByteBuffer values = _bytes;
+    int startOffset = getStartOffset(endOffsets, dictId);
+    int endOffset = endOffsets.getInt(dictId * 4);
+    if (endOffset - startOffset != bytes.length) {
+      return false;
+    }
+    for (int i = 0; i < bytes.length; i++) {
+      if (values.get(startOffset + i) != bytes[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int getStartOffset(ByteBuffer endOffsets, int dictId) {
+    return (dictId == 0) ? 0 : endOffsets.getInt((dictId - 1) * 4);
+  }
+
+  private byte[] getBytes(int dictId) {
+    ByteBuffer endOffsets = _endOffsets;
+    int startOffset = getStartOffset(endOffsets, dictId);
+    byte[] bytes = new byte[endOffsets.getInt(dictId * 4) - startOffset];
+    ByteBuffer values = _bytes.duplicate();
+    values.position(startOffset);
+    values.get(bytes);
+    return bytes;
+  }
+
+  private static int hash(byte[] bytes) {
+    int hash = 1;
+    for (byte b : bytes) {
+      hash = 31 * hash + b;
+    }
+    return hash(hash);
+  }
+
+  @Override
+  public boolean contains(Object rawValue) {
+    if (rawValue == null) {
+      return hasNull;
+    }
+    return indexOf(rawValue) != -1;
+  }
+
+  @Override
+  public int indexOf(Object rawValue) {
+    if (rawValue == null) {
+      return -1;
+    }
+    byte[] bytes = rawValue.toString().getBytes(UTF8);
+    return indexOfBytes(bytes, hash(bytes));
+  }
+
+  @Override
+  public Object get(int dictionaryId) {
+    return getStringValue(dictionaryId);
+  }
+
+  @Override
+  public long getLongValue(int dictionaryId) {
+    return -1;
+  }
+
+  @Override
+  public double getDoubleValue(int dictionaryId) {
+    return -1;
+  }
+
+  @Override
+  public String toString(int dictionaryId) {
+    return getStringValue(dictionaryId);
+  }
+
+  @Override
+  public String getStringValue(int dictionaryId) {
+    return new String(getBytes(dictionaryId), UTF8);
+  }
+
+  @Override
+  protected int hashOf(int dictId) {
+    return hash(getBytes(dictId));
+  }
+
+  @Override
+  protected int compareDictIds(int dictId0, int dictId1) {
+    return getStringValue(dictId0).compareTo(getStringValue(dictId1));
+  }
+
+  @Override
+  protected Object parseBoundary(String boundary) {
+    return boundary;
+  }
+
+  @Override
+  protected int compareToValue(int dictId, Object value) {
+    return getStringValue(dictId).compareTo((String) value);
+  }
+
+  @Override
+  public Object getMinVal() {
+    return min;
+  }
+
+  @Override
+  public Object getMaxVal() {
+    return max;
+  }
+
+  @Override
+  public void close() {
+    super.close();
+    MmapUtils.unloadByteBuffer(_endOffsets);
+    MmapUtils.unloadByteBuffer(_bytes);
+  }
+}
@@ -0,0 +1,298 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.invertedIndex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+import com.linkedin.pinot.common.utils.MmapUtils;
+
+
+/**
+ * Realtime inverted index for a single indexing thread and concurrent queries.
+ *
+ * The posting lists are kept in an array indexed by dictionary id. Every posting list appends its doc ids to a
+ * chain of int blocks of growing sizes, and only publishes them by updating its (volatile) number of docs, so
+ * appending never locks nor copies existing doc ids. Blocks are either on heap, or carved out of direct byte
+ * buffer pages when the index is off heap.
+ *
+ * Queries get a bitmap snapshot of a posting list, so that they do not see it change under them. A snapshot is made
+ * of two bitmaps: a sealed bitmap of the first docs, and a small bitmap of the docs appended since. The sealed
+ * bitmap is only rebuilt once enough docs were appended after it, so a query after an append copies at most the
+ * recent docs rather than the whole posting list. Snapshots are shared between queries and must not be modified.
+ */
+public abstract class BaseRealtimeInvertedIndex implements RealtimeInvertedIndex {
+  private static final int INITIAL_NUM_POSTING_LISTS = 1024;
+  private static final int MIN_BLOCK_SIZE = 8;
+  private static final int MAX_BLOCK_SIZE = 1 << 16;
+  private static final int PAGE_SIZE_IN_BYTES = MAX_BLOCK_SIZE * 4;
+  // Docs a snapshot keeps out of its sealed bitmap
+  private static final int MAX_UNSEALED_DOCS = 1 << 14;
+
+  private final String _columnName;
+  private final boolean _offHeap;
+
+  // Replaced when it grows, the array elements are published with volatile semantics
+  private volatile AtomicReferenceArray<PostingList> _postingLists =
+      new AtomicReferenceArray<PostingList>(INITIAL_NUM_POSTING_LISTS);
+
+  // Off heap pages the blocks are carved out of, only used by the indexing thread
+  private final List<ByteBuffer> _pages = new ArrayList<ByteBuffer>();
+  private ByteBuffer _currentPage;
+
+  public BaseRealtimeInvertedIndex(String columnName, boolean offHeap) {
+    _columnName = columnName;
+    _offHeap = offHeap;
+  }
+
+  @Override
+  public void add(Object dictId, int docId) {
+    add(((Integer) dictId).intValue(), docId);
+  }
+
+  @Override
+  public void add(int id, int docId) {
+    if (id < 0) {
+      // Null values are not in the dictionary
+      return;
+    }
+
+    AtomicReferenceArray<PostingList> postingLists = _postingLists;
+    if (id >= postingLists.length()) {
+      AtomicReferenceArray<PostingList> newPostingLists =
+          new AtomicReferenceArray<PostingList>(Math.max(postingLists.length() * 2, id + 1));
+      for (int i = 0; i < postingLists.length(); i++) {
+        newPostingLists.lazySet(i, postingLists.get(i));
+      }
+      postingLists = newPostingLists;
+      _postingLists = postingLists;
+    }
+
+    PostingList postingList = postingLists.get(id);
+    if (postingList == null) {
+      // Only expose the posting list once it holds a doc
+      postingList = new PostingList();
+      postingList.add(docId);
+      postingLists.set(id, postingList);
+    } else {
+      postingList.add(docId);
+    }
+  }
+
+  private PostingList getPostingList(int dictId) {
+    AtomicReferenceArray<PostingList> postingLists = _postingLists;
+    if (dictId < 0 || dictId >= postingLists.length()) {
+      return null;
+    }
+    return postingLists.get(dictId);
+  }
+
+  /**
+   * Returns whether any doc has been added for the dictionary id.
+   */
+  protected boolean hasDocIds(int dictId) {
+    return getPostingList(dictId) != null;
+  }
+
+  protected int getNumPostingLists() {
+    return _postingLists.length();
+  }
+
+  /**
+   * Returns a snapshot of the docs for the dictionary id, or null if there are none. The bitmap may be shared and
+   * must not be modified.
+   */
+  @Override
+  public MutableRoaringBitmap getDocIdSetFor(Object dicId) {
+    if (!(dicId instanceof Integer)) {
+      return null;
+    }
+    PostingList postingList = getPostingList((Integer) dicId);
+    if (postingList == null) {
+      return null;
+    }
+    return postingList.getSnapshot().getBitmap();
+  }
+
+  @Override
+  public ImmutableRoaringBitmap getImmutable(int idx) {
+    PostingList postingList = getPostingList(idx);
+    if (postingList == null) {
+      return null;
+    }
+    return postingList.getSnapshot().getBitmap();
+  }
+
+  @Override
+  public ImmutableRoaringBitmap[] getImmutableBitmaps(int dictId) {
+    PostingList postingList = getPostingList(dictId);
+    if (postingList == null) {
+      return null;
+    }
+    Snapshot snapshot = postingList.getSnapshot();
+    if (snapshot._unsealedBitmap.isEmpty()) {
+      return new ImmutableRoaringBitmap[] { snapshot._sealedBitmap };
+    }
+    return new ImmutableRoaringBitmap[] { snapshot._sealedBitmap, snapshot._unsealedBitmap };
+  }
+
+  @Override
+  public int[] getMinMaxRangeFor(int docId) {
+    throw new UnsupportedOperationException("");
+  }
+
+  @Override
+  public void close() throws IOException {
+    _postingLists = new AtomicReferenceArray<PostingList>(0);
+    for (ByteBuffer page : _pages) {
+      MmapUtils.unloadByteBuffer(page);
+    }
+    _pages.clear();
+    _currentPage = null;
+  }
+
+  private IntBuffer allocateBlock(int size) {
+    if (!_offHeap) {
+      return IntBuffer.allocate(size);
+    }
+    int sizeInBytes = size * 4;
+    if (_currentPage == null || _currentPage.remaining() < sizeInBytes) {
+      _currentPage = MmapUtils.allocateDirectByteBuffer(PAGE_SIZE_IN_BYTES, null,
+          getClass().getSimpleName() + " page for column " + _columnName);
+      _pages.add(_currentPage);
+    }
+    ByteBuffer block = _currentPage.slice();
+    block.limit(sizeInBytes);
+    _currentPage.position(_currentPage.position() + sizeInBytes);
+    return block.asIntBuffer();
+  }
+
+  private static class Snapshot {
+    // Docs before _numSealedDocs, and the docs after them
+    private final MutableRoaringBitmap _sealedBitmap;
+    private final int _numSealedDocs;
+    private final MutableRoaringBitmap _unsealedBitmap;
+    private final int _numDocs;
+    // Union of both bitmaps, merged on demand
+    private volatile MutableRoaringBitmap _bitmap;
+
+    private Snapshot(MutableRoaringBitmap sealedBitmap, int numSealedDocs, MutableRoaringBitmap unsealedBitmap,
+        int numDocs) {
+      _sealedBitmap = sealedBitmap;
+      _numSealedDocs = numSealedDocs;
+      _unsealedBitmap = unsealedBitmap;
+      _numDocs = numDocs;
+    }
+
+    /**
+     * Merges both bitmaps once, for the callers that need a single one.
+     */
+    private MutableRoaringBitmap getBitmap() {
+      if (_unsealedBitmap.isEmpty()) {
+        return _sealedBitmap;
+      }
+      MutableRoaringBitmap bitmap = _bitmap;
+      if (bitmap == null) {
+        bitmap = ImmutableRoaringBitmap.or(_sealedBitmap, _unsealedBitmap);
+        _bitmap = bitmap;
+      }
+      return bitmap;
+    }
+  }
+
+  private class PostingList {
+    private volatile IntBuffer[] _blocks = new IntBuffer[4];
+    private int _numBlocks = 0;
+    private int _numDocsInLastBlock = 0;
+    private volatile int _numDocs = 0;
+    private volatile Snapshot _snapshot;
+
+    private void add(int docId) {
+      IntBuffer[] blocks = _blocks;
+      if (_numBlocks == 0 || _numDocsInLastBlock == blocks[_numBlocks - 1].capacity()) {
+        if (_numBlocks == blocks.length) {
+          IntBuffer[] newBlocks = new IntBuffer[blocks.length * 2];
+          System.arraycopy(blocks, 0, newBlocks, 0, blocks.length);
+          blocks = newBlocks;
+        }
+        blocks[_numBlocks] = allocateBlock(Math.min(MIN_BLOCK_SIZE << _numBlocks, MAX_BLOCK_SIZE));
+        _blocks = blocks;
+        _numBlocks++;
+        _numDocsInLastBlock = 0;
+      }
+      blocks[_numBlocks - 1].put(_numDocsInLastBlock++, docId);
+      // Publish the doc id
+      _numDocs++;
+    }
+
+    private Snapshot getSnapshot() {
+      int numDocs = _numDocs;
+      Snapshot snapshot = _snapshot;
+      if (snapshot != null && snapshot._numDocs == numDocs) {
+        return snapshot;
+      }
+
+      MutableRoaringBitmap sealedBitmap;
+      int numSealedDocs;
+      MutableRoaringBitmap unsealedBitmap;
+      int start;
+      if (snapshot == null || snapshot._numDocs > numDocs) {
+        sealedBitmap = new MutableRoaringBitmap();
+        numSealedDocs = numDocs;
+        unsealedBitmap = new MutableRoaringBitmap();
+        start = 0;
+      } else if (numDocs - snapshot._numSealedDocs > MAX_UNSEALED_DOCS) {
+        // Seal the docs appended since the sealed bitmap was built, which only happens every MAX_UNSEALED_DOCS docs
+        sealedBitmap = ImmutableRoaringBitmap.or(snapshot._sealedBitmap, snapshot._unsealedBitmap);
+        numSealedDocs = numDocs;
+        unsealedBitmap = new MutableRoaringBitmap();
+        start = snapshot._numDocs;
+      } else {
+        // Only copy the recent docs
+        sealedBitmap = snapshot._sealedBitmap;
+        numSealedDocs = snapshot._numSealedDocs;
+        unsealedBitmap = snapshot._unsealedBitmap.clone();
+        start = snapshot._numDocs;
+      }
+
+      IntBuffer[] blocks = _blocks;
+      int blockStart = 0;
+      for (int i = 0; blockStart < numDocs; i++) {
+        IntBuffer block = blocks[i];
+        int blockEnd = blockStart + block.capacity();
+        for (int j = Math.max(start, blockStart); j < Math.min(numDocs, blockEnd); j++) {
+          if (j < numSealedDocs) {
+            sealedBitmap.add(block.get(j - blockStart));
+          } else {
+            unsealedBitmap.add(block.get(j - blockStart));
+          }
+        }
+        blockStart = blockEnd;
+      }
+
+      snapshot = new Snapshot(sealedBitmap, numSealedDocs, unsealedBitmap, numDocs);
+      _snapshot = snapshot;
+      return snapshot;
+    }
+  }
+}
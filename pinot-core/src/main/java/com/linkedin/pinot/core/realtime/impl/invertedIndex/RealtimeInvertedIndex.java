@@ -15,6 +15,7 @@
  */
 package com.linkedin.pinot.core.realtime.impl.invertedIndex;
 
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
 import org.roaringbitmap.buffer.MutableRoaringBitmap;
 
 import com.linkedin.pinot.core.segment.index.InvertedIndexReader;
@@ -23,6 +24,17 @@ import com.linkedin.pinot.core.segment.index.InvertedIndexReader;
 public interface RealtimeInvertedIndex extends InvertedIndexReader {
   public void add(Object dictId, int docId);
 
+  /**
+   * Same as {@link #add(Object, int)} without boxing the dictionary id.
+   */
+  public void add(int dictId, int docId);
+
   public MutableRoaringBitmap getDocIdSetFor(Object dicId);
 
+  /**
+   * Returns disjoint bitmaps whose union holds the docs for the dictionary id, or null if there are none. Unlike
+   * {@link #getImmutable(int)}, they are not merged into a single bitmap.
+   */
+  public ImmutableRoaringBitmap[] getImmutableBitmaps(int dictId);
+
 }
@@ -15,46 +15,13 @@
  */
 package com.linkedin.pinot.core.realtime.impl.invertedIndex;
 
-import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
-
-import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
-import org.roaringbitmap.buffer.MutableRoaringBitmap;
-
-
-public class TimeInvertedIndex implements RealtimeInvertedIndex {
-
-  private Map<Object, MutableRoaringBitmap> invertedIndex;
+public class TimeInvertedIndex extends BaseRealtimeInvertedIndex {
 
   public TimeInvertedIndex(String columnName) {
-    invertedIndex = new HashMap<Object, MutableRoaringBitmap>();
-  }
-
-  @Override
-  public void add(Object id, int docId) {
-    if (!invertedIndex.containsKey(id)) {
-      invertedIndex.put(id, new MutableRoaringBitmap());
-    }
-    invertedIndex.get(id).add(docId);
-  }
-
-  @Override
-  public MutableRoaringBitmap getDocIdSetFor(Object dicId) {
-    return invertedIndex.get(dicId);
-  }
-
-  @Override
-  public ImmutableRoaringBitmap getImmutable(int idx) {
-    return invertedIndex.get(idx);
-  }
-
-  @Override
-  public int[] getMinMaxRangeFor(int docId) {
-    throw new UnsupportedOperationException("");
+    this(columnName, false);
   }
 
-  @Override
-  public void close() throws IOException {
+  public TimeInvertedIndex(String columnName, boolean offHeap) {
+    super(columnName, offHeap);
   }
 }
@@ -0,0 +1,449 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.kafka;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import kafka.api.FetchRequest;
+import kafka.api.FetchRequestBuilder;
+import kafka.api.PartitionOffsetRequestInfo;
+import kafka.common.ErrorMapping;
+import kafka.common.TopicAndPartition;
+import kafka.javaapi.FetchResponse;
+import kafka.javaapi.OffsetRequest;
+import kafka.javaapi.OffsetResponse;
+import kafka.javaapi.PartitionMetadata;
+import kafka.javaapi.TopicMetadata;
+import kafka.javaapi.TopicMetadataRequest;
+import kafka.javaapi.TopicMetadataResponse;
+import kafka.javaapi.consumer.SimpleConsumer;
+import kafka.message.MessageAndOffset;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linkedin.pinot.common.metadata.stream.KafkaStreamMetadata;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.realtime.StreamProvider;
+import com.linkedin.pinot.core.realtime.StreamProviderConfig;
+import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.Counter;
+import com.yammer.metrics.core.MetricName;
+
+
+/**
+ * Consumes a single partition of a topic through the simple consumer, starting from an explicit offset, so that
+ * consumption does not depend on consumer group rebalances and every replica consuming the partition from the same
+ * offset gets the same rows.
+ *
+ * A fetch thread fetches large message sets from the partition leader, a decode thread decodes them, and
+ * {@link #next()} hands out the decoded rows. Both stages are connected by bounded queues, so fetching the next
+ * message set overlaps with decoding and indexing the current one. {@link #currentOffset()} is the offset of the
+ * message after the last row returned, which is what the caller checkpoints to resume from.
+ */
+public class KafkaLowLevelConsumerStreamProvider implements StreamProvider {
+  private static final Logger LOGGER = LoggerFactory.getLogger(KafkaLowLevelConsumerStreamProvider.class);
+
+  private static final int SOCKET_TIMEOUT_MILLIS = 30000;
+  private static final int SOCKET_BUFFER_SIZE = 512 * 1024;
+  private static final int ERROR_BACKOFF_MILLIS = 1000;
+  // Message sets fetched ahead of the decode thread
+  private static final int FETCHED_BATCH_QUEUE_SIZE = 4;
+  // Rows decoded ahead of the consuming thread
+  private static final int DECODED_MESSAGE_QUEUE_SIZE = 10000;
+
+  private static Counter kafkaEventsConsumedCount = Metrics.newCounter(new MetricName(KafkaLowLevelConsumerStreamProvider.class, "kafkaEventsConsumedCount"));
+  private static Counter kafkaEventsFailedCount = Metrics.newCounter(new MetricName(KafkaLowLevelConsumerStreamProvider.class, "kafkaEventsFailedCount"));
+  private static Counter kafkaEventsCommitCount = Metrics.newCounter(new MetricName(KafkaLowLevelConsumerStreamProvider.class, "kafkaEventsCommitCount"));
+  private static Counter kafkaFetchRequestCount = Metrics.newCounter(new MetricName(KafkaLowLevelConsumerStreamProvider.class, "kafkaFetchRequestCount"));
+
+  private KafkaLowLevelStreamProviderConfig streamProviderConfig;
+  private KafkaMessageDecoder decoder;
+  private String topic;
+  private int partition;
+
+  private final BlockingQueue<List<FetchedMessage>> fetchedBatches =
+      new ArrayBlockingQueue<List<FetchedMessage>>(FETCHED_BATCH_QUEUE_SIZE);
+  private final BlockingQueue<DecodedMessage> decodedMessages =
+      new ArrayBlockingQueue<DecodedMessage>(DECODED_MESSAGE_QUEUE_SIZE);
+  private volatile boolean running = false;
+  private Thread fetchThread;
+  private Thread decodeThread;
+
+  private boolean started = false;
+  // Offset to start from, -1 to start from the offset reset
+  private long startOffset = -1;
+  private long currentOffset = -1;
+  private long committedOffset = -1;
+  // Offset after the last message of the partition as of the latest fetch, -1 until the first fetch
+  private volatile long highWatermark = -1;
+
+  @Override
+  public void init(StreamProviderConfig streamProviderConfig) throws Exception {
+    this.streamProviderConfig = (KafkaLowLevelStreamProviderConfig) streamProviderConfig;
+    this.decoder = this.streamProviderConfig.getDecoder();
+    this.topic = this.streamProviderConfig.getTopicName();
+    this.partition = this.streamProviderConfig.getPartition();
+  }
+
+  @Override
+  public void start() throws Exception {
+    if (startOffset < 0) {
+      startOffset = fetchResetOffset(streamProviderConfig);
+    }
+    LOGGER.info("Starting to consume partition {} of topic {} from offset {}", partition, topic, startOffset);
+    started = true;
+    startPipeline(startOffset);
+  }
+
+  /**
+   * Moves the consumption to the given offset, dropping the messages fetched ahead. Before {@link #start()}, sets
+   * the offset to start from.
+   */
+  @Override
+  public void setOffset(long offset) {
+    startOffset = offset;
+    if (started) {
+      stopPipeline();
+      startPipeline(offset);
+    }
+  }
+
+  /**
+   * Returns the next decoded row, or null when no message arrived within the fetch timeout. Messages that fail to
+   * decode are skipped.
+   */
+  @Override
+  public GenericRow next() {
+    try {
+      while (running) {
+        DecodedMessage message =
+            decodedMessages.poll(streamProviderConfig.getFetchTimeoutMillis(), TimeUnit.MILLISECONDS);
+        if (message == null) {
+          return null;
+        }
+        currentOffset = message.nextOffset;
+        if (message.row != null) {
+          kafkaEventsConsumedCount.inc();
+          return message.row;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return null;
+  }
+
+  @Override
+  public GenericRow next(long offset) {
+    setOffset(offset);
+    return next();
+  }
+
+  @Override
+  public long currentOffset() {
+    return currentOffset;
+  }
+
+  @Override
+  public void commit() {
+    commit(currentOffset);
+  }
+
+  /**
+   * The consumer keeps no offsets in Kafka, the caller persists the offset (in the segment ZK metadata) and resumes
+   * from it with {@link #setOffset(long)}.
+   */
+  @Override
+  public void commit(long offset) {
+    committedOffset = offset;
+    kafkaEventsCommitCount.inc();
+  }
+
+  public long getCommittedOffset() {
+    return committedOffset;
+  }
+
+  /**
+   * Returns the offset after the last message of the partition as of the latest fetch, so that the consumer lag is
+   * the high watermark minus the current offset. Returns -1 before the first fetch.
+   */
+  public long getHighWatermark() {
+    return highWatermark;
+  }
+
+  @Override
+  public void shutdown() throws Exception {
+    stopPipeline();
+    started = false;
+  }
+
+  private void startPipeline(final long offset) {
+    currentOffset = offset;
+    running = true;
+    fetchThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        fetchLoop(offset);
+      }
+    }, "kafka-fetch-" + topic + "-" + partition);
+    decodeThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        decodeLoop();
+      }
+    }, "kafka-decode-" + topic + "-" + partition);
+    fetchThread.setDaemon(true);
+    decodeThread.setDaemon(true);
+    fetchThread.start();
+    decodeThread.start();
+  }
+
+  private void stopPipeline() {
+    running = false;
+    for (Thread thread : new Thread[] { fetchThread, decodeThread }) {
+      if (thread != null) {
+        thread.interrupt();
+        try {
+          thread.join(SOCKET_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+    fetchedBatches.clear();
+    decodedMessages.clear();
+  }
+
+  private void fetchLoop(long offset) {
+    SimpleConsumer consumer = null;
+    try {
+      while (running) {
+        try {
+          if (consumer == null) {
+            consumer = connectToLeader(streamProviderConfig);
+          }
+          FetchRequest request = new FetchRequestBuilder().clientId(streamProviderConfig.getClientId())
+              .addFetch(topic, partition, offset, streamProviderConfig.getFetchSize())
+              .maxWait(streamProviderConfig.getFetchTimeoutMillis()).minBytes(1).build();
+          FetchResponse response = consumer.fetch(request);
+          kafkaFetchRequestCount.inc();
+
+          if (response.hasError()) {
+            short errorCode = response.errorCode(topic, partition);
+            if (errorCode == ErrorMapping.OffsetOutOfRangeCode()) {
+              long resetOffset = fetchResetOffset(consumer, streamProviderConfig);
+              LOGGER.warn("Offset {} of partition {} of topic {} is out of range, resetting to offset {}", offset,
+                  partition, topic, resetOffset);
+              offset = resetOffset;
+            } else {
+              // Most likely the leader moved, look it up again
+              LOGGER.warn("Caught error code {} while fetching partition {} of topic {}", errorCode, partition, topic);
+              consumer.close();
+              consumer = null;
+              Thread.sleep(ERROR_BACKOFF_MILLIS);
+            }
+            continue;
+          }
+          highWatermark = response.highWatermark(topic, partition);
+
+          List<FetchedMessage> batch = new ArrayList<FetchedMessage>();
+          for (MessageAndOffset messageAndOffset : response.messageSet(topic, partition)) {
+            // Compressed message sets can start before the requested offset
+            if (messageAndOffset.offset() < offset) {
+              continue;
+            }
+            ByteBuffer payload = messageAndOffset.message().payload();
+            byte[] bytes = null;
+            if (payload != null) {
+              bytes = new byte[payload.remaining()];
+              payload.get(bytes);
+            }
+            batch.add(new FetchedMessage(bytes, messageAndOffset.nextOffset()));
+            offset = messageAndOffset.nextOffset();
+          }
+          if (!batch.isEmpty()) {
+            fetchedBatches.put(batch);
+          }
+        } catch (InterruptedException e) {
+          throw e;
+        } catch (Exception e) {
+          if (!running) {
+            break;
+          }
+          LOGGER.warn("Caught exception while fetching partition {} of topic {}", partition, topic, e);
+          if (consumer != null) {
+            consumer.close();
+            consumer = null;
+          }
+          Thread.sleep(ERROR_BACKOFF_MILLIS);
+        }
+      }
+    } catch (InterruptedException e) {
+      // Stopped
+    } finally {
+      if (consumer != null) {
+        consumer.close();
+      }
+    }
+  }
+
+  private void decodeLoop() {
+    try {
+      while (running) {
+        for (FetchedMessage message : fetchedBatches.take()) {
+          GenericRow row = null;
+          if (message.payload != null) {
+            try {
+              row = decoder.decode(message.payload);
+            } catch (Exception e) {
+              LOGGER.warn("Caught exception while decoding message from partition {} of topic {}", partition, topic,
+                  e);
+            }
+          }
+          if (row == null) {
+            kafkaEventsFailedCount.inc();
+          }
+          decodedMessages.put(new DecodedMessage(row, message.nextOffset));
+        }
+      }
+    } catch (InterruptedException e) {
+      // Stopped
+    }
+  }
+
+  /**
+   * Returns the offset the partition of the config starts from when no offset was checkpointed for it, as configured
+   * by its offset reset.
+   */
+  public static long fetchResetOffset(KafkaLowLevelStreamProviderConfig streamProviderConfig) {
+    SimpleConsumer consumer = connectToLeader(streamProviderConfig);
+    try {
+      return fetchResetOffset(consumer, streamProviderConfig);
+    } finally {
+      consumer.close();
+    }
+  }
+
+  private static long fetchResetOffset(SimpleConsumer consumer,
+      KafkaLowLevelStreamProviderConfig streamProviderConfig) {
+    String topic = streamProviderConfig.getTopicName();
+    int partition = streamProviderConfig.getPartition();
+    long time = streamProviderConfig.isOffsetResetToSmallest() ? kafka.api.OffsetRequest.EarliestTime()
+        : kafka.api.OffsetRequest.LatestTime();
+    Map<TopicAndPartition, PartitionOffsetRequestInfo> requestInfo =
+        new HashMap<TopicAndPartition, PartitionOffsetRequestInfo>();
+    requestInfo.put(new TopicAndPartition(topic, partition), new PartitionOffsetRequestInfo(time, 1));
+    OffsetResponse response = consumer.getOffsetsBefore(
+        new OffsetRequest(requestInfo, kafka.api.OffsetRequest.CurrentVersion(), streamProviderConfig.getClientId()));
+    if (response.hasError()) {
+      throw new RuntimeException("Caught error code " + response.errorCode(topic, partition)
+          + " while fetching the offset of partition " + partition + " of topic " + topic);
+    }
+    return response.offsets(topic, partition)[0];
+  }
+
+  /**
+   * Returns the number of partitions of the topic of the stream, looked up from its bootstrap hosts.
+   */
+  public static int fetchPartitionCount(KafkaStreamMetadata kafkaStreamMetadata) {
+    String topic = kafkaStreamMetadata.getKafkaTopicName();
+    List<String> bootstrapHosts = KafkaLowLevelStreamProviderConfig.splitHosts(kafkaStreamMetadata.getBootstrapHosts());
+    for (String bootstrapHost : bootstrapHosts) {
+      String[] hostAndPort = bootstrapHost.split(":");
+      SimpleConsumer bootstrapConsumer = null;
+      try {
+        bootstrapConsumer = new SimpleConsumer(hostAndPort[0], Integer.parseInt(hostAndPort[1]),
+            SOCKET_TIMEOUT_MILLIS, SOCKET_BUFFER_SIZE, topic);
+        TopicMetadataResponse response =
+            bootstrapConsumer.send(new TopicMetadataRequest(Collections.singletonList(topic)));
+        for (TopicMetadata topicMetadata : response.topicsMetadata()) {
+          if (topic.equals(topicMetadata.topic()) && topicMetadata.errorCode() == ErrorMapping.NoError()) {
+            return topicMetadata.partitionsMetadata().size();
+          }
+        }
+      } catch (Exception e) {
+        LOGGER.warn("Caught exception while looking up the partitions of topic {} from {}", topic, bootstrapHost, e);
+      } finally {
+        if (bootstrapConsumer != null) {
+          bootstrapConsumer.close();
+        }
+      }
+    }
+    throw new RuntimeException("Could not find the partitions of topic " + topic + " from " + bootstrapHosts);
+  }
+
+  private static SimpleConsumer connectToLeader(KafkaLowLevelStreamProviderConfig streamProviderConfig) {
+    String topic = streamProviderConfig.getTopicName();
+    int partition = streamProviderConfig.getPartition();
+    for (String bootstrapHost : streamProviderConfig.getBootstrapHosts()) {
+      String[] hostAndPort = bootstrapHost.split(":");
+      SimpleConsumer bootstrapConsumer = null;
+      try {
+        bootstrapConsumer = new SimpleConsumer(hostAndPort[0], Integer.parseInt(hostAndPort[1]),
+            SOCKET_TIMEOUT_MILLIS, SOCKET_BUFFER_SIZE, streamProviderConfig.getClientId());
+        TopicMetadataResponse response =
+            bootstrapConsumer.send(new TopicMetadataRequest(Collections.singletonList(topic)));
+        for (TopicMetadata topicMetadata : response.topicsMetadata()) {
+          for (PartitionMetadata partitionMetadata : topicMetadata.partitionsMetadata()) {
+            if (partitionMetadata.partitionId() == partition && partitionMetadata.leader() != null) {
+              return new SimpleConsumer(partitionMetadata.leader().host(), partitionMetadata.leader().port(),
+                  SOCKET_TIMEOUT_MILLIS, SOCKET_BUFFER_SIZE, streamProviderConfig.getClientId());
+            }
+          }
+        }
+      } catch (Exception e) {
+        LOGGER.warn("Caught exception while looking up the leader of partition {} of topic {} from {}", partition,
+            topic, bootstrapHost, e);
+      } finally {
+        if (bootstrapConsumer != null) {
+          bootstrapConsumer.close();
+        }
+      }
+    }
+    throw new RuntimeException("Could not find the leader of partition " + partition + " of topic " + topic
+        + " from " + streamProviderConfig.getBootstrapHosts());
+  }
+
+  private static class FetchedMessage {
+    private final byte[] payload;
+    private final long nextOffset;
+
+    private FetchedMessage(byte[] payload, long nextOffset) {
+      this.payload = payload;
+      this.nextOffset = nextOffset;
+    }
+  }
+
+  private static class DecodedMessage {
+    // Null when the message could not be decoded
+    private final GenericRow row;
+    private final long nextOffset;
+
+    private DecodedMessage(GenericRow row, long nextOffset) {
+      this.row = row;
+      this.nextOffset = nextOffset;
+    }
+  }
+}
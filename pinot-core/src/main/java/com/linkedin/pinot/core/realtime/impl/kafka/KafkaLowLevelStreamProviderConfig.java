@@ -0,0 +1,211 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.kafka;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.linkedin.pinot.common.config.AbstractTableConfig;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.metadata.instance.InstanceZKMetadata;
+import com.linkedin.pinot.common.metadata.stream.KafkaStreamMetadata;
+import com.linkedin.pinot.common.utils.CommonConstants.Helix;
+import com.linkedin.pinot.common.utils.StringUtil;
+import com.linkedin.pinot.core.realtime.StreamProviderConfig;
+
+
+/**
+ * Config of {@link KafkaLowLevelConsumerStreamProvider}, which consumes a single partition of a topic.
+ */
+public class KafkaLowLevelStreamProviderConfig implements StreamProviderConfig {
+  public static final int DEFAULT_FETCH_SIZE = 2 * 1024 * 1024;
+  public static final int DEFAULT_FETCH_TIMEOUT_MILLIS = 1000;
+  public static final String OFFSET_RESET_SMALLEST = "smallest";
+  public static final String OFFSET_RESET_LARGEST = "largest";
+
+  private String kafkaTopicName;
+  private int partition = -1;
+  private List<String> bootstrapHosts;
+  private String decodeKlass;
+  private Schema indexingSchema;
+  private Map<String, String> decoderProps;
+  private int fetchSize = DEFAULT_FETCH_SIZE;
+  private int fetchTimeoutMillis = DEFAULT_FETCH_TIMEOUT_MILLIS;
+  private String offsetReset = OFFSET_RESET_LARGEST;
+  private String clientId;
+  private long segmentTimeInMillis = KafkaHighLevelStreamProviderConfig.ONE_HOUR;
+  private int realtimeRecordsThreshold = KafkaHighLevelStreamProviderConfig.FIVE_MILLION;
+
+  /*
+   * kafka.topic.name : topic to consume
+   * kafka.lowlevel.broker.list : comma separated host:port list of brokers to discover the partition leader from
+   * kafka.lowlevel.partition : partition to consume
+   * kafka.lowlevel.fetch.size : max bytes fetched from the partition per request
+   * kafka.lowlevel.fetch.timeout.millis : max time a fetch waits for new messages
+   * kafka.lowlevel.offset.reset : smallest or largest, where to start without an offset or with an expired one
+   * kafka.decoder.class.name : the absolute path of the decoder class name
+   * kafka.decoder.props1 : every property that is prefixed with kafka.decoder.
+   * */
+
+  @Override
+  public void init(Map<String, String> properties, Schema schema) {
+    decoderProps = new HashMap<String, String>();
+    indexingSchema = schema;
+    kafkaTopicName = properties.get(Helix.DataSource.Realtime.Kafka.TOPIC_NAME);
+    decodeKlass = properties.get(Helix.DataSource.Realtime.Kafka.DECODER_CLASS);
+    bootstrapHosts = splitHosts(properties.get(Helix.DataSource.Realtime.Kafka.LowLevelConsumer.BROKER_LIST));
+    if (properties.containsKey(Helix.DataSource.Realtime.Kafka.LowLevelConsumer.PARTITION)) {
+      partition = Integer.parseInt(properties.get(Helix.DataSource.Realtime.Kafka.LowLevelConsumer.PARTITION));
+    }
+    initConsumerProperties(properties);
+
+    for (String key : properties.keySet()) {
+      if (key.startsWith(Helix.DataSource.Realtime.Kafka.DECODER_PROPS_PREFIX)) {
+        decoderProps.put(Helix.DataSource.Realtime.Kafka.getDecoderPropertyKey(key), properties.get(key));
+      }
+    }
+    validate();
+  }
+
+  /**
+   * The partition consumed is the partition the instance got assigned for the table.
+   */
+  @Override
+  public void init(AbstractTableConfig tableConfig, InstanceZKMetadata instanceMetadata, Schema schema) {
+    indexingSchema = schema;
+    KafkaStreamMetadata kafkaMetadata = new KafkaStreamMetadata(tableConfig.getIndexingConfig().getStreamConfigs());
+    kafkaTopicName = kafkaMetadata.getKafkaTopicName();
+    decodeKlass = kafkaMetadata.getDecoderClass();
+    decoderProps = kafkaMetadata.getDecoderProperties();
+    bootstrapHosts = splitHosts(kafkaMetadata.getBootstrapHosts());
+    String instancePartition = instanceMetadata.getPartition(tableConfig.getTableName());
+    if (instancePartition != null) {
+      partition = Integer.parseInt(instancePartition);
+    }
+    clientId = StringUtil.join("_", tableConfig.getTableName(), instanceMetadata.getId());
+
+    // The stream configs of the table keep their stream prefix
+    Map<String, String> properties = new HashMap<String, String>();
+    for (Map.Entry<String, String> entry : kafkaMetadata.getKafkaConfigs().entrySet()) {
+      properties.put(entry.getKey().substring(Helix.DataSource.STREAM_PREFIX.length() + 1), entry.getValue());
+    }
+    properties.putAll(tableConfig.getIndexingConfig().getStreamConfigs());
+    initConsumerProperties(properties);
+    validate();
+  }
+
+  private void initConsumerProperties(Map<String, String> properties) {
+    if (properties.containsKey(Helix.DataSource.Realtime.Kafka.LowLevelConsumer.FETCH_SIZE)) {
+      fetchSize = Integer.parseInt(properties.get(Helix.DataSource.Realtime.Kafka.LowLevelConsumer.FETCH_SIZE));
+    }
+    if (properties.containsKey(Helix.DataSource.Realtime.Kafka.LowLevelConsumer.FETCH_TIMEOUT_MILLIS)) {
+      fetchTimeoutMillis =
+          Integer.parseInt(properties.get(Helix.DataSource.Realtime.Kafka.LowLevelConsumer.FETCH_TIMEOUT_MILLIS));
+    }
+    if (properties.containsKey(Helix.DataSource.Realtime.Kafka.LowLevelConsumer.OFFSET_RESET)) {
+      offsetReset = properties.get(Helix.DataSource.Realtime.Kafka.LowLevelConsumer.OFFSET_RESET);
+    }
+    if (properties.containsKey(Helix.DataSource.Realtime.REALTIME_SEGMENT_FLUSH_SIZE)) {
+      realtimeRecordsThreshold = Integer.parseInt(properties.get(Helix.DataSource.Realtime.REALTIME_SEGMENT_FLUSH_SIZE));
+    }
+    if (properties.containsKey(Helix.DataSource.Realtime.REALTIME_SEGMENT_FLUSH_TIME)) {
+      segmentTimeInMillis = Long.parseLong(properties.get(Helix.DataSource.Realtime.REALTIME_SEGMENT_FLUSH_TIME));
+    }
+    if (clientId == null) {
+      clientId = StringUtil.join("_", kafkaTopicName, Integer.toString(partition));
+    }
+  }
+
+  private void validate() {
+    if (kafkaTopicName == null || bootstrapHosts.isEmpty() || partition < 0 || decodeKlass == null) {
+      throw new RuntimeException("Cannot initialize KafkaLowLevelStreamProviderConfig as: kafkaTopicName = "
+          + kafkaTopicName + ", bootstrapHosts = " + bootstrapHosts + ", partition = " + partition
+          + ", decodeKlass = " + decodeKlass);
+    }
+    if (!OFFSET_RESET_SMALLEST.equals(offsetReset) && !OFFSET_RESET_LARGEST.equals(offsetReset)) {
+      throw new RuntimeException("Invalid offset reset: " + offsetReset + ", expected " + OFFSET_RESET_SMALLEST
+          + " or " + OFFSET_RESET_LARGEST);
+    }
+  }
+
+  static List<String> splitHosts(String hosts) {
+    List<String> hostList = new ArrayList<String>();
+    if (hosts != null) {
+      for (String host : hosts.split(",")) {
+        if (!host.trim().isEmpty()) {
+          hostList.add(host.trim());
+        }
+      }
+    }
+    return hostList;
+  }
+
+  @Override
+  public Schema getSchema() {
+    return indexingSchema;
+  }
+
+  public String getTopicName() {
+    return kafkaTopicName;
+  }
+
+  public int getPartition() {
+    return partition;
+  }
+
+  public List<String> getBootstrapHosts() {
+    return bootstrapHosts;
+  }
+
+  public int getFetchSize() {
+    return fetchSize;
+  }
+
+  public int getFetchTimeoutMillis() {
+    return fetchTimeoutMillis;
+  }
+
+  public boolean isOffsetResetToSmallest() {
+    return OFFSET_RESET_SMALLEST.equals(offsetReset);
+  }
+
+  public String getClientId() {
+    return clientId;
+  }
+
+  public KafkaMessageDecoder getDecoder() throws Exception {
+    KafkaMessageDecoder ret = (KafkaMessageDecoder) Class.forName(decodeKlass).newInstance();
+    ret.init(decoderProps, indexingSchema, kafkaTopicName);
+    return ret;
+  }
+
+  @Override
+  public String getStreamProviderClass() {
+    return KafkaLowLevelConsumerStreamProvider.class.getName();
+  }
+
+  @Override
+  public int getSizeThresholdToFlushSegment() {
+    return realtimeRecordsThreshold;
+  }
+
+  @Override
+  public long getTimeThresholdToFlushSegment() {
+    return segmentTimeInMillis;
+  }
+}
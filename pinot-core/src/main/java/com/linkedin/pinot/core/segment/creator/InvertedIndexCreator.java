@@ -17,6 +17,8 @@ package com.linkedin.pinot.core.segment.creator;
 
 import java.io.IOException;
 
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
 
 /**
  * Nov 21, 2014
@@ -32,6 +34,11 @@ public interface InvertedIndexCreator {
 
   public void add(int docIds, Object dictionaryIds);
 
+  /**
+   * Adds all the docs of a dictionary id at once, when they are already known as a bitmap.
+   */
+  public void addDocIds(int dictionaryId, ImmutableRoaringBitmap docIds);
+
   public long totalTimeTakeSoFar();
 
   public void seal() throws IOException;
@@ -0,0 +1,268 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.creator.impl;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.core.data.GenericRow;
+
+
+/**
+ * Buffers the rows read during the statistics pass of segment creation column by column, so that the indexing pass
+ * does not have to read and decode the input again.
+ *
+ * Each column keeps its distinct values in first seen order, plus a stream of ids into them: one id per row for
+ * single value columns, the number of values followed by their ids for multi value columns. The id streams are
+ * kept on heap, or spilled to files in a temporary directory, and are read back sequentially once per column, so
+ * the columns can be indexed in parallel.
+ */
+public class ColumnarRowBuffer implements ColumnarRowSource, Closeable {
+  private static final int SPILL_BUFFER_SIZE = 64 * 1024;
+
+  private final Map<String, ColumnBuffer> columnBuffers = new HashMap<String, ColumnBuffer>();
+  private final File spillDir;
+  private int numRows = 0;
+
+  /**
+   * @param schema schema of the rows
+   * @param spillDir directory to spill the id streams to, or null to keep them on heap
+   */
+  public ColumnarRowBuffer(Schema schema, File spillDir) throws IOException {
+    this.spillDir = spillDir;
+    if (spillDir != null) {
+      spillDir.mkdirs();
+    }
+    for (FieldSpec spec : schema.getAllFieldSpecs()) {
+      IdStream ids;
+      if (spillDir == null) {
+        ids = new HeapIdStream();
+      } else {
+        ids = new FileIdStream(new File(spillDir, spec.getName() + ".ids"));
+      }
+      columnBuffers.put(spec.getName(), new ColumnBuffer(spec.isSingleValueField(), ids));
+    }
+  }
+
+  public void addRow(GenericRow row) throws IOException {
+    for (Map.Entry<String, ColumnBuffer> entry : columnBuffers.entrySet()) {
+      entry.getValue().add(row.getValue(entry.getKey()));
+    }
+    numRows++;
+  }
+
+  @Override
+  public int getNumRows() {
+    return numRows;
+  }
+
+  /**
+   * Ends the buffering, columns can only be read afterwards.
+   */
+  public void seal() throws IOException {
+    for (ColumnBuffer columnBuffer : columnBuffers.values()) {
+      columnBuffer.ids.seal();
+    }
+  }
+
+  @Override
+  public Object[] getDistinctValues(String column) {
+    List<Object> values = columnBuffers.get(column).values;
+    return values.toArray(new Object[values.size()]);
+  }
+
+  @Override
+  public ColumnReader getColumnReader(String column) throws IOException {
+    return new ColumnReader(columnBuffers.get(column).ids.reader());
+  }
+
+  /**
+   * The rows are only buffered as ids, the inverted indexes are built from them.
+   */
+  @Override
+  public ImmutableRoaringBitmap[] getDistinctValueRows(String column) {
+    return null;
+  }
+
+  @Override
+  public void close() throws IOException {
+    columnBuffers.clear();
+    if (spillDir != null) {
+      FileUtils.deleteQuietly(spillDir);
+    }
+  }
+
+  public static class ColumnReader implements ColumnIdReader {
+    private final IdReader ids;
+
+    private ColumnReader(IdReader ids) {
+      this.ids = ids;
+    }
+
+    @Override
+    public int nextSingleValueId() throws IOException {
+      return ids.next();
+    }
+
+    @Override
+    public int[] nextMultiValueIds() throws IOException {
+      int[] valueIds = new int[ids.next()];
+      for (int i = 0; i < valueIds.length; i++) {
+        valueIds[i] = ids.next();
+      }
+      return valueIds;
+    }
+
+    @Override
+    public void close() throws IOException {
+      ids.close();
+    }
+  }
+
+  private static class ColumnBuffer {
+    private final boolean isSingleValue;
+    private final IdStream ids;
+    private final Object2IntOpenHashMap<Object> valueToId = new Object2IntOpenHashMap<Object>();
+    private final List<Object> values = new ArrayList<Object>();
+
+    ColumnBuffer(boolean isSingleValue, IdStream ids) {
+      this.isSingleValue = isSingleValue;
+      this.ids = ids;
+      valueToId.defaultReturnValue(-1);
+    }
+
+    void add(Object value) throws IOException {
+      if (isSingleValue) {
+        ids.add(getId(value));
+      } else {
+        Object[] multiValues = (Object[]) value;
+        ids.add(multiValues.length);
+        for (Object multiValue : multiValues) {
+          ids.add(getId(multiValue));
+        }
+      }
+    }
+
+    private int getId(Object value) {
+      int id = valueToId.getInt(value);
+      if (id == -1) {
+        id = values.size();
+        valueToId.put(value, id);
+        values.add(value);
+      }
+      return id;
+    }
+  }
+
+  private interface IdStream {
+    void add(int id) throws IOException;
+
+    void seal() throws IOException;
+
+    IdReader reader() throws IOException;
+  }
+
+  private interface IdReader extends Closeable {
+    int next() throws IOException;
+  }
+
+  private static class HeapIdStream implements IdStream {
+    private final IntArrayList ids = new IntArrayList();
+
+    @Override
+    public void add(int id) {
+      ids.add(id);
+    }
+
+    @Override
+    public void seal() {
+      ids.trim();
+    }
+
+    @Override
+    public IdReader reader() {
+      final int[] elements = ids.elements();
+      return new IdReader() {
+        private int index = 0;
+
+        @Override
+        public int next() {
+          return elements[index++];
+        }
+
+        @Override
+        public void close() {
+        }
+      };
+    }
+  }
+
+  private static class FileIdStream implements IdStream {
+    private final File file;
+    private final DataOutputStream out;
+
+    FileIdStream(File file) throws IOException {
+      this.file = file;
+      out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), SPILL_BUFFER_SIZE));
+    }
+
+    @Override
+    public void add(int id) throws IOException {
+      out.writeInt(id);
+    }
+
+    @Override
+    public void seal() throws IOException {
+      out.close();
+    }
+
+    @Override
+    public IdReader reader() throws IOException {
+      final DataInputStream in =
+          new DataInputStream(new BufferedInputStream(new FileInputStream(file), SPILL_BUFFER_SIZE));
+      return new IdReader() {
+        @Override
+        public int next() throws IOException {
+          return in.readInt();
+        }
+
+        @Override
+        public void close() throws IOException {
+          in.close();
+        }
+      };
+    }
+  }
+}
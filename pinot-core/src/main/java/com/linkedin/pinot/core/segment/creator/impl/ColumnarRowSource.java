@@ -0,0 +1,57 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.creator.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
+
+/**
+ * Rows laid out column by column, as indexed by {@link SegmentColumnarIndexCreator#indexColumns(ColumnarRowSource)}.
+ *
+ * Each column has its distinct values and, row by row, ids into them, so that the segment dictionary is looked up
+ * once per distinct value instead of once per row.
+ */
+public interface ColumnarRowSource {
+  int getNumRows();
+
+  /**
+   * The distinct values of a column, indexed by the ids returned by its reader.
+   */
+  Object[] getDistinctValues(String column);
+
+  ColumnIdReader getColumnReader(String column) throws IOException;
+
+  /**
+   * The rows of each distinct value of a column, indexed like the distinct values, or null if the inverted index has
+   * to be built from the ids read.
+   */
+  ImmutableRoaringBitmap[] getDistinctValueRows(String column);
+
+  /**
+   * Reads the value ids of one column, row by row.
+   */
+  interface ColumnIdReader extends Closeable {
+    int nextSingleValueId() throws IOException;
+
+    /**
+     * Returns a new array, which the caller is free to modify.
+     */
+    int[] nextMultiValueIds() throws IOException;
+  }
+}
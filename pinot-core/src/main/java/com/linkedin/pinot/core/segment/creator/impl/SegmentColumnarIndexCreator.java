@@ -40,11 +40,23 @@ import static com.linkedin.pinot.core.segment.creator.impl.V1Constants.MetadataK
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.configuration.PropertiesConfiguration;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
 
 import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.data.Schema;
@@ -59,6 +71,7 @@ import com.linkedin.pinot.core.segment.creator.SegmentCreator;
 import com.linkedin.pinot.core.segment.creator.impl.fwd.MultiValueUnsortedForwardIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueSortedForwardIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueUnsortedForwardIndexCreator;
+import com.linkedin.pinot.core.segment.creator.impl.bloom.BloomFilterCreator;
 import com.linkedin.pinot.core.segment.creator.impl.inv.BitmapInvertedIndexCreator;
 
 
@@ -82,6 +95,16 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
   private int totalDocs;
   private int docIdCounter;
   private Map<String, Map<Object, Object>> dictionaryCache = new HashMap<String, Map<Object, Object>>();
+  private ExecutorService executor;
+  private final Set<String> sealedColumns = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+  /**
+   * Sets the executor used to build dictionaries and to index buffered rows one column per task. Without one,
+   * everything runs in the calling thread.
+   */
+  public void setExecutor(ExecutorService executor) {
+    this.executor = executor;
+  }
 
   @Override
   public void init(SegmentGeneratorConfig segmentCreationSpec,
@@ -118,9 +141,15 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
       }
     }
 
-    // For each column, build its dictionary and initialize a forwards and an inverted index
+    runForEachColumn(dictionaryCreatorMap.keySet(), new ColumnTask() {
+      @Override
+      public void run(String column) throws Exception {
+        dictionaryCreatorMap.get(column).build();
+      }
+    });
+
+    // For each column, initialize a forwards and an inverted index
     for (final String column : dictionaryCreatorMap.keySet()) {
-      dictionaryCreatorMap.get(column).build();
       dictionaryCache.put(column, new HashMap<Object, Object>());
       ColumnIndexCreationInfo indexCreationInfo = indexCreationInfoMap.get(column);
       int uniqueValueCount = indexCreationInfo.getDistinctValueCount();
@@ -181,6 +210,74 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
     docIdCounter++;
   }
 
+  /**
+   * Indexes all the rows of the source, which replaces calls to {@link #indexRow(GenericRow)}. Each column is
+   * indexed by its own task; the values of a column are looked up in its dictionary once per distinct value, and its
+   * forward and inverted indexes are closed as soon as it is done. When the source already knows the rows of each
+   * distinct value, the inverted index is built from them rather than row by row.
+   */
+  public void indexColumns(final ColumnarRowSource rowSource) throws Exception {
+    final int numRows = rowSource.getNumRows();
+    runForEachColumn(dictionaryCreatorMap.keySet(), new ColumnTask() {
+      @Override
+      public void run(String column) throws Exception {
+        Object[] values = rowSource.getDistinctValues(column);
+        SegmentDictionaryCreator dictionaryCreator = dictionaryCreatorMap.get(column);
+        int[] dictionaryIds = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+          dictionaryIds[i] = dictionaryCreator.indexOfSV(values[i]);
+        }
+
+        ForwardIndexCreator forwardIndexCreator = forwardIndexCreatorMap.get(column);
+        InvertedIndexCreator invertedIndexCreator = invertedIndexCreatorMap.get(column);
+        ImmutableRoaringBitmap[] distinctValueRows = null;
+        if (invertedIndexCreator != null) {
+          distinctValueRows = rowSource.getDistinctValueRows(column);
+          if (distinctValueRows != null) {
+            for (int i = 0; i < distinctValueRows.length; i++) {
+              invertedIndexCreator.addDocIds(dictionaryIds[i], distinctValueRows[i]);
+            }
+            invertedIndexCreator = null;
+          }
+        }
+        ColumnarRowSource.ColumnIdReader reader = rowSource.getColumnReader(column);
+        try {
+          if (schema.getFieldSpecFor(column).isSingleValueField()) {
+            SingleValueForwardIndexCreator singleValueCreator = (SingleValueForwardIndexCreator) forwardIndexCreator;
+            for (int docId = 0; docId < numRows; docId++) {
+              int dictionaryId = dictionaryIds[reader.nextSingleValueId()];
+              singleValueCreator.index(docId, dictionaryId);
+              if (invertedIndexCreator != null) {
+                invertedIndexCreator.add(docId, dictionaryId);
+              }
+            }
+          } else {
+            MultiValueForwardIndexCreator multiValueCreator = (MultiValueForwardIndexCreator) forwardIndexCreator;
+            for (int docId = 0; docId < numRows; docId++) {
+              int[] ids = reader.nextMultiValueIds();
+              for (int i = 0; i < ids.length; i++) {
+                ids[i] = dictionaryIds[ids[i]];
+              }
+              multiValueCreator.index(docId, ids);
+              if (invertedIndexCreator != null) {
+                invertedIndexCreator.add(docId, ids);
+              }
+            }
+          }
+        } finally {
+          reader.close();
+        }
+
+        forwardIndexCreator.close();
+        if (invertedIndexCreatorMap.containsKey(column)) {
+          invertedIndexCreatorMap.get(column).seal();
+        }
+        sealedColumns.add(column);
+      }
+    });
+    docIdCounter = numRows;
+  }
+
   @Override
   public void setSegmentName(String segmentName) {
     this.segmentName = segmentName;
@@ -189,15 +286,67 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
   @Override
   public void seal() throws ConfigurationException, IOException {
     for (final String column : forwardIndexCreatorMap.keySet()) {
-      forwardIndexCreatorMap.get(column).close();
-      if (config.isCreateInvertedIndexEnabled()) {
-        invertedIndexCreatorMap.get(column).seal();
+      if (!sealedColumns.contains(column)) {
+        forwardIndexCreatorMap.get(column).close();
+        if (invertedIndexCreatorMap.containsKey(column)) {
+          invertedIndexCreatorMap.get(column).seal();
+        }
       }
       dictionaryCreatorMap.get(column).close();
     }
+    for (String column : config.getBloomFilterCreationColumns()) {
+      ColumnIndexCreationInfo indexCreationInfo = indexCreationInfoMap.get(column);
+      // The unique values are a primitive array for numeric columns
+      Object uniqueValues = indexCreationInfo.getSortedUniqueElementsArray();
+      int numValues = Array.getLength(uniqueValues);
+      BloomFilterCreator bloomFilterCreator =
+          new BloomFilterCreator(file, column, schema.getFieldSpecFor(column).getDataType(), numValues);
+      for (int i = 0; i < numValues; i++) {
+        bloomFilterCreator.add(Array.get(uniqueValues, i));
+      }
+      bloomFilterCreator.seal();
+    }
     writeMetadata();
   }
 
+  private void runForEachColumn(Collection<String> columns, final ColumnTask task) throws Exception {
+    if (executor == null) {
+      for (String column : columns) {
+        task.run(column);
+      }
+      return;
+    }
+
+    List<Future<Void>> futures = new ArrayList<Future<Void>>(columns.size());
+    for (final String column : columns) {
+      futures.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          task.run(column);
+          return null;
+        }
+      }));
+    }
+    try {
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    } catch (ExecutionException e) {
+      for (Future<Void> future : futures) {
+        future.cancel(true);
+      }
+      Throwable cause = e.getCause();
+      if (cause instanceof Exception) {
+        throw (Exception) cause;
+      }
+      throw e;
+    }
+  }
+
+  private interface ColumnTask {
+    void run(String column) throws Exception;
+  }
+
   void writeMetadata() throws ConfigurationException {
     final PropertiesConfiguration properties =
         new PropertiesConfiguration(new File(file, V1Constants.MetadataKeys.METADATA_FILE_NAME));
@@ -269,9 +418,30 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
       properties.setProperty(V1Constants.MetadataKeys.Column.getKeyFor(column, TOTAL_NUMBER_OF_ENTRIES),
           String.valueOf(columnIndexCreationInfo.getTotalNumberOfEntries()));
 
+      addColumnMinMaxValueInfo(properties, column, columnIndexCreationInfo.getMin(), columnIndexCreationInfo.getMax());
     }
 
     properties.save();
   }
 
+  /**
+   * Record the min and max values of the column so that segments can be pruned on the filter values. String values
+   * that would not survive the properties file as a single value (list delimiter, surrounding whitespace) are
+   * skipped, the segment then never gets pruned on that column.
+   */
+  private static void addColumnMinMaxValueInfo(PropertiesConfiguration properties, String column, Object min,
+      Object max) {
+    if (min == null || max == null || !isValidPropertyValue(min.toString()) || !isValidPropertyValue(max.toString())) {
+      return;
+    }
+    properties.setProperty(V1Constants.MetadataKeys.Column.getKeyFor(column, V1Constants.MetadataKeys.Column.MIN_VALUE),
+        min.toString());
+    properties.setProperty(V1Constants.MetadataKeys.Column.getKeyFor(column, V1Constants.MetadataKeys.Column.MAX_VALUE),
+        max.toString());
+  }
+
+  private static boolean isValidPropertyValue(String value) {
+    return !value.isEmpty() && value.indexOf(',') < 0 && value.trim().length() == value.length();
+  }
+
 }
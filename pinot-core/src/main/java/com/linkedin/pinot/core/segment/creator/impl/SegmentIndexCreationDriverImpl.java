@@ -22,6 +22,8 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import com.linkedin.pinot.common.data.*;
 import com.linkedin.pinot.core.startree.StarTreeIndexNode;
@@ -30,11 +32,13 @@ import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.linkedin.pinot.common.utils.NamedThreadFactory;
 import com.linkedin.pinot.common.utils.SegmentNameBuilder;
 import com.linkedin.pinot.core.data.GenericRow;
 import com.linkedin.pinot.core.data.readers.RecordReader;
 import com.linkedin.pinot.core.data.readers.RecordReaderFactory;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentVersion;
 import com.linkedin.pinot.core.segment.creator.ColumnIndexCreationInfo;
 import com.linkedin.pinot.core.segment.creator.ForwardIndexType;
 import com.linkedin.pinot.core.segment.creator.InvertedIndexType;
@@ -42,6 +46,7 @@ import com.linkedin.pinot.core.segment.creator.SegmentCreator;
 import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
 import com.linkedin.pinot.core.segment.creator.SegmentPreIndexStatsCollector;
 import com.linkedin.pinot.core.segment.creator.impl.stats.SegmentPreIndexStatsCollectorImpl;
+import com.linkedin.pinot.core.segment.store.SegmentV1ToV2Converter;
 import com.linkedin.pinot.core.util.CrcUtils;
 
 
@@ -58,6 +63,8 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
   SegmentPreIndexStatsCollector statsCollector;
   Map<String, ColumnIndexCreationInfo> indexCreationInfoMap;
   SegmentCreator indexCreator;
+  // Rows already laid out column by column, indexed without reading a record reader
+  ColumnarRowSource columnarRowSource;
   Schema dataSchema;
   int totalDocs;
   File tempIndexDir;
@@ -65,6 +72,8 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
   long totalRecordReadTime = 0;
   long totalIndexTime = 0;
   long totalStatsCollectorTime = 0;
+  long totalIndexCreatorInitTime = 0;
+  long totalSealTime = 0;
   boolean isStarTree = false;
 
   @Override
@@ -94,6 +103,26 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
       indexCreator = new SegmentColumnarIndexCreator();
     }
 
+    initOutputDir();
+  }
+
+  /**
+   * Initializes the creation of a segment from rows that are already laid out column by column and whose per-column
+   * statistics are known, such as a sealed realtime segment. The statistics pass over the input is skipped.
+   */
+  public void init(SegmentGeneratorConfig config, Schema schema, ColumnarRowSource rowSource,
+      Map<String, ColumnIndexCreationInfo> indexCreationInfoMap) throws Exception {
+    this.config = config;
+    dataSchema = schema;
+    columnarRowSource = rowSource;
+    this.indexCreationInfoMap = indexCreationInfoMap;
+    totalDocs = rowSource.getNumRows();
+    indexCreator = new SegmentColumnarIndexCreator();
+
+    initOutputDir();
+  }
+
+  private void initOutputDir() {
     // Ensure that the output directory exists
     final File indexDir = new File(config.getIndexOutputDir());
     if (!indexDir.exists()) {
@@ -106,7 +135,105 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
 
   @Override
   public void build() throws Exception {
-    // Count the number of documents and gather per-column statistics
+    if (columnarRowSource != null) {
+      LOGGER.info("Start indexing {} rows from a columnar source", totalDocs);
+      indexColumns(columnarRowSource);
+      handlePostCreation();
+      return;
+    }
+    // The star tree creator reads the input on its own, other segments are indexed from the rows buffered during the
+    // statistics pass.
+    if (isStarTree || !(indexCreator instanceof SegmentColumnarIndexCreator)) {
+      buildFromRecordReader();
+    } else {
+      buildFromRowBuffer();
+    }
+  }
+
+  /**
+   * Reads the input twice, once to collect statistics and once to index the rows.
+   */
+  private void buildFromRecordReader() throws Exception {
+    collectStats(null);
+
+    // Initialize the index creation using the per-column statistics information
+    long start = System.currentTimeMillis();
+    indexCreator.init(config, indexCreationInfoMap, dataSchema, totalDocs, tempIndexDir);
+    totalIndexCreatorInitTime = System.currentTimeMillis() - start;
+
+    // Build the index
+    recordReader.rewind();
+    LOGGER.info("Start building IndexCreator!");
+    while (recordReader.hasNext()) {
+      start = System.currentTimeMillis();
+      GenericRow row = recordReader.next();
+      long stop = System.currentTimeMillis();
+      indexCreator.indexRow(row);
+      long stop1 = System.currentTimeMillis();
+      totalRecordReadTime += (stop - start);
+      totalIndexTime += (stop1 - stop);
+    }
+    recordReader.close();
+    LOGGER.info("Finished records indexing in IndexCreator!");
+
+    handlePostCreation();
+  }
+
+  /**
+   * Reads the input once, buffering the rows column by column while collecting statistics, then builds the
+   * dictionaries and indexes of the columns in parallel.
+   */
+  private void buildFromRowBuffer() throws Exception {
+    File spillDir = null;
+    if (config.isSpillRowsToDisk()) {
+      spillDir = new File(config.getIndexOutputDir(), com.linkedin.pinot.common.utils.FileUtils.getRandomFileName());
+    }
+    ColumnarRowBuffer rowBuffer = new ColumnarRowBuffer(dataSchema, spillDir);
+    try {
+      collectStats(rowBuffer);
+      recordReader.close();
+      rowBuffer.seal();
+
+      LOGGER.info("Start indexing {} buffered rows", rowBuffer.getNumRows());
+      indexColumns(rowBuffer);
+    } finally {
+      rowBuffer.close();
+    }
+
+    handlePostCreation();
+  }
+
+  /**
+   * Builds the dictionaries and indexes of the columns of the source, in parallel if configured to.
+   */
+  private void indexColumns(ColumnarRowSource rowSource) throws Exception {
+    SegmentColumnarIndexCreator columnarIndexCreator = (SegmentColumnarIndexCreator) indexCreator;
+    ExecutorService executor = null;
+    if (config.getNumIndexingThreads() > 1) {
+      executor = Executors.newFixedThreadPool(config.getNumIndexingThreads(), new NamedThreadFactory("segment-creator"));
+      columnarIndexCreator.setExecutor(executor);
+    }
+    try {
+      long start = System.currentTimeMillis();
+      columnarIndexCreator.init(config, indexCreationInfoMap, dataSchema, totalDocs, tempIndexDir);
+      totalIndexCreatorInitTime = System.currentTimeMillis() - start;
+
+      LOGGER.info("Indexing columns with {} thread(s)", config.getNumIndexingThreads());
+      start = System.currentTimeMillis();
+      columnarIndexCreator.indexColumns(rowSource);
+      totalIndexTime = System.currentTimeMillis() - start;
+      LOGGER.info("Finished records indexing in IndexCreator!");
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+    }
+  }
+
+  /**
+   * Count the number of documents and gather per-column statistics, buffering the rows if a buffer is given.
+   */
+  private void collectStats(ColumnarRowBuffer rowBuffer) throws Exception {
     LOGGER.info("Start building StatsCollector!");
     totalDocs = 0;
     while (recordReader.hasNext()) {
@@ -115,6 +242,9 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
       GenericRow row = recordReader.next();
       long stop = System.currentTimeMillis();
       statsCollector.collectRow(row);
+      if (rowBuffer != null) {
+        rowBuffer.addRow(row);
+      }
       long stop1 = System.currentTimeMillis();
       totalRecordReadTime += (stop - start);
       totalStatsCollectorTime += (stop1 - stop);
@@ -138,28 +268,14 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
       statsCollector.collectRow(allRow);
     }
 
+    long start = System.currentTimeMillis();
     buildIndexCreationInfo();
+    totalStatsCollectorTime += System.currentTimeMillis() - start;
     LOGGER.info("Finished building StatsCollector!");
     LOGGER.info("Collected stats for {} documents", totalDocs);
+  }
 
-    // Initialize the index creation using the per-column statistics information
-    indexCreator.init(config, indexCreationInfoMap, dataSchema, totalDocs, tempIndexDir);
-
-    // Build the index
-    recordReader.rewind();
-    LOGGER.info("Start building IndexCreator!");
-    while (recordReader.hasNext()) {
-      long start = System.currentTimeMillis();
-      GenericRow row = recordReader.next();
-      long stop = System.currentTimeMillis();
-      indexCreator.indexRow(row);
-      long stop1 = System.currentTimeMillis();
-      totalRecordReadTime += (stop - start);
-      totalIndexTime += (stop1 - stop);
-    }
-    recordReader.close();
-    LOGGER.info("Finished records indexing in IndexCreator!");
-
+  private void handlePostCreation() throws Exception {
     // Build the segment name, if necessary
     final String timeColumn = config.getTimeColumnName();
 
@@ -167,8 +283,8 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
       segmentName = config.getSegmentName();
     } else {
       if (timeColumn != null && timeColumn.length() > 0) {
-        final Object minTimeValue = statsCollector.getColumnProfileFor(timeColumn).getMinValue();
-        final Object maxTimeValue = statsCollector.getColumnProfileFor(timeColumn).getMaxValue();
+        final Object minTimeValue = indexCreationInfoMap.get(timeColumn).getMin();
+        final Object maxTimeValue = indexCreationInfoMap.get(timeColumn).getMax();
         segmentName =
             SegmentNameBuilder.buildBasic(config.getTableName(), minTimeValue, maxTimeValue,
                 config.getSegmentNamePostfix());
@@ -179,8 +295,13 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
     }
 
     // Write the index files to disk
+    long start = System.currentTimeMillis();
     indexCreator.setSegmentName(segmentName);
     indexCreator.seal();
+    if (config.getSegmentVersion() == SegmentVersion.v2) {
+      SegmentV1ToV2Converter.convert(tempIndexDir);
+    }
+    totalSealTime = System.currentTimeMillis() - start;
     LOGGER.info("Finished segment seal!");
 
     // Delete the directory named after the segment name, if it exists
@@ -204,7 +325,9 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
 
     LOGGER.info("Driver, record read time : {}", totalRecordReadTime);
     LOGGER.info("Driver, stats collector time : {}", totalStatsCollectorTime);
+    LOGGER.info("Driver, index creator init time : {}", totalIndexCreatorInitTime);
     LOGGER.info("Driver, indexing time : {}", totalIndexTime);
+    LOGGER.info("Driver, seal time : {}", totalSealTime);
   }
 
   public void ovveriteSegmentName(String segmentName) {
@@ -0,0 +1,150 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.creator.impl.bloom;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import org.apache.commons.io.FileUtils;
+
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+
+
+/**
+ * Writes the bloom filter of the values of a column, so that lookups of values the segment does not contain can be
+ * answered without searching the dictionary.
+ *
+ * File layout: number of hash functions (int), number of longs of the bit set (int), then the bit set. The bits of a
+ * value are derived from a 64 bit hash with double hashing, see {@link #hash(DataType, Object)}.
+ */
+public class BloomFilterCreator {
+  public static final double DEFAULT_FALSE_POSITIVE_PROBABILITY = 0.01;
+  public static final int HEADER_SIZE = 8;
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private final File bloomFilterFile;
+  private final DataType dataType;
+  private final int numHashFunctions;
+  private final long[] bits;
+
+  public BloomFilterCreator(File indexDir, String column, DataType dataType, int cardinality) {
+    bloomFilterFile = new File(indexDir, column + V1Constants.Indexes.BLOOM_FILTER_FILE_EXTENSION);
+    this.dataType = dataType;
+
+    int numValues = Math.max(cardinality, 1);
+    long numBits =
+        (long) Math.ceil(-numValues * Math.log(DEFAULT_FALSE_POSITIVE_PROBABILITY) / (Math.log(2) * Math.log(2)));
+    bits = new long[(int) Math.min((numBits + 63) / 64, Integer.MAX_VALUE / 64)];
+    numHashFunctions = Math.max(1, (int) Math.round((double) bits.length * 64 / numValues * Math.log(2)));
+  }
+
+  public void add(Object value) {
+    long hash = hash(dataType, value);
+    long numBits = (long) bits.length * 64;
+    for (int i = 0; i < numHashFunctions; i++) {
+      long bit = getBitIndex(hash, i, numBits);
+      bits[(int) (bit >>> 6)] |= 1L << bit;
+    }
+  }
+
+  /**
+   * Writes the bloom filter to a temporary file first, a partially written bloom filter would reject values the
+   * segment contains.
+   */
+  public void seal() throws IOException {
+    File tmpFile = new File(bloomFilterFile.getPath() + ".tmp");
+    final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+    try {
+      out.writeInt(numHashFunctions);
+      out.writeInt(bits.length);
+      for (long word : bits) {
+        out.writeLong(word);
+      }
+    } finally {
+      out.close();
+    }
+    if (!tmpFile.renameTo(bloomFilterFile)) {
+      FileUtils.deleteQuietly(tmpFile);
+      throw new IOException("Could not rename " + tmpFile + " to " + bloomFilterFile);
+    }
+  }
+
+  /**
+   * Index of the i-th bit of the value with the given hash.
+   */
+  public static long getBitIndex(long hash, int i, long numBits) {
+    int hash1 = (int) hash;
+    int hash2 = (int) (hash >>> 32);
+    long combined = hash1 + (long) i * hash2;
+    return (combined & Long.MAX_VALUE) % numBits;
+  }
+
+  /**
+   * Hashes a value of the column the way the dictionary compares them: numbers after their value whether they are
+   * given as numbers or strings, strings without the dictionary padding.
+   *
+   * @throws NumberFormatException if a string cannot be parsed as a value of a numeric column
+   */
+  public static long hash(DataType dataType, Object value) {
+    switch (dataType) {
+      case INT:
+      case LONG:
+        return mix(value instanceof Number ? ((Number) value).longValue() : Long.parseLong(value.toString()));
+      case FLOAT:
+        return mix(Float.floatToIntBits(value instanceof Number ? ((Number) value).floatValue() : Float
+            .parseFloat(value.toString())));
+      case DOUBLE:
+        return mix(Double.doubleToLongBits(value instanceof Number ? ((Number) value).doubleValue() : Double
+            .parseDouble(value.toString())));
+      default:
+        return hash(stripPadding(value.toString()).getBytes(UTF8));
+    }
+  }
+
+  private static String stripPadding(String value) {
+    int end = value.length();
+    while (end > 0 && value.charAt(end - 1) == V1Constants.Str.STRING_PAD_CHAR) {
+      end--;
+    }
+    return value.substring(0, end);
+  }
+
+  private static long hash(byte[] bytes) {
+    // 64 bit FNV-1a
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : bytes) {
+      hash ^= b & 0xff;
+      hash *= 0x100000001b3L;
+    }
+    return mix(hash);
+  }
+
+  private static long mix(long value) {
+    // Finalizer of MurmurHash3
+    value ^= value >>> 33;
+    value *= 0xff51afd7ed558ccdL;
+    value ^= value >>> 33;
+    value *= 0xc4ceb9a64ea53a63L;
+    value ^= value >>> 33;
+    return value;
+  }
+}
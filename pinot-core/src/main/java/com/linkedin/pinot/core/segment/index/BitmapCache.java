@@ -0,0 +1,285 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.linkedin.pinot.common.metrics.ServerMeter;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.core.query.config.BitmapCacheConfig;
+import com.yammer.metrics.core.Meter;
+
+
+/**
+ * Server wide cache of the bitmaps read from the inverted indexes of all the loaded segments.
+ *
+ * The cache is bounded by the total serialized size of the cached bitmaps and evicts the least recently used ones
+ * first. On top of that, every table has a quota: a bitmap which would take its table over the quota is returned
+ * to the caller but not cached, so that one table cannot flush the bitmaps of all the others.
+ *
+ * The keys cached for every inverted index are tracked, so that closing an inverted index only drops its own
+ * bitmaps. A closed inverted index stays known until it is garbage collected, and no bitmap is cached for it.
+ */
+public class BitmapCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BitmapCache.class);
+
+  private static volatile BitmapCache _instance = new BitmapCache(new BitmapCacheConfig(new BaseConfiguration()), null);
+
+  private final BitmapCacheConfig _config;
+  private final Cache<Key, ImmutableRoaringBitmap> _cache;
+  private final LoadingCache<InvertedIndexReader, IndexKeys> _indexKeys;
+  private final ConcurrentMap<String, AtomicLong> _tableSizes = new ConcurrentHashMap<String, AtomicLong>();
+  // Null without server metrics
+  private final Meter _hitsMeter;
+  private final Meter _missesMeter;
+  private final Meter _evictionsMeter;
+
+  public BitmapCache(BitmapCacheConfig config, ServerMetrics serverMetrics) {
+    _config = config;
+    if (serverMetrics != null) {
+      _hitsMeter = serverMetrics.getMeter(null, ServerMeter.BITMAP_CACHE_HITS);
+      _missesMeter = serverMetrics.getMeter(null, ServerMeter.BITMAP_CACHE_MISSES);
+      _evictionsMeter = serverMetrics.getMeter(null, ServerMeter.BITMAP_CACHE_EVICTIONS);
+    } else {
+      _hitsMeter = null;
+      _missesMeter = null;
+      _evictionsMeter = null;
+    }
+    // Weak keys are compared by identity
+    _indexKeys = CacheBuilder.newBuilder().weakKeys().build(new CacheLoader<InvertedIndexReader, IndexKeys>() {
+      @Override
+      public IndexKeys load(InvertedIndexReader invertedIndex) {
+        return new IndexKeys();
+      }
+    });
+    if (config.getMaxSizeInBytes() > 0) {
+      _cache = CacheBuilder.newBuilder()
+          .maximumWeight(config.getMaxSizeInBytes())
+          .weigher(new Weigher<Key, ImmutableRoaringBitmap>() {
+            @Override
+            public int weigh(Key key, ImmutableRoaringBitmap bitmap) {
+              return key._sizeInBytes;
+            }
+          })
+          .removalListener(new RemovalListener<Key, ImmutableRoaringBitmap>() {
+            @Override
+            public void onRemoval(RemovalNotification<Key, ImmutableRoaringBitmap> notification) {
+              Key key = notification.getKey();
+              if (key != null) {
+                getTableSize(key._tableName).addAndGet(-key._sizeInBytes);
+                key._indexKeys.remove(key);
+              }
+              if (notification.wasEvicted()) {
+                markMeter(_evictionsMeter);
+              }
+            }
+          })
+          .build();
+    } else {
+      _cache = null;
+    }
+  }
+
+  /**
+   * Replaces the server wide cache, dropping all the bitmaps cached so far.
+   */
+  public static void init(BitmapCacheConfig config, ServerMetrics serverMetrics) {
+    LOGGER.info("Initializing bitmap cache with max size {} bytes and default table quota {} bytes",
+        config.getMaxSizeInBytes(), config.getDefaultTableQuotaInBytes());
+    BitmapCache previous = _instance;
+    _instance = new BitmapCache(config, serverMetrics);
+    previous.invalidateAll();
+  }
+
+  public static BitmapCache getInstance() {
+    return _instance;
+  }
+
+  /**
+   * Returns the cached bitmap of the given dictionary id of the inverted index, or null if it is not cached.
+   */
+  public ImmutableRoaringBitmap get(InvertedIndexReader invertedIndex, int dictId) {
+    if (_cache == null) {
+      return null;
+    }
+    ImmutableRoaringBitmap bitmap = _cache.getIfPresent(new Key(invertedIndex, dictId, null, 0, null));
+    markMeter(bitmap != null ? _hitsMeter : _missesMeter);
+    return bitmap;
+  }
+
+  /**
+   * Caches the bitmap of the given dictionary id of the inverted index, unless it does not fit in the table quota or
+   * the inverted index was closed.
+   */
+  public void put(InvertedIndexReader invertedIndex, int dictId, String tableName, ImmutableRoaringBitmap bitmap,
+      int sizeInBytes) {
+    if (_cache == null) {
+      return;
+    }
+    IndexKeys indexKeys = _indexKeys.getUnchecked(invertedIndex);
+    if (indexKeys.isClosed()) {
+      return;
+    }
+    AtomicLong tableSize = getTableSize(tableName);
+    if (tableSize.addAndGet(sizeInBytes) > _config.getTableQuotaInBytes(tableName)) {
+      tableSize.addAndGet(-sizeInBytes);
+      return;
+    }
+    Key key = new Key(invertedIndex, dictId, tableName, sizeInBytes, indexKeys);
+    if (_cache.asMap().putIfAbsent(key, bitmap) != null) {
+      // Cached concurrently by another query
+      tableSize.addAndGet(-sizeInBytes);
+    } else if (!indexKeys.add(key)) {
+      // Closed concurrently
+      _cache.asMap().remove(key, bitmap);
+    }
+  }
+
+  /**
+   * Drops the cached bitmaps of the inverted index, to be called before its buffer is released.
+   */
+  public void invalidate(InvertedIndexReader invertedIndex) {
+    if (_cache == null) {
+      return;
+    }
+    _cache.invalidateAll(_indexKeys.getUnchecked(invertedIndex).close());
+  }
+
+  public void invalidateAll() {
+    if (_cache != null) {
+      _cache.invalidateAll();
+    }
+  }
+
+  public long getTableSizeInBytes(String tableName) {
+    return getTableSize(tableName).get();
+  }
+
+  private AtomicLong getTableSize(String tableName) {
+    String tableKey = (tableName == null) ? "" : tableName;
+    AtomicLong tableSize = _tableSizes.get(tableKey);
+    if (tableSize == null) {
+      AtomicLong newTableSize = new AtomicLong();
+      tableSize = _tableSizes.putIfAbsent(tableKey, newTableSize);
+      if (tableSize == null) {
+        tableSize = newTableSize;
+      }
+    }
+    return tableSize;
+  }
+
+  private static void markMeter(Meter meter) {
+    if (meter != null) {
+      meter.mark();
+    }
+  }
+
+  /**
+   * Keys cached for an inverted index.
+   */
+  private static final class IndexKeys {
+    // Guarded by this, the keys by dictionary id
+    private final Map<Integer, Key> _keys = new HashMap<Integer, Key>();
+    private volatile boolean _closed;
+
+    private boolean isClosed() {
+      return _closed;
+    }
+
+    /**
+     * Tracks the cached key, returns false if the inverted index was closed.
+     */
+    private synchronized boolean add(Key key) {
+      if (_closed) {
+        return false;
+      }
+      _keys.put(key._dictId, key);
+      return true;
+    }
+
+    private synchronized void remove(Key key) {
+      // Leave the key of the bitmap cached again after this one was evicted
+      if (_keys.get(key._dictId) == key) {
+        _keys.remove(key._dictId);
+      }
+    }
+
+    /**
+     * Rejects any further key, returns the keys cached so far.
+     */
+    private synchronized List<Key> close() {
+      _closed = true;
+      List<Key> keys = new ArrayList<Key>(_keys.values());
+      _keys.clear();
+      return keys;
+    }
+  }
+
+  /**
+   * Identifies a bitmap by its inverted index and dictionary id, the other fields are only carried along.
+   */
+  private static final class Key {
+    private final InvertedIndexReader _invertedIndex;
+    private final int _dictId;
+    private final String _tableName;
+    private final int _sizeInBytes;
+    private final IndexKeys _indexKeys;
+
+    private Key(InvertedIndexReader invertedIndex, int dictId, String tableName, int sizeInBytes,
+        IndexKeys indexKeys) {
+      _invertedIndex = invertedIndex;
+      _dictId = dictId;
+      _tableName = tableName;
+      _sizeInBytes = sizeInBytes;
+      _indexKeys = indexKeys;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return _invertedIndex == key._invertedIndex && _dictId == key._dictId;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(_invertedIndex) + _dictId;
+    }
+  }
+}
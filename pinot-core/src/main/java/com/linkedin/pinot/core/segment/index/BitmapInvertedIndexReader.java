@@ -21,7 +21,6 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
-import java.lang.ref.SoftReference;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel.MapMode;
 
@@ -40,7 +39,7 @@ public class BitmapInvertedIndexReader implements InvertedIndexReader {
   public static final Logger LOGGER = LoggerFactory.getLogger(BitmapInvertedIndexReader.class);
 
   final private int numberOfBitmaps;
-  private SoftReference<SoftReference<ImmutableRoaringBitmap>[]> bitmaps = null;
+  private final String tableName;
 
   private RandomAccessFile _rndFile;
   private ByteBuffer buffer;
@@ -53,52 +52,52 @@ public class BitmapInvertedIndexReader implements InvertedIndexReader {
    * @throws IOException
    */
   public BitmapInvertedIndexReader(File file, int cardinality, boolean isMmap) throws IOException {
+    this(file, cardinality, isMmap, null);
+  }
+
+  /**
+   * Constructs an inverted index with the specified size, whose bitmaps are cached under the quota of the given table.
+   */
+  public BitmapInvertedIndexReader(File file, int cardinality, boolean isMmap, String tableName) throws IOException {
     numberOfBitmaps = cardinality;
+    this.tableName = tableName;
     load(file, isMmap);
   }
 
+  /**
+   * Reads the index from a buffer holding the content of an index file, e.g. a slice of a single file segment.
+   */
+  public BitmapInvertedIndexReader(ByteBuffer buffer, int cardinality, String tableName) {
+    numberOfBitmaps = cardinality;
+    this.tableName = tableName;
+    this.buffer = buffer;
+  }
+
   /**
    * {@inheritDoc}
    * @see com.linkedin.pinot.core.segment.index.InvertedIndexReader#getImmutable(int)
    */
   @Override
   public ImmutableRoaringBitmap getImmutable(int idx) {
-    SoftReference<ImmutableRoaringBitmap>[] bitmapArrayReference = null;
-
-    // Return the bitmap if it's still on heap
-    if (bitmaps != null) {
-      bitmapArrayReference = bitmaps.get();
-      if (bitmapArrayReference != null) {
-        SoftReference<ImmutableRoaringBitmap> bitmapReference = bitmapArrayReference[idx];
-        if (bitmapReference != null) {
-          ImmutableRoaringBitmap value = bitmapReference.get();
-          if (value != null) {
-            return value;
-          }
-        }
-      } else {
-        bitmapArrayReference = new SoftReference[numberOfBitmaps];
-        bitmaps = new SoftReference<SoftReference<ImmutableRoaringBitmap>[]>(bitmapArrayReference);
-      }
-    } else {
-      bitmapArrayReference = new SoftReference[numberOfBitmaps];
-      bitmaps = new SoftReference<SoftReference<ImmutableRoaringBitmap>[]>(bitmapArrayReference);
+    BitmapCache bitmapCache = BitmapCache.getInstance();
+    ImmutableRoaringBitmap value = bitmapCache.get(this, idx);
+    if (value != null) {
+      return value;
     }
 
-    ImmutableRoaringBitmap value = buildRoaringBitmapForIndex(idx);
-    bitmapArrayReference[idx] = new SoftReference<ImmutableRoaringBitmap>(value);
+    final int currentOffset = getOffset(idx);
+    final int bufferLength = getOffset(idx + 1) - currentOffset;
+    value = buildRoaringBitmap(currentOffset, bufferLength);
+    bitmapCache.put(this, idx, tableName, value, bufferLength);
     return value;
   }
 
-  private ImmutableRoaringBitmap buildRoaringBitmapForIndex(final int index) {
-    final int currentOffset = getOffset(index);
-    final int nextOffset = getOffset(index + 1);
-    final int bufferLength = nextOffset - currentOffset;
-
-    // Slice the buffer appropriately for Roaring Bitmap
-    buffer.position(currentOffset);
-    final ByteBuffer bb = buffer.slice();
-    bb.limit(bufferLength);
+  private ImmutableRoaringBitmap buildRoaringBitmap(final int offset, final int length) {
+    // Slice a duplicate of the buffer for Roaring Bitmap, so that concurrent queries do not move each other's position
+    final ByteBuffer duplicate = buffer.duplicate();
+    duplicate.position(offset);
+    final ByteBuffer bb = duplicate.slice();
+    bb.limit(length);
 
     return new ImmutableRoaringBitmap(bb);
   }
@@ -126,6 +125,7 @@ public class BitmapInvertedIndexReader implements InvertedIndexReader {
 
   @Override
   public void close() throws IOException {
+    BitmapCache.getInstance().invalidate(this);
     MmapUtils.unloadByteBuffer(buffer);
     if (_rndFile != null) {
       _rndFile.close();
@@ -51,11 +51,22 @@ public class ColumnMetadata {
   private final TimeUnit timeunit;
   private final boolean hasDictionary;
   private final int totalNumberOfEntries;
+  private final Comparable minValue;
+  private final Comparable maxValue;
 
   public ColumnMetadata(String columnName, int cardinality, int totalDocs, DataType dataType, int bitsPerElement,
       int stringColumnMaxLength, FieldType fieldType, boolean isSorted, boolean hasInvertedIndex,
       boolean insSingleValue, int maxNumberOfMultiValues, boolean hasNulls, boolean hasDictionary, TimeUnit timeunit,
       int totalNumberOfEntries) {
+    this(columnName, cardinality, totalDocs, dataType, bitsPerElement, stringColumnMaxLength, fieldType, isSorted,
+        hasInvertedIndex, insSingleValue, maxNumberOfMultiValues, hasNulls, hasDictionary, timeunit,
+        totalNumberOfEntries, null, null);
+  }
+
+  public ColumnMetadata(String columnName, int cardinality, int totalDocs, DataType dataType, int bitsPerElement,
+      int stringColumnMaxLength, FieldType fieldType, boolean isSorted, boolean hasInvertedIndex,
+      boolean insSingleValue, int maxNumberOfMultiValues, boolean hasNulls, boolean hasDictionary, TimeUnit timeunit,
+      int totalNumberOfEntries, Comparable minValue, Comparable maxValue) {
 
     this.columnName = columnName;
     this.cardinality = cardinality;
@@ -72,12 +83,29 @@ public class ColumnMetadata {
     this.timeunit = timeunit;
     this.hasDictionary = hasDictionary;
     this.totalNumberOfEntries = totalNumberOfEntries;
+    this.minValue = minValue;
+    this.maxValue = maxValue;
   }
 
   public int getTotalNumberOfEntries() {
     return totalNumberOfEntries;
   }
 
+  /**
+   * Smallest value of the column in the segment, typed after the data type of the column, or null if the segment
+   * metadata does not record it.
+   */
+  public Comparable getMinValue() {
+    return minValue;
+  }
+
+  /**
+   * Largest value of the column in the segment, or null if the segment metadata does not record it.
+   */
+  public Comparable getMaxValue() {
+    return maxValue;
+  }
+
   public int getMaxNumberOfMultiValues() {
     return maxNumberOfMultiValues;
   }
@@ -31,7 +31,9 @@ import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.indexsegment.IndexType;
 import com.linkedin.pinot.core.segment.index.column.ColumnIndexContainer;
 import com.linkedin.pinot.core.segment.index.data.source.ColumnDataSourceImpl;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
 import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
+import com.linkedin.pinot.core.segment.store.SingleFileIndexDirectory;
 
 
 /**
@@ -45,15 +47,25 @@ public class IndexSegmentImpl implements IndexSegment {
   private final SegmentMetadataImpl segmentMetadata;
   private final Map<String, ColumnIndexContainer> indexContainerMap;
   private final StarTreeIndexNode starTreeRoot;
+  private final SingleFileIndexDirectory singleFileIndex;
 
   public IndexSegmentImpl(File indexDir,
                           SegmentMetadataImpl segmentMetadata,
                           Map<String, ColumnIndexContainer> columnIndexContainerMap,
                           StarTreeIndexNode starTreeRoot) throws Exception {
+    this(indexDir, segmentMetadata, columnIndexContainerMap, starTreeRoot, null);
+  }
+
+  public IndexSegmentImpl(File indexDir,
+                          SegmentMetadataImpl segmentMetadata,
+                          Map<String, ColumnIndexContainer> columnIndexContainerMap,
+                          StarTreeIndexNode starTreeRoot,
+                          SingleFileIndexDirectory singleFileIndex) throws Exception {
     this.indexDir = indexDir;
     this.segmentMetadata = segmentMetadata;
     this.indexContainerMap = columnIndexContainerMap;
     this.starTreeRoot = starTreeRoot;
+    this.singleFileIndex = singleFileIndex;
     LOGGER.info("successfully loaded the index segment : " + indexDir.getName());
   }
 
@@ -69,6 +81,10 @@ public class IndexSegmentImpl implements IndexSegment {
     return indexContainerMap.get(column).getInvertedIndex();
   }
 
+  public BloomFilterReader getBloomFilterFor(String column) {
+    return indexContainerMap.get(column).getBloomFilter();
+  }
+
   @Override
   public IndexType getIndexType() {
     return IndexType.COLUMNAR;
@@ -107,7 +123,9 @@ public class IndexSegmentImpl implements IndexSegment {
   @Override
   public void destroy() {
     for (String column : indexContainerMap.keySet()) {
-
+      if (!indexContainerMap.get(column).isLoaded()) {
+        continue;
+      }
       try {
         indexContainerMap.get(column).getDictionary().close();
       } catch (Exception e) {
@@ -127,6 +145,13 @@ public class IndexSegmentImpl implements IndexSegment {
       }
     }
     indexContainerMap.clear();
+    if (singleFileIndex != null) {
+      try {
+        singleFileIndex.close();
+      } catch (Exception e) {
+        LOGGER.error("Error when close single file index of segment : " + indexDir.getName(), e);
+      }
+    }
   }
 
   @Override
@@ -41,6 +41,7 @@ import com.linkedin.pinot.common.segment.SegmentMetadata;
 import com.linkedin.pinot.core.indexsegment.IndexType;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentVersion;
 import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.store.SingleFileIndexDirectory;
 
 import static com.linkedin.pinot.core.segment.creator.impl.V1Constants.MetadataKeys;
 import static com.linkedin.pinot.core.segment.creator.impl.V1Constants.MetadataKeys.Segment;
@@ -374,12 +375,49 @@ public class SegmentMetadataImpl implements SegmentMetadata {
         _segmentMetadataPropertiesConfiguration.getInt(V1Constants.MetadataKeys.Column.getKeyFor(column,
             V1Constants.MetadataKeys.Column.TOTAL_NUMBER_OF_ENTRIES));
 
+    final Comparable minValue =
+        getColumnValue(dataType, V1Constants.MetadataKeys.Column.getKeyFor(column,
+            V1Constants.MetadataKeys.Column.MIN_VALUE));
+    final Comparable maxValue =
+        getColumnValue(dataType, V1Constants.MetadataKeys.Column.getKeyFor(column,
+            V1Constants.MetadataKeys.Column.MAX_VALUE));
+
     return new ColumnMetadata(column, cardinality, totalDocs, dataType, bitsPerElement, stringColumnMaxLength,
         fieldType, isSorted, hasInvertedIndex, insSingleValue, maxNumberOfMultiValues, hasNulls, hasDictionary,
-        segmentTimeUnit, totalNumberOfEntries);
+        segmentTimeUnit, totalNumberOfEntries, minValue, maxValue);
 
   }
 
+  /**
+   * Parse a column value stored in the metadata after the data type of the column, null if the key is missing (e.g.
+   * segments created before the min/max values were recorded) or cannot be parsed.
+   */
+  private Comparable getColumnValue(DataType dataType, String key) {
+    final String value = _segmentMetadataPropertiesConfiguration.getString(key, null);
+    if (value == null) {
+      return null;
+    }
+    try {
+      switch (dataType) {
+        case INT:
+          return Integer.valueOf(value);
+        case LONG:
+          return Long.valueOf(value);
+        case FLOAT:
+          return Float.valueOf(value);
+        case DOUBLE:
+          return Double.valueOf(value);
+        case STRING:
+          return value;
+        default:
+          return null;
+      }
+    } catch (NumberFormatException e) {
+      LOGGER.warn("Could not parse {} value {} for key {}", dataType, value, key);
+      return null;
+    }
+  }
+
   public ColumnMetadata getColumnMetadataFor(String column) {
     return _columnMetadataMap.get(column);
   }
@@ -415,6 +453,9 @@ public class SegmentMetadataImpl implements SegmentMetadata {
 
   @Override
   public String getVersion() {
+    if (_indexDir != null && SingleFileIndexDirectory.isSingleFileSegment(new File(_indexDir))) {
+      return SegmentVersion.v2.toString();
+    }
     return SegmentVersion.v1.toString();
   }
 
@@ -16,12 +16,15 @@
 package com.linkedin.pinot.core.segment.index.column;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
 import com.linkedin.pinot.common.metadata.segment.IndexLoadingConfigMetadata;
 import com.linkedin.pinot.common.segment.ReadMode;
 import com.linkedin.pinot.core.index.reader.DataFileReader;
@@ -30,10 +33,12 @@ import com.linkedin.pinot.core.index.reader.impl.FixedBitSkipListSCMVReader;
 import com.linkedin.pinot.core.index.reader.impl.FixedByteWidthRowColDataFileReader;
 import com.linkedin.pinot.core.segment.creator.InvertedIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.creator.impl.bloom.BloomFilterCreator;
 import com.linkedin.pinot.core.segment.creator.impl.inv.BitmapInvertedIndexCreator;
 import com.linkedin.pinot.core.segment.index.BitmapInvertedIndexReader;
 import com.linkedin.pinot.core.segment.index.ColumnMetadata;
 import com.linkedin.pinot.core.segment.index.InvertedIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
 import com.linkedin.pinot.core.segment.index.readers.DoubleDictionary;
 import com.linkedin.pinot.core.segment.index.readers.FixedBitCompressedSVForwardIndexReader;
 import com.linkedin.pinot.core.segment.index.readers.FloatDictionary;
@@ -41,91 +46,241 @@ import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
 import com.linkedin.pinot.core.segment.index.readers.IntDictionary;
 import com.linkedin.pinot.core.segment.index.readers.LongDictionary;
 import com.linkedin.pinot.core.segment.index.readers.StringDictionary;
+import com.linkedin.pinot.core.segment.store.SingleFileIndexDirectory;
 
 
 public abstract class ColumnIndexContainer {
   private static final Logger LOGGER = LoggerFactory.getLogger(ColumnIndexContainer.class);
 
+  private BloomFilterReader bloomFilter;
+
   public static ColumnIndexContainer init(String column, File indexDir, ColumnMetadata metadata,
       IndexLoadingConfigMetadata indexLoadingConfigMetadata, ReadMode mode) throws Exception {
+    return init(null, column, indexDir, metadata, indexLoadingConfigMetadata, mode);
+  }
+
+  /**
+   * @param tableName table of the segment, the inverted index bitmaps are cached under its quota
+   */
+  public static ColumnIndexContainer init(String tableName, String column, File indexDir, ColumnMetadata metadata,
+      IndexLoadingConfigMetadata indexLoadingConfigMetadata, ReadMode mode) throws Exception {
+    return init(tableName, column, indexDir, metadata, indexLoadingConfigMetadata, mode, null);
+  }
+
+  /**
+   * @param singleFileIndex the single file holding the indexes of a v2 segment, null for a v1 segment
+   */
+  public static ColumnIndexContainer init(String tableName, String column, File indexDir, ColumnMetadata metadata,
+      IndexLoadingConfigMetadata indexLoadingConfigMetadata, ReadMode mode, SingleFileIndexDirectory singleFileIndex)
+      throws Exception {
 
     boolean loadInverted = false;
+    boolean createBloomFilter = false;
     if (indexLoadingConfigMetadata != null) {
       if (indexLoadingConfigMetadata.getLoadingInvertedIndexColumns() != null) {
         loadInverted = indexLoadingConfigMetadata.getLoadingInvertedIndexColumns().contains(column);
       }
+      createBloomFilter = indexLoadingConfigMetadata.isLoadingBloomFilterForColumn(column);
     }
 
     File dictionaryFile = new File(indexDir, column + V1Constants.Dict.FILE_EXTENTION);
-    ImmutableDictionaryReader dictionary = load(metadata, dictionaryFile, mode);
+    ImmutableDictionaryReader dictionary;
+    if (singleFileIndex != null) {
+      dictionary = load(metadata, singleFileIndex.getBuffer(dictionaryFile.getName()));
+    } else {
+      dictionary = load(metadata, dictionaryFile, mode);
+    }
 
+    ColumnIndexContainer container;
     if (metadata.isSorted() && metadata.isSingleValue()) {
-      return loadSorted(column, indexDir, metadata, dictionary, mode);
+      container = loadSorted(column, indexDir, metadata, dictionary, mode, singleFileIndex);
+    } else if (metadata.isSingleValue()) {
+      container =
+          loadUnsorted(tableName, column, indexDir, metadata, dictionary, mode, loadInverted, singleFileIndex);
+    } else {
+      container =
+          loadMultiValue(tableName, column, indexDir, metadata, dictionary, mode, loadInverted, singleFileIndex);
+    }
+    BloomFilterReader bloomFilter = loadBloomFilter(column, indexDir, metadata, singleFileIndex);
+    if (bloomFilter == null && createBloomFilter) {
+      bloomFilter = createAndLoadBloomFilter(column, indexDir, metadata, dictionary);
+    }
+    container.setBloomFilter(bloomFilter);
+    return container;
+  }
+
+  /**
+   * Whether loading the column creates one of its indexes on disk, i.e. an inverted index or a bloom filter is
+   * configured for it but missing from the segment. Such columns are loaded up front rather than lazily, so that the
+   * index is built while the segment is loaded and not on the thread of the first query on the column.
+   */
+  public static boolean needsIndexCreation(String column, File indexDir, ColumnMetadata metadata,
+      IndexLoadingConfigMetadata indexLoadingConfigMetadata, SingleFileIndexDirectory singleFileIndex) {
+    if (indexLoadingConfigMetadata == null) {
+      return false;
+    }
+    if (!(metadata.isSorted() && metadata.isSingleValue())
+        && indexLoadingConfigMetadata.getLoadingInvertedIndexColumns() != null
+        && indexLoadingConfigMetadata.getLoadingInvertedIndexColumns().contains(column)) {
+      File invertedIndexFile = new File(indexDir, column + V1Constants.Indexes.BITMAP_INVERTED_INDEX_FILE_EXTENSION);
+      boolean inSingleFile = singleFileIndex != null && singleFileIndex.hasBuffer(invertedIndexFile.getName());
+      if (!inSingleFile && (new File(column + "_inv.inprogress").exists() || !invertedIndexFile.exists())) {
+        return true;
+      }
+    }
+    if (indexLoadingConfigMetadata.isLoadingBloomFilterForColumn(column)) {
+      File bloomFilterFile = new File(indexDir, column + V1Constants.Indexes.BLOOM_FILTER_FILE_EXTENSION);
+      boolean inSingleFile = singleFileIndex != null && singleFileIndex.hasBuffer(bloomFilterFile.getName());
+      return !inSingleFile && !bloomFilterFile.exists();
+    }
+    return false;
+  }
+
+  /**
+   * Checks that the dictionary and the forward index of the column are in the segment, without opening them, so that a
+   * segment missing some of them fails to load instead of failing its first query.
+   */
+  public static void checkIndexFiles(String column, File indexDir, ColumnMetadata metadata,
+      SingleFileIndexDirectory singleFileIndex) throws IOException {
+    String fwdIndexExtension;
+    if (metadata.isSorted() && metadata.isSingleValue()) {
+      fwdIndexExtension = V1Constants.Indexes.SORTED_FWD_IDX_FILE_EXTENTION;
+    } else if (metadata.isSingleValue()) {
+      fwdIndexExtension = V1Constants.Indexes.UN_SORTED_SV_FWD_IDX_FILE_EXTENTION;
+    } else {
+      fwdIndexExtension = V1Constants.Indexes.UN_SORTED_MV_FWD_IDX_FILE_EXTENTION;
+    }
+    for (String extension : new String[] { V1Constants.Dict.FILE_EXTENTION, fwdIndexExtension }) {
+      File file = new File(indexDir, column + extension);
+      if (singleFileIndex != null ? !singleFileIndex.hasBuffer(file.getName()) : !file.isFile()) {
+        throw new FileNotFoundException("Missing index file " + file.getName() + " of column " + column + " in "
+            + indexDir);
+      }
+    }
+  }
+
+  /**
+   * Loads the bloom filter of the column, null if the segment has none.
+   */
+  static BloomFilterReader loadBloomFilter(String column, File indexDir, ColumnMetadata metadata,
+      SingleFileIndexDirectory singleFileIndex) throws IOException {
+    File bloomFilterFile = new File(indexDir, column + V1Constants.Indexes.BLOOM_FILTER_FILE_EXTENSION);
+    if (singleFileIndex != null && singleFileIndex.hasBuffer(bloomFilterFile.getName())) {
+      return new BloomFilterReader(singleFileIndex.getBuffer(bloomFilterFile.getName()), metadata.getDataType());
+    }
+    if (bloomFilterFile.exists()) {
+      return new BloomFilterReader(bloomFilterFile, metadata.getDataType());
     }
+    return null;
+  }
 
-    if (metadata.isSingleValue()) {
-      return loadUnsorted(column, indexDir, metadata, dictionary, mode, loadInverted);
+  private static BloomFilterReader createAndLoadBloomFilter(String column, File indexDir, ColumnMetadata metadata,
+      ImmutableDictionaryReader dictionary) throws IOException {
+    // The dictionary holds all the values of the column, the bloom filter is built from it as it would have been at
+    // segment creation
+    LOGGER.info("did not find bloom filter for column {}, creating it", column);
+    BloomFilterCreator creator =
+        new BloomFilterCreator(indexDir, column, metadata.getDataType(), dictionary.length());
+    for (int i = 0; i < dictionary.length(); i++) {
+      if (metadata.getDataType() == DataType.STRING || metadata.getDataType() == DataType.BOOLEAN) {
+        creator.add(dictionary.getStringValue(i));
+      } else {
+        creator.add(dictionary.get(i));
+      }
     }
-    return loadMultiValue(column, indexDir, metadata, dictionary, mode, loadInverted);
+    creator.seal();
+    return new BloomFilterReader(new File(indexDir, column + V1Constants.Indexes.BLOOM_FILTER_FILE_EXTENSION),
+        metadata.getDataType());
   }
 
   private static ColumnIndexContainer loadSorted(String column, File indexDir, ColumnMetadata metadata,
-      ImmutableDictionaryReader dictionary, ReadMode mode) throws IOException {
+      ImmutableDictionaryReader dictionary, ReadMode mode, SingleFileIndexDirectory singleFileIndex)
+      throws IOException {
     File fwdIndexFile = new File(indexDir, column + V1Constants.Indexes.SORTED_FWD_IDX_FILE_EXTENTION);
 
-    FixedByteWidthRowColDataFileReader indexReader =
-        new FixedByteWidthRowColDataFileReader(fwdIndexFile, metadata.getCardinality(), 2, new int[] { 4, 4 },
-            mode == ReadMode.mmap);
+    FixedByteWidthRowColDataFileReader indexReader;
+    if (singleFileIndex != null) {
+      indexReader = new FixedByteWidthRowColDataFileReader(singleFileIndex.getBuffer(fwdIndexFile.getName()),
+          metadata.getCardinality(), 2, new int[] { 4, 4 });
+    } else {
+      indexReader = new FixedByteWidthRowColDataFileReader(fwdIndexFile, metadata.getCardinality(), 2,
+          new int[] { 4, 4 }, mode == ReadMode.mmap);
+    }
     return new SortedSVColumnIndexContainer(column, metadata, indexReader, dictionary);
   }
 
-  private static ColumnIndexContainer loadUnsorted(String column, File indexDir, ColumnMetadata metadata,
-      ImmutableDictionaryReader dictionary, ReadMode mode, boolean loadInverted) throws IOException {
+  private static ColumnIndexContainer loadUnsorted(String tableName, String column, File indexDir,
+      ColumnMetadata metadata, ImmutableDictionaryReader dictionary, ReadMode mode, boolean loadInverted,
+      SingleFileIndexDirectory singleFileIndex) throws IOException {
     File fwdIndexFile = new File(indexDir, column + V1Constants.Indexes.UN_SORTED_SV_FWD_IDX_FILE_EXTENTION);
     File invertedIndexFile = new File(indexDir, column + V1Constants.Indexes.BITMAP_INVERTED_INDEX_FILE_EXTENSION);
 
-    FixedBitCompressedSVForwardIndexReader fwdIndexReader =
-        new FixedBitCompressedSVForwardIndexReader(fwdIndexFile, metadata.getTotalDocs(), metadata.getBitsPerElement(),
-            mode == ReadMode.mmap, metadata.hasNulls());
+    FixedBitCompressedSVForwardIndexReader fwdIndexReader;
+    if (singleFileIndex != null) {
+      fwdIndexReader = new FixedBitCompressedSVForwardIndexReader(singleFileIndex.getBuffer(fwdIndexFile.getName()),
+          metadata.getTotalDocs(), metadata.getBitsPerElement(), metadata.hasNulls());
+    } else {
+      fwdIndexReader = new FixedBitCompressedSVForwardIndexReader(fwdIndexFile, metadata.getTotalDocs(),
+          metadata.getBitsPerElement(), mode == ReadMode.mmap, metadata.hasNulls());
+    }
 
     BitmapInvertedIndexReader invertedIndex = null;
 
     if (loadInverted) {
-      invertedIndex =
-          createAndLoadInvertedIndexFor(column, fwdIndexReader, metadata, invertedIndexFile, mode, indexDir);
+      invertedIndex = loadInvertedIndex(tableName, column, fwdIndexReader, metadata, invertedIndexFile, mode,
+          indexDir, singleFileIndex);
     }
 
     return new UnsortedSVColumnIndexContainer(column, metadata, fwdIndexReader, dictionary, invertedIndex);
   }
 
-  private static ColumnIndexContainer loadMultiValue(String column, File indexDir, ColumnMetadata metadata,
-      ImmutableDictionaryReader dictionary, ReadMode mode, boolean loadInverted) throws Exception {
+  private static ColumnIndexContainer loadMultiValue(String tableName, String column, File indexDir,
+      ColumnMetadata metadata, ImmutableDictionaryReader dictionary, ReadMode mode, boolean loadInverted,
+      SingleFileIndexDirectory singleFileIndex) throws Exception {
     File fwdIndexFile = new File(indexDir, column + V1Constants.Indexes.UN_SORTED_MV_FWD_IDX_FILE_EXTENTION);
     File invertedIndexFile = new File(indexDir, column + V1Constants.Indexes.BITMAP_INVERTED_INDEX_FILE_EXTENSION);
 
-    FixedBitSkipListSCMVReader fwdIndexReader =
-        new FixedBitSkipListSCMVReader(fwdIndexFile, metadata.getTotalDocs(), metadata.getTotalNumberOfEntries(),
-            metadata.getBitsPerElement(), false, mode == ReadMode.mmap);
+    FixedBitSkipListSCMVReader fwdIndexReader;
+    if (singleFileIndex != null) {
+      fwdIndexReader = new FixedBitSkipListSCMVReader(singleFileIndex.getBuffer(fwdIndexFile.getName()),
+          metadata.getTotalDocs(), metadata.getTotalNumberOfEntries(), metadata.getBitsPerElement(), false);
+    } else {
+      fwdIndexReader = new FixedBitSkipListSCMVReader(fwdIndexFile, metadata.getTotalDocs(),
+          metadata.getTotalNumberOfEntries(), metadata.getBitsPerElement(), false, mode == ReadMode.mmap);
+    }
 
     BitmapInvertedIndexReader invertedIndex = null;
 
     if (loadInverted) {
-      invertedIndex =
-          createAndLoadInvertedIndexFor(column, fwdIndexReader, metadata, invertedIndexFile, mode, indexDir);
+      invertedIndex = loadInvertedIndex(tableName, column, fwdIndexReader, metadata, invertedIndexFile, mode,
+          indexDir, singleFileIndex);
     }
 
     return new UnSortedMVColumnIndexContainer(column, metadata, fwdIndexReader, dictionary, invertedIndex);
   }
 
-  private static BitmapInvertedIndexReader createAndLoadInvertedIndexFor(String column, DataFileReader fwdIndex,
-      ColumnMetadata metadata, File invertedIndexFile, ReadMode mode, File indexDir) throws IOException {
+  private static BitmapInvertedIndexReader loadInvertedIndex(String tableName, String column,
+      DataFileReader fwdIndex, ColumnMetadata metadata, File invertedIndexFile, ReadMode mode, File indexDir,
+      SingleFileIndexDirectory singleFileIndex) throws IOException {
+    if (singleFileIndex != null && singleFileIndex.hasBuffer(invertedIndexFile.getName())) {
+      return new BitmapInvertedIndexReader(singleFileIndex.getBuffer(invertedIndexFile.getName()),
+          metadata.getCardinality(), tableName);
+    }
+    // Inverted indexes missing from a single file segment are created next to it, as for v1 segments
+    return createAndLoadInvertedIndexFor(tableName, column, fwdIndex, metadata, invertedIndexFile, mode, indexDir);
+  }
+
+  private static BitmapInvertedIndexReader createAndLoadInvertedIndexFor(String tableName, String column,
+      DataFileReader fwdIndex, ColumnMetadata metadata, File invertedIndexFile, ReadMode mode, File indexDir)
+      throws IOException {
 
     File inProgress = new File(column + "_inv.inprogress");
 
     // returning inverted index from file only when marker file does not exist and inverted file exist
     if (!inProgress.exists() && invertedIndexFile.exists()) {
       LOGGER.warn("found inverted index for colummn {}, loading it", column);
-      return new BitmapInvertedIndexReader(invertedIndexFile, metadata.getCardinality(), mode == ReadMode.mmap);
+      return new BitmapInvertedIndexReader(invertedIndexFile, metadata.getCardinality(), mode == ReadMode.mmap,
+        tableName);
     }
 
     // creating the marker file
@@ -165,7 +320,8 @@ public abstract class ColumnIndexContainer {
     FileUtils.deleteQuietly(inProgress);
 
     LOGGER.warn("created inverted index for colummn {}, loading it", column);
-    return new BitmapInvertedIndexReader(invertedIndexFile, metadata.getCardinality(), mode == ReadMode.mmap);
+    return new BitmapInvertedIndexReader(invertedIndexFile, metadata.getCardinality(), mode == ReadMode.mmap,
+        tableName);
   }
 
   @SuppressWarnings("incomplete-switch")
@@ -188,6 +344,25 @@ public abstract class ColumnIndexContainer {
     throw new UnsupportedOperationException("unsupported data type : " + metadata.getDataType());
   }
 
+  @SuppressWarnings("incomplete-switch")
+  private static ImmutableDictionaryReader load(ColumnMetadata metadata, ByteBuffer buffer) throws IOException {
+    switch (metadata.getDataType()) {
+      case INT:
+        return new IntDictionary(buffer, metadata);
+      case LONG:
+        return new LongDictionary(buffer, metadata);
+      case FLOAT:
+        return new FloatDictionary(buffer, metadata);
+      case DOUBLE:
+        return new DoubleDictionary(buffer, metadata);
+      case STRING:
+      case BOOLEAN:
+        return new StringDictionary(buffer, metadata);
+    }
+
+    throw new UnsupportedOperationException("unsupported data type : " + metadata.getDataType());
+  }
+
   /**
    *
    * @return
@@ -212,6 +387,24 @@ public abstract class ColumnIndexContainer {
    */
   public abstract ColumnMetadata getColumnMetadata();
 
+  /**
+   * Bloom filter of the values of the column, null if the column has none.
+   */
+  public BloomFilterReader getBloomFilter() {
+    return bloomFilter;
+  }
+
+  void setBloomFilter(BloomFilterReader bloomFilter) {
+    this.bloomFilter = bloomFilter;
+  }
+
+  /**
+   * Whether the dictionary and the indexes of the column are opened, see {@link LazyColumnIndexContainer}.
+   */
+  public boolean isLoaded() {
+    return true;
+  }
+
   /**
    *
    * @return
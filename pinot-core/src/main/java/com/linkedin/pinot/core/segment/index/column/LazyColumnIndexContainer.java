@@ -0,0 +1,161 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.column;
+
+import java.io.File;
+
+import com.linkedin.pinot.common.Utils;
+import com.linkedin.pinot.common.metadata.segment.IndexLoadingConfigMetadata;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.index.reader.DataFileReader;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.InvertedIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
+import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
+import com.linkedin.pinot.core.segment.store.SingleFileIndexDirectory;
+
+
+/**
+ * Column index container which only opens the dictionary and the indexes of its column the first time one of them is
+ * accessed, so that loading a segment only reads its metadata and columns that are never queried cost nothing.
+ * Only the opening of the files is deferred: columns which have an index to build are not loaded lazily, and the files
+ * of the others are checked when the segment is loaded, see {@link ColumnIndexContainer#needsIndexCreation} and
+ * {@link ColumnIndexContainer#checkIndexFiles}.
+ */
+public class LazyColumnIndexContainer extends ColumnIndexContainer {
+  private final String tableName;
+  private final String column;
+  private final File indexDir;
+  private final ColumnMetadata metadata;
+  private final IndexLoadingConfigMetadata indexLoadingConfigMetadata;
+  private final ReadMode mode;
+  private final SingleFileIndexDirectory singleFileIndex;
+
+  private volatile ColumnIndexContainer delegate;
+  private volatile BloomFilterReader bloomFilter;
+  // Whether bloomFilter was looked up, which is also remembered when the column has none
+  private volatile boolean bloomFilterLoaded;
+
+  public LazyColumnIndexContainer(String tableName, String column, File indexDir, ColumnMetadata metadata,
+      IndexLoadingConfigMetadata indexLoadingConfigMetadata, ReadMode mode) {
+    this(tableName, column, indexDir, metadata, indexLoadingConfigMetadata, mode, null);
+  }
+
+  public LazyColumnIndexContainer(String tableName, String column, File indexDir, ColumnMetadata metadata,
+      IndexLoadingConfigMetadata indexLoadingConfigMetadata, ReadMode mode, SingleFileIndexDirectory singleFileIndex) {
+    this.tableName = tableName;
+    this.column = column;
+    this.indexDir = indexDir;
+    this.metadata = metadata;
+    this.indexLoadingConfigMetadata = indexLoadingConfigMetadata;
+    this.mode = mode;
+    this.singleFileIndex = singleFileIndex;
+  }
+
+  private ColumnIndexContainer getDelegate() {
+    ColumnIndexContainer container = delegate;
+    if (container == null) {
+      synchronized (this) {
+        container = delegate;
+        if (container == null) {
+          try {
+            container = ColumnIndexContainer.init(tableName, column, indexDir, metadata, indexLoadingConfigMetadata,
+                mode, singleFileIndex);
+          } catch (Exception e) {
+            Utils.rethrowException(e);
+            throw new AssertionError("Should not reach this");
+          }
+          delegate = container;
+        }
+      }
+    }
+    return container;
+  }
+
+  @Override
+  public boolean isLoaded() {
+    return delegate != null;
+  }
+
+  @Override
+  public InvertedIndexReader getInvertedIndex() {
+    return getDelegate().getInvertedIndex();
+  }
+
+  @Override
+  public DataFileReader getForwardIndex() {
+    return getDelegate().getForwardIndex();
+  }
+
+  @Override
+  public ImmutableDictionaryReader getDictionary() {
+    return getDelegate().getDictionary();
+  }
+
+  /**
+   * An existing bloom filter is read on its own, so that segments can be pruned on the column without opening its
+   * other indexes.
+   */
+  @Override
+  public BloomFilterReader getBloomFilter() {
+    ColumnIndexContainer container = delegate;
+    if (container != null) {
+      return container.getBloomFilter();
+    }
+    if (bloomFilterLoaded) {
+      return bloomFilter;
+    }
+    synchronized (this) {
+      if (delegate != null) {
+        return delegate.getBloomFilter();
+      }
+      if (!bloomFilterLoaded) {
+        BloomFilterReader reader;
+        try {
+          reader = loadBloomFilter(column, indexDir, metadata, singleFileIndex);
+        } catch (Exception e) {
+          Utils.rethrowException(e);
+          throw new AssertionError("Should not reach this");
+        }
+        if (reader == null && indexLoadingConfigMetadata != null
+            && indexLoadingConfigMetadata.isLoadingBloomFilterForColumn(column)) {
+          // Only for a container not created by the segment loader, which builds missing bloom filters up front
+          return getDelegate().getBloomFilter();
+        }
+        bloomFilter = reader;
+        bloomFilterLoaded = true;
+      }
+      return bloomFilter;
+    }
+  }
+
+  @Override
+  public ColumnMetadata getColumnMetadata() {
+    return metadata;
+  }
+
+  @Override
+  public synchronized boolean unload() throws Exception {
+    bloomFilterLoaded = false;
+    bloomFilter = null;
+    if (delegate == null) {
+      return true;
+    }
+    boolean unloaded = delegate.unload();
+    delegate = null;
+    return unloaded;
+  }
+}
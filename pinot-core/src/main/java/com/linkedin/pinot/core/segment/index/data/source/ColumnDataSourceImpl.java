@@ -31,6 +31,7 @@ import com.linkedin.pinot.core.segment.index.column.ColumnIndexContainer;
 import com.linkedin.pinot.core.segment.index.data.source.mv.block.MultiValueBlock;
 import com.linkedin.pinot.core.segment.index.data.source.sv.block.SortedSingleValueBlock;
 import com.linkedin.pinot.core.segment.index.data.source.sv.block.UnSortedSingleValueBlock;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import com.linkedin.pinot.core.segment.index.readers.FixedBitCompressedSVForwardIndexReader;
 import com.linkedin.pinot.core.segment.index.readers.SortedForwardIndexReader;
@@ -160,4 +161,9 @@ public class ColumnDataSourceImpl extends DataSource {
   public Dictionary getDictionary() {
     return indexContainer.getDictionary();
   }
+
+  @Override
+  public BloomFilterReader getBloomFilter() {
+    return indexContainer.getBloomFilter();
+  }
 }
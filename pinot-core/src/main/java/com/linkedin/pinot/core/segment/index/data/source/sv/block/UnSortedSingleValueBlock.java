@@ -101,6 +101,17 @@ public class UnSortedSingleValueBlock implements Block {
             return sVReader.getInt(counter++);
           }
 
+          @Override
+          public int nextIntVals(int[] values, int length) {
+            int numValues = Math.min(length, sVReader.getLength() - counter);
+            if (numValues <= 0) {
+              return 0;
+            }
+            sVReader.getInts(counter, numValues, values);
+            counter += numValues;
+            return numValues;
+          }
+
           @Override
           public boolean reset() {
             counter = 0;
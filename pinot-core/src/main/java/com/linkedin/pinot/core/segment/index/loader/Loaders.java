@@ -26,6 +26,8 @@ import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
 import com.linkedin.pinot.core.segment.index.IndexSegmentImpl;
 import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
 import com.linkedin.pinot.core.segment.index.column.ColumnIndexContainer;
+import com.linkedin.pinot.core.segment.index.column.LazyColumnIndexContainer;
+import com.linkedin.pinot.core.segment.store.SingleFileIndexDirectory;
 import com.linkedin.pinot.core.startree.StarTreeIndexNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,9 +51,27 @@ public class Loaders {
 
       Map<String, ColumnIndexContainer> indexContainerMap = new HashMap<String, ColumnIndexContainer>();
 
+      // Only mmapped columns are opened lazily, heap loaded ones are read up front as they used to be.
+      boolean lazy = readMode == ReadMode.mmap && indexLoadingConfigMetadata != null
+          && indexLoadingConfigMetadata.isLazyLoadingColumns();
+      // v2 segments have all their column indexes in a single file, mapped once for the whole segment
+      SingleFileIndexDirectory singleFileIndex = null;
+      if (SingleFileIndexDirectory.isSingleFileSegment(indexDir)) {
+        singleFileIndex = new SingleFileIndexDirectory(indexDir, readMode);
+      }
       for (String column : metadata.getColumnMetadataMap().keySet()) {
-        indexContainerMap.put(column, ColumnIndexContainer.init(column, indexDir,
-            metadata.getColumnMetadataFor(column), indexLoadingConfigMetadata, readMode));
+        // Columns with an index to build are loaded right away, so that building it does not stall a query and a
+        // failure to build it fails the segment load.
+        if (lazy && !ColumnIndexContainer.needsIndexCreation(column, indexDir, metadata.getColumnMetadataFor(column),
+            indexLoadingConfigMetadata, singleFileIndex)) {
+          ColumnIndexContainer.checkIndexFiles(column, indexDir, metadata.getColumnMetadataFor(column),
+              singleFileIndex);
+          indexContainerMap.put(column, new LazyColumnIndexContainer(metadata.getTableName(), column, indexDir,
+              metadata.getColumnMetadataFor(column), indexLoadingConfigMetadata, readMode, singleFileIndex));
+        } else {
+          indexContainerMap.put(column, ColumnIndexContainer.init(metadata.getTableName(), column, indexDir,
+              metadata.getColumnMetadataFor(column), indexLoadingConfigMetadata, readMode, singleFileIndex));
+        }
       }
 
       // The star tree index (if available)
@@ -62,7 +82,7 @@ public class Loaders {
         starTreeRoot = StarTreeIndexNode.fromBytes(new FileInputStream(starTreeFile));
       }
 
-      return new IndexSegmentImpl(indexDir, metadata, indexContainerMap, starTreeRoot);
+      return new IndexSegmentImpl(indexDir, metadata, indexContainerMap, starTreeRoot, singleFileIndex);
     }
   }
 }
@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.readers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.commons.io.FileUtils;
+
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.core.segment.creator.impl.bloom.BloomFilterCreator;
+
+
+/**
+ * Reads the bloom filter written by {@link BloomFilterCreator}. Bloom filters are small (about 10 bits per distinct
+ * value), they are always read on heap.
+ */
+public class BloomFilterReader {
+  private final DataType dataType;
+  private final ByteBuffer buffer;
+  private final int numHashFunctions;
+  private final long numBits;
+
+  public BloomFilterReader(File file, DataType dataType) throws IOException {
+    this(ByteBuffer.wrap(FileUtils.readFileToByteArray(file)), dataType);
+  }
+
+  /**
+   * Reads the bloom filter from a buffer holding the content of a bloom filter file, e.g. a slice of a single file
+   * segment.
+   */
+  public BloomFilterReader(ByteBuffer buffer, DataType dataType) {
+    this.dataType = dataType;
+    this.buffer = buffer;
+    numHashFunctions = buffer.getInt(0);
+    numBits = (long) buffer.getInt(4) * 64;
+  }
+
+  /**
+   * Returns false if the column definitely does not contain the value, true if it might. Values that cannot be
+   * parsed for the column type might be contained, the dictionary lookup decides on them.
+   */
+  public boolean mightContain(Object value) {
+    long hash;
+    try {
+      hash = BloomFilterCreator.hash(dataType, value);
+    } catch (NumberFormatException e) {
+      return true;
+    }
+    for (int i = 0; i < numHashFunctions; i++) {
+      long bit = BloomFilterCreator.getBitIndex(hash, i, numBits);
+      long word = buffer.getLong(BloomFilterCreator.HEADER_SIZE + (int) (bit >>> 6) * 8);
+      if ((word & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
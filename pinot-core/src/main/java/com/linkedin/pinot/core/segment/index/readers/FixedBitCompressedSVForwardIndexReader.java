@@ -17,6 +17,7 @@ package com.linkedin.pinot.core.segment.index.readers;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import com.linkedin.pinot.core.index.reader.DataFileMetadata;
 import com.linkedin.pinot.core.index.reader.SingleColumnSingleValueReader;
@@ -44,6 +45,17 @@ public class FixedBitCompressedSVForwardIndexReader implements SingleColumnSingl
     this.rows = rows;
   }
 
+  /**
+   * Reads the index from a buffer holding the content of an index file, e.g. a slice of a single file segment.
+   */
+  public FixedBitCompressedSVForwardIndexReader(ByteBuffer buffer, int rows, int columnSize, boolean hasNulls)
+      throws IOException {
+    indexFile = null;
+    dataFileReader = FixedBitWidthRowColDataFileReader.forByteBuffer(buffer, rows, 1, new int[] { columnSize },
+        new boolean[] { hasNulls });
+    this.rows = rows;
+  }
+
   public int getLength() {
     return rows;
   }
@@ -73,6 +85,13 @@ public class FixedBitCompressedSVForwardIndexReader implements SingleColumnSingl
     return dataFileReader.getInt(row, 0);
   }
 
+  /**
+   * Reads the values of numRows consecutive rows starting at startRow into the values array.
+   */
+  public void getInts(int startRow, int numRows, int[] values) {
+    dataFileReader.getInts(startRow, numRows, 0, values);
+  }
+
   @Override
   public long getLong(int row) {
     throw new UnsupportedOperationException();
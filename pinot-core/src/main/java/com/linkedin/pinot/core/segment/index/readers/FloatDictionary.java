@@ -17,6 +17,7 @@ package com.linkedin.pinot.core.segment.index.readers;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import com.linkedin.pinot.common.segment.ReadMode;
 import com.linkedin.pinot.core.segment.index.ColumnMetadata;
@@ -32,6 +33,10 @@ public class FloatDictionary extends ImmutableDictionaryReader {
     super(dictFile, metadata.getCardinality(), Float.SIZE / 8, loadMode == ReadMode.mmap);
   }
 
+  public FloatDictionary(ByteBuffer buffer, ColumnMetadata metadata) throws IOException {
+    super(buffer, metadata.getCardinality(), Float.SIZE / 8);
+  }
+
   @Override
   public int indexOf(Object rawValue) {
     Float lookup ;
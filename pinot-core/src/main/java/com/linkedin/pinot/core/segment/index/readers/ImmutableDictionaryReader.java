@@ -17,6 +17,7 @@ package com.linkedin.pinot.core.segment.index.readers;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import com.linkedin.pinot.core.index.reader.impl.FixedByteWidthRowColDataFileReader;
 import com.linkedin.pinot.core.indexsegment.utils.ByteBufferBinarySearchUtil;
@@ -42,6 +43,12 @@ public abstract class ImmutableDictionaryReader implements Dictionary {
     fileSearcher = new ByteBufferBinarySearchUtil(dataFileReader);
   }
 
+  protected ImmutableDictionaryReader(ByteBuffer buffer, int rows, int columnSize) throws IOException {
+    dataFileReader = new FixedByteWidthRowColDataFileReader(buffer, rows, 1, new int[] { columnSize });
+    this.rows = rows;
+    fileSearcher = new ByteBufferBinarySearchUtil(dataFileReader);
+  }
+
   protected int intIndexOf(int actualValue) {
     return fileSearcher.binarySearch(0, actualValue);
   }
@@ -0,0 +1,148 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.store;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+
+
+/**
+ * Converts a v1 segment directory, holding one file per column index, into a v2 segment, where all the column
+ * indexes are packed into a single {@link SingleFileIndexDirectory} file. The metadata, creation metadata and star
+ * tree files are left as they are.
+ */
+public class SegmentV1ToV2Converter {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentV1ToV2Converter.class);
+
+  private static final String[] INDEX_FILE_EXTENSIONS = new String[] {
+      V1Constants.Dict.FILE_EXTENTION,
+      V1Constants.Indexes.UN_SORTED_SV_FWD_IDX_FILE_EXTENTION,
+      V1Constants.Indexes.SORTED_FWD_IDX_FILE_EXTENTION,
+      V1Constants.Indexes.UN_SORTED_MV_FWD_IDX_FILE_EXTENTION,
+      V1Constants.Indexes.BITMAP_INVERTED_INDEX_FILE_EXTENSION,
+      V1Constants.Indexes.BLOOM_FILTER_FILE_EXTENSION };
+
+  private SegmentV1ToV2Converter() {
+  }
+
+  /**
+   * Packs the column index files of the segment in indexDir into a single file, then deletes them. Does nothing if
+   * the segment already is a v2 segment.
+   */
+  public static void convert(File indexDir) throws IOException {
+    if (SingleFileIndexDirectory.isSingleFileSegment(indexDir)) {
+      LOGGER.info("Segment {} already is a single file segment", indexDir);
+      return;
+    }
+
+    List<File> indexFiles = new ArrayList<File>();
+    for (File file : indexDir.listFiles()) {
+      if (file.isFile() && isIndexFile(file.getName())) {
+        indexFiles.add(file);
+      }
+    }
+    // Sorted for a deterministic layout
+    File[] sortedIndexFiles = indexFiles.toArray(new File[indexFiles.size()]);
+    Arrays.sort(sortedIndexFiles);
+
+    // The directory has a fixed size per entry, so its size is known before the offsets are
+    long headerSize = directoryBytes(sortedIndexFiles, new long[sortedIndexFiles.length]).length;
+    long[] offsets = new long[sortedIndexFiles.length];
+    long offset = align(headerSize);
+    for (int i = 0; i < sortedIndexFiles.length; i++) {
+      offsets[i] = offset;
+      offset = align(offset + sortedIndexFiles[i].length());
+    }
+
+    File tempFile = new File(indexDir, SingleFileIndexDirectory.FILE_NAME + ".tmp");
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+    try {
+      byte[] directory = directoryBytes(sortedIndexFiles, offsets);
+      out.write(directory);
+      long position = directory.length;
+      for (int i = 0; i < sortedIndexFiles.length; i++) {
+        position = pad(out, position, offsets[i]);
+        InputStream in = new FileInputStream(sortedIndexFiles[i]);
+        try {
+          position += IOUtils.copyLarge(in, out);
+        } finally {
+          in.close();
+        }
+      }
+      pad(out, position, align(position));
+    } finally {
+      out.close();
+    }
+
+    FileUtils.moveFile(tempFile, new File(indexDir, SingleFileIndexDirectory.FILE_NAME));
+    for (File file : sortedIndexFiles) {
+      FileUtils.forceDelete(file);
+    }
+    LOGGER.info("Converted segment {} to a single file segment with {} buffers", indexDir, sortedIndexFiles.length);
+  }
+
+  private static boolean isIndexFile(String fileName) {
+    for (String extension : INDEX_FILE_EXTENSIONS) {
+      if (fileName.endsWith(extension)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static byte[] directoryBytes(File[] indexFiles, long[] offsets) throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bos);
+    out.writeInt(SingleFileIndexDirectory.MAGIC);
+    out.writeInt(indexFiles.length);
+    for (int i = 0; i < indexFiles.length; i++) {
+      out.writeUTF(indexFiles[i].getName());
+      out.writeLong(offsets[i]);
+      out.writeLong(indexFiles[i].length());
+    }
+    out.close();
+    return bos.toByteArray();
+  }
+
+  private static long align(long position) {
+    return (position + SingleFileIndexDirectory.ALIGNMENT - 1) / SingleFileIndexDirectory.ALIGNMENT
+        * SingleFileIndexDirectory.ALIGNMENT;
+  }
+
+  private static long pad(DataOutputStream out, long position, long target) throws IOException {
+    while (position < target) {
+      out.writeByte(0);
+      position++;
+    }
+    return position;
+  }
+}
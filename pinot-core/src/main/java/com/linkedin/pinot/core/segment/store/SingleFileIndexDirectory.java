@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.store;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.common.utils.MmapUtils;
+
+
+/**
+ * Reader of the single file holding all the index buffers of a v2 segment.
+ *
+ * The file starts with a directory of its entries (name, offset and size of each buffer, the name being the file
+ * name the buffer had in a v1 segment), followed by the buffers, each of them aligned on {@link #ALIGNMENT} bytes.
+ * The file is mapped (or read, in heap mode) once and every buffer is a slice of it, so a segment only holds one
+ * file descriptor and one memory mapping whatever its number of columns. Files bigger than 2GB, which do not fit
+ * in a single buffer, are mapped entry by entry.
+ */
+public class SingleFileIndexDirectory implements Closeable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SingleFileIndexDirectory.class);
+
+  public static final String FILE_NAME = "columns.psf";
+  public static final int MAGIC = 0x50534631;
+  public static final int ALIGNMENT = 8;
+
+  private final File file;
+  private final ReadMode readMode;
+  private final Map<String, long[]> entries = new HashMap<String, long[]>();
+  private final List<ByteBuffer> allocatedBuffers = new ArrayList<ByteBuffer>();
+  private RandomAccessFile randomAccessFile;
+  private ByteBuffer fileBuffer;
+
+  public SingleFileIndexDirectory(File indexDir, ReadMode readMode) throws IOException {
+    this.file = new File(indexDir, FILE_NAME);
+    this.readMode = readMode;
+    readDirectory();
+
+    randomAccessFile = new RandomAccessFile(file, "r");
+    long length = randomAccessFile.length();
+    if (length <= Integer.MAX_VALUE) {
+      fileBuffer = allocate(0, length);
+    }
+    if (readMode == ReadMode.heap) {
+      randomAccessFile.close();
+      randomAccessFile = null;
+    }
+  }
+
+  public static boolean isSingleFileSegment(File indexDir) {
+    return new File(indexDir, FILE_NAME).exists();
+  }
+
+  private void readDirectory() throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+    try {
+      int magic = in.readInt();
+      if (magic != MAGIC) {
+        throw new IOException("Invalid single file segment " + file + ", got magic " + Integer.toHexString(magic));
+      }
+      int numEntries = in.readInt();
+      for (int i = 0; i < numEntries; i++) {
+        String name = in.readUTF();
+        long offset = in.readLong();
+        long size = in.readLong();
+        entries.put(name, new long[] { offset, size });
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  public boolean hasBuffer(String name) {
+    return entries.containsKey(name);
+  }
+
+  /**
+   * Returns the buffer holding the content of the given v1 file, e.g. "column.dict".
+   */
+  public synchronized ByteBuffer getBuffer(String name) throws IOException {
+    long[] entry = entries.get(name);
+    if (entry == null) {
+      throw new IOException("No buffer " + name + " in " + file);
+    }
+    if (fileBuffer != null) {
+      ByteBuffer duplicate = fileBuffer.duplicate();
+      duplicate.position((int) entry[0]);
+      duplicate.limit((int) (entry[0] + entry[1]));
+      return duplicate.slice();
+    }
+    if (randomAccessFile == null) {
+      randomAccessFile = new RandomAccessFile(file, "r");
+    }
+    return allocate(entry[0], entry[1]);
+  }
+
+  private ByteBuffer allocate(long offset, long size) throws IOException {
+    ByteBuffer buffer;
+    if (readMode == ReadMode.mmap) {
+      buffer = MmapUtils.mmapFile(randomAccessFile, FileChannel.MapMode.READ_ONLY, offset, size, file,
+          getClass().getSimpleName() + " buffer");
+    } else {
+      buffer = MmapUtils.allocateDirectByteBuffer((int) size, file, getClass().getSimpleName() + " buffer");
+      FileChannel channel = randomAccessFile.getChannel();
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, offset + buffer.position()) < 0) {
+          throw new IOException("Unexpected end of " + file);
+        }
+      }
+      buffer.rewind();
+    }
+    allocatedBuffers.add(buffer);
+    return buffer;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    for (ByteBuffer buffer : allocatedBuffers) {
+      MmapUtils.unloadByteBuffer(buffer);
+    }
+    allocatedBuffers.clear();
+    fileBuffer = null;
+    if (randomAccessFile != null) {
+      randomAccessFile.close();
+      randomAccessFile = null;
+    }
+    LOGGER.debug("Closed single file segment {}", file);
+  }
+}
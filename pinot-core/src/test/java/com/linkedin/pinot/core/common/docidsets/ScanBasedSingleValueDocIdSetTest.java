@@ -0,0 +1,246 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.common.docidsets;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.core.common.BlockDocIdIterator;
+import com.linkedin.pinot.core.common.BlockMetadata;
+import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.index.writer.impl.FixedBitWidthRowColDataFileWriter;
+import com.linkedin.pinot.core.operator.docidsets.DictionaryIdMatcher;
+import com.linkedin.pinot.core.operator.docidsets.ScanBasedSingleValueDocIdSet;
+import com.linkedin.pinot.core.segment.index.data.source.sv.block.UnSortedSingleValueBlock;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.core.segment.index.readers.FixedBitCompressedSVForwardIndexReader;
+
+
+public class ScanBasedSingleValueDocIdSetTest {
+  private static final int NUM_DOCS = 10000;
+
+  @Test
+  public void testBulkRead() throws Exception {
+    Random random = new Random();
+    for (int numBits = 1; numBits < 32; numBits++) {
+      int[] values = randomValues(random, numBits);
+      File file = writeForwardIndex(values, numBits);
+      try {
+        for (boolean isMMap : new boolean[] { false, true }) {
+          FixedBitCompressedSVForwardIndexReader reader =
+              new FixedBitCompressedSVForwardIndexReader(file, NUM_DOCS, numBits, isMMap, false);
+          int[] buffer = new int[1000];
+          for (int startRow = 0; startRow < NUM_DOCS; startRow += buffer.length) {
+            int numRows = Math.min(buffer.length, NUM_DOCS - startRow);
+            reader.getInts(startRow, numRows, buffer);
+            for (int i = 0; i < numRows; i++) {
+              Assert.assertEquals(buffer[i], values[startRow + i], "Bits: " + numBits + ", row: " + (startRow + i));
+            }
+          }
+          // Unaligned read at the end of the file
+          reader.getInts(NUM_DOCS - 3, 3, buffer);
+          for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(buffer[i], values[NUM_DOCS - 3 + i]);
+          }
+          reader.close();
+        }
+      } finally {
+        FileUtils.deleteQuietly(file);
+      }
+    }
+  }
+
+  @Test
+  public void testDictionaryIdMatcher() {
+    DictionaryIdMatcher rangeMatcher = new DictionaryIdMatcher(new int[] { 7, 5, 6, 5 });
+    DictionaryIdMatcher setMatcher = new DictionaryIdMatcher(new int[] { 3, 70, 200 });
+    for (int dictId = 0; dictId < 300; dictId++) {
+      Assert.assertEquals(rangeMatcher.matches(dictId), dictId >= 5 && dictId <= 7);
+      Assert.assertEquals(setMatcher.matches(dictId), dictId == 3 || dictId == 70 || dictId == 200);
+    }
+
+    int[] dictIds = new int[] { 1, 5, 70, 6, 3, 8, 7 };
+    int[] positions = new int[dictIds.length];
+    Assert.assertEquals(rangeMatcher.getMatchingPositions(dictIds, dictIds.length, 10, positions), 3);
+    Assert.assertEquals(positions[0], 11);
+    Assert.assertEquals(positions[1], 13);
+    Assert.assertEquals(positions[2], 16);
+    Assert.assertEquals(setMatcher.getMatchingPositions(dictIds, dictIds.length, 0, positions), 2);
+    Assert.assertEquals(positions[0], 2);
+    Assert.assertEquals(positions[1], 4);
+  }
+
+  @Test
+  public void testScan() throws Exception {
+    Random random = new Random();
+    int numBits = 6;
+    int[] values = randomValues(random, numBits);
+    File file = writeForwardIndex(values, numBits);
+    FixedBitCompressedSVForwardIndexReader reader =
+        new FixedBitCompressedSVForwardIndexReader(file, NUM_DOCS, numBits, true, false);
+    try {
+      int[][] predicateDictIds = new int[][] { { 10, 11, 12, 13 }, { 1, 17, 40 }, { 63 } };
+      for (int[] dictIds : predicateDictIds) {
+        List<Integer> expected = new ArrayList<Integer>();
+        for (int docId = 0; docId < NUM_DOCS; docId++) {
+          for (int dictId : dictIds) {
+            if (values[docId] == dictId) {
+              expected.add(docId);
+            }
+          }
+        }
+
+        // Full scan with next()
+        BlockDocIdIterator iterator = newDocIdSet(reader, dictIds).iterator();
+        for (int docId : expected) {
+          Assert.assertEquals(iterator.next(), docId);
+        }
+        Assert.assertEquals(iterator.next(), Constants.EOF);
+
+        // Random advance() interleaved with next(), as done by the AND iterator
+        iterator = newDocIdSet(reader, dictIds).iterator();
+        int target = 0;
+        while (true) {
+          target += random.nextInt(3000);
+          int docId = iterator.advance(target);
+          int expectedDocId = Constants.EOF;
+          for (int expectedId : expected) {
+            if (expectedId >= target) {
+              expectedDocId = expectedId;
+              break;
+            }
+          }
+          Assert.assertEquals(docId, expectedDocId);
+          if (docId == Constants.EOF) {
+            break;
+          }
+          target = iterator.next();
+          if (target == Constants.EOF) {
+            break;
+          }
+          Assert.assertEquals(target, (int) expected.get(expected.indexOf(docId) + 1));
+        }
+
+        // Restricted doc range
+        ScanBasedSingleValueDocIdSet docIdSet = newDocIdSet(reader, dictIds);
+        docIdSet.setStartDocId(2500);
+        docIdSet.setEndDocId(7499);
+        iterator = docIdSet.iterator();
+        for (int docId : expected) {
+          if (docId >= 2500 && docId <= 7499) {
+            Assert.assertEquals(iterator.next(), docId);
+          }
+        }
+        Assert.assertEquals(iterator.next(), Constants.EOF);
+      }
+    } finally {
+      reader.close();
+      FileUtils.deleteQuietly(file);
+    }
+  }
+
+  private static int[] randomValues(Random random, int numBits) {
+    int[] values = new int[NUM_DOCS];
+    for (int i = 0; i < NUM_DOCS; i++) {
+      values[i] = random.nextInt() >>> (32 - numBits);
+    }
+    return values;
+  }
+
+  private static File writeForwardIndex(int[] values, int numBits) throws Exception {
+    File file = File.createTempFile("ScanBasedSingleValueDocIdSetTest", ".sv.unsorted.fwd");
+    FixedBitWidthRowColDataFileWriter writer =
+        new FixedBitWidthRowColDataFileWriter(file, values.length, 1, new int[] { numBits });
+    for (int i = 0; i < values.length; i++) {
+      writer.setInt(i, 0, values[i]);
+    }
+    writer.close();
+    return file;
+  }
+
+  private static ScanBasedSingleValueDocIdSet newDocIdSet(FixedBitCompressedSVForwardIndexReader reader,
+      int[] dictIds) {
+    UnSortedSingleValueBlock block = new UnSortedSingleValueBlock(null, reader, null, null);
+    return new ScanBasedSingleValueDocIdSet(block.getBlockValueSet(), new BlockMetadata() {
+      @Override
+      public int getSize() {
+        return NUM_DOCS;
+      }
+
+      @Override
+      public int getLength() {
+        return NUM_DOCS;
+      }
+
+      @Override
+      public int getStartDocId() {
+        return 0;
+      }
+
+      @Override
+      public int getEndDocId() {
+        return NUM_DOCS - 1;
+      }
+
+      @Override
+      public boolean isSorted() {
+        return false;
+      }
+
+      @Override
+      public boolean isSparse() {
+        return false;
+      }
+
+      @Override
+      public boolean hasInvertedIndex() {
+        return false;
+      }
+
+      @Override
+      public boolean hasDictionary() {
+        return true;
+      }
+
+      @Override
+      public boolean isSingleValue() {
+        return true;
+      }
+
+      @Override
+      public Dictionary getDictionary() {
+        return null;
+      }
+
+      @Override
+      public int getMaxNumberOfMultiValues() {
+        return 1;
+      }
+
+      @Override
+      public DataType getDataType() {
+        return DataType.INT;
+      }
+    }, dictIds);
+  }
+}
@@ -0,0 +1,348 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.data.manager.realtime;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.common.config.AbstractTableConfig;
+import com.linkedin.pinot.common.data.FieldSpec.FieldType;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.metadata.instance.InstanceZKMetadata;
+import com.linkedin.pinot.common.metadata.segment.RealtimeSegmentZKMetadata;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.common.utils.CommonConstants.Segment.Realtime.Status;
+import com.linkedin.pinot.common.utils.CommonConstants.Segment.SegmentType;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.data.readers.FileFormat;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.realtime.StreamProvider;
+import com.linkedin.pinot.core.realtime.StreamProviderConfig;
+import com.linkedin.pinot.core.realtime.impl.FileBasedStreamProviderConfig;
+import com.linkedin.pinot.core.realtime.impl.FileBasedStreamProviderImpl;
+import com.linkedin.pinot.core.realtime.impl.RealtimeSegmentImpl;
+import com.linkedin.pinot.segments.v1.creator.SegmentTestUtils;
+
+
+/**
+ * Runs a realtime segment through its consume, index and convert stages against an in-memory stream, and checks the
+ * offsets it checkpoints and how a checkpointed segment is rebuilt.
+ */
+public class RealtimeSegmentDataManagerTest {
+  private static final String AVRO_DATA = "data/test_data-mv.avro";
+  private static final File TEMP_DIR = new File(FileUtils.getTempDirectory(), "RealtimeSegmentDataManagerTest");
+  private static final String TABLE_NAME = "testTable";
+  private static final int SEGMENT_SIZE = 1000;
+  private static final long START_OFFSET = 100;
+  private static final long TIMEOUT_MILLIS = 60000;
+
+  private String filePath;
+  private Schema schema;
+  private AbstractTableConfig tableConfig;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    FileUtils.deleteQuietly(TEMP_DIR);
+    filePath = RealtimeSegmentDataManagerTest.class.getClassLoader().getResource(AVRO_DATA).getFile();
+    Map<String, FieldType> fieldTypeMap = new HashMap<String, FieldType>();
+    for (int i = 1; i <= 10; i++) {
+      fieldTypeMap.put("column" + i, FieldType.DIMENSION);
+    }
+    fieldTypeMap.put("weeksSinceEpochSunday", FieldType.DIMENSION);
+    fieldTypeMap.put("daysSinceEpoch", FieldType.DIMENSION);
+    fieldTypeMap.put("column13", FieldType.TIME);
+    fieldTypeMap.put("count", FieldType.METRIC);
+    schema = SegmentTestUtils.extractSchemaFromAvro(new File(filePath), fieldTypeMap, TimeUnit.MINUTES);
+
+    JSONObject request = new JSONObject();
+    request.put("tableName", TABLE_NAME);
+    request.put("tableType", "REALTIME");
+    JSONObject indexing = new JSONObject();
+    indexing.put("loadMode", "HEAP");
+    request.put("tableIndexConfig", indexing);
+    request.put("segmentsConfig", new JSONObject());
+    request.put("tenants", new JSONObject());
+    request.put("metadata", new JSONObject());
+    tableConfig = AbstractTableConfig.init(request.toString());
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(TEMP_DIR);
+  }
+
+  @Test
+  public void testConsumeIndexAndConvert() throws Exception {
+    RecordingNotifier notifier = new RecordingNotifier();
+    ListStreamProvider provider = new ListStreamProvider(readRows(2 * SEGMENT_SIZE));
+    String segmentName = "consumed";
+    RealtimeSegmentDataManager manager = createManager(segmentMetadata(segmentName, Status.IN_PROGRESS, -1), provider,
+        true, notifier);
+
+    waitForConversion(manager, notifier, provider);
+    IndexSegment segment = manager.getSegment();
+    Assert.assertEquals(segment.getTotalDocs(), SEGMENT_SIZE);
+    Assert.assertTrue(new File(TEMP_DIR, segmentName).isDirectory());
+
+    // The consumed range is checkpointed, the next segment of the partition starts at its end offset
+    RealtimeSegmentZKMetadata completedMetadata = notifier.notified.get(0);
+    Assert.assertEquals(notifier.notified.size(), 1);
+    Assert.assertEquals(completedMetadata.getStatus(), Status.DONE);
+    Assert.assertEquals(completedMetadata.getTotalDocs(), SEGMENT_SIZE);
+    Assert.assertEquals(completedMetadata.getStartOffset(), START_OFFSET);
+    Assert.assertEquals(completedMetadata.getEndOffset(), START_OFFSET + SEGMENT_SIZE);
+    Assert.assertEquals(provider.committedOffset, START_OFFSET + SEGMENT_SIZE);
+  }
+
+  @Test
+  public void testCheckpointResolvedStartOffset() throws Exception {
+    RecordingNotifier notifier = new RecordingNotifier();
+    ListStreamProvider provider = new ListStreamProvider(readRows(2 * SEGMENT_SIZE));
+    RealtimeSegmentZKMetadata segmentMetadata = segmentMetadata("unresolved", Status.IN_PROGRESS, -1);
+    // The controller could not look up the offset to start from
+    segmentMetadata.setStartOffset(-1);
+    RealtimeSegmentDataManager manager = createManager(segmentMetadata, provider, true, notifier);
+
+    // The offset the consumer started from is written to ZK before the segment completes
+    Assert.assertEquals(notifier.checkpointed.size(), 1);
+    Assert.assertEquals(notifier.checkpointed.get(0).getStartOffset(), START_OFFSET);
+    waitForConversion(manager, notifier, provider);
+    Assert.assertEquals(notifier.notified.get(0).getStartOffset(), START_OFFSET);
+  }
+
+  @Test
+  public void testHighLevelConsumerCommitsAfterConversion() throws Exception {
+    RecordingNotifier notifier = new RecordingNotifier();
+    ListStreamProvider provider = new ListStreamProvider(readRows(2 * SEGMENT_SIZE));
+    RealtimeSegmentDataManager manager =
+        createManager(segmentMetadata("highLevel", Status.IN_PROGRESS, -1), provider, false, notifier);
+
+    waitForConversion(manager, notifier, provider);
+    Assert.assertEquals(manager.getSegment().getTotalDocs(), SEGMENT_SIZE);
+    // The high level consumer does not expose offsets
+    Assert.assertEquals(notifier.notified.get(0).getEndOffset(), -1);
+    Assert.assertEquals(provider.committedOffset, START_OFFSET + SEGMENT_SIZE);
+  }
+
+  @Test
+  public void testReplayCheckpointedSegment() throws Exception {
+    RecordingNotifier notifier = new RecordingNotifier();
+    List<GenericRow> rows = readRows(2 * SEGMENT_SIZE);
+    long endOffset = START_OFFSET + SEGMENT_SIZE / 2;
+    // The last message of the range does not decode, so the next row the stream hands out is past the range
+    rows.set((int) (endOffset - 1 - START_OFFSET), null);
+    ListStreamProvider provider = new ListStreamProvider(rows);
+    String segmentName = "replayed";
+    RealtimeSegmentDataManager manager =
+        createManager(segmentMetadata(segmentName, Status.DONE, endOffset), provider, true, notifier);
+
+    // The segment is rebuilt from its checkpointed range rather than up to its size threshold
+    waitForConversion(manager, notifier, provider);
+    Assert.assertEquals(manager.getSegment().getTotalDocs(), SEGMENT_SIZE / 2 - 1);
+    Assert.assertEquals(provider.committedOffset, endOffset);
+
+    // Its checkpoint is already in ZK, it is not overwritten
+    Assert.assertTrue(notifier.notified.isEmpty());
+    Assert.assertEquals(notifier.rebuilt, Collections.singletonList(segmentName));
+  }
+
+  private RealtimeSegmentDataManager createManager(RealtimeSegmentZKMetadata segmentMetadata,
+      ListStreamProvider provider, boolean lowLevelConsumer, RecordingNotifier notifier) throws Exception {
+    return new RealtimeSegmentDataManager(segmentMetadata, tableConfig, new TestStreamProviderConfig(schema), provider,
+        lowLevelConsumer, notifier, TEMP_DIR.getAbsolutePath(), ReadMode.heap, schema,
+        new SegmentConversionService(1, 1));
+  }
+
+  private static RealtimeSegmentZKMetadata segmentMetadata(String segmentName, Status status, long endOffset) {
+    RealtimeSegmentZKMetadata segmentMetadata = new RealtimeSegmentZKMetadata();
+    segmentMetadata.setSegmentName(segmentName);
+    segmentMetadata.setTableName(TABLE_NAME);
+    segmentMetadata.setSegmentType(SegmentType.REALTIME);
+    segmentMetadata.setTimeUnit(TimeUnit.MINUTES);
+    segmentMetadata.setStatus(status);
+    segmentMetadata.setStartOffset(START_OFFSET);
+    segmentMetadata.setEndOffset(endOffset);
+    return segmentMetadata;
+  }
+
+  /**
+   * Waits for the segment to be swapped for its converted version, for the notification of its completion or rebuild
+   * and for its consumer to be shut down.
+   */
+  private static void waitForConversion(RealtimeSegmentDataManager manager, RecordingNotifier notifier,
+      ListStreamProvider provider) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    while (manager.getSegment() instanceof RealtimeSegmentImpl
+        || (notifier.notified.isEmpty() && notifier.rebuilt.isEmpty()) || !provider.shutdown) {
+      Assert.assertTrue(System.currentTimeMillis() < deadline, "Segment was not converted in time");
+      Thread.sleep(100);
+    }
+  }
+
+  private List<GenericRow> readRows(int numRows) throws Exception {
+    StreamProvider fileProvider = new FileBasedStreamProviderImpl();
+    fileProvider.init(new FileBasedStreamProviderConfig(FileFormat.AVRO, filePath, schema));
+    List<GenericRow> rows = new ArrayList<GenericRow>(numRows);
+    GenericRow row = fileProvider.next();
+    while (row != null && rows.size() < numRows) {
+      rows.add(row);
+      row = fileProvider.next();
+    }
+    fileProvider.shutdown();
+    return rows;
+  }
+
+  /**
+   * Hands out the rows in order, the offset of a row being the start offset plus its index. Null rows stand for
+   * messages that could not be decoded, they are skipped like the Kafka consumer does.
+   */
+  private static class ListStreamProvider implements StreamProvider {
+    private final List<GenericRow> rows;
+    private long offset = START_OFFSET;
+    private volatile long committedOffset = -1;
+    private volatile boolean shutdown = false;
+
+    private ListStreamProvider(List<GenericRow> rows) {
+      this.rows = rows;
+    }
+
+    @Override
+    public void init(StreamProviderConfig streamProviderConfig) {
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void setOffset(long offset) {
+      this.offset = offset;
+    }
+
+    @Override
+    public GenericRow next() {
+      while (offset - START_OFFSET < rows.size()) {
+        GenericRow row = rows.get((int) (offset - START_OFFSET));
+        offset++;
+        if (row != null) {
+          return row;
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public GenericRow next(long offset) {
+      setOffset(offset);
+      return next();
+    }
+
+    @Override
+    public long currentOffset() {
+      return offset;
+    }
+
+    @Override
+    public void commit() {
+      commit(offset);
+    }
+
+    @Override
+    public void commit(long offset) {
+      committedOffset = offset;
+    }
+
+    @Override
+    public void shutdown() {
+      shutdown = true;
+    }
+  }
+
+  private static class TestStreamProviderConfig implements StreamProviderConfig {
+    private final Schema schema;
+
+    private TestStreamProviderConfig(Schema schema) {
+      this.schema = schema;
+    }
+
+    @Override
+    public void init(Map<String, String> properties, Schema schema) {
+    }
+
+    @Override
+    public void init(AbstractTableConfig tableConfig, InstanceZKMetadata instanceMetadata, Schema schema) {
+    }
+
+    @Override
+    public String getStreamProviderClass() {
+      return ListStreamProvider.class.getName();
+    }
+
+    @Override
+    public Schema getSchema() {
+      return schema;
+    }
+
+    @Override
+    public int getSizeThresholdToFlushSegment() {
+      return SEGMENT_SIZE;
+    }
+
+    @Override
+    public long getTimeThresholdToFlushSegment() {
+      return TimeUnit.HOURS.toMillis(1);
+    }
+  }
+
+  /**
+   * Records the completed, rebuilt and checkpointed segments instead of writing their metadata to ZK.
+   */
+  private static class RecordingNotifier extends RealtimeTableDataManager {
+    private final List<RealtimeSegmentZKMetadata> notified =
+        new CopyOnWriteArrayList<RealtimeSegmentZKMetadata>();
+    private final List<String> rebuilt = new CopyOnWriteArrayList<String>();
+    private final List<RealtimeSegmentZKMetadata> checkpointed =
+        new CopyOnWriteArrayList<RealtimeSegmentZKMetadata>();
+
+    @Override
+    public void checkpointStartOffset(RealtimeSegmentZKMetadata metadata) {
+      checkpointed.add(metadata);
+    }
+
+    @Override
+    public void notify(RealtimeSegmentZKMetadata metadata) {
+      notified.add(metadata);
+    }
+
+    @Override
+    public void notifySegmentRebuilt(String segmentName) {
+      rebuilt.add(segmentName);
+    }
+  }
+}
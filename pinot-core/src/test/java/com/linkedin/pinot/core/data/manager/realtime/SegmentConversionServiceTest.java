@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.data.manager.realtime;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class SegmentConversionServiceTest {
+
+  @Test
+  public void testSubmitBlocksOnPendingConversions() throws Exception {
+    final SegmentConversionService service = new SegmentConversionService(1, 2);
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch converted = new CountDownLatch(3);
+    final Runnable conversion = new Runnable() {
+      @Override
+      public void run() {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        converted.countDown();
+      }
+    };
+
+    // One conversion running and one queued
+    service.submit(conversion);
+    service.submit(conversion);
+
+    final CountDownLatch submitted = new CountDownLatch(1);
+    Thread handoff = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          service.submit(conversion);
+          submitted.countDown();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    handoff.start();
+    Assert.assertFalse(submitted.await(500, TimeUnit.MILLISECONDS));
+
+    // Once the pending conversions are done, the blocked one gets in
+    release.countDown();
+    Assert.assertTrue(submitted.await(10, TimeUnit.SECONDS));
+    Assert.assertTrue(converted.await(10, TimeUnit.SECONDS));
+    handoff.join();
+  }
+}
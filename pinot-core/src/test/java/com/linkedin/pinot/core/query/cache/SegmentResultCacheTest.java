@@ -0,0 +1,226 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.cache;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.segment.SegmentMetadata;
+import com.linkedin.pinot.core.block.query.IntermediateResultsBlock;
+import com.linkedin.pinot.core.common.DataSource;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.indexsegment.IndexType;
+import com.linkedin.pinot.core.query.aggregation.function.AvgAggregationFunction;
+import com.linkedin.pinot.core.query.config.SegmentResultCacheConfig;
+import com.linkedin.pinot.core.startree.StarTreeIndexNode;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+
+
+public class SegmentResultCacheTest {
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+
+  @Test
+  public void testRequestKey() {
+    String key = getRequestKey("select count(*), sum(m) from t where a = 'x' and b in ('1', '2', '3') group by c top 10");
+    Assert.assertEquals(
+        getRequestKey("select count(*), sum(m) from t where b in ('3', '1', '2') and a = 'x' group by c top 10 limit 5"),
+        key);
+    Assert.assertFalse(
+        getRequestKey("select count(*), sum(m) from t where a = 'x' and b in ('1', '2') group by c top 10").equals(key));
+    Assert.assertFalse(
+        getRequestKey("select sum(m), count(*) from t where a = 'x' and b in ('1', '2', '3') group by c top 10")
+            .equals(key));
+    Assert.assertFalse(
+        getRequestKey("select count(*), sum(m) from t where a = 'x' and b in ('1', '2', '3') group by c top 20")
+            .equals(key));
+    Assert.assertFalse(
+        getRequestKey("select count(*), sum(m) from t where a = 'x' or b in ('1', '2', '3') group by c top 10")
+            .equals(key));
+    // Values are length prefixed, so that a value cannot look like several ones
+    Assert.assertFalse(getRequestKey("select count(*) from t where a = 'x' and b = 'y'")
+        .equals(getRequestKey("select count(*) from t where a = 'x)(EQUALITY(1:b1:y'")));
+  }
+
+  @Test
+  public void testCachedResultsAreCopies() throws Exception {
+    SegmentResultCache cache = newCache(1024 * 1024);
+    IndexSegment segment = new TestIndexSegment();
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest("select count(*), avg(m) from t where a = 'x'");
+    String requestKey = SegmentResultCache.getRequestKey(brokerRequest);
+
+    // Only registered segments are cached
+    Assert.assertFalse(cache.isCacheable(segment, brokerRequest));
+    cache.register(segment);
+    Assert.assertTrue(cache.isCacheable(segment, brokerRequest));
+    Assert.assertFalse(cache.isCacheable(segment, COMPILER.compileToBrokerRequest("select * from t")));
+    Assert.assertNull(cache.get(segment, requestKey, brokerRequest));
+
+    List<Serializable> results = new ArrayList<Serializable>();
+    results.add(42L);
+    results.add(new AvgAggregationFunction().getAvgPair(10.0, 4L));
+    IntermediateResultsBlock block = new IntermediateResultsBlock(null, results);
+    block.setNumDocsScanned(4);
+    block.setTotalDocs(100);
+    cache.put(segment, requestKey, block);
+    // Merging into the block must not change the cached result
+    results.set(0, 43L);
+
+    IntermediateResultsBlock cachedBlock = cache.get(segment, requestKey, brokerRequest);
+    Assert.assertNotNull(cachedBlock);
+    Assert.assertNotSame(cachedBlock, block);
+    Assert.assertEquals(cachedBlock.getNumDocsScanned(), 4);
+    Assert.assertEquals(cachedBlock.getTotalDocs(), 100);
+    Assert.assertEquals(cachedBlock.getAggregationResult().get(0), 42L);
+    Assert.assertEquals(((AvgAggregationFunction.AvgPair) cachedBlock.getAggregationResult().get(1)).getFirst(), 10.0);
+    Assert.assertNotSame(cache.get(segment, requestKey, brokerRequest), cachedBlock);
+
+    cache.invalidate(segment);
+    Assert.assertNull(cache.get(segment, requestKey, brokerRequest));
+    Assert.assertFalse(cache.isCacheable(segment, brokerRequest));
+    // A query which was running during the invalidation does not cache its result
+    cache.put(segment, requestKey, block);
+    Assert.assertEquals(cache.size(), 0);
+  }
+
+  @Test
+  public void testInvalidateKeepsOtherSegments() throws Exception {
+    SegmentResultCache cache = newCache(1024 * 1024);
+    IndexSegment segment = new TestIndexSegment();
+    IndexSegment otherSegment = new TestIndexSegment();
+    cache.register(segment);
+    cache.register(otherSegment);
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest("select count(*) from t");
+    String requestKey = SegmentResultCache.getRequestKey(brokerRequest);
+
+    List<Serializable> results = new ArrayList<Serializable>();
+    results.add(42L);
+    cache.put(segment, requestKey, new IntermediateResultsBlock(null, results));
+    cache.put(otherSegment, requestKey, new IntermediateResultsBlock(null, results));
+    Assert.assertEquals(cache.size(), 2);
+
+    cache.invalidate(segment);
+    Assert.assertNull(cache.get(segment, requestKey, brokerRequest));
+    Assert.assertNotNull(cache.get(otherSegment, requestKey, brokerRequest));
+    Assert.assertEquals(cache.size(), 1);
+
+    // A segment loaded again is cached again
+    cache.register(segment);
+    cache.put(segment, requestKey, new IntermediateResultsBlock(null, results));
+    Assert.assertNotNull(cache.get(segment, requestKey, brokerRequest));
+  }
+
+  @Test
+  public void testGroupByResults() throws Exception {
+    SegmentResultCache cache = newCache(1024 * 1024);
+    IndexSegment segment = new TestIndexSegment();
+    cache.register(segment);
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest("select sum(m) from t group by c top 10");
+    String requestKey = SegmentResultCache.getRequestKey(brokerRequest);
+
+    Map<String, Serializable> groups = new HashMap<String, Serializable>();
+    groups.put("a", 1.0);
+    groups.put("b", 2.0);
+    List<Map<String, Serializable>> results = new ArrayList<Map<String, Serializable>>();
+    results.add(groups);
+    cache.put(segment, requestKey, new IntermediateResultsBlock(null, results, true));
+    groups.put("c", 3.0);
+
+    IntermediateResultsBlock cachedBlock = cache.get(segment, requestKey, brokerRequest);
+    Assert.assertNotNull(cachedBlock);
+    Assert.assertNull(cachedBlock.getAggregationResult());
+    Map<String, Serializable> cachedGroups = cachedBlock.getAggregationGroupByOperatorResult().get(0);
+    Assert.assertEquals(cachedGroups.size(), 2);
+    Assert.assertEquals(cachedGroups.get("b"), 2.0);
+  }
+
+  @Test
+  public void testMaxEntrySize() throws Exception {
+    SegmentResultCache cache = newCache(16);
+    IndexSegment segment = new TestIndexSegment();
+    cache.register(segment);
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest("select count(*) from t");
+    String requestKey = SegmentResultCache.getRequestKey(brokerRequest);
+
+    List<Serializable> results = new ArrayList<Serializable>();
+    results.add(42L);
+    cache.put(segment, requestKey, new IntermediateResultsBlock(null, results));
+    Assert.assertNull(cache.get(segment, requestKey, brokerRequest));
+  }
+
+  private static SegmentResultCache newCache(int maxEntrySizeInBytes) {
+    BaseConfiguration config = new BaseConfiguration();
+    config.setProperty(SegmentResultCacheConfig.MAX_ENTRY_SIZE_IN_BYTES, maxEntrySizeInBytes);
+    return new SegmentResultCache(new SegmentResultCacheConfig(config), null);
+  }
+
+  private static String getRequestKey(String query) {
+    return SegmentResultCache.getRequestKey(COMPILER.compileToBrokerRequest(query));
+  }
+
+  private static class TestIndexSegment implements IndexSegment {
+    @Override
+    public IndexType getIndexType() {
+      return IndexType.COLUMNAR;
+    }
+
+    @Override
+    public String getSegmentName() {
+      return "testSegment";
+    }
+
+    @Override
+    public String getAssociatedDirectory() {
+      return null;
+    }
+
+    @Override
+    public SegmentMetadata getSegmentMetadata() {
+      return null;
+    }
+
+    @Override
+    public DataSource getDataSource(String columnName) {
+      return null;
+    }
+
+    @Override
+    public String[] getColumnNames() {
+      return new String[0];
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    @Override
+    public int getTotalDocs() {
+      return 100;
+    }
+
+    @Override
+    public StarTreeIndexNode getStarTreeRoot() {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.scheduler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.core.query.scheduler.QueryScheduler.QueryExecutorService;
+
+
+public class QuerySchedulerTest {
+
+  @Test
+  public void testPerQueryQuota() throws Exception {
+    QueryScheduler scheduler = new QueryScheduler(4, 2, 4, 10);
+    QueryExecutorService query = scheduler.admit("table", System.currentTimeMillis() + 10000);
+    final AtomicInteger numRunning = new AtomicInteger(0);
+    final AtomicInteger maxRunning = new AtomicInteger(0);
+    final CountDownLatch done = new CountDownLatch(6);
+    for (int i = 0; i < 6; i++) {
+      query.execute(new Runnable() {
+        @Override
+        public void run() {
+          int running = numRunning.incrementAndGet();
+          synchronized (maxRunning) {
+            maxRunning.set(Math.max(maxRunning.get(), running));
+          }
+          sleep(50);
+          numRunning.decrementAndGet();
+          done.countDown();
+        }
+      });
+    }
+    Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+    Assert.assertEquals(maxRunning.get(), 2);
+    query.shutdown();
+    Assert.assertTrue(query.awaitTermination(1, TimeUnit.SECONDS));
+    scheduler.shutDown();
+  }
+
+  @Test
+  public void testEarliestDeadlineFirst() throws Exception {
+    QueryScheduler scheduler = new QueryScheduler(1, 1, 1, 10);
+    long now = System.currentTimeMillis();
+    QueryExecutorService blockingQuery = scheduler.admit("table", now + 1000);
+    QueryExecutorService lateQuery = scheduler.admit("table", now + 3000);
+    QueryExecutorService earlyQuery = scheduler.admit("table", now + 2000);
+
+    final CountDownLatch blocker = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(2);
+    final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+    blockingQuery.execute(new Runnable() {
+      @Override
+      public void run() {
+        await(blocker);
+      }
+    });
+    lateQuery.execute(new RecordingRunnable("late", order, done));
+    earlyQuery.execute(new RecordingRunnable("early", order, done));
+    blocker.countDown();
+
+    Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+    Assert.assertEquals(order.toString(), "[early, late]");
+    scheduler.shutDown();
+  }
+
+  @Test
+  public void testAdmissionControl() throws Exception {
+    QueryScheduler scheduler = new QueryScheduler(1, 1, 1, 1);
+    QueryExecutorService query = scheduler.admit("table", System.currentTimeMillis() + 1000);
+    Assert.assertNotNull(query);
+    Assert.assertNull(scheduler.admit("table", System.currentTimeMillis() + 1000));
+    query.shutdownNow();
+    Assert.assertNotNull(scheduler.admit("table", System.currentTimeMillis() + 1000));
+    scheduler.shutDown();
+  }
+
+  @Test
+  public void testShutdownDropsPendingTasks() throws Exception {
+    QueryScheduler scheduler = new QueryScheduler(1, 1, 1, 10);
+    QueryExecutorService query = scheduler.admit("table", System.currentTimeMillis() + 1000);
+    final CountDownLatch blocker = new CountDownLatch(1);
+    final AtomicInteger numRun = new AtomicInteger(0);
+    query.execute(new Runnable() {
+      @Override
+      public void run() {
+        await(blocker);
+        numRun.incrementAndGet();
+      }
+    });
+    for (int i = 0; i < 3; i++) {
+      query.execute(new Runnable() {
+        @Override
+        public void run() {
+          numRun.incrementAndGet();
+        }
+      });
+    }
+    Assert.assertEquals(query.shutdownNow().size(), 3);
+    Assert.assertFalse(query.isTerminated());
+    blocker.countDown();
+    Assert.assertTrue(query.awaitTermination(10, TimeUnit.SECONDS));
+    Assert.assertEquals(numRun.get(), 1);
+    scheduler.shutDown();
+  }
+
+  private static class RecordingRunnable implements Runnable {
+    private final String _name;
+    private final List<String> _order;
+    private final CountDownLatch _done;
+
+    private RecordingRunnable(String name, List<String> order, CountDownLatch done) {
+      _name = name;
+      _order = order;
+      _done = done;
+    }
+
+    @Override
+    public void run() {
+      _order.add(_name);
+      _done.countDown();
+    }
+  }
+
+  private static void sleep(long ms) {
+    try {
+      Thread.sleep(ms);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,216 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec.FieldType;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.data.TimeFieldSpec;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.common.BlockMultiValIterator;
+import com.linkedin.pinot.core.common.BlockSingleValIterator;
+import com.linkedin.pinot.core.common.BlockValIterator;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.data.readers.FileFormat;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentVersion;
+import com.linkedin.pinot.core.realtime.converter.RealtimeSegmentConverter;
+import com.linkedin.pinot.core.realtime.converter.RealtimeSegmentRecordReader;
+import com.linkedin.pinot.core.realtime.impl.FileBasedStreamProviderConfig;
+import com.linkedin.pinot.core.realtime.impl.FileBasedStreamProviderImpl;
+import com.linkedin.pinot.core.realtime.impl.RealtimeSegmentImpl;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.IndexSegmentImpl;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.loader.Loaders;
+import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
+import com.linkedin.pinot.segments.v1.creator.SegmentTestUtils;
+
+
+/**
+ * Checks that converting a realtime segment from its indexes gives the same segment as replaying its rows through
+ * the segment creation driver.
+ */
+public class RealtimeSegmentConverterTest {
+  private static final String AVRO_DATA = "data/test_data-mv.avro";
+  private static final File TEMP_DIR = new File(FileUtils.getTempDirectory(), "RealtimeSegmentConverterTest");
+  private static final String TABLE_NAME = "testTable";
+  private static final String SEGMENT_NAME = "testSegment";
+
+  private Schema schema;
+  private RealtimeSegmentImpl realtimeSegment;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    FileUtils.deleteQuietly(TEMP_DIR);
+    String filePath = RealtimeSegmentConverterTest.class.getClassLoader().getResource(AVRO_DATA).getFile();
+    Map<String, FieldType> fieldTypeMap = new HashMap<String, FieldType>();
+    for (int i = 1; i <= 10; i++) {
+      fieldTypeMap.put("column" + i, FieldType.DIMENSION);
+    }
+    fieldTypeMap.put("weeksSinceEpochSunday", FieldType.DIMENSION);
+    fieldTypeMap.put("daysSinceEpoch", FieldType.DIMENSION);
+    fieldTypeMap.put("column13", FieldType.TIME);
+    fieldTypeMap.put("count", FieldType.METRIC);
+    schema = SegmentTestUtils.extractSchemaFromAvro(new File(filePath), fieldTypeMap, TimeUnit.MINUTES);
+
+    StreamProviderConfig config = new FileBasedStreamProviderConfig(FileFormat.AVRO, filePath, schema);
+    StreamProvider provider = new FileBasedStreamProviderImpl();
+    provider.init(config);
+    // The count metric is kept as raw values, which the converter has to dictionary encode
+    realtimeSegment = new RealtimeSegmentImpl(schema, 100000, false, false, Collections.<String>emptyList());
+    GenericRow row = provider.next();
+    while (row != null) {
+      realtimeSegment.index(row);
+      row = provider.next();
+    }
+    provider.shutdown();
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(TEMP_DIR);
+  }
+
+  @Test
+  public void testConvert() throws Exception {
+    File segmentDir = convert("unsorted", null);
+    assertSameContent(buildFromRows("unsortedRows", null), load(segmentDir));
+
+    // The realtime inverted indexes are written out, except for the raw metric
+    Assert.assertTrue(new File(segmentDir, "column1" + V1Constants.Indexes.BITMAP_INVERTED_INDEX_FILE_EXTENSION)
+        .exists());
+    Assert.assertFalse(new File(segmentDir, "count" + V1Constants.Indexes.BITMAP_INVERTED_INDEX_FILE_EXTENSION)
+        .exists());
+  }
+
+  @Test
+  public void testConvertSorted() throws Exception {
+    File segmentDir = convert("sorted", "column1");
+    IndexSegmentImpl segment = load(segmentDir);
+    assertSameContent(buildFromRows("sortedRows", "column1"), segment);
+    Assert.assertTrue(((SegmentMetadataImpl) segment.getSegmentMetadata()).getColumnMetadataFor("column1")
+        .isSorted());
+  }
+
+  private File convert(String dirName, String sortedColumn) throws Exception {
+    File outputDir = new File(TEMP_DIR, dirName);
+    new RealtimeSegmentConverter(realtimeSegment, outputDir.getAbsolutePath(), schema, TABLE_NAME, SEGMENT_NAME,
+        sortedColumn).build();
+    return new File(outputDir, SEGMENT_NAME);
+  }
+
+  /**
+   * Builds the segment the way the converter used to, by reading the rows of the realtime segment.
+   */
+  private IndexSegmentImpl buildFromRows(String dirName, String sortedColumn) throws Exception {
+    Schema dataSchema = new Schema();
+    for (String dimension : schema.getDimensionNames()) {
+      dataSchema.addSchema(dimension, schema.getFieldSpecFor(dimension));
+    }
+    for (String metric : schema.getMetricNames()) {
+      dataSchema.addSchema(metric, schema.getFieldSpecFor(metric));
+    }
+    TimeFieldSpec timeSpec = new TimeFieldSpec(schema.getTimeFieldSpec().getIncomingGranularitySpec());
+    dataSchema.addSchema(timeSpec.getName(), timeSpec);
+
+    RealtimeSegmentRecordReader reader;
+    if (sortedColumn == null) {
+      reader = new RealtimeSegmentRecordReader(realtimeSegment, dataSchema);
+    } else {
+      reader = new RealtimeSegmentRecordReader(realtimeSegment, dataSchema, sortedColumn);
+    }
+    File outputDir = new File(TEMP_DIR, dirName);
+    SegmentGeneratorConfig config = new SegmentGeneratorConfig(dataSchema);
+    config.setTimeColumnName(timeSpec.getOutGoingTimeColumnName());
+    config.setTimeUnitForSegment(timeSpec.getOutgoingGranularitySpec().getTimeType());
+    config.setSegmentVersion(SegmentVersion.v1);
+    config.setTableName(TABLE_NAME);
+    config.setIndexOutputDir(outputDir.getAbsolutePath());
+    config.setSegmentName(SEGMENT_NAME);
+    SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+    driver.init(config, reader);
+    driver.build();
+    return load(new File(outputDir, SEGMENT_NAME));
+  }
+
+  private static IndexSegmentImpl load(File segmentDir) throws Exception {
+    return (IndexSegmentImpl) Loaders.IndexSegment.load(segmentDir, ReadMode.heap);
+  }
+
+  private void assertSameContent(IndexSegmentImpl expected, IndexSegmentImpl actual) {
+    Assert.assertEquals(actual.getTotalDocs(), expected.getTotalDocs());
+    SegmentMetadataImpl expectedMetadata = (SegmentMetadataImpl) expected.getSegmentMetadata();
+    SegmentMetadataImpl actualMetadata = (SegmentMetadataImpl) actual.getSegmentMetadata();
+    for (FieldSpec spec : schema.getAllFieldSpecs()) {
+      String column = spec.getName();
+      ColumnMetadata columnMetadata = expectedMetadata.getColumnMetadataFor(column);
+      Assert.assertEquals(actualMetadata.getColumnMetadataFor(column).getCardinality(),
+          columnMetadata.getCardinality());
+      Assert.assertEquals(actualMetadata.getColumnMetadataFor(column).isSorted(), columnMetadata.isSorted());
+
+      ImmutableDictionaryReader expectedDictionary = expected.getDictionaryFor(column);
+      ImmutableDictionaryReader actualDictionary = actual.getDictionaryFor(column);
+      Assert.assertEquals(actualDictionary.length(), expectedDictionary.length());
+      for (int i = 0; i < expectedDictionary.length(); i++) {
+        Assert.assertEquals(actualDictionary.get(i), expectedDictionary.get(i));
+      }
+
+      BlockValIterator expectedIterator = expected.getDataSource(column).nextBlock().getBlockValueSet().iterator();
+      BlockValIterator actualIterator = actual.getDataSource(column).nextBlock().getBlockValueSet().iterator();
+      if (columnMetadata.isSingleValue()) {
+        while (expectedIterator.hasNext()) {
+          Assert.assertTrue(actualIterator.hasNext());
+          Assert.assertEquals(((BlockSingleValIterator) actualIterator).nextIntVal(),
+              ((BlockSingleValIterator) expectedIterator).nextIntVal());
+        }
+      } else {
+        int[] expectedValues = new int[columnMetadata.getMaxNumberOfMultiValues()];
+        int[] actualValues = new int[columnMetadata.getMaxNumberOfMultiValues()];
+        while (expectedIterator.hasNext()) {
+          Assert.assertTrue(actualIterator.hasNext());
+          int length = ((BlockMultiValIterator) expectedIterator).nextIntVal(expectedValues);
+          Assert.assertEquals(((BlockMultiValIterator) actualIterator).nextIntVal(actualValues), length);
+          for (int i = 0; i < length; i++) {
+            Assert.assertEquals(actualValues[i], expectedValues[i]);
+          }
+        }
+      }
+      Assert.assertFalse(actualIterator.hasNext());
+
+      if (actual.getInvertedIndexFor(column) != null) {
+        for (int i = 0; i < expectedDictionary.length(); i++) {
+          Assert.assertEquals(actual.getInvertedIndexFor(column).getImmutable(i).toArray(),
+              expected.getInvertedIndexFor(column).getImmutable(i).toArray());
+        }
+      }
+    }
+  }
+}
@@ -16,7 +16,9 @@
 package com.linkedin.pinot.core.realtime;
 
 import java.io.File;
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,9 +28,13 @@ import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import com.linkedin.pinot.common.data.DimensionFieldSpec;
 import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
 import com.linkedin.pinot.common.data.FieldSpec.FieldType;
+import com.linkedin.pinot.common.data.MetricFieldSpec;
 import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.data.TimeFieldSpec;
 import com.linkedin.pinot.core.common.Block;
 import com.linkedin.pinot.core.common.BlockDocIdIterator;
 import com.linkedin.pinot.core.common.BlockMetadata;
@@ -36,15 +42,25 @@ import com.linkedin.pinot.core.common.BlockSingleValIterator;
 import com.linkedin.pinot.core.common.BlockValSet;
 import com.linkedin.pinot.core.common.Constants;
 import com.linkedin.pinot.core.common.DataSource;
+import com.linkedin.pinot.core.common.Operator;
 import com.linkedin.pinot.core.common.Predicate;
 import com.linkedin.pinot.core.common.predicate.EqPredicate;
 import com.linkedin.pinot.core.common.predicate.NEqPredicate;
+import com.linkedin.pinot.core.common.predicate.RangePredicate;
 import com.linkedin.pinot.core.data.GenericRow;
 import com.linkedin.pinot.core.data.readers.FileFormat;
+import com.linkedin.pinot.core.operator.filter.BaseFilterOperator;
 import com.linkedin.pinot.core.operator.filter.BitmapBasedFilterOperator;
+import com.linkedin.pinot.core.operator.filter.ScanBasedFilterOperatorWithoutDictionary;
+import com.linkedin.pinot.core.plan.RawFilterPlanNode;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionRegistry;
+import com.linkedin.pinot.core.query.aggregation.CombineLevel;
 import com.linkedin.pinot.core.realtime.impl.FileBasedStreamProviderConfig;
 import com.linkedin.pinot.core.realtime.impl.FileBasedStreamProviderImpl;
 import com.linkedin.pinot.core.realtime.impl.RealtimeSegmentImpl;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
 import com.linkedin.pinot.segments.v1.creator.SegmentTestUtils;
 
 
@@ -152,4 +168,202 @@ public class RealtimeSegmentTest {
     }
     Assert.assertEquals(counter, 0);
   }
+
+  @Test
+  public void testBatchIndex() throws Exception {
+    StreamProviderConfig config = new FileBasedStreamProviderConfig(FileFormat.AVRO, filePath, schema);
+    StreamProvider provider = new FileBasedStreamProviderImpl();
+    provider.init(config);
+
+    // Capacity is not a multiple of the batch size, so the last batch only gets partially indexed
+    int capacity = 1000;
+    RealtimeSegmentImpl batchSegment = new RealtimeSegmentImpl(schema, capacity);
+    GenericRow[] rows = new GenericRow[300];
+    int numIndexed = 0;
+    while (true) {
+      int numRows = 0;
+      GenericRow row;
+      while (numRows < rows.length && (row = provider.next()) != null) {
+        rows[numRows++] = row;
+      }
+      int numRowsIndexed = batchSegment.index(rows, numRows);
+      numIndexed += numRowsIndexed;
+      if (numRowsIndexed < numRows || numRows == 0) {
+        break;
+      }
+    }
+    provider.shutdown();
+
+    Assert.assertEquals(numIndexed, capacity);
+    Assert.assertEquals(batchSegment.getRawDocumentCount(), capacity);
+    Assert.assertEquals(batchSegment.index(rows, rows.length), 0);
+    for (int docId = 0; docId < capacity; docId++) {
+      GenericRow expected = segment.getRawValueRowAt(docId);
+      GenericRow actual = batchSegment.getRawValueRowAt(docId);
+      for (String column : expected.getFieldNames()) {
+        Object expectedValue = expected.getValue(column);
+        if (expectedValue instanceof Object[]) {
+          Assert.assertEquals((Object[]) actual.getValue(column), (Object[]) expectedValue);
+        } else {
+          Assert.assertEquals(actual.getValue(column), expectedValue);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testRawMetric() throws Exception {
+    StreamProviderConfig config = new FileBasedStreamProviderConfig(FileFormat.AVRO, filePath, schema);
+    StreamProvider provider = new FileBasedStreamProviderImpl();
+    provider.init(config);
+
+    RealtimeSegmentImpl rawSegment = new RealtimeSegmentImpl(schema, 100000, false, false,
+        Collections.<String>emptyList());
+    GenericRow row = provider.next();
+    while (row != null) {
+      rawSegment.index(row);
+      row = provider.next();
+    }
+    provider.shutdown();
+
+    Assert.assertFalse(rawSegment.hasDictionary("count"));
+    DataSource rawDataSource = rawSegment.getDataSource("count");
+    Assert.assertFalse(rawDataSource.getDataSourceMetadata().hasDictionary());
+    Assert.assertFalse(rawDataSource.getDataSourceMetadata().hasInvertedIndex());
+
+    DataSource dataSource = segment.getDataSource("count");
+    Dictionary dictionary = dataSource.getDictionary();
+    BlockSingleValIterator rawIterator =
+        (BlockSingleValIterator) rawDataSource.nextBlock().getBlockValueSet().iterator();
+    BlockSingleValIterator iterator = (BlockSingleValIterator) dataSource.nextBlock().getBlockValueSet().iterator();
+    int numDocs = 0;
+    while (iterator.hasNext()) {
+      Assert.assertEquals(rawIterator.nextDoubleVal(), dictionary.getDoubleValue(iterator.nextIntVal()));
+      numDocs++;
+    }
+    Assert.assertFalse(rawIterator.hasNext());
+    Assert.assertEquals(numDocs, segment.getRawDocumentCount());
+
+    // Raw metrics are filtered by scanning their values
+    BaseFilterOperator rawEqOperator = new ScanBasedFilterOperatorWithoutDictionary(rawSegment.getDataSource("count"));
+    rawEqOperator.setPredicate(new EqPredicate("count", Collections.singletonList("890662862")));
+    Assert.assertEquals(countMatchingDocs(rawEqOperator), 100000);
+    List<String> range = Collections.singletonList("(0\t\t*)");
+    BaseFilterOperator rawRangeOperator =
+        new ScanBasedFilterOperatorWithoutDictionary(rawSegment.getDataSource("count"));
+    rawRangeOperator.setPredicate(new RangePredicate("count", range));
+    BaseFilterOperator rangeOperator = new BitmapBasedFilterOperator(segment.getDataSource("count"));
+    rangeOperator.setPredicate(new RangePredicate("count", range));
+    Assert.assertEquals(countMatchingDocs(rawRangeOperator), countMatchingDocs(rangeOperator));
+
+    // Aggregation functions that need a dictionary read the raw values instead
+    for (String function : new String[] { "percentile50", "percentileest90", "distinctcounthll" }) {
+      Object rawResult = aggregateAllDocs(AggregationFunctionRegistry.getAggregationNoDictionaryFunction(function),
+          rawSegment.getDataSource("count"));
+      Object result = aggregateAllDocs(AggregationFunctionRegistry.get(function), segment.getDataSource("count"));
+      Assert.assertEquals(rawResult.toString(), result.toString(), function);
+    }
+  }
+
+  @Test
+  public void testRawMetricTypes() throws Exception {
+    Schema typedSchema = new Schema();
+    typedSchema.addSchema("dimension", new DimensionFieldSpec("dimension", DataType.STRING, true));
+    typedSchema.addSchema("floatMetric", new MetricFieldSpec("floatMetric", DataType.FLOAT));
+    typedSchema.addSchema("longMetric", new MetricFieldSpec("longMetric", DataType.LONG));
+    typedSchema.addSchema("daysSinceEpoch", new TimeFieldSpec("daysSinceEpoch", DataType.INT, TimeUnit.DAYS));
+    RealtimeSegmentImpl typedSegment = new RealtimeSegmentImpl(typedSchema, 100, false, false,
+        Collections.<String>emptyList());
+
+    // Longs above 2^53 which are the same double
+    long largeLong = (1L << 53) + 1;
+    float[] floatValues = { 0.1f, 0.05f, 0.2f };
+    long[] longValues = { largeLong, largeLong - 1, largeLong + 1 };
+    for (int i = 0; i < floatValues.length; i++) {
+      Map<String, Object> fields = new HashMap<String, Object>();
+      fields.put("dimension", "d" + i);
+      fields.put("floatMetric", floatValues[i]);
+      fields.put("longMetric", longValues[i]);
+      fields.put("daysSinceEpoch", 16000);
+      GenericRow row = new GenericRow();
+      row.init(fields);
+      typedSegment.index(row);
+    }
+
+    Assert.assertEquals(countRawMatchingDocs(typedSegment, "floatMetric", new EqPredicate("floatMetric",
+        Collections.singletonList("0.1"))), 1);
+    Assert.assertEquals(countRawMatchingDocs(typedSegment, "floatMetric", new RangePredicate("floatMetric",
+        Collections.singletonList("(*\t\t0.1]"))), 2);
+    Assert.assertEquals(countRawMatchingDocs(typedSegment, "floatMetric", new RangePredicate("floatMetric",
+        Collections.singletonList("[0.1\t\t*)"))), 2);
+    Assert.assertEquals(countRawMatchingDocs(typedSegment, "longMetric", new EqPredicate("longMetric",
+        Collections.singletonList(Long.toString(largeLong)))), 1);
+    Assert.assertEquals(countRawMatchingDocs(typedSegment, "longMetric", new NEqPredicate("longMetric",
+        Collections.singletonList(Long.toString(largeLong)))), 2);
+    Assert.assertEquals(countRawMatchingDocs(typedSegment, "longMetric", new RangePredicate("longMetric",
+        Collections.singletonList("(" + largeLong + "\t\t*)"))), 1);
+  }
+
+  private static int countRawMatchingDocs(RealtimeSegmentImpl segment, String column, Predicate predicate) {
+    BaseFilterOperator operator = new ScanBasedFilterOperatorWithoutDictionary(segment.getDataSource(column));
+    operator.setPredicate(predicate);
+    return countMatchingDocs(operator);
+  }
+
+  private static int countMatchingDocs(BaseFilterOperator operator) {
+    BlockDocIdIterator iterator = operator.nextBlock().getBlockDocIdSet().iterator();
+    int numDocs = 0;
+    while (iterator.next() != Constants.EOF) {
+      numDocs++;
+    }
+    return numDocs;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Object aggregateAllDocs(AggregationFunction function, DataSource dataSource) {
+    Block block = dataSource.nextBlock();
+    Serializable result = function.aggregate(block, new Block[] { block });
+    return function.reduce(function.combine(Collections.singletonList(result), CombineLevel.SEGMENT));
+  }
+
+  @Test
+  public void testAndOrFilters() throws Exception {
+    GenericRow firstRow = segment.getRawValueRowAt(0);
+    Object column1Value = firstRow.getValue("column1");
+    Object daysValue = firstRow.getValue("daysSinceEpoch");
+    int numMatchingBoth = 0;
+    int numMatchingEither = 0;
+    for (int docId = 0; docId < segment.getTotalDocs(); docId++) {
+      GenericRow row = segment.getRawValueRowAt(docId);
+      boolean column1Matches = column1Value.equals(row.getValue("column1"));
+      boolean daysMatches = daysValue.equals(row.getValue("daysSinceEpoch"));
+      if (column1Matches && daysMatches) {
+        numMatchingBoth++;
+      }
+      if (column1Matches || daysMatches) {
+        numMatchingEither++;
+      }
+    }
+
+    String column1Predicate = "column1 = '" + column1Value + "'";
+    String daysPredicate = "daysSinceEpoch = '" + daysValue + "'";
+    // Values missing from the realtime dictionaries cannot match any doc
+    String noMatchPredicate = "column1 = '-1234567'";
+    Assert.assertEquals(countMatchingDocs(column1Predicate + " and " + daysPredicate), numMatchingBoth);
+    Assert.assertEquals(countMatchingDocs(column1Predicate + " or " + daysPredicate), numMatchingEither);
+    Assert.assertEquals(countMatchingDocs(column1Predicate + " and " + noMatchPredicate), 0);
+    Assert.assertEquals(countMatchingDocs(column1Predicate + " or " + noMatchPredicate),
+        countMatchingDocs(column1Predicate));
+  }
+
+  private int countMatchingDocs(String filter) {
+    Operator operator = new RawFilterPlanNode(segment,
+        new Pql2Compiler().compileToBrokerRequest("select count(*) from testTable where " + filter)).run();
+    BlockDocIdIterator iterator = operator.nextBlock().getBlockDocIdSet().iterator();
+    int numDocs = 0;
+    while (iterator.next() != Constants.EOF) {
+      numDocs++;
+    }
+    return numDocs;
+  }
 }
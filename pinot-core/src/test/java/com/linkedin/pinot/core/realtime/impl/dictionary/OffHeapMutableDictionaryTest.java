@@ -0,0 +1,140 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.dictionary;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.common.data.DimensionFieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+
+
+/**
+ * Checks the off heap mutable dictionaries against the on heap ones.
+ */
+public class OffHeapMutableDictionaryTest {
+  private static final int NUM_VALUES = 10000;
+  private static final long RANDOM_SEED = System.currentTimeMillis();
+
+  @Test
+  public void testIntDictionary() {
+    FieldSpec spec = new DimensionFieldSpec("intColumn", DataType.INT, true);
+    Random random = new Random(RANDOM_SEED);
+    Object[] values = new Object[NUM_VALUES];
+    for (int i = 0; i < NUM_VALUES; i++) {
+      values[i] = random.nextInt(NUM_VALUES / 2) - NUM_VALUES / 4;
+    }
+    compareDictionaries(new IntMutableDictionary(spec), new IntOffHeapMutableDictionary(spec, 4), values,
+        new String[] { "-100", "0", "1", "2499", "12345" });
+  }
+
+  @Test
+  public void testLongDictionary() {
+    FieldSpec spec = new DimensionFieldSpec("longColumn", DataType.LONG, true);
+    Random random = new Random(RANDOM_SEED);
+    Object[] values = new Object[NUM_VALUES];
+    for (int i = 0; i < NUM_VALUES; i++) {
+      values[i] = (long) random.nextInt(NUM_VALUES / 2) * Integer.MAX_VALUE;
+    }
+    compareDictionaries(new LongMutableDictionary(spec), new LongOffHeapMutableDictionary(spec, 4), values,
+        new String[] { "0", "2147483647", "4294967294", "10000000000000" });
+  }
+
+  @Test
+  public void testDoubleDictionary() {
+    FieldSpec spec = new DimensionFieldSpec("doubleColumn", DataType.DOUBLE, true);
+    Random random = new Random(RANDOM_SEED);
+    Object[] values = new Object[NUM_VALUES];
+    for (int i = 0; i < NUM_VALUES; i++) {
+      values[i] = random.nextInt(NUM_VALUES / 2) / 8.0;
+    }
+    compareDictionaries(new DoubleMutableDictionary(spec), new DoubleOffHeapMutableDictionary(spec, 4), values,
+        new String[] { "0.0", "0.125", "100.5", "1000" });
+  }
+
+  @Test
+  public void testStringDictionary() {
+    FieldSpec spec = new DimensionFieldSpec("stringColumn", DataType.STRING, true);
+    Random random = new Random(RANDOM_SEED);
+    Object[] values = new Object[NUM_VALUES];
+    for (int i = 0; i < NUM_VALUES; i++) {
+      values[i] = "value" + random.nextInt(NUM_VALUES / 2);
+    }
+    compareDictionaries(new StringMutableDictionary(spec), new StringOffHeapMutableDictionary(spec, 4), values,
+        new String[] { "a", "value1", "value2", "value250", "value9", "z" });
+  }
+
+  @Test
+  public void testMultiValues() {
+    FieldSpec spec = new DimensionFieldSpec("intColumn", DataType.INT, false);
+    IntOffHeapMutableDictionary dictionary = new IntOffHeapMutableDictionary(spec);
+    dictionary.index(new Object[] { 3, "1", 2 });
+    dictionary.index(new Object[] { 1, 4 });
+    dictionary.index(null);
+    Assert.assertEquals(dictionary.length(), 4);
+    Assert.assertEquals(dictionary.indexOf("1"), 1);
+    Assert.assertEquals(dictionary.indexOf(5), -1);
+    Assert.assertTrue(dictionary.hasNull());
+    Assert.assertEquals(dictionary.getMinVal(), 1);
+    Assert.assertEquals(dictionary.getMaxVal(), 4);
+    dictionary.close();
+  }
+
+  private static void compareDictionaries(MutableDictionaryReader heapDictionary,
+      MutableDictionaryReader offHeapDictionary, Object[] values, String[] boundaries) {
+    for (int i = 0; i < values.length; i++) {
+      heapDictionary.index(values[i]);
+      offHeapDictionary.index(values[i]);
+      // Range lookups in the middle of indexing only sort the values added since the previous lookup
+      if (i == values.length / 3) {
+        compareRanges(heapDictionary, offHeapDictionary, boundaries);
+      }
+    }
+
+    Assert.assertEquals(offHeapDictionary.length(), heapDictionary.length());
+    for (int dictId = 0; dictId < heapDictionary.length(); dictId++) {
+      Assert.assertEquals(offHeapDictionary.get(dictId), heapDictionary.get(dictId));
+      Assert.assertEquals(offHeapDictionary.getStringValue(dictId), heapDictionary.getStringValue(dictId));
+      Assert.assertEquals(offHeapDictionary.indexOf(heapDictionary.get(dictId)), dictId);
+      Assert.assertEquals(offHeapDictionary.indexOf(heapDictionary.getStringValue(dictId)), dictId);
+    }
+    Assert.assertEquals(offHeapDictionary.getMinVal(), heapDictionary.getMinVal());
+    Assert.assertEquals(offHeapDictionary.getMaxVal(), heapDictionary.getMaxVal());
+    compareRanges(heapDictionary, offHeapDictionary, boundaries);
+
+    offHeapDictionary.close();
+  }
+
+  private static void compareRanges(MutableDictionaryReader heapDictionary,
+      MutableDictionaryReader offHeapDictionary, String[] boundaries) {
+    for (String lower : boundaries) {
+      for (String upper : boundaries) {
+        for (int i = 0; i < 4; i++) {
+          boolean includeLower = (i & 1) != 0;
+          boolean includeUpper = (i & 2) != 0;
+          int[] expected = heapDictionary.getDictIdsInRange(lower, upper, includeLower, includeUpper);
+          int[] actual = offHeapDictionary.getDictIdsInRange(lower, upper, includeLower, includeUpper);
+          Assert.assertEquals(actual, expected, "Range " + lower + " " + upper + " " + includeLower + " "
+              + includeUpper + " random seed " + RANDOM_SEED + ": " + Arrays.toString(actual));
+        }
+      }
+    }
+  }
+}
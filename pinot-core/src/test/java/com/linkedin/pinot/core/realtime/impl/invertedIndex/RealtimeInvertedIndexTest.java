@@ -0,0 +1,137 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.invertedIndex;
+
+import java.util.Random;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class RealtimeInvertedIndexTest {
+  private static final int NUM_DOCS = 200000;
+  private static final int NUM_DICT_IDS = 2000;
+
+  @Test
+  public void testOnHeap() throws Exception {
+    testIndex(new DimensionInvertertedIndex("column", false));
+  }
+
+  @Test
+  public void testOffHeap() throws Exception {
+    testIndex(new DimensionInvertertedIndex("column", true));
+  }
+
+  private void testIndex(RealtimeInvertedIndex index) throws Exception {
+    Random random = new Random();
+    MutableRoaringBitmap[] expected = new MutableRoaringBitmap[NUM_DICT_IDS];
+    for (int i = 0; i < NUM_DICT_IDS; i++) {
+      expected[i] = new MutableRoaringBitmap();
+    }
+
+    ImmutableRoaringBitmap snapshot = null;
+    int snapshotCardinality = 0;
+    for (int docId = 0; docId < NUM_DOCS; docId++) {
+      // Skewed distribution to get both long and short posting lists
+      int dictId = Math.min(random.nextInt(NUM_DICT_IDS), random.nextInt(NUM_DICT_IDS));
+      index.add(dictId, docId);
+      expected[dictId].add(docId);
+
+      if (docId == NUM_DOCS / 2) {
+        snapshot = index.getImmutable(0);
+        snapshotCardinality = snapshot.getCardinality();
+        Assert.assertEquals(snapshot, expected[0]);
+      }
+    }
+
+    // Snapshots do not change when docs are added
+    Assert.assertEquals(snapshot.getCardinality(), snapshotCardinality);
+    for (int dictId = 0; dictId < NUM_DICT_IDS; dictId++) {
+      if (expected[dictId].isEmpty()) {
+        Assert.assertNull(index.getImmutable(dictId));
+      } else {
+        Assert.assertEquals(index.getImmutable(dictId), expected[dictId]);
+        Assert.assertEquals(index.getDocIdSetFor(dictId), expected[dictId]);
+      }
+    }
+    Assert.assertNull(index.getImmutable(NUM_DICT_IDS * 10));
+    index.close();
+  }
+
+  @Test
+  public void testImmutableBitmaps() throws Exception {
+    RealtimeInvertedIndex index = new DimensionInvertertedIndex("column", false);
+    MutableRoaringBitmap expected = new MutableRoaringBitmap();
+    ImmutableRoaringBitmap sealedBitmap = null;
+    for (int docId = 0; docId < NUM_DOCS; docId++) {
+      index.add(0, docId * 2);
+      expected.add(docId * 2);
+      if (docId % 1000 != 0) {
+        continue;
+      }
+
+      // The parts are disjoint and their union holds every doc
+      ImmutableRoaringBitmap[] bitmaps = index.getImmutableBitmaps(0);
+      int cardinality = 0;
+      for (ImmutableRoaringBitmap bitmap : bitmaps) {
+        cardinality += bitmap.getCardinality();
+      }
+      Assert.assertEquals(cardinality, expected.getCardinality());
+      Assert.assertEquals(ImmutableRoaringBitmap.or(bitmaps[0], bitmaps[bitmaps.length - 1]), expected);
+
+      // Appending a few docs does not copy the sealed docs
+      if (sealedBitmap != null && bitmaps.length == 2) {
+        Assert.assertSame(bitmaps[0], sealedBitmap);
+      }
+      sealedBitmap = bitmaps[0];
+    }
+    Assert.assertEquals(index.getImmutable(0), expected);
+    Assert.assertNull(index.getImmutableBitmaps(1));
+    index.close();
+  }
+
+  @Test
+  public void testConcurrentReads() throws Exception {
+    final RealtimeInvertedIndex index = new MetricInvertedIndex("column", true);
+    final int numDictIds = 10;
+    Thread writer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        for (int docId = 0; docId < NUM_DOCS; docId++) {
+          index.add(docId % numDictIds, docId);
+        }
+      }
+    });
+    writer.start();
+
+    // Every snapshot holds a prefix of the posting list
+    while (writer.isAlive()) {
+      for (int dictId = 0; dictId < numDictIds; dictId++) {
+        ImmutableRoaringBitmap bitmap = index.getImmutable(dictId);
+        if (bitmap == null) {
+          continue;
+        }
+        int cardinality = bitmap.getCardinality();
+        Assert.assertEquals(bitmap.select(cardinality - 1), dictId + (cardinality - 1) * numDictIds);
+      }
+    }
+    writer.join();
+    Assert.assertEquals(index.getImmutable(0).getCardinality(), NUM_DOCS / numDictIds);
+    index.close();
+  }
+}
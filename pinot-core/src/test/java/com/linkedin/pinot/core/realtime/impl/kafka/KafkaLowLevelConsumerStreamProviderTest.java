@@ -0,0 +1,161 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.kafka;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import kafka.javaapi.producer.Producer;
+import kafka.producer.KeyedMessage;
+import kafka.producer.ProducerConfig;
+import kafka.server.KafkaServerStartable;
+
+import org.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.common.data.DimensionFieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.data.MetricFieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.data.TimeFieldSpec;
+import com.linkedin.pinot.common.utils.CommonConstants.Helix;
+import com.linkedin.pinot.common.utils.KafkaStarterUtils;
+import com.linkedin.pinot.common.utils.ZkStarter;
+import com.linkedin.pinot.core.data.GenericRow;
+
+
+public class KafkaLowLevelConsumerStreamProviderTest {
+  private static final String KAFKA_TOPIC = "lowLevelConsumerTest";
+  private static final int NUM_MESSAGES = 100;
+  // Attempts at reading a row, next() returns null whenever a fetch times out
+  private static final int MAX_NEXT_ATTEMPTS = 30;
+
+  private KafkaServerStartable kafkaStarter;
+  private Schema schema;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    ZkStarter.startLocalZkServer();
+    kafkaStarter =
+        KafkaStarterUtils.startServer(KafkaStarterUtils.DEFAULT_KAFKA_PORT, KafkaStarterUtils.DEFAULT_BROKER_ID,
+            KafkaStarterUtils.DEFAULT_ZK_STR, KafkaStarterUtils.getDefaultKafkaConfiguration());
+    KafkaStarterUtils.createTopic(KAFKA_TOPIC, KafkaStarterUtils.DEFAULT_ZK_STR, 1);
+
+    schema = new Schema();
+    schema.addSchema("name", new DimensionFieldSpec("name", DataType.STRING, true));
+    schema.addSchema("count", new MetricFieldSpec("count", DataType.LONG));
+    schema.addSchema("daysSinceEpoch", new TimeFieldSpec("daysSinceEpoch", DataType.INT, TimeUnit.DAYS));
+
+    Properties properties = new Properties();
+    properties.put("metadata.broker.list", KafkaStarterUtils.DEFAULT_KAFKA_BROKER);
+    properties.put("serializer.class", "kafka.serializer.DefaultEncoder");
+    properties.put("request.required.acks", "1");
+    Producer<String, byte[]> producer = new Producer<String, byte[]>(new ProducerConfig(properties));
+    List<KeyedMessage<String, byte[]>> messages = new ArrayList<KeyedMessage<String, byte[]>>();
+    for (int i = 0; i < NUM_MESSAGES; i++) {
+      JSONObject message = new JSONObject();
+      message.put("name", "name" + i);
+      message.put("count", Integer.toString(i));
+      message.put("daysSinceEpoch", "16000");
+      messages.add(new KeyedMessage<String, byte[]>(KAFKA_TOPIC, message.toString().getBytes("UTF-8")));
+    }
+    producer.send(messages);
+    producer.close();
+  }
+
+  @AfterClass
+  public void tearDown() {
+    KafkaStarterUtils.stopServer(kafkaStarter);
+    ZkStarter.stopLocalZkServer();
+  }
+
+  private KafkaLowLevelConsumerStreamProvider createStreamProvider() throws Exception {
+    Map<String, String> properties = new HashMap<String, String>();
+    properties.put(Helix.DataSource.Realtime.Kafka.TOPIC_NAME, KAFKA_TOPIC);
+    properties.put(Helix.DataSource.Realtime.Kafka.DECODER_CLASS, KafkaJSONMessageDecoder.class.getName());
+    properties.put(Helix.DataSource.Realtime.Kafka.LowLevelConsumer.BROKER_LIST,
+        KafkaStarterUtils.DEFAULT_KAFKA_BROKER);
+    properties.put(Helix.DataSource.Realtime.Kafka.LowLevelConsumer.PARTITION, "0");
+    properties.put(Helix.DataSource.Realtime.Kafka.LowLevelConsumer.OFFSET_RESET,
+        KafkaLowLevelStreamProviderConfig.OFFSET_RESET_SMALLEST);
+    // Small fetches so that a partition spans several message sets
+    properties.put(Helix.DataSource.Realtime.Kafka.LowLevelConsumer.FETCH_SIZE, "1024");
+    KafkaLowLevelStreamProviderConfig config = new KafkaLowLevelStreamProviderConfig();
+    config.init(properties, schema);
+
+    KafkaLowLevelConsumerStreamProvider streamProvider = new KafkaLowLevelConsumerStreamProvider();
+    streamProvider.init(config);
+    return streamProvider;
+  }
+
+  private static GenericRow nextRow(KafkaLowLevelConsumerStreamProvider streamProvider) {
+    for (int i = 0; i < MAX_NEXT_ATTEMPTS; i++) {
+      GenericRow row = streamProvider.next();
+      if (row != null) {
+        return row;
+      }
+    }
+    Assert.fail("No row consumed from offset " + streamProvider.currentOffset());
+    return null;
+  }
+
+  @Test
+  public void testConsumeAll() throws Exception {
+    KafkaLowLevelConsumerStreamProvider streamProvider = createStreamProvider();
+    streamProvider.start();
+    Assert.assertEquals(streamProvider.currentOffset(), 0L);
+
+    for (int i = 0; i < NUM_MESSAGES; i++) {
+      GenericRow row = nextRow(streamProvider);
+      Assert.assertEquals(row.getValue("name"), "name" + i);
+      Assert.assertEquals(row.getValue("count"), (long) i);
+      Assert.assertEquals(streamProvider.currentOffset(), (long) i + 1);
+    }
+
+    // Nothing left to consume
+    Assert.assertNull(streamProvider.next());
+    Assert.assertEquals(streamProvider.currentOffset(), (long) NUM_MESSAGES);
+
+    streamProvider.commit();
+    Assert.assertEquals(streamProvider.getCommittedOffset(), (long) NUM_MESSAGES);
+    streamProvider.shutdown();
+  }
+
+  @Test
+  public void testReplayFromOffset() throws Exception {
+    KafkaLowLevelConsumerStreamProvider streamProvider = createStreamProvider();
+    streamProvider.setOffset(10);
+    streamProvider.start();
+    Assert.assertEquals(nextRow(streamProvider).getValue("name"), "name10");
+    Assert.assertEquals(nextRow(streamProvider).getValue("name"), "name11");
+    Assert.assertEquals(streamProvider.currentOffset(), 12L);
+
+    // Moving back replays the same rows
+    streamProvider.setOffset(10);
+    Assert.assertEquals(nextRow(streamProvider).getValue("name"), "name10");
+
+    Assert.assertEquals(streamProvider.next(90).getValue("name"), "name90");
+    Assert.assertEquals(streamProvider.currentOffset(), 91L);
+    streamProvider.shutdown();
+  }
+}
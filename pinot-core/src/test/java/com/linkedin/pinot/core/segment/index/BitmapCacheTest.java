@@ -0,0 +1,149 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index;
+
+import java.io.IOException;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.core.query.config.BitmapCacheConfig;
+
+
+public class BitmapCacheTest {
+  private static final int BITMAP_SIZE = 1000;
+
+  @Test
+  public void testGetAndPut() {
+    BitmapCache cache = newCache(10 * BITMAP_SIZE, 10 * BITMAP_SIZE);
+    InvertedIndexReader invertedIndex = new DummyInvertedIndex();
+    ImmutableRoaringBitmap bitmap = newBitmap(1);
+
+    Assert.assertNull(cache.get(invertedIndex, 1));
+    cache.put(invertedIndex, 1, "table", bitmap, BITMAP_SIZE);
+    Assert.assertSame(cache.get(invertedIndex, 1), bitmap);
+    Assert.assertNull(cache.get(invertedIndex, 2));
+    Assert.assertNull(cache.get(new DummyInvertedIndex(), 1));
+    Assert.assertEquals(cache.getTableSizeInBytes("table"), BITMAP_SIZE);
+
+    // Putting the same bitmap again does not count it twice
+    cache.put(invertedIndex, 1, "table", newBitmap(1), BITMAP_SIZE);
+    Assert.assertSame(cache.get(invertedIndex, 1), bitmap);
+    Assert.assertEquals(cache.getTableSizeInBytes("table"), BITMAP_SIZE);
+
+    cache.invalidate(invertedIndex);
+    Assert.assertNull(cache.get(invertedIndex, 1));
+    Assert.assertEquals(cache.getTableSizeInBytes("table"), 0);
+  }
+
+  @Test
+  public void testInvalidate() {
+    BitmapCache cache = newCache(10 * BITMAP_SIZE, 10 * BITMAP_SIZE);
+    InvertedIndexReader invertedIndex = new DummyInvertedIndex();
+    InvertedIndexReader otherInvertedIndex = new DummyInvertedIndex();
+    cache.put(invertedIndex, 1, "table", newBitmap(1), BITMAP_SIZE);
+    cache.put(otherInvertedIndex, 1, "table", newBitmap(1), BITMAP_SIZE);
+
+    // Only the bitmaps of the closed inverted index are dropped
+    cache.invalidate(invertedIndex);
+    Assert.assertNull(cache.get(invertedIndex, 1));
+    Assert.assertNotNull(cache.get(otherInvertedIndex, 1));
+    Assert.assertEquals(cache.getTableSizeInBytes("table"), BITMAP_SIZE);
+
+    // Bitmaps read by queries racing with the close are not cached
+    cache.put(invertedIndex, 2, "table", newBitmap(2), BITMAP_SIZE);
+    Assert.assertNull(cache.get(invertedIndex, 2));
+    Assert.assertEquals(cache.getTableSizeInBytes("table"), BITMAP_SIZE);
+  }
+
+  @Test
+  public void testTableQuota() {
+    BaseConfiguration config = new BaseConfiguration();
+    config.setProperty(BitmapCacheConfig.MAX_SIZE_IN_BYTES, 100 * BITMAP_SIZE);
+    config.setProperty(BitmapCacheConfig.DEFAULT_TABLE_QUOTA_IN_BYTES, 2 * BITMAP_SIZE);
+    config.setProperty(BitmapCacheConfig.TABLE_QUOTA_IN_BYTES + ".bigTable", 5 * BITMAP_SIZE);
+    BitmapCache cache = new BitmapCache(new BitmapCacheConfig(config), null);
+    InvertedIndexReader invertedIndex = new DummyInvertedIndex();
+
+    for (int i = 0; i < 10; i++) {
+      cache.put(invertedIndex, i, "smallTable", newBitmap(i), BITMAP_SIZE);
+      cache.put(invertedIndex, 100 + i, "bigTable", newBitmap(i), BITMAP_SIZE);
+    }
+    Assert.assertEquals(cache.getTableSizeInBytes("smallTable"), 2 * BITMAP_SIZE);
+    Assert.assertEquals(cache.getTableSizeInBytes("bigTable"), 5 * BITMAP_SIZE);
+    Assert.assertNotNull(cache.get(invertedIndex, 1));
+    Assert.assertNull(cache.get(invertedIndex, 2));
+    Assert.assertNotNull(cache.get(invertedIndex, 104));
+    Assert.assertNull(cache.get(invertedIndex, 105));
+  }
+
+  @Test
+  public void testMaxSize() {
+    BitmapCache cache = newCache(20 * BITMAP_SIZE, 100 * BITMAP_SIZE);
+    InvertedIndexReader invertedIndex = new DummyInvertedIndex();
+    for (int i = 0; i < 100; i++) {
+      cache.put(invertedIndex, i, "table", newBitmap(i), BITMAP_SIZE);
+    }
+    int numCached = 0;
+    for (int i = 0; i < 100; i++) {
+      if (cache.get(invertedIndex, i) != null) {
+        numCached++;
+      }
+    }
+    Assert.assertTrue(numCached > 0 && numCached <= 20, "Cached bitmaps: " + numCached);
+    Assert.assertEquals(cache.getTableSizeInBytes("table"), numCached * BITMAP_SIZE);
+  }
+
+  @Test
+  public void testDisabled() {
+    BitmapCache cache = newCache(0, 0);
+    InvertedIndexReader invertedIndex = new DummyInvertedIndex();
+    cache.put(invertedIndex, 1, "table", newBitmap(1), BITMAP_SIZE);
+    Assert.assertNull(cache.get(invertedIndex, 1));
+  }
+
+  private static BitmapCache newCache(long maxSizeInBytes, long tableQuotaInBytes) {
+    BaseConfiguration config = new BaseConfiguration();
+    config.setProperty(BitmapCacheConfig.MAX_SIZE_IN_BYTES, maxSizeInBytes);
+    config.setProperty(BitmapCacheConfig.DEFAULT_TABLE_QUOTA_IN_BYTES, tableQuotaInBytes);
+    return new BitmapCache(new BitmapCacheConfig(config), null);
+  }
+
+  private static ImmutableRoaringBitmap newBitmap(int docId) {
+    MutableRoaringBitmap bitmap = new MutableRoaringBitmap();
+    bitmap.add(docId);
+    return bitmap;
+  }
+
+  private static class DummyInvertedIndex implements InvertedIndexReader {
+    @Override
+    public ImmutableRoaringBitmap getImmutable(int idx) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int[] getMinMaxRangeFor(int docId) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() throws IOException {
+    }
+  }
+}
@@ -19,6 +19,7 @@ package com.linkedin.pinot.operator;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import com.linkedin.pinot.core.common.BaseFilterBlock;
@@ -31,6 +32,7 @@ import com.linkedin.pinot.core.common.Operator;
 import com.linkedin.pinot.core.operator.filter.AndOperator;
 import com.linkedin.pinot.core.operator.filter.BaseFilterOperator;
 import com.linkedin.pinot.core.operator.filter.OrOperator;
+import com.linkedin.pinot.core.plan.BaseFilterPlanNode;
 
 
 public class AndOperatorTest {
@@ -143,11 +145,61 @@ public class AndOperatorTest {
     andOperator.close();
   }
 
+  @Test
+  public void testCostBasedOrdering() {
+    int[] list1 = new int[] { 2, 3, 6, 10, 15, 16, 28 };
+    int[] list2 = new int[] { 3, 6, 8, 20, 28 };
+    int[] list3 = new int[] { 3, 6 };
+
+    BaseFilterOperator scanOperator = makeFilterOperator(list2, false);
+    BaseFilterOperator largeIndexOperator = makeFilterOperator(list1, true);
+    BaseFilterOperator smallIndexOperator = makeFilterOperator(list3, true);
+    List<Operator> operators = new ArrayList<Operator>();
+    operators.add(scanOperator);
+    operators.add(largeIndexOperator);
+    operators.add(smallIndexOperator);
+
+    // Index based operators first, by increasing number of matching docs, then scans
+    Operator operator = BaseFilterPlanNode.buildAndOperator(operators, 100);
+    Assert.assertTrue(operator instanceof AndOperator);
+    Assert.assertSame(operators.get(0), smallIndexOperator);
+    Assert.assertSame(operators.get(1), largeIndexOperator);
+    Assert.assertSame(operators.get(2), scanOperator);
+
+    operator.open();
+    BlockDocIdIterator iterator = operator.nextBlock().getBlockDocIdSet().iterator();
+    Assert.assertEquals(iterator.next(), 3);
+    Assert.assertEquals(iterator.next(), 6);
+    Assert.assertEquals(iterator.next(), Constants.EOF);
+    operator.close();
+
+    // A child matching no doc short circuits the AND
+    BaseFilterOperator emptyOperator = makeFilterOperator(new int[0], false);
+    operators = new ArrayList<Operator>();
+    operators.add(makeFilterOperator(list1, true));
+    operators.add(emptyOperator);
+    Assert.assertSame(BaseFilterPlanNode.buildAndOperator(operators, 100), emptyOperator);
+  }
+
   public BaseFilterOperator makeFilterOperator(final int[] list) {
+    return makeFilterOperator(list, false);
+  }
+
+  public BaseFilterOperator makeFilterOperator(final int[] list, final boolean indexBased) {
 
     return new BaseFilterOperator() {
       boolean alreadyInvoked = false;
 
+      @Override
+      public boolean isIndexBased() {
+        return indexBased;
+      }
+
+      @Override
+      public int getEstimatedNumMatchingDocs(int totalDocs) {
+        return list.length;
+      }
+
       @Override
       public boolean open() {
         // TODO Auto-generated method stub
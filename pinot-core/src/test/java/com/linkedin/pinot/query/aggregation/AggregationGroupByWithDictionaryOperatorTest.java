@@ -37,6 +37,7 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import com.linkedin.pinot.common.request.AggregationInfo;
+import com.linkedin.pinot.common.query.IncrementalReducer;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.request.FilterOperator;
 import com.linkedin.pinot.common.request.GroupBy;
@@ -56,6 +57,7 @@ import com.linkedin.pinot.core.operator.BReusableFilteredDocIdSetOperator;
 import com.linkedin.pinot.core.operator.MProjectionOperator;
 import com.linkedin.pinot.core.operator.UReplicatedProjectionOperator;
 import com.linkedin.pinot.core.operator.query.AggregationFunctionGroupByOperator;
+import com.linkedin.pinot.core.operator.query.MDefaultAggregationFunctionGroupByOperator;
 import com.linkedin.pinot.core.operator.query.MAggregationFunctionGroupByWithDictionaryOperator;
 import com.linkedin.pinot.core.operator.query.MAggregationGroupByOperator;
 import com.linkedin.pinot.core.plan.Plan;
@@ -195,6 +197,52 @@ public class AggregationGroupByWithDictionaryOperatorTest {
     }
   }
 
+  @Test
+  public void testPrimitiveAggregationGroupBysMatchDefaultOperator() {
+    final List<String> multiColumnGroupBy = new ArrayList<String>();
+    multiColumnGroupBy.add("column11");
+    multiColumnGroupBy.add("column12");
+    final GroupBy groupBy = new GroupBy();
+    groupBy.setColumns(multiColumnGroupBy);
+    groupBy.setTopN(10);
+
+    // count, sum, max and min are accumulated on primitive doubles.
+    for (int i = 0; i < 4; ++i) {
+      for (GroupBy query : new GroupBy[] { _groupBy, groupBy }) {
+        final MProjectionOperator dictionaryProjectionOperator = getProjectionOperator();
+        final MAggregationFunctionGroupByWithDictionaryOperator dictionaryOperator =
+            new MAggregationFunctionGroupByWithDictionaryOperator(_aggregationInfos.get(i), query,
+                new UReplicatedProjectionOperator(dictionaryProjectionOperator), true);
+        final MProjectionOperator defaultProjectionOperator = getProjectionOperator();
+        final MDefaultAggregationFunctionGroupByOperator defaultOperator =
+            new MDefaultAggregationFunctionGroupByOperator(_aggregationInfos.get(i), query,
+                new UReplicatedProjectionOperator(defaultProjectionOperator), true);
+
+        final Map<String, Serializable> expected = runGroupByOperator(defaultProjectionOperator, defaultOperator);
+        final Map<String, Serializable> actual = runGroupByOperator(dictionaryProjectionOperator, dictionaryOperator);
+        Assert.assertEquals(actual.keySet(), expected.keySet());
+        for (String groupKey : expected.keySet()) {
+          Assert.assertEquals(((Number) actual.get(groupKey)).doubleValue(),
+              ((Number) expected.get(groupKey)).doubleValue(), 1e-5, groupKey);
+        }
+      }
+    }
+  }
+
+  private static MProjectionOperator getProjectionOperator() {
+    final BReusableFilteredDocIdSetOperator docIdSetOperator =
+        new BReusableFilteredDocIdSetOperator(null, _indexSegment.getTotalDocs(), 5000);
+    return new MProjectionOperator(getDataSourceMap(), docIdSetOperator);
+  }
+
+  private static Map<String, Serializable> runGroupByOperator(MProjectionOperator projectionOperator,
+      AggregationFunctionGroupByOperator operator) {
+    while (projectionOperator.nextBlock() != null) {
+      operator.nextBlock();
+    }
+    return new HashMap<String, Serializable>(operator.getAggregationGroupByResult());
+  }
+
   @Test
   public void testAggregationGroupBysWithCombine() {
     final List<AggregationFunctionGroupByOperator> aggregationFunctionGroupByOperatorList =
@@ -435,6 +483,38 @@ public class AggregationGroupByWithDictionaryOperatorTest {
     assertEmptyBrokerResponse(brokerResponse);
   }
 
+  @Test
+  public void testInterSegmentAggregationGroupByIncrementalReduce() throws Exception {
+    final int numSegments = 20;
+    setupSegmentList(numSegments);
+    final PlanMaker instancePlanMaker = new InstancePlanMakerImplV2();
+    final BrokerRequest brokerRequest = getAggregationGroupByNoFilterBrokerRequest();
+    final ExecutorService executorService = Executors.newCachedThreadPool(new NamedThreadFactory("test-plan-maker"));
+    final Plan globalPlan =
+        instancePlanMaker.makeInterSegmentPlan(_indexSegmentList, brokerRequest, executorService, 150000);
+    globalPlan.execute();
+    final DataTable instanceResponse = globalPlan.getInstanceResponse();
+
+    final DefaultReduceService defaultReduceService = new DefaultReduceService();
+    final IncrementalReducer incrementalReducer = defaultReduceService.getIncrementalReducer(brokerRequest);
+    incrementalReducer.merge(new ServerInstance("localhost:0000"), instanceResponse);
+    assertBrokerResponse(numSegments, incrementalReducer.getBrokerResponse());
+
+    // Merging the same response twice gives the same groups as reducing both at once.
+    final Map<ServerInstance, DataTable> instanceResponseMap = new HashMap<ServerInstance, DataTable>();
+    instanceResponseMap.put(new ServerInstance("localhost:0000"), instanceResponse);
+    instanceResponseMap.put(new ServerInstance("localhost:1111"), instanceResponse);
+    final IncrementalReducer twoResponsesReducer = defaultReduceService.getIncrementalReducer(brokerRequest);
+    for (Map.Entry<ServerInstance, DataTable> entry : instanceResponseMap.entrySet()) {
+      twoResponsesReducer.merge(entry.getKey(), entry.getValue());
+    }
+    final BrokerResponse incrementalBrokerResponse = twoResponsesReducer.getBrokerResponse();
+    final BrokerResponse brokerResponse = defaultReduceService.reduceOnDataTable(brokerRequest, instanceResponseMap);
+    Assert.assertEquals(new JSONArray(incrementalBrokerResponse.getAggregationResults()).toString(),
+        new JSONArray(brokerResponse.getAggregationResults()).toString());
+    executorService.shutdown();
+  }
+
   private void assertBrokerResponse(int numSegments, BrokerResponse brokerResponse) throws JSONException {
     Assert.assertEquals(10001 * numSegments, brokerResponse.getNumDocsScanned());
     Assert.assertEquals(_numAggregations, brokerResponse.getAggregationResults().size());
@@ -37,6 +37,7 @@ import org.testng.annotations.Test;
 
 import com.linkedin.pinot.common.query.ReduceService;
 import com.linkedin.pinot.common.request.AggregationInfo;
+import com.linkedin.pinot.common.query.IncrementalReducer;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.request.FilterOperator;
 import com.linkedin.pinot.common.response.BrokerResponse;
@@ -130,6 +131,7 @@ public class AggregationQueriesTest {
   private void setupSegmentList(int numberOfSegments) throws Exception {
     final String filePath = TestUtils.getFileFromResourceUrl(getClass().getClassLoader().getResource(AVRO_DATA));
 
+    _indexSegmentList.clear();
     if (INDEXES_DIR.exists()) {
       FileUtils.deleteQuietly(INDEXES_DIR);
     }
@@ -329,6 +331,37 @@ public class AggregationQueriesTest {
     assertBrokerResponse(numSegments, brokerResponse);
   }
 
+  @Test
+  public void testIncrementalReduceMatchesReduceOnDataTable() throws Exception {
+    final int numSegments = 20;
+    setupSegmentList(numSegments);
+    final PlanMaker instancePlanMaker = new InstancePlanMakerImplV0();
+    final BrokerRequest brokerRequest = getAggregationNoFilterBrokerRequest();
+    final ExecutorService executorService = Executors.newCachedThreadPool(new NamedThreadFactory("test-plan-maker"));
+    final Plan globalPlan =
+        instancePlanMaker.makeInterSegmentPlan(_indexSegmentList, brokerRequest, executorService, 150000);
+    globalPlan.execute();
+    final DataTable instanceResponse = globalPlan.getInstanceResponse();
+
+    final DefaultReduceService defaultReduceService = new DefaultReduceService();
+    final Map<ServerInstance, DataTable> instanceResponseMap = new HashMap<ServerInstance, DataTable>();
+    instanceResponseMap.put(new ServerInstance("localhost:0000"), instanceResponse);
+    instanceResponseMap.put(new ServerInstance("localhost:1111"), instanceResponse);
+    instanceResponseMap.put(new ServerInstance("localhost:2222"), instanceResponse);
+    final IncrementalReducer incrementalReducer = defaultReduceService.getIncrementalReducer(brokerRequest);
+    for (Map.Entry<ServerInstance, DataTable> entry : instanceResponseMap.entrySet()) {
+      incrementalReducer.merge(entry.getKey(), entry.getValue());
+    }
+    final BrokerResponse incrementalBrokerResponse = incrementalReducer.getBrokerResponse();
+    final BrokerResponse brokerResponse = defaultReduceService.reduceOnDataTable(brokerRequest, instanceResponseMap);
+
+    Assert.assertEquals(incrementalBrokerResponse.getNumDocsScanned(), 3 * 10001 * numSegments);
+    Assert.assertEquals(incrementalBrokerResponse.getNumDocsScanned(), brokerResponse.getNumDocsScanned());
+    Assert.assertEquals(new JSONArray(incrementalBrokerResponse.getAggregationResults()).toString(),
+        new JSONArray(brokerResponse.getAggregationResults()).toString());
+    executorService.shutdown();
+  }
+
   private void assertBrokerResponse(int numSegments, BrokerResponse brokerResponse) throws JSONException {
     Assert.assertEquals(10001 * numSegments, brokerResponse.getNumDocsScanned());
     Assert.assertEquals(_numAggregations, brokerResponse.getAggregationResults().size());
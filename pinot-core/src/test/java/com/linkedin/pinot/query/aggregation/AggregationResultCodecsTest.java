@@ -0,0 +1,100 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.query.aggregation;
+
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.clearspring.analytics.stream.cardinality.HyperLogLog;
+import com.linkedin.pinot.common.utils.DataTableObjectSerDe;
+import com.linkedin.pinot.core.query.aggregation.AggregationResultCodecs;
+import com.linkedin.pinot.core.query.aggregation.function.AvgAggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.function.AvgAggregationFunction.AvgPair;
+import com.linkedin.pinot.core.query.aggregation.function.quantile.digest.QuantileDigest;
+
+
+/**
+ * Round trips the aggregation function intermediate results through the DataTable object encoding.
+ */
+public class AggregationResultCodecsTest {
+
+  @BeforeClass
+  public void setup() {
+    AggregationResultCodecs.register();
+  }
+
+  @Test
+  public void testAggregationResults() throws Exception {
+    AvgPair avgPair = roundTrip(new AvgAggregationFunction().getAvgPair(12.5, 4L));
+    Assert.assertEquals(avgPair.getFirst(), 12.5);
+    Assert.assertEquals(avgPair.getSecond(), Long.valueOf(4L));
+
+    IntOpenHashSet intSet = new IntOpenHashSet();
+    for (int i = 0; i < 1000; i += 3) {
+      intSet.add(i);
+    }
+    Assert.assertEquals(roundTrip(intSet), intSet);
+
+    DoubleArrayList doubleList = new DoubleArrayList();
+    doubleList.add(1.5);
+    doubleList.add(-2.0);
+    Assert.assertEquals(roundTrip(doubleList), doubleList);
+
+    HyperLogLog hll = new HyperLogLog(8);
+    for (int i = 0; i < 1000; i++) {
+      hll.offer(i);
+    }
+    Assert.assertEquals(roundTrip(hll).cardinality(), hll.cardinality());
+
+    QuantileDigest digest = new QuantileDigest(0.05);
+    for (long i = 0; i < 1000; i++) {
+      digest.add(i);
+    }
+    Assert.assertEquals(roundTrip(digest).getQuantile(0.5), digest.getQuantile(0.5));
+  }
+
+  @Test
+  public void testGroupByResultMap() throws Exception {
+    Map<String, Serializable> groupByResult = new HashMap<String, Serializable>();
+    IntOpenHashSet intSet = new IntOpenHashSet();
+    intSet.add(7);
+    groupByResult.put("a\tb", intSet);
+    groupByResult.put("c\td", new IntOpenHashSet());
+
+    Map<String, Serializable> deserialized = roundTrip(groupByResult);
+    Assert.assertEquals(deserialized, groupByResult);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T roundTrip(T value) throws Exception {
+    byte[] bytes = DataTableObjectSerDe.serialize(value);
+    // Only the codecs are used, nothing falls back to Java serialization.
+    Assert.assertTrue(bytes[0] != DataTableObjectSerDe.JAVA_SERIALIZED);
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    T deserialized = (T) DataTableObjectSerDe.deserialize(buffer);
+    Assert.assertEquals(buffer.remaining(), 0);
+    return deserialized;
+  }
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.query.pruner;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.query.pruner.ColumnValueSegmentPruner;
+import com.linkedin.pinot.core.query.pruner.SegmentPruner;
+import com.linkedin.pinot.core.query.pruner.SegmentPrunerProvider;
+import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentCreationDriverFactory;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.IndexSegmentImpl;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import com.linkedin.pinot.segments.v1.creator.SegmentTestUtils;
+import com.linkedin.pinot.util.TestUtils;
+
+
+public class ColumnValueSegmentPrunerTest {
+  private static final String AVRO_DATA = "data/test_sample_data.avro";
+  private static final File INDEX_DIR = new File(ColumnValueSegmentPrunerTest.class.toString());
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+
+  private final SegmentPruner pruner = new ColumnValueSegmentPruner();
+  private IndexSegmentImpl segment;
+
+  @BeforeClass
+  public void setup() throws Exception {
+    final String filePath = TestUtils.getFileFromResourceUrl(getClass().getClassLoader().getResource(AVRO_DATA));
+    FileUtils.deleteQuietly(INDEX_DIR);
+
+    final SegmentGeneratorConfig config =
+        SegmentTestUtils.getSegmentGenSpecWithSchemAndProjectedColumns(new File(filePath), INDEX_DIR, "time_day",
+            TimeUnit.DAYS, "test");
+    final SegmentIndexCreationDriver driver = SegmentCreationDriverFactory.get(null);
+    driver.init(config);
+    driver.build();
+    segment = (IndexSegmentImpl) ColumnarSegmentLoader.load(INDEX_DIR.listFiles()[0], ReadMode.heap);
+  }
+
+  @AfterClass
+  public void teardown() {
+    segment.destroy();
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  @Test
+  public void testMinMaxValues() {
+    SegmentMetadataImpl metadata = (SegmentMetadataImpl) segment.getSegmentMetadata();
+    for (String column : metadata.getColumnMetadataMap().keySet()) {
+      ColumnMetadata columnMetadata = metadata.getColumnMetadataFor(column);
+      if (columnMetadata.getDataType() == DataType.STRING) {
+        continue;
+      }
+      ImmutableDictionaryReader dictionary = segment.getDictionaryFor(column);
+      Assert.assertEquals(columnMetadata.getMinValue(), dictionary.get(0), column);
+      Assert.assertEquals(columnMetadata.getMaxValue(), dictionary.get(dictionary.length() - 1), column);
+    }
+  }
+
+  @Test
+  public void testPrune() {
+    Assert.assertTrue(
+        SegmentPrunerProvider.getSegmentPruner("ColumnValueSegmentPruner", null) instanceof ColumnValueSegmentPruner);
+
+    String column = getColumn(DataType.INT);
+    ColumnMetadata columnMetadata = ((SegmentMetadataImpl) segment.getSegmentMetadata()).getColumnMetadataFor(column);
+    long min = ((Number) columnMetadata.getMinValue()).longValue();
+    long max = ((Number) columnMetadata.getMaxValue()).longValue();
+
+    Assert.assertFalse(prune("select count(*) from test"));
+    Assert.assertFalse(prune("select count(*) from test where " + column + " = " + min));
+    Assert.assertFalse(prune("select count(*) from test where " + column + " = " + max));
+    Assert.assertTrue(prune("select count(*) from test where " + column + " = " + (max + 1)));
+    Assert.assertTrue(prune("select count(*) from test where " + column + " = " + (min - 1)));
+    Assert.assertTrue(prune("select count(*) from test where " + column + " in (" + (min - 1) + ", " + (max + 1) + ")"));
+    Assert.assertFalse(prune("select count(*) from test where " + column + " in (" + (min - 1) + ", " + max + ")"));
+
+    Assert.assertTrue(prune("select count(*) from test where " + column + " > " + max));
+    Assert.assertFalse(prune("select count(*) from test where " + column + " >= " + max));
+    Assert.assertTrue(prune("select count(*) from test where " + column + " < " + min));
+    Assert.assertFalse(prune("select count(*) from test where " + column + " <= " + min));
+    Assert.assertTrue(prune("select count(*) from test where " + column + " between " + (max + 1) + " and "
+        + (max + 10)));
+    Assert.assertFalse(prune("select count(*) from test where " + column + " between " + (min - 10) + " and " + min));
+
+    Assert.assertTrue(prune("select count(*) from test where " + column + " = " + min + " and " + column + " > "
+        + max));
+    Assert.assertFalse(prune("select count(*) from test where " + column + " = " + min + " or " + column + " > "
+        + max));
+    Assert.assertTrue(prune("select count(*) from test where " + column + " < " + min + " or " + column + " > "
+        + max));
+
+    // Predicates the pruner cannot evaluate never prune.
+    Assert.assertFalse(prune("select count(*) from test where " + column + " <> " + (max + 1)));
+    Assert.assertFalse(prune("select count(*) from test where unknownColumn = 1"));
+    Assert.assertFalse(prune("select count(*) from test where " + column + " = 'notANumber'"));
+
+    String stringColumn = getColumn(DataType.STRING);
+    ColumnMetadata stringColumnMetadata =
+        ((SegmentMetadataImpl) segment.getSegmentMetadata()).getColumnMetadataFor(stringColumn);
+    if (stringColumnMetadata.getMaxValue() != null) {
+      String stringMax = (String) stringColumnMetadata.getMaxValue();
+      Assert.assertFalse(prune("select count(*) from test where " + stringColumn + " = '" + stringMax + "'"));
+      Assert.assertTrue(prune("select count(*) from test where " + stringColumn + " = '" + stringMax + "z'"));
+    }
+  }
+
+  private boolean prune(String query) {
+    return pruner.prune(segment, COMPILER.compileToBrokerRequest(query));
+  }
+
+  private String getColumn(DataType dataType) {
+    SegmentMetadataImpl metadata = (SegmentMetadataImpl) segment.getSegmentMetadata();
+    for (String column : metadata.getColumnMetadataMap().keySet()) {
+      ColumnMetadata columnMetadata = metadata.getColumnMetadataFor(column);
+      if (columnMetadata.getDataType() == dataType && columnMetadata.isSingleValue()) {
+        return column;
+      }
+    }
+    throw new IllegalStateException("No single value " + dataType + " column in the test segment");
+  }
+}
@@ -35,6 +35,7 @@ import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import com.linkedin.pinot.common.query.IncrementalReducer;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.request.FilterOperator;
 import com.linkedin.pinot.common.request.Selection;
@@ -286,6 +287,34 @@ public class SelectionQueriesTest {
     }
   }
 
+  @Test
+  public void testInterSegmentSelectionIncrementalReduce() throws Exception {
+    final int numSegments = 20;
+    setupSegmentList(numSegments);
+    final PlanMaker instancePlanMaker = new InstancePlanMakerImplV2();
+    final BrokerRequest brokerRequest = getSelectionNoFilterBrokerRequest();
+    final ExecutorService executorService = Executors.newCachedThreadPool(new NamedThreadFactory("test-plan-maker"));
+    final Plan globalPlan =
+        instancePlanMaker.makeInterSegmentPlan(_indexSegmentList, brokerRequest, executorService, 150000);
+    globalPlan.execute();
+    final DataTable instanceResponse = globalPlan.getInstanceResponse();
+
+    final DefaultReduceService defaultReduceService = new DefaultReduceService();
+    final Map<ServerInstance, DataTable> instanceResponseMap = new HashMap<ServerInstance, DataTable>();
+    instanceResponseMap.put(new ServerInstance("localhost:0000"), instanceResponse);
+    instanceResponseMap.put(new ServerInstance("localhost:1111"), instanceResponse);
+    final IncrementalReducer incrementalReducer = defaultReduceService.getIncrementalReducer(brokerRequest);
+    for (Map.Entry<ServerInstance, DataTable> entry : instanceResponseMap.entrySet()) {
+      incrementalReducer.merge(entry.getKey(), entry.getValue());
+    }
+    final BrokerResponse incrementalBrokerResponse = incrementalReducer.getBrokerResponse();
+    final BrokerResponse brokerResponse = defaultReduceService.reduceOnDataTable(brokerRequest, instanceResponseMap);
+
+    Assert.assertEquals(incrementalBrokerResponse.getNumDocsScanned(), brokerResponse.getNumDocsScanned());
+    Assert.assertEquals(incrementalBrokerResponse.getSelectionResults().toString(),
+        brokerResponse.getSelectionResults().toString());
+  }
+
   private static Map<String, DataSource> getDataSourceMap() {
     final Map<String, DataSource> dataSourceMap = new HashMap<String, DataSource>();
     dataSourceMap.put("column11", _indexSegment.getDataSource("column11"));
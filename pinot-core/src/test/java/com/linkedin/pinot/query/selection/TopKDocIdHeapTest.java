@@ -0,0 +1,137 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.query.selection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.common.request.SelectionSort;
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.query.selection.TopKDocIdHeap;
+import com.linkedin.pinot.util.datasource.SingleValueBlock;
+
+
+public class TopKDocIdHeapTest {
+  private static final int NUM_DOCS = 10000;
+  private static final int CARDINALITY = 100;
+  private static final int[] DICTIONARY = new int[CARDINALITY];
+
+  static {
+    for (int i = 0; i < CARDINALITY; i++) {
+      DICTIONARY[i] = i;
+    }
+  }
+
+  @Test
+  public void testTopK() {
+    Random random = new Random(0);
+    int[] column1 = new int[NUM_DOCS];
+    int[] column2 = new int[NUM_DOCS];
+    for (int i = 0; i < NUM_DOCS; i++) {
+      column1[i] = random.nextInt(CARDINALITY);
+      column2[i] = random.nextInt(CARDINALITY);
+    }
+    Block[] blocks = new Block[] { new SingleValueBlock(DICTIONARY, column1), new SingleValueBlock(DICTIONARY, column2) };
+
+    for (boolean isAsc1 : new boolean[] { true, false }) {
+      for (boolean isAsc2 : new boolean[] { true, false }) {
+        TopKDocIdHeap heap = new TopKDocIdHeap(50, getSortSequence(isAsc1, isAsc2), blocks);
+        for (int docId = 0; docId < NUM_DOCS; docId++) {
+          heap.offer(docId);
+        }
+        Assert.assertFalse(heap.isTerminated());
+        Assert.assertEquals(getSortedKeys(heap.getDocIds(), column1, column2, isAsc1, isAsc2),
+            Arrays.copyOf(getSortedKeys(getAllDocIds(), column1, column2, isAsc1, isAsc2), 50));
+      }
+    }
+  }
+
+  @Test
+  public void testEarlyTermination() {
+    int[] sortedColumn = new int[NUM_DOCS];
+    int[] column2 = new int[NUM_DOCS];
+    for (int i = 0; i < NUM_DOCS; i++) {
+      sortedColumn[i] = i * CARDINALITY / NUM_DOCS;
+      column2[i] = NUM_DOCS - i;
+    }
+    Block[] blocks =
+        new Block[] { new SingleValueBlock(DICTIONARY, sortedColumn, true), new SingleValueBlock(DICTIONARY, column2) };
+
+    TopKDocIdHeap heap = new TopKDocIdHeap(10, getSortSequence(true, true), blocks);
+    int numDocsOffered = 0;
+    for (int docId = 0; docId < NUM_DOCS; docId++) {
+      numDocsOffered++;
+      if (!heap.offer(docId) && heap.isTerminated()) {
+        break;
+      }
+    }
+    // The first 100 docs share the smallest value, the heap ends up with the last 10 of them.
+    Assert.assertTrue(heap.isTerminated());
+    Assert.assertEquals(numDocsOffered, 101);
+    int[] docIds = heap.getDocIds();
+    Arrays.sort(docIds);
+    for (int i = 0; i < docIds.length; i++) {
+      Assert.assertEquals(docIds[i], 90 + i);
+    }
+
+    // Descending order on the sorted column can not terminate early.
+    heap = new TopKDocIdHeap(10, getSortSequence(false, true), blocks);
+    for (int docId = 0; docId < NUM_DOCS; docId++) {
+      heap.offer(docId);
+    }
+    Assert.assertFalse(heap.isTerminated());
+  }
+
+  private static List<SelectionSort> getSortSequence(boolean isAsc1, boolean isAsc2) {
+    List<SelectionSort> sortSequence = new ArrayList<SelectionSort>();
+    SelectionSort selectionSort1 = new SelectionSort();
+    selectionSort1.setColumn("column1");
+    selectionSort1.setIsAsc(isAsc1);
+    sortSequence.add(selectionSort1);
+    SelectionSort selectionSort2 = new SelectionSort();
+    selectionSort2.setColumn("column2");
+    selectionSort2.setIsAsc(isAsc2);
+    sortSequence.add(selectionSort2);
+    return sortSequence;
+  }
+
+  private static int[] getAllDocIds() {
+    int[] docIds = new int[NUM_DOCS];
+    for (int i = 0; i < NUM_DOCS; i++) {
+      docIds[i] = i;
+    }
+    return docIds;
+  }
+
+  /**
+   * Sort keys of the given docs in query order, both columns packed in one long.
+   */
+  private static long[] getSortedKeys(int[] docIds, int[] column1, int[] column2, boolean isAsc1, boolean isAsc2) {
+    long[] keys = new long[docIds.length];
+    for (int i = 0; i < docIds.length; i++) {
+      long key1 = isAsc1 ? column1[docIds[i]] : CARDINALITY - column1[docIds[i]];
+      long key2 = isAsc2 ? column2[docIds[i]] : CARDINALITY - column2[docIds[i]];
+      keys[i] = key1 * CARDINALITY * 2 + key2;
+    }
+    Arrays.sort(keys);
+    return keys;
+  }
+}
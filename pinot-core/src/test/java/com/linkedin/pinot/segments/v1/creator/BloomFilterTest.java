@@ -0,0 +1,170 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.segments.v1.creator;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.metadata.segment.IndexLoadingConfigMetadata;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.common.predicate.EqPredicate;
+import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentVersion;
+import com.linkedin.pinot.core.operator.filter.predicate.EqualsPredicateEvaluator;
+import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentCreationDriverFactory;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.creator.impl.bloom.BloomFilterCreator;
+import com.linkedin.pinot.core.segment.index.IndexSegmentImpl;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
+import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
+import com.linkedin.pinot.util.TestUtils;
+
+
+public class BloomFilterTest {
+  private static final String AVRO_DATA = "data/test_sample_data.avro";
+  private static final File INDEX_DIR = new File(BloomFilterTest.class.toString());
+
+  @BeforeClass
+  public void setup() {
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  @AfterClass
+  public void teardown() {
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  @Test
+  public void testCreatorAndReader() throws Exception {
+    File dir = new File(INDEX_DIR, "raw");
+    dir.mkdirs();
+    int numValues = 10000;
+    BloomFilterCreator intCreator = new BloomFilterCreator(dir, "intColumn", DataType.INT, numValues);
+    BloomFilterCreator stringCreator = new BloomFilterCreator(dir, "stringColumn", DataType.STRING, numValues);
+    for (int i = 0; i < numValues; i++) {
+      intCreator.add(i * 2);
+      stringCreator.add("value" + (i * 2));
+    }
+    intCreator.seal();
+    stringCreator.seal();
+
+    BloomFilterReader intReader =
+        new BloomFilterReader(new File(dir, "intColumn" + V1Constants.Indexes.BLOOM_FILTER_FILE_EXTENSION),
+            DataType.INT);
+    BloomFilterReader stringReader =
+        new BloomFilterReader(new File(dir, "stringColumn" + V1Constants.Indexes.BLOOM_FILTER_FILE_EXTENSION),
+            DataType.STRING);
+
+    int intFalsePositives = 0;
+    int stringFalsePositives = 0;
+    for (int i = 0; i < numValues; i++) {
+      Assert.assertTrue(intReader.mightContain(i * 2));
+      Assert.assertTrue(intReader.mightContain(String.valueOf(i * 2)));
+      Assert.assertTrue(stringReader.mightContain("value" + (i * 2)));
+      // Dictionary padding is ignored
+      Assert.assertTrue(stringReader.mightContain("value" + (i * 2) + V1Constants.Str.STRING_PAD_CHAR));
+      if (intReader.mightContain(String.valueOf(i * 2 + 1))) {
+        intFalsePositives++;
+      }
+      if (stringReader.mightContain("value" + (i * 2 + 1))) {
+        stringFalsePositives++;
+      }
+    }
+    // 1% expected
+    Assert.assertTrue(intFalsePositives < numValues / 20, "int false positives: " + intFalsePositives);
+    Assert.assertTrue(stringFalsePositives < numValues / 20, "string false positives: " + stringFalsePositives);
+
+    // Values the dictionary could not parse either are left to the dictionary
+    Assert.assertTrue(intReader.mightContain("notANumber"));
+  }
+
+  @Test
+  public void testSegment() throws Exception {
+    for (SegmentVersion version : SegmentVersion.values()) {
+      File segmentDir = buildSegment(new File(INDEX_DIR, version.toString()), version, true);
+      for (ReadMode readMode : ReadMode.values()) {
+        IndexSegmentImpl segment = (IndexSegmentImpl) ColumnarSegmentLoader.load(segmentDir, readMode,
+            new IndexLoadingConfigMetadata(new PropertiesConfiguration()));
+        checkBloomFilters(segment);
+        segment.destroy();
+      }
+    }
+  }
+
+  @Test
+  public void testCreateOnLoad() throws Exception {
+    File segmentDir = buildSegment(new File(INDEX_DIR, "load"), SegmentVersion.v1, false);
+    IndexSegmentImpl segment = (IndexSegmentImpl) ColumnarSegmentLoader.load(segmentDir, ReadMode.mmap);
+    String column = segment.getColumnNames()[0];
+    Assert.assertNull(segment.getBloomFilterFor(column));
+    segment.destroy();
+
+    PropertiesConfiguration config = new PropertiesConfiguration();
+    config.setProperty("metadata.loading.bloom.filter.columns", Arrays.asList(segment.getColumnNames()));
+    IndexLoadingConfigMetadata indexLoadingConfigMetadata = new IndexLoadingConfigMetadata(config);
+    Assert.assertTrue(indexLoadingConfigMetadata.isLoadingBloomFilterForColumn(column));
+    segment = (IndexSegmentImpl) ColumnarSegmentLoader.load(segmentDir, ReadMode.mmap, indexLoadingConfigMetadata);
+    checkBloomFilters(segment);
+    segment.destroy();
+    Assert.assertTrue(new File(segmentDir, column + V1Constants.Indexes.BLOOM_FILTER_FILE_EXTENSION).exists());
+  }
+
+  private void checkBloomFilters(IndexSegmentImpl segment) {
+    for (String column : segment.getColumnNames()) {
+      BloomFilterReader bloomFilter = segment.getBloomFilterFor(column);
+      Assert.assertNotNull(bloomFilter, column);
+      ImmutableDictionaryReader dictionary = segment.getDictionaryFor(column);
+      for (int i = 0; i < dictionary.length(); i++) {
+        String value = dictionary.get(i).toString();
+        Assert.assertTrue(bloomFilter.mightContain(value), column + " " + value);
+
+        EqPredicate predicate = new EqPredicate(column, Arrays.asList(value));
+        int[] expected = new EqualsPredicateEvaluator(predicate, dictionary).getDictionaryIds();
+        int[] actual = new EqualsPredicateEvaluator(predicate, dictionary, bloomFilter).getDictionaryIds();
+        Assert.assertEquals(actual, expected);
+      }
+    }
+  }
+
+  private File buildSegment(File outputDir, SegmentVersion version, boolean createBloomFilters) throws Exception {
+    final String filePath = TestUtils.getFileFromResourceUrl(getClass().getClassLoader().getResource(AVRO_DATA));
+    final SegmentGeneratorConfig config =
+        SegmentTestUtils.getSegmentGenSpecWithSchemAndProjectedColumns(new File(filePath), outputDir, "time_day",
+            TimeUnit.DAYS, "test");
+    config.setSegmentVersion(version);
+    if (createBloomFilters) {
+      for (FieldSpec spec : config.getSchema().getAllFieldSpecs()) {
+        config.createBloomFilterForColumn(spec.getName());
+      }
+    }
+    final SegmentIndexCreationDriver driver = SegmentCreationDriverFactory.get(null);
+    driver.init(config);
+    driver.build();
+    return outputDir.listFiles()[0];
+  }
+}
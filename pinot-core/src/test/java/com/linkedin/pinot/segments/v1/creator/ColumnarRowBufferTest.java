@@ -0,0 +1,131 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.segments.v1.creator;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.common.data.DimensionFieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
+import com.linkedin.pinot.core.segment.creator.impl.ColumnarRowBuffer;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentCreationDriverFactory;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.util.TestUtils;
+
+
+public class ColumnarRowBufferTest {
+  private static final String AVRO_DATA = "data/test_sample_data.avro";
+  private static final File TEMP_DIR = new File(FileUtils.getTempDirectory(), "ColumnarRowBufferTest");
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(TEMP_DIR);
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    testRoundTrip(null);
+    testRoundTrip(new File(TEMP_DIR, "spill"));
+  }
+
+  private void testRoundTrip(File spillDir) throws Exception {
+    Schema schema = new Schema();
+    schema.addSchema("sv", new DimensionFieldSpec("sv", DataType.STRING, true));
+    schema.addSchema("mv", new DimensionFieldSpec("mv", DataType.INT, false));
+
+    ColumnarRowBuffer rowBuffer = new ColumnarRowBuffer(schema, spillDir);
+    for (int i = 0; i < 1000; i++) {
+      Map<String, Object> fields = new HashMap<String, Object>();
+      fields.put("sv", "value" + (i % 7));
+      Object[] multiValues = new Object[i % 3 + 1];
+      for (int j = 0; j < multiValues.length; j++) {
+        multiValues[j] = i + j;
+      }
+      fields.put("mv", multiValues);
+      GenericRow row = new GenericRow();
+      row.init(fields);
+      rowBuffer.addRow(row);
+    }
+    rowBuffer.seal();
+    Assert.assertEquals(rowBuffer.getNumRows(), 1000);
+
+    Object[] svValues = rowBuffer.getDistinctValues("sv");
+    Assert.assertEquals(svValues.length, 7);
+    Object[] mvValues = rowBuffer.getDistinctValues("mv");
+    Assert.assertEquals(mvValues.length, 1001);
+    ColumnarRowBuffer.ColumnReader svReader = rowBuffer.getColumnReader("sv");
+    ColumnarRowBuffer.ColumnReader mvReader = rowBuffer.getColumnReader("mv");
+    for (int i = 0; i < 1000; i++) {
+      Assert.assertEquals(svValues[svReader.nextSingleValueId()], "value" + (i % 7));
+      int[] ids = mvReader.nextMultiValueIds();
+      Assert.assertEquals(ids.length, i % 3 + 1);
+      for (int j = 0; j < ids.length; j++) {
+        Assert.assertEquals(mvValues[ids[j]], i + j);
+      }
+    }
+    svReader.close();
+    mvReader.close();
+    rowBuffer.close();
+    if (spillDir != null) {
+      Assert.assertFalse(spillDir.exists());
+    }
+  }
+
+  @Test
+  public void testParallelSegmentCreation() throws Exception {
+    File serialSegment = buildSegment(new File(TEMP_DIR, "serial"), 1, false);
+    File parallelSegment = buildSegment(new File(TEMP_DIR, "parallel"), 4, true);
+
+    // Apart from the creation time, both segments are the same byte for byte.
+    String[] fileNames = serialSegment.list();
+    Assert.assertEquals(parallelSegment.list().length, fileNames.length);
+    for (String fileName : fileNames) {
+      if (fileName.equals(V1Constants.SEGMENT_CREATION_META)) {
+        continue;
+      }
+      Assert.assertTrue(FileUtils.contentEquals(new File(serialSegment, fileName), new File(parallelSegment, fileName)),
+          fileName);
+    }
+  }
+
+  private File buildSegment(File outputDir, int numIndexingThreads, boolean spillRowsToDisk) throws Exception {
+    String filePath = TestUtils.getFileFromResourceUrl(getClass().getClassLoader().getResource(AVRO_DATA));
+    SegmentGeneratorConfig config =
+        SegmentTestUtils.getSegmentGenSpecWithSchemAndProjectedColumns(new File(filePath), outputDir, "time_day",
+            TimeUnit.DAYS, "test");
+    config.createInvertedIndexForAllColumns();
+    config.setNumIndexingThreads(numIndexingThreads);
+    config.setSpillRowsToDisk(spillRowsToDisk);
+
+    SegmentIndexCreationDriver driver = SegmentCreationDriverFactory.get(null);
+    driver.init(config);
+    driver.build();
+    // Nothing but the segment is left in the output directory.
+    Assert.assertEquals(outputDir.list().length, 1);
+    return new File(outputDir, driver.getSegmentName());
+  }
+}
@@ -0,0 +1,171 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.segments.v1.creator;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.common.metadata.segment.IndexLoadingConfigMetadata;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentCreationDriverFactory;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.IndexSegmentImpl;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.column.ColumnIndexContainer;
+import com.linkedin.pinot.core.segment.index.column.LazyColumnIndexContainer;
+import com.linkedin.pinot.core.segment.index.readers.BloomFilterReader;
+import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
+import com.linkedin.pinot.util.TestUtils;
+
+
+public class LazyColumnIndexContainerTest {
+  private static final String AVRO_DATA = "data/test_sample_data.avro";
+  private static final File INDEX_DIR = new File(LazyColumnIndexContainerTest.class.toString());
+
+  private File segmentDir;
+
+  @BeforeClass
+  public void setup() throws Exception {
+    final String filePath = TestUtils.getFileFromResourceUrl(getClass().getClassLoader().getResource(AVRO_DATA));
+    FileUtils.deleteQuietly(INDEX_DIR);
+
+    final SegmentGeneratorConfig config =
+        SegmentTestUtils.getSegmentGenSpecWithSchemAndProjectedColumns(new File(filePath), INDEX_DIR, "time_day",
+            TimeUnit.DAYS, "test");
+    final SegmentIndexCreationDriver driver = SegmentCreationDriverFactory.get(null);
+    driver.init(config);
+    driver.build();
+    segmentDir = INDEX_DIR.listFiles()[0];
+  }
+
+  @AfterClass
+  public void teardown() {
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  @Test
+  public void testLazyContainer() throws Exception {
+    SegmentMetadataImpl metadata = new SegmentMetadataImpl(segmentDir);
+    IndexSegmentImpl heapSegment = (IndexSegmentImpl) ColumnarSegmentLoader.load(segmentDir, ReadMode.heap);
+
+    for (String column : metadata.getColumnMetadataMap().keySet()) {
+      LazyColumnIndexContainer container =
+          new LazyColumnIndexContainer(metadata.getTableName(), column, segmentDir,
+              metadata.getColumnMetadataFor(column), null, ReadMode.mmap);
+      Assert.assertFalse(container.isLoaded());
+      Assert.assertEquals(container.getColumnMetadata().getCardinality(),
+          metadata.getColumnMetadataFor(column).getCardinality());
+      Assert.assertFalse(container.isLoaded());
+
+      // The bloom filter, or its absence, is only looked up once and does not open the column
+      BloomFilterReader bloomFilter = container.getBloomFilter();
+      Assert.assertSame(container.getBloomFilter(), bloomFilter);
+      Assert.assertFalse(container.isLoaded());
+
+      ImmutableDictionaryReader dictionary = container.getDictionary();
+      Assert.assertTrue(container.isLoaded());
+      ImmutableDictionaryReader expected = heapSegment.getDictionaryFor(column);
+      Assert.assertEquals(dictionary.length(), expected.length());
+      for (int i = 0; i < expected.length(); i++) {
+        Assert.assertEquals(dictionary.get(i), expected.get(i));
+      }
+      Assert.assertNotNull(container.getForwardIndex());
+
+      Assert.assertTrue(container.unload());
+      Assert.assertFalse(container.isLoaded());
+    }
+    heapSegment.destroy();
+  }
+
+  @Test
+  public void testLazySegment() throws Exception {
+    IndexLoadingConfigMetadata indexLoadingConfigMetadata =
+        new IndexLoadingConfigMetadata(new PropertiesConfiguration());
+    Assert.assertTrue(indexLoadingConfigMetadata.isLazyLoadingColumns());
+    IndexSegmentImpl lazySegment =
+        (IndexSegmentImpl) ColumnarSegmentLoader.load(segmentDir, ReadMode.mmap, indexLoadingConfigMetadata);
+    IndexSegmentImpl heapSegment = (IndexSegmentImpl) ColumnarSegmentLoader.load(segmentDir, ReadMode.heap);
+
+    // Destroying a segment whose columns were never opened must not open them.
+    lazySegment.destroy();
+    lazySegment = (IndexSegmentImpl) ColumnarSegmentLoader.load(segmentDir, ReadMode.mmap, indexLoadingConfigMetadata);
+
+    String column = heapSegment.getColumnNames()[0];
+    ImmutableDictionaryReader dictionary = lazySegment.getDictionaryFor(column);
+    ImmutableDictionaryReader expected = heapSegment.getDictionaryFor(column);
+    Assert.assertEquals(dictionary.length(), expected.length());
+    for (int i = 0; i < expected.length(); i++) {
+      Assert.assertEquals(dictionary.get(i), expected.get(i));
+    }
+
+    lazySegment.destroy();
+    heapSegment.destroy();
+  }
+
+  @Test
+  public void testIndexesBuiltAtLoad() throws Exception {
+    File segmentCopy = new File(INDEX_DIR, "copy");
+    FileUtils.copyDirectory(segmentDir, segmentCopy);
+    SegmentMetadataImpl metadata = new SegmentMetadataImpl(segmentCopy);
+    String column = null;
+    for (String name : metadata.getColumnMetadataMap().keySet()) {
+      ColumnMetadata columnMetadata = metadata.getColumnMetadataFor(name);
+      if (!columnMetadata.isSorted() && columnMetadata.isSingleValue()) {
+        column = name;
+      }
+    }
+    Assert.assertNotNull(column);
+    File invertedIndexFile = new File(segmentCopy, column + V1Constants.Indexes.BITMAP_INVERTED_INDEX_FILE_EXTENSION);
+    FileUtils.deleteQuietly(invertedIndexFile);
+
+    IndexLoadingConfigMetadata indexLoadingConfigMetadata =
+        new IndexLoadingConfigMetadata(new PropertiesConfiguration());
+    indexLoadingConfigMetadata.initLoadingInvertedIndexColumnSet(new String[] { column });
+    Assert.assertTrue(ColumnIndexContainer.needsIndexCreation(column, segmentCopy,
+        metadata.getColumnMetadataFor(column), indexLoadingConfigMetadata, null));
+
+    // The missing inverted index is built by the load, not by the first query on the column
+    IndexSegmentImpl lazySegment =
+        (IndexSegmentImpl) ColumnarSegmentLoader.load(segmentCopy, ReadMode.mmap, indexLoadingConfigMetadata);
+    Assert.assertTrue(invertedIndexFile.exists());
+    Assert.assertFalse(ColumnIndexContainer.needsIndexCreation(column, segmentCopy,
+        metadata.getColumnMetadataFor(column), indexLoadingConfigMetadata, null));
+    Assert.assertNotNull(lazySegment.getInvertedIndexFor(column));
+    lazySegment.destroy();
+
+    // A segment missing the files of a column fails to load
+    FileUtils.deleteQuietly(new File(segmentCopy, column + V1Constants.Dict.FILE_EXTENTION));
+    try {
+      ColumnarSegmentLoader.load(segmentCopy, ReadMode.mmap, indexLoadingConfigMetadata);
+      Assert.fail("Loading a segment without the dictionary of " + column + " should fail");
+    } catch (FileNotFoundException e) {
+      // Expected
+    }
+    FileUtils.deleteQuietly(segmentCopy);
+  }
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.segments.v1.creator;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.common.metadata.segment.IndexLoadingConfigMetadata;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.common.BlockMultiValIterator;
+import com.linkedin.pinot.core.common.BlockSingleValIterator;
+import com.linkedin.pinot.core.common.BlockValIterator;
+import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentVersion;
+import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentCreationDriverFactory;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.IndexSegmentImpl;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
+import com.linkedin.pinot.core.segment.store.SegmentV1ToV2Converter;
+import com.linkedin.pinot.core.segment.store.SingleFileIndexDirectory;
+import com.linkedin.pinot.util.TestUtils;
+
+
+public class SegmentV1ToV2ConverterTest {
+  private static final String AVRO_DATA = "data/test_sample_data.avro";
+  private static final File INDEX_DIR = new File(SegmentV1ToV2ConverterTest.class.toString());
+
+  private File v1SegmentDir;
+  private File v2SegmentDir;
+  private File createdV2SegmentDir;
+
+  @BeforeClass
+  public void setup() throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+    v1SegmentDir = buildSegment(new File(INDEX_DIR, "v1"), SegmentVersion.v1);
+    createdV2SegmentDir = buildSegment(new File(INDEX_DIR, "created_v2"), SegmentVersion.v2);
+
+    v2SegmentDir = new File(INDEX_DIR, "converted_v2");
+    FileUtils.copyDirectory(v1SegmentDir, v2SegmentDir);
+    SegmentV1ToV2Converter.convert(v2SegmentDir);
+  }
+
+  private File buildSegment(File outputDir, SegmentVersion segmentVersion) throws Exception {
+    final String filePath = TestUtils.getFileFromResourceUrl(getClass().getClassLoader().getResource(AVRO_DATA));
+    final SegmentGeneratorConfig config =
+        SegmentTestUtils.getSegmentGenSpecWithSchemAndProjectedColumns(new File(filePath), outputDir, "time_day",
+            TimeUnit.DAYS, "test");
+    config.setSegmentVersion(segmentVersion);
+    config.createInvertedIndexForAllColumns();
+    final SegmentIndexCreationDriver driver = SegmentCreationDriverFactory.get(segmentVersion);
+    driver.init(config);
+    driver.build();
+    return outputDir.listFiles()[0];
+  }
+
+  @AfterClass
+  public void teardown() {
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  @Test
+  public void testLayout() throws Exception {
+    Assert.assertFalse(SingleFileIndexDirectory.isSingleFileSegment(v1SegmentDir));
+    Assert.assertEquals(new SegmentMetadataImpl(v1SegmentDir).getVersion(), SegmentVersion.v1.toString());
+
+    for (File segmentDir : new File[] { v2SegmentDir, createdV2SegmentDir }) {
+      Assert.assertTrue(SingleFileIndexDirectory.isSingleFileSegment(segmentDir));
+      Assert.assertEquals(new SegmentMetadataImpl(segmentDir).getVersion(), SegmentVersion.v2.toString());
+      for (File file : segmentDir.listFiles()) {
+        Assert.assertFalse(file.getName().endsWith(".dict"), file.getName());
+        Assert.assertFalse(file.getName().endsWith(".fwd"), file.getName());
+        Assert.assertFalse(file.getName().endsWith(".inv"), file.getName());
+      }
+    }
+
+    // Converting twice is a no-op
+    long length = new File(v2SegmentDir, SingleFileIndexDirectory.FILE_NAME).length();
+    SegmentV1ToV2Converter.convert(v2SegmentDir);
+    Assert.assertEquals(new File(v2SegmentDir, SingleFileIndexDirectory.FILE_NAME).length(), length);
+  }
+
+  @Test
+  public void testLoad() throws Exception {
+    IndexLoadingConfigMetadata lazyConfig = new IndexLoadingConfigMetadata(new PropertiesConfiguration());
+    lazyConfig.initLoadingInvertedIndexColumnSet(
+        new SegmentMetadataImpl(v1SegmentDir).getColumnMetadataMap().keySet().toArray(new String[0]));
+    IndexSegmentImpl v1Segment =
+        (IndexSegmentImpl) ColumnarSegmentLoader.load(v1SegmentDir, ReadMode.heap, lazyConfig);
+
+    for (File segmentDir : new File[] { v2SegmentDir, createdV2SegmentDir }) {
+      for (ReadMode readMode : ReadMode.values()) {
+        IndexSegmentImpl v2Segment = (IndexSegmentImpl) ColumnarSegmentLoader.load(segmentDir, readMode, lazyConfig);
+        assertSameContent(v1Segment, v2Segment);
+        v2Segment.destroy();
+      }
+    }
+    v1Segment.destroy();
+  }
+
+  private void assertSameContent(IndexSegmentImpl expected, IndexSegmentImpl actual) {
+    SegmentMetadataImpl metadata = (SegmentMetadataImpl) expected.getSegmentMetadata();
+    for (String column : expected.getColumnNames()) {
+      ImmutableDictionaryReader expectedDictionary = expected.getDictionaryFor(column);
+      ImmutableDictionaryReader actualDictionary = actual.getDictionaryFor(column);
+      Assert.assertEquals(actualDictionary.length(), expectedDictionary.length());
+      for (int i = 0; i < expectedDictionary.length(); i++) {
+        Assert.assertEquals(actualDictionary.get(i), expectedDictionary.get(i));
+        if (actual.getInvertedIndexFor(column) != null) {
+          Assert.assertEquals(actual.getInvertedIndexFor(column).getImmutable(i).getCardinality(),
+              expected.getInvertedIndexFor(column).getImmutable(i).getCardinality());
+        }
+      }
+
+      ColumnMetadata columnMetadata = metadata.getColumnMetadataFor(column);
+      BlockValIterator expectedIterator =
+          expected.getDataSource(column).nextBlock().getBlockValueSet().iterator();
+      BlockValIterator actualIterator = actual.getDataSource(column).nextBlock().getBlockValueSet().iterator();
+      if (columnMetadata.isSingleValue()) {
+        while (expectedIterator.hasNext()) {
+          Assert.assertTrue(actualIterator.hasNext());
+          Assert.assertEquals(((BlockSingleValIterator) actualIterator).nextIntVal(),
+              ((BlockSingleValIterator) expectedIterator).nextIntVal());
+        }
+      } else {
+        int[] expectedValues = new int[columnMetadata.getMaxNumberOfMultiValues()];
+        int[] actualValues = new int[columnMetadata.getMaxNumberOfMultiValues()];
+        while (expectedIterator.hasNext()) {
+          Assert.assertTrue(actualIterator.hasNext());
+          int length = ((BlockMultiValIterator) expectedIterator).nextIntVal(expectedValues);
+          Assert.assertEquals(((BlockMultiValIterator) actualIterator).nextIntVal(actualValues), length);
+          for (int i = 0; i < length; i++) {
+            Assert.assertEquals(actualValues[i], expectedValues[i]);
+          }
+        }
+      }
+      Assert.assertFalse(actualIterator.hasNext());
+    }
+  }
+}
@@ -32,10 +32,16 @@ public class SingleValueBlock implements Block {
 
   private final int[] dictionary;
   final int[] values;
+  private final boolean sorted;
 
   public SingleValueBlock(final int[] dicIds, final int[] values) {
+    this(dicIds, values, false);
+  }
+
+  public SingleValueBlock(final int[] dicIds, final int[] values, final boolean sorted) {
     this.dictionary = dicIds;
     this.values = values;
+    this.sorted = sorted;
   }
 
   @Override
@@ -134,7 +140,7 @@ public class SingleValueBlock implements Block {
 
       @Override
       public boolean isSorted() {
-        return false;
+        return sorted;
       }
 
       @Override
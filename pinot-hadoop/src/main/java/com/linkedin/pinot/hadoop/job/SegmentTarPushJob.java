@@ -74,7 +74,7 @@ public class SegmentTarPushJob extends Configured {
 
   public void pushOneTarFile(FileSystem fs, Path path) throws Exception {
     String fileName = path.getName();
-    if (!fileName.endsWith(".tar.gz")) {
+    if (!fileName.endsWith(".tar.gz") && !fileName.endsWith(".tar")) {
       return;
     }
     long length = fs.getFileStatus(path).getLen();
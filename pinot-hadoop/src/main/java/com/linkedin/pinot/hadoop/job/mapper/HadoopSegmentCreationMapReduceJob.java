@@ -172,10 +172,17 @@ public class HadoopSegmentCreationMapReduceJob {
       String segmentName = (new File(_localDiskSegmentDirectory).listFiles()[0]).getName();
       String localSegmentPath = new File(_localDiskSegmentDirectory, segmentName).getAbsolutePath();
 
-      String localTarPath = _localDiskSegmentTarPath + "/" + segmentName + ".tar.gz";
+      // Uncompressed tars are bigger, but servers can untar them as they are downloaded without decompressing.
+      boolean compress = _properties.getBoolean("segment.tar.compress", true);
+      String tarExtension = compress ? ".tar.gz" : ".tar";
+      String localTarPath = _localDiskSegmentTarPath + "/" + segmentName + tarExtension;
       LOGGER.info("Trying to tar the segment to: {}", localTarPath);
-      TarGzCompressionUtils.createTarGzOfDirectory(localSegmentPath, localTarPath);
-      String hdfsTarPath = _localHdfsSegmentTarPath + "/" + segmentName + ".tar.gz";
+      if (compress) {
+        TarGzCompressionUtils.createTarGzOfDirectory(localSegmentPath, localTarPath);
+      } else {
+        TarGzCompressionUtils.createTarOfDirectory(localSegmentPath, localTarPath);
+      }
+      String hdfsTarPath = _localHdfsSegmentTarPath + "/" + segmentName + tarExtension;
 
       LOGGER.info("*********************************************************************");
       LOGGER.info("Copy from : {} to {}", localTarPath, hdfsTarPath);
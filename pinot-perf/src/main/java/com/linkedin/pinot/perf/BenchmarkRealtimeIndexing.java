@@ -0,0 +1,136 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.perf;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.linkedin.pinot.common.data.DimensionFieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.data.MetricFieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.data.TimeFieldSpec;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.realtime.impl.RealtimeSegmentImpl;
+
+
+/**
+ * Measures the rows per second a single thread indexes into a {@link RealtimeSegmentImpl}, one row at a time through
+ * {@link RealtimeSegmentImpl#index(GenericRow)} versus blocks of rows through
+ * {@link RealtimeSegmentImpl#index(GenericRow[], int)}.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkRealtimeIndexing {
+  private static final int NUM_ROWS = 500000;
+  private static final int NUM_SINGLE_VALUE_DIMENSIONS = 8;
+  private static final int NUM_METRICS = 4;
+
+  @Param({ "1", "100", "1000" })
+  public int batchSize;
+
+  private Schema schema;
+  private GenericRow[] rows;
+  private RealtimeSegmentImpl segment;
+
+  @Setup
+  public void setUp() {
+    schema = new Schema();
+    for (int i = 0; i < NUM_SINGLE_VALUE_DIMENSIONS; i++) {
+      String dimension = "dimension" + i;
+      schema.addSchema(dimension, new DimensionFieldSpec(dimension, DataType.STRING, true));
+    }
+    schema.addSchema("multiValueDimension", new DimensionFieldSpec("multiValueDimension", DataType.INT, false));
+    for (int i = 0; i < NUM_METRICS; i++) {
+      String metric = "metric" + i;
+      schema.addSchema(metric, new MetricFieldSpec(metric, DataType.LONG));
+    }
+    schema.addSchema("daysSinceEpoch", new TimeFieldSpec("daysSinceEpoch", DataType.INT, TimeUnit.DAYS));
+
+    Random random = new Random(0);
+    rows = new GenericRow[NUM_ROWS];
+    for (int i = 0; i < NUM_ROWS; i++) {
+      Map<String, Object> fields = new HashMap<String, Object>();
+      for (int j = 0; j < NUM_SINGLE_VALUE_DIMENSIONS; j++) {
+        // Cardinalities from 10 up to 10^8 so that both hot and near-unique dictionaries are exercised
+        fields.put("dimension" + j, "value" + random.nextInt((int) Math.min(Math.pow(10, j + 1), Integer.MAX_VALUE)));
+      }
+      Object[] multiValues = new Object[random.nextInt(3) + 1];
+      for (int j = 0; j < multiValues.length; j++) {
+        multiValues[j] = random.nextInt(1000);
+      }
+      fields.put("multiValueDimension", multiValues);
+      for (int j = 0; j < NUM_METRICS; j++) {
+        fields.put("metric" + j, (long) random.nextInt(100000));
+      }
+      fields.put("daysSinceEpoch", 16000 + random.nextInt(3));
+      GenericRow row = new GenericRow();
+      row.init(fields);
+      rows[i] = row;
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void createSegment() throws Exception {
+    segment = new RealtimeSegmentImpl(schema, NUM_ROWS);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @OperationsPerInvocation(NUM_ROWS)
+  public int indexRows() {
+    if (batchSize == 1) {
+      for (GenericRow row : rows) {
+        segment.index(row);
+      }
+    } else {
+      GenericRow[] batch = new GenericRow[batchSize];
+      for (int startRow = 0; startRow < NUM_ROWS; startRow += batchSize) {
+        int numRows = Math.min(batchSize, NUM_ROWS - startRow);
+        System.arraycopy(rows, startRow, batch, 0, numRows);
+        segment.index(batch, numRows);
+      }
+    }
+    return segment.getRawDocumentCount();
+  }
+
+  public static void main(String[] args) throws Exception {
+    Options opt = new OptionsBuilder()
+        .include(BenchmarkRealtimeIndexing.class.getSimpleName())
+        .warmupIterations(3)
+        .measurementIterations(5)
+        .forks(1)
+        .build();
+
+    new Runner(opt).run();
+  }
+}
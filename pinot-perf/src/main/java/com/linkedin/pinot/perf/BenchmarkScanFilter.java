@@ -0,0 +1,139 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.perf;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+import com.linkedin.pinot.core.index.writer.impl.FixedBitWidthRowColDataFileWriter;
+import com.linkedin.pinot.core.operator.docidsets.DictionaryIdMatcher;
+import com.linkedin.pinot.core.operator.docidsets.ScanBasedSingleValueDocIdSet;
+import com.linkedin.pinot.core.segment.index.readers.FixedBitCompressedSVForwardIndexReader;
+
+
+/**
+ * Compares the doc at a time scan of a fixed bit single value forward index (one bit unpacking call and one hash
+ * set lookup per doc) with the batch scan used by {@link ScanBasedSingleValueDocIdSet} (bulk unpacking into an int
+ * array, then range or bit set matching), both collecting the matching doc ids into a bitmap.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkScanFilter {
+  private static final int NUM_DOCS = 10000000;
+  private static final int BATCH_SIZE = ScanBasedSingleValueDocIdSet.BlockValSetBasedDocIdIterator.BATCH_SIZE;
+
+  @Param({ "4", "12", "20" })
+  public int numBits;
+
+  // Percentage of the dictionary ids matching the predicate
+  @Param({ "1", "10", "50" })
+  public int selectivity;
+
+  // Whether the matching ids form a contiguous range (range predicates) or are spread out (in predicates)
+  @Param({ "true", "false" })
+  public boolean contiguous;
+
+  private File indexFile;
+  private FixedBitCompressedSVForwardIndexReader reader;
+  private int[] matchingDictIds;
+
+  @Setup
+  public void setUp() throws Exception {
+    int cardinality = 1 << numBits;
+    Random random = new Random(0);
+    indexFile = File.createTempFile("benchmark_scan_filter", ".sv.unsorted.fwd");
+    FixedBitWidthRowColDataFileWriter writer =
+        new FixedBitWidthRowColDataFileWriter(indexFile, NUM_DOCS, 1, new int[] { numBits });
+    for (int docId = 0; docId < NUM_DOCS; docId++) {
+      writer.setInt(docId, 0, random.nextInt(cardinality));
+    }
+    writer.close();
+    reader = new FixedBitCompressedSVForwardIndexReader(indexFile, NUM_DOCS, numBits, true, false);
+
+    int numMatching = Math.max(1, cardinality * selectivity / 100);
+    matchingDictIds = new int[numMatching];
+    for (int i = 0; i < numMatching; i++) {
+      matchingDictIds[i] = contiguous ? i : i * (cardinality / numMatching);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    reader.close();
+    FileUtils.deleteQuietly(indexFile);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public MutableRoaringBitmap docAtATimeScan() {
+    IntOpenHashSet dictIdSet = new IntOpenHashSet(matchingDictIds);
+    MutableRoaringBitmap matchingDocIds = new MutableRoaringBitmap();
+    for (int docId = 0; docId < NUM_DOCS; docId++) {
+      if (dictIdSet.contains(reader.getInt(docId))) {
+        matchingDocIds.add(docId);
+      }
+    }
+    return matchingDocIds;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public MutableRoaringBitmap batchScan() {
+    DictionaryIdMatcher matcher = new DictionaryIdMatcher(matchingDictIds);
+    MutableRoaringBitmap matchingDocIds = new MutableRoaringBitmap();
+    int[] dictIds = new int[BATCH_SIZE];
+    int[] matchingPositions = new int[BATCH_SIZE];
+    for (int startDocId = 0; startDocId < NUM_DOCS; startDocId += BATCH_SIZE) {
+      int numDocs = Math.min(BATCH_SIZE, NUM_DOCS - startDocId);
+      reader.getInts(startDocId, numDocs, dictIds);
+      int numMatching = matcher.getMatchingPositions(dictIds, numDocs, startDocId, matchingPositions);
+      for (int i = 0; i < numMatching; i++) {
+        matchingDocIds.add(matchingPositions[i]);
+      }
+    }
+    return matchingDocIds;
+  }
+
+  public static void main(String[] args) throws Exception {
+    Options opt = new OptionsBuilder()
+        .include(BenchmarkScanFilter.class.getSimpleName())
+        .warmupIterations(3)
+        .measurementIterations(5)
+        .forks(1)
+        .build();
+
+    new Runner(opt).run();
+  }
+}
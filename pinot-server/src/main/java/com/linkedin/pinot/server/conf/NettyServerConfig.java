@@ -18,11 +18,19 @@ package com.linkedin.pinot.server.conf;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationException;
 
+import com.linkedin.pinot.transport.netty.NettyServer;
+
 
 public class NettyServerConfig {
 
   // Netty server port
   private static String NETTY_SERVER_PORT = "port";
+  // Number of threads processing the requests off the Netty event loops
+  private static String NETTY_SERVER_REQUEST_THREADS = "requestThreads";
+  // Number of requests waiting for a request thread before the server stops reading new requests
+  private static String NETTY_SERVER_MAX_QUEUED_REQUESTS = "maxQueuedRequests";
+  // Number of requests of one connection processed concurrently before the server stops reading from it
+  private static String NETTY_SERVER_MAX_IN_FLIGHT_REQUESTS_PER_CHANNEL = "maxInFlightRequestsPerChannel";
 
   private Configuration _serverNettyConfig;
 
@@ -39,4 +47,17 @@ public class NettyServerConfig {
   public int getPort() {
     return _serverNettyConfig.getInt(NETTY_SERVER_PORT);
   }
+
+  public int getNumRequestThreads() {
+    return _serverNettyConfig.getInt(NETTY_SERVER_REQUEST_THREADS, NettyServer.DEFAULT_NUM_REQUEST_THREADS);
+  }
+
+  public int getMaxQueuedRequests() {
+    return _serverNettyConfig.getInt(NETTY_SERVER_MAX_QUEUED_REQUESTS, NettyServer.DEFAULT_MAX_QUEUED_REQUESTS);
+  }
+
+  public int getMaxInFlightRequestsPerChannel() {
+    return _serverNettyConfig.getInt(NETTY_SERVER_MAX_IN_FLIGHT_REQUESTS_PER_CHANNEL,
+        NettyServer.DEFAULT_MAX_IN_FLIGHT_REQUESTS_PER_CHANNEL);
+  }
 }
@@ -172,7 +172,9 @@ public class ServerBuilder {
 
   public NettyServer buildNettyServer(NettyServerConfig nettyServerConfig, RequestHandlerFactory requestHandlerFactory) {
     LOGGER.info("Trying to build NettyTCPServer with port : " + nettyServerConfig.getPort());
-    NettyServer nettyServer = new NettyTCPServer(nettyServerConfig.getPort(), requestHandlerFactory, null);
+    NettyServer nettyServer = new NettyTCPServer(nettyServerConfig.getPort(), requestHandlerFactory, null, 100,
+        nettyServerConfig.getNumRequestThreads(), nettyServerConfig.getMaxQueuedRequests(),
+        nettyServerConfig.getMaxInFlightRequestsPerChannel());
     return nettyServer;
   }
 
@@ -52,13 +52,16 @@ public class DefaultHelixStarterServerConfig {
         CommonConstants.Server.DEFAULT_SEGMENT_METADATA_LOADER_CLASS);
 
     // query executor parameters
-    serverConf.addProperty(CommonConstants.Server.CONFIG_OF_QUERY_EXECUTOR_PRUNER_CLASS, " DataSchemaSegmentPruner,TimeSegmentPruner");
+    serverConf.addProperty(CommonConstants.Server.CONFIG_OF_QUERY_EXECUTOR_PRUNER_CLASS, " DataSchemaSegmentPruner,TimeSegmentPruner,ColumnValueSegmentPruner");
     serverConf.addProperty("pinot.server.query.executor.pruner.DataSchemaSegmentPruner.id", "0");
     serverConf.addProperty("pinot.server.query.executor.pruner.TimeSegmentPruner.id", "1");
+    serverConf.addProperty("pinot.server.query.executor.pruner.ColumnValueSegmentPruner.id", "2");
     serverConf.addProperty(CommonConstants.Server.CONFIG_OF_QUERY_EXECUTOR_TIMEOUT,
         CommonConstants.Server.DEFAULT_QUERY_EXECUTOR_TIMEOUT);
     serverConf.addProperty(CommonConstants.Server.CONFIG_OF_QUERY_EXECUTOR_CLASS,
         CommonConstants.Server.DEFAULT_QUERY_EXECUTOR_CLASS);
+    serverConf.addProperty(CommonConstants.Server.CONFIG_OF_QUERY_EXECUTOR_DATA_TABLE_VERSION,
+        CommonConstants.Server.DEFAULT_QUERY_EXECUTOR_DATA_TABLE_VERSION);
 
     // request handler factory parameters
     serverConf.addProperty(CommonConstants.Server.CONFIG_OF_REQUEST_HANDLER_FACTORY_CLASS,
@@ -17,8 +17,8 @@ package com.linkedin.pinot.server.starter.helix;
 
 import java.io.File;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationException;
@@ -51,7 +51,7 @@ public class HelixInstanceDataManager implements InstanceDataManager {
 
   public static final Logger LOGGER = LoggerFactory.getLogger(HelixInstanceDataManager.class);
   private HelixInstanceDataManagerConfig _instanceDataManagerConfig;
-  private Map<String, TableDataManager> _tableDataManagerMap = new HashMap<String, TableDataManager>();
+  private Map<String, TableDataManager> _tableDataManagerMap = new ConcurrentHashMap<String, TableDataManager>();
   private boolean _isStarted = false;
   private SegmentMetadataLoader _segmentMetadataLoader;
   private final Object _globalLock = new Object();
@@ -164,7 +164,7 @@ public class HelixInstanceDataManager implements InstanceDataManager {
   }
 
   @Override
-  public synchronized void addSegment(SegmentMetadata segmentMetadata, AbstractTableConfig tableConfig) throws Exception {
+  public void addSegment(SegmentMetadata segmentMetadata, AbstractTableConfig tableConfig) throws Exception {
     if (segmentMetadata == null || segmentMetadata.getTableName() == null) {
       throw new RuntimeException("Error: adding invalid SegmentMetadata!");
     }
@@ -189,7 +189,7 @@ public class HelixInstanceDataManager implements InstanceDataManager {
   }
 
   @Override
-  public synchronized void addSegment(SegmentZKMetadata segmentZKMetadata) throws Exception {
+  public void addSegment(SegmentZKMetadata segmentZKMetadata) throws Exception {
     if (segmentZKMetadata == null || segmentZKMetadata.getTableName() == null) {
       throw new RuntimeException("Error: adding invalid SegmentMetadata!");
     }
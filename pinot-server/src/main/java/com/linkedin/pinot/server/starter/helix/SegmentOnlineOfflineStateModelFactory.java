@@ -16,6 +16,7 @@
 package com.linkedin.pinot.server.starter.helix;
 
 import java.io.File;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.configuration.Configuration;
@@ -65,6 +66,8 @@ public class SegmentOnlineOfflineStateModelFactory extends StateModelFactory<Sta
   private static String HELIX_CLUSTER_NAME;
   private static int SEGMENT_LOAD_MAX_RETRY_COUNT;
   private static long SEGMENT_LOAD_MIN_RETRY_DELAY_MILLIS;
+  // Bounds the number of concurrent segment downloads, the state transitions themselves run in parallel.
+  private static Semaphore SEGMENT_DOWNLOAD_SEMAPHORE;
   private ZkHelixPropertyStore<ZNRecord> propertyStore;
 
   public SegmentOnlineOfflineStateModelFactory(String helixClusterName, String instanceId,
@@ -94,6 +97,16 @@ public class SegmentOnlineOfflineStateModelFactory extends StateModelFactory<Sta
       // Keep the default value
     }
     SEGMENT_LOAD_MIN_RETRY_DELAY_MILLIS = minRetryDelayMillis;
+
+    int maxDownloadConcurrency = Integer.parseInt(CommonConstants.Server.DEFAULT_SEGMENT_DOWNLOAD_MAX_CONCURRENCY);
+    try {
+      maxDownloadConcurrency =
+          pinotHelixProperties.getInt(CommonConstants.Server.CONFIG_OF_SEGMENT_DOWNLOAD_MAX_CONCURRENCY,
+              maxDownloadConcurrency);
+    } catch (Exception e) {
+      // Keep the default value
+    }
+    SEGMENT_DOWNLOAD_SEMAPHORE = new Semaphore(maxDownloadConcurrency);
   }
 
   public static String getStateModelDef() {
@@ -314,44 +327,44 @@ public class SegmentOnlineOfflineStateModelFactory extends StateModelFactory<Sta
 
     private String downloadSegmentToLocal(String uri, String tableName, String segmentId) throws Exception {
       File tempSegmentFile = null;
-      File tempFile = null;
       if (uri.startsWith("hdfs:")) {
         throw new UnsupportedOperationException("Not implemented yet");
       } else {
         try {
-          tempSegmentFile =
-              new File(INSTANCE_DATA_MANAGER.getSegmentFileDirectory() + "/" + tableName + "/temp_" + segmentId
-                  + "_" + System.currentTimeMillis());
+          // Untar next to the final segment directory, so that moving it in place is a rename on the same disk.
+          final File tableDataDir = new File(INSTANCE_DATA_MANAGER.getSegmentDataDirectory(), tableName);
+          tempSegmentFile = new File(tableDataDir, "tmp-" + segmentId + "-" + System.currentTimeMillis());
           if (uri.startsWith("http:")) {
-            tempFile = new File(INSTANCE_DATA_MANAGER.getSegmentFileDirectory(), segmentId + ".tar.gz");
-            final long httpGetResponseContentLength = FileUploadUtils.getFile(uri, tempFile);
-            LOGGER.info("Downloaded file from " + uri + " to " + tempFile + "; Http GET response content length: "
-                + httpGetResponseContentLength + ", Length of downloaded file : " + tempFile.length());
-            LOGGER.info("Trying to uncompress segment tar file from " + tempFile + " to " + tempSegmentFile);
-            TarGzCompressionUtils.unTar(tempFile, tempSegmentFile);
-            FileUtils.deleteQuietly(tempFile);
+            SEGMENT_DOWNLOAD_SEMAPHORE.acquire();
+            try {
+              LOGGER.info("Trying to download and uncompress segment from " + uri + " to " + tempSegmentFile);
+              final long httpGetResponseContentLength = FileUploadUtils.getFileAndUnTar(uri, tempSegmentFile);
+              LOGGER.info("Downloaded segment from " + uri + " to " + tempSegmentFile
+                  + "; Http GET response content length: " + httpGetResponseContentLength);
+            } finally {
+              SEGMENT_DOWNLOAD_SEMAPHORE.release();
+            }
           } else {
             TarGzCompressionUtils.unTar(new File(uri), tempSegmentFile);
           }
-          final File segmentDir =
-              new File(new File(INSTANCE_DATA_MANAGER.getSegmentDataDirectory(), tableName), segmentId);
-          Thread.sleep(1000);
+          final File segmentDir = new File(tableDataDir, segmentId);
           if (segmentDir.exists()) {
             LOGGER.info("Deleting the directory and recreating it again- " + segmentDir.getAbsolutePath());
             FileUtils.deleteDirectory(segmentDir);
           }
-          LOGGER.info("Move the dir - " + tempSegmentFile.listFiles()[0] + " to " + segmentDir.getAbsolutePath()
+          final File untaredSegmentDir = tempSegmentFile.listFiles()[0];
+          LOGGER.info("Move the dir - " + untaredSegmentDir + " to " + segmentDir.getAbsolutePath()
               + ". The segment id is - " + segmentId);
-          FileUtils.moveDirectory(tempSegmentFile.listFiles()[0], segmentDir);
+          if (!untaredSegmentDir.renameTo(segmentDir)) {
+            FileUtils.moveDirectory(untaredSegmentDir, segmentDir);
+          }
           FileUtils.deleteDirectory(tempSegmentFile);
-          Thread.sleep(1000);
           LOGGER.info("Was able to succesfully rename the dir to match the segmentId - " + segmentId);
 
           new File(segmentDir, "finishedLoading").createNewFile();
           return segmentDir.getAbsolutePath();
         } catch (Exception e) {
           FileUtils.deleteQuietly(tempSegmentFile);
-          FileUtils.deleteQuietly(tempFile);
           LOGGER.error("Caught exception", e);
           Utils.rethrowException(e);
           throw new AssertionError("Should not reach this");
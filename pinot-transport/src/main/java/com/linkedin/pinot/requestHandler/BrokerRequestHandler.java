@@ -22,9 +22,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.http.annotation.ThreadSafe;
@@ -37,6 +35,7 @@ import com.linkedin.pinot.common.config.TableNameBuilder;
 import com.linkedin.pinot.common.metrics.BrokerMeter;
 import com.linkedin.pinot.common.metrics.BrokerMetrics;
 import com.linkedin.pinot.common.metrics.BrokerQueryPhase;
+import com.linkedin.pinot.common.query.IncrementalReducer;
 import com.linkedin.pinot.common.query.ReduceService;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.request.FilterOperator;
@@ -57,7 +56,9 @@ import com.linkedin.pinot.transport.common.CompositeFuture;
 import com.linkedin.pinot.transport.common.ReplicaSelection;
 import com.linkedin.pinot.transport.common.ReplicaSelectionGranularity;
 import com.linkedin.pinot.transport.common.RoundRobinReplicaSelection;
+import com.linkedin.pinot.transport.common.SegmentId;
 import com.linkedin.pinot.transport.common.SegmentIdSet;
+import com.linkedin.pinot.transport.config.SpeculativeRequestConfig;
 import com.linkedin.pinot.transport.scattergather.ScatterGather;
 import com.linkedin.pinot.transport.scattergather.ScatterGatherRequest;
 
@@ -79,20 +80,35 @@ public class BrokerRequestHandler {
   private final BrokerMetrics _brokerMetrics;
   private final TimeBoundaryService _timeBoundaryService;
   private final long _brokerTimeOut;
+  private final SpeculativeRequestPolicy _speculativeRequestPolicy;
 
-  //TODO: Currently only using RoundRobin selection. But, this can be allowed to be configured.
-  private RoundRobinReplicaSelection _replicaSelection;
+  private final ReplicaSelection _replicaSelection;
 
   public BrokerRequestHandler(RoutingTable table, TimeBoundaryService timeBoundaryService,
       ScatterGather scatterGatherer, ReduceService reduceService, BrokerMetrics brokerMetrics, long brokerTimeOut) {
+    this(table, timeBoundaryService, scatterGatherer, reduceService, brokerMetrics, brokerTimeOut,
+        new SpeculativeRequestConfig());
+  }
+
+  public BrokerRequestHandler(RoutingTable table, TimeBoundaryService timeBoundaryService,
+      ScatterGather scatterGatherer, ReduceService reduceService, BrokerMetrics brokerMetrics, long brokerTimeOut,
+      SpeculativeRequestConfig speculativeRequestConfig) {
+    this(table, timeBoundaryService, scatterGatherer, reduceService, brokerMetrics, brokerTimeOut,
+        speculativeRequestConfig, new RoundRobinReplicaSelection());
+  }
+
+  public BrokerRequestHandler(RoutingTable table, TimeBoundaryService timeBoundaryService,
+      ScatterGather scatterGatherer, ReduceService reduceService, BrokerMetrics brokerMetrics, long brokerTimeOut,
+      SpeculativeRequestConfig speculativeRequestConfig, ReplicaSelection replicaSelection) {
     _routingTable = table;
     _timeBoundaryService = timeBoundaryService;
     _scatterGatherer = scatterGatherer;
     _requestIdGen = new AtomicLong(0);
-    _replicaSelection = new RoundRobinReplicaSelection();
+    _replicaSelection = replicaSelection;
     _reduceService = reduceService;
     _brokerMetrics = brokerMetrics;
     _brokerTimeOut = brokerTimeOut;
+    _speculativeRequestPolicy = new SpeculativeRequestPolicy(speculativeRequestConfig);
   }
 
   /**
@@ -101,8 +117,8 @@ public class BrokerRequestHandler {
    * 2. The second stage will be to select servers for each segment set.
    * 3. Scatter-Gather of request
    * 4. Gather response from the servers.
-   * 5. Deserialize the responses and errors.
-   * 6. Reduce (Merge) the responses. Create a broker response to be returned.
+   * 5. Deserialize the responses and errors, as they arrive.
+   * 6. Reduce (Merge) each response as soon as it is deserialized. Create a broker response to be returned.
    *
    * @param request Broker Request to be sent
    * @return Broker response
@@ -234,12 +250,16 @@ public class BrokerRequestHandler {
       throws InterruptedException {
     // Step1
     final long routingStartTime = System.nanoTime();
-    RoutingTableLookupRequest rtRequest = new RoutingTableLookupRequest(request.getQuerySource().getTableName());
+    final String tableName = request.getQuerySource().getTableName();
+    RoutingTableLookupRequest rtRequest = new RoutingTableLookupRequest(tableName);
     Map<ServerInstance, SegmentIdSet> segmentServices = _routingTable.findServers(rtRequest);
     if (segmentServices == null || segmentServices.isEmpty()) {
       LOGGER.warn("Not found ServerInstances to Segments Mapping:");
       return BrokerResponse.getEmptyBrokerResponse();
     }
+    long speculativeRequestDelayMs = _speculativeRequestPolicy.getDelayMs(tableName);
+    Map<SegmentId, List<ServerInstance>> segmentReplicas =
+        needsSegmentReplicas(speculativeRequestDelayMs) ? _routingTable.findSegmentReplicas(rtRequest) : null;
 
     final long queryRoutingTime = System.nanoTime() - routingStartTime;
     _brokerMetrics.addPhaseTiming(request, BrokerQueryPhase.QUERY_ROUTING, queryRoutingTime);
@@ -248,71 +268,34 @@ public class BrokerRequestHandler {
     final long scatterGatherStartTime = System.nanoTime();
     ScatterGatherRequestImpl scatterRequest =
         new ScatterGatherRequestImpl(request, segmentServices, _replicaSelection,
-            ReplicaSelectionGranularity.SEGMENT_ID_SET, request.getBucketHashKey(), 0, //TODO: Speculative Requests not yet supported
+            ReplicaSelectionGranularity.SEGMENT_ID_SET, request.getBucketHashKey(),
+            _speculativeRequestPolicy.getNumSpeculativeRequests(), speculativeRequestDelayMs, segmentReplicas,
             overriddenSelection, _requestIdGen.incrementAndGet(), _brokerTimeOut);
     CompositeFuture<ServerInstance, ByteBuf> response = _scatterGatherer.scatterGather(scatterRequest);
 
-    //Step 5 - Deserialize Responses and build instance response map
-    final Map<ServerInstance, DataTable> instanceResponseMap = new HashMap<ServerInstance, DataTable>();
-    {
-      Map<ServerInstance, ByteBuf> responses = null;
-      try {
-        responses = response.get();
-      } catch (ExecutionException e) {
-        LOGGER.warn("Caught exception while fetching response", e);
-        _brokerMetrics.addMeteredValue(request, BrokerMeter.REQUEST_FETCH_EXCEPTIONS, 1);
-      }
-
-      final long scatterGatherTime = System.nanoTime() - scatterGatherStartTime;
-      _brokerMetrics.addPhaseTiming(request, BrokerQueryPhase.SCATTER_GATHER, scatterGatherTime);
-
+    //Step 5-6 - Deserialize and reduce (merge) the responses as they arrive
+    IncrementalReducer reducer = _reduceService.getIncrementalReducer(request);
+    long deserializationTime = 0;
+    long reduceTime = 0;
+    Map<ServerInstance, Throwable> errors = response.getError();
+    Entry<ServerInstance, ByteBuf> serverResponse;
+    while ((serverResponse = response.nextResponse()) != null) {
       final long deserializationStartTime = System.nanoTime();
-
-      Map<ServerInstance, Throwable> errors = response.getError();
-
-      if (null != responses) {
-        for (Entry<ServerInstance, ByteBuf> e : responses.entrySet()) {
-          try {
-            ByteBuf b = e.getValue();
-            byte[] b2 = new byte[b.readableBytes()];
-            if (b2 == null || b2.length == 0) {
-              continue;
-            }
-            b.readBytes(b2);
-            DataTable r2 = new DataTable(b2);
-            if (errors != null && errors.containsKey(e.getKey())) {
-              Throwable throwable = errors.get(e.getKey());
-              r2.getMetadata().put("exception", new RequestProcessingException(throwable).toString());
-              _brokerMetrics.addMeteredValue(request, BrokerMeter.REQUEST_FETCH_EXCEPTIONS, 1);
-            }
-            instanceResponseMap.put(e.getKey(), r2);
-          } catch (Exception ex) {
-            LOGGER.error("Got exceptions in collect query result for instance " + e.getKey() + ", error: "
-                + ex.getMessage(), ex);
-            _brokerMetrics.addMeteredValue(request, BrokerMeter.REQUEST_DESERIALIZATION_EXCEPTIONS, 1);
-          }
-        }
+      DataTable dataTable = deserializeServerResponse(request, serverResponse, errors);
+      final long reduceStartTime = System.nanoTime();
+      deserializationTime += reduceStartTime - deserializationStartTime;
+      if (dataTable != null) {
+        reducer.merge(serverResponse.getKey(), dataTable);
+        reduceTime += System.nanoTime() - reduceStartTime;
       }
-      final long deserializationTime = System.nanoTime() - deserializationStartTime;
-      _brokerMetrics.addPhaseTiming(request, BrokerQueryPhase.DESERIALIZATION, deserializationTime);
     }
 
-    // Step 6 : Do the reduce and return
-    try {
-      return _brokerMetrics.timePhase(request, BrokerQueryPhase.REDUCE, new Callable<BrokerResponse>() {
-        @Override
-        public BrokerResponse call() {
-          BrokerResponse returnValue = _reduceService.reduceOnDataTable(request, instanceResponseMap);
-          _brokerMetrics.addMeteredValue(request, BrokerMeter.DOCUMENTS_SCANNED, returnValue.getNumDocsScanned());
-          return returnValue;
-        }
-      });
-    } catch (Exception e) {
-      // Shouldn't happen, this is only here because timePhase() can throw a checked exception, even though the nested callable can't.
-      LOGGER.error("Caught exception while processing return", e);
-      Utils.rethrowException(e);
-      throw new AssertionError("Should not reach this");
-    }
+    final long scatterGatherTime = System.nanoTime() - scatterGatherStartTime - deserializationTime - reduceTime;
+    _brokerMetrics.addPhaseTiming(request, BrokerQueryPhase.SCATTER_GATHER, scatterGatherTime);
+    _speculativeRequestPolicy.recordLatency(tableName, TimeUnit.NANOSECONDS.toMillis(scatterGatherTime));
+    _brokerMetrics.addPhaseTiming(request, BrokerQueryPhase.DESERIALIZATION, deserializationTime);
+
+    return getBrokerResponse(request, reducer, reduceTime);
   }
 
   private Object getDataTableFromBrokerRequestList(final BrokerRequest federatedBrokerRequest,
@@ -334,94 +317,108 @@ public class BrokerRequestHandler {
       for (ServerInstance serverInstance : segmentServices.keySet()) {
         LOGGER.debug(serverInstance + " : " + segmentServices.get(serverInstance));
       }
+      long speculativeRequestDelayMs = _speculativeRequestPolicy.getDelayMs(rtRequest.getTableName());
+      Map<SegmentId, List<ServerInstance>> segmentReplicas =
+          needsSegmentReplicas(speculativeRequestDelayMs) ? _routingTable.findSegmentReplicas(rtRequest) : null;
       queryRoutingTime += System.nanoTime() - routingStartTime;
 
       // Step 2-4
       scatterGatherStartTime = System.nanoTime();
       ScatterGatherRequestImpl scatterRequest =
           new ScatterGatherRequestImpl(request, segmentServices, _replicaSelection,
-              ReplicaSelectionGranularity.SEGMENT_ID_SET, request.getBucketHashKey(), 0, //TODO: Speculative Requests not yet supported
+              ReplicaSelectionGranularity.SEGMENT_ID_SET, request.getBucketHashKey(),
+              _speculativeRequestPolicy.getNumSpeculativeRequests(), speculativeRequestDelayMs, segmentReplicas,
               overriddenSelection, _requestIdGen.incrementAndGet(), _brokerTimeOut);
       responseFuturesList.put(request, _scatterGatherer.scatterGather(scatterRequest));
     }
     _brokerMetrics.addPhaseTiming(federatedBrokerRequest, BrokerQueryPhase.QUERY_ROUTING, queryRoutingTime);
 
-    long scatterGatherTime = 0;
+    //Step 5-6 - Deserialize and reduce (merge) the responses as they arrive
+    IncrementalReducer reducer = _reduceService.getIncrementalReducer(federatedBrokerRequest);
     long deserializationTime = 0;
-    //Step 5 - Deserialize Responses and build instance response map
-    final Map<ServerInstance, DataTable> instanceResponseMap = new HashMap<ServerInstance, DataTable>();
-    final AtomicInteger responseSeq = new AtomicInteger(-1);
-    {
-      for (BrokerRequest request : responseFuturesList.keySet()) {
-        CompositeFuture<ServerInstance, ByteBuf> response = responseFuturesList.get(request);
-
-        Map<ServerInstance, ByteBuf> responses = null;
-        try {
-          responses = response.get();
-        } catch (ExecutionException e) {
-          LOGGER.warn("Caught exception while fetching response", e);
-          _brokerMetrics.addMeteredValue(federatedBrokerRequest, BrokerMeter.REQUEST_FETCH_EXCEPTIONS, 1);
-        }
-
-        scatterGatherTime += System.nanoTime() - scatterGatherStartTime;
-
+    long reduceTime = 0;
+    int responseSeq = 0;
+    for (CompositeFuture<ServerInstance, ByteBuf> response : responseFuturesList.values()) {
+      Map<ServerInstance, Throwable> errors = response.getError();
+      Entry<ServerInstance, ByteBuf> serverResponse;
+      while ((serverResponse = response.nextResponse()) != null) {
         final long deserializationStartTime = System.nanoTime();
-
-        Map<ServerInstance, Throwable> errors = response.getError();
-
-        if (null != responses) {
-          for (Entry<ServerInstance, ByteBuf> e : responses.entrySet()) {
-            try {
-              ByteBuf b = e.getValue();
-              byte[] b2 = new byte[b.readableBytes()];
-              if (b2 == null || b2.length == 0) {
-                continue;
-              }
-              b.readBytes(b2);
-              DataTable r2 = new DataTable(b2);
-              // Hybrid requests may get response from same instance, so we need to distinguish them.
-              ServerInstance decoratedServerInstance =
-                  new ServerInstance(e.getKey().getHostname(), e.getKey().getPort(), responseSeq.incrementAndGet());
-              if (errors != null && errors.containsKey(e.getKey())) {
-                Throwable throwable = errors.get(e.getKey());
-                if (throwable != null) {
-                  r2.getMetadata().put("exception", new RequestProcessingException(throwable).toString());
-                  _brokerMetrics.addMeteredValue(federatedBrokerRequest, BrokerMeter.REQUEST_FETCH_EXCEPTIONS, 1);
-                }
-              }
-              instanceResponseMap.put(decoratedServerInstance, r2);
-            } catch (Exception ex) {
-              LOGGER.error("Got exceptions in collect query result for instance " + e.getKey() + ", error: "
-                  + ex.getMessage(), ex);
-              _brokerMetrics.addMeteredValue(federatedBrokerRequest, BrokerMeter.REQUEST_DESERIALIZATION_EXCEPTIONS, 1);
-            }
-          }
+        DataTable dataTable = deserializeServerResponse(federatedBrokerRequest, serverResponse, errors);
+        final long reduceStartTime = System.nanoTime();
+        deserializationTime += reduceStartTime - deserializationStartTime;
+        if (dataTable != null) {
+          // Hybrid requests may get response from same instance, so we need to distinguish them.
+          ServerInstance serverInstance = serverResponse.getKey();
+          ServerInstance decoratedServerInstance =
+              new ServerInstance(serverInstance.getHostname(), serverInstance.getPort(), responseSeq++);
+          reducer.merge(decoratedServerInstance, dataTable);
+          reduceTime += System.nanoTime() - reduceStartTime;
         }
-        deserializationTime += System.nanoTime() - deserializationStartTime;
       }
     }
+
+    final long scatterGatherTime = System.nanoTime() - scatterGatherStartTime - deserializationTime - reduceTime;
     _brokerMetrics.addPhaseTiming(federatedBrokerRequest, BrokerQueryPhase.SCATTER_GATHER, scatterGatherTime);
+    for (BrokerRequest request : responseFuturesList.keySet()) {
+      _speculativeRequestPolicy.recordLatency(request.getQuerySource().getTableName(),
+          TimeUnit.NANOSECONDS.toMillis(scatterGatherTime));
+    }
     _brokerMetrics.addPhaseTiming(federatedBrokerRequest, BrokerQueryPhase.DESERIALIZATION, deserializationTime);
 
-    // Step 6 : Do the reduce and return
+    return getBrokerResponse(federatedBrokerRequest, reducer, reduceTime);
+  }
+
+  /**
+   * The segment replicas are only looked up when speculative requests are sent or the replica selection can pick
+   * another server than the routing table did.
+   */
+  private boolean needsSegmentReplicas(long speculativeRequestDelayMs) {
+    return (speculativeRequestDelayMs >= 0) || _replicaSelection.selectsAmongReplicas();
+  }
+
+  /**
+   * Deserialize the DataTable sent by one server, attaching the error the server failed with if any.
+   *
+   * @return the DataTable, or null if the response is empty or cannot be deserialized.
+   */
+  private DataTable deserializeServerResponse(BrokerRequest request, Entry<ServerInstance, ByteBuf> serverResponse,
+      Map<ServerInstance, Throwable> errors) {
     try {
-      return _brokerMetrics.timePhase(federatedBrokerRequest, BrokerQueryPhase.REDUCE, new Callable<BrokerResponse>() {
-        @Override
-        public BrokerResponse call() {
-          BrokerResponse returnValue = _reduceService.reduceOnDataTable(federatedBrokerRequest, instanceResponseMap);
-          _brokerMetrics.addMeteredValue(federatedBrokerRequest, BrokerMeter.DOCUMENTS_SCANNED,
-              returnValue.getNumDocsScanned());
-          return returnValue;
+      ByteBuf b = serverResponse.getValue();
+      byte[] b2 = new byte[b.readableBytes()];
+      if (b2.length == 0) {
+        return null;
+      }
+      b.readBytes(b2);
+      DataTable r2 = new DataTable(b2);
+      if (errors != null && errors.containsKey(serverResponse.getKey())) {
+        Throwable throwable = errors.get(serverResponse.getKey());
+        if (throwable != null) {
+          r2.getMetadata().put("exception", new RequestProcessingException(throwable).toString());
+          _brokerMetrics.addMeteredValue(request, BrokerMeter.REQUEST_FETCH_EXCEPTIONS, 1);
         }
-      });
-    } catch (Exception e) {
-      // Shouldn't happen, this is only here because timePhase() can throw a checked exception, even though the nested callable can't.
-      LOGGER.error("Caught exception while processing query", e);
-      Utils.rethrowException(e);
-      throw new AssertionError("Should not reach this");
+      }
+      return r2;
+    } catch (Exception ex) {
+      LOGGER.error("Got exceptions in collect query result for instance " + serverResponse.getKey() + ", error: "
+          + ex.getMessage(), ex);
+      _brokerMetrics.addMeteredValue(request, BrokerMeter.REQUEST_DESERIALIZATION_EXCEPTIONS, 1);
+      return null;
     }
   }
 
+  /**
+   * Build the broker response from the merged server responses. The reduce phase timing covers both the merges done
+   * while gathering (mergeTime) and building the response.
+   */
+  private BrokerResponse getBrokerResponse(BrokerRequest request, IncrementalReducer reducer, long mergeTime) {
+    final long reduceStartTime = System.nanoTime();
+    BrokerResponse brokerResponse = reducer.getBrokerResponse();
+    _brokerMetrics.addPhaseTiming(request, BrokerQueryPhase.REDUCE, mergeTime + System.nanoTime() - reduceStartTime);
+    _brokerMetrics.addMeteredValue(request, BrokerMeter.DOCUMENTS_SCANNED, brokerResponse.getNumDocsScanned());
+    return brokerResponse;
+  }
+
   public static class ScatterGatherRequestImpl implements ScatterGatherRequest {
     private final BrokerRequest _brokerRequest;
     private final Map<ServerInstance, SegmentIdSet> _segmentServices;
@@ -429,19 +426,24 @@ public class BrokerRequestHandler {
     private final ReplicaSelectionGranularity _replicaSelectionGranularity;
     private final Object _hashKey;
     private final int _numSpeculativeRequests;
+    private final long _speculativeRequestDelayMs;
+    private final Map<SegmentId, List<ServerInstance>> _segmentReplicas;
     private final BucketingSelection _bucketingSelection;
     private final long _requestId;
     private final long _requestTimeoutMs;
 
     public ScatterGatherRequestImpl(BrokerRequest request, Map<ServerInstance, SegmentIdSet> segmentServices,
         ReplicaSelection replicaSelection, ReplicaSelectionGranularity replicaSelectionGranularity, Object hashKey,
-        int numSpeculativeRequests, BucketingSelection bucketingSelection, long requestId, long requestTimeoutMs) {
+        int numSpeculativeRequests, long speculativeRequestDelayMs, Map<SegmentId, List<ServerInstance>> segmentReplicas,
+        BucketingSelection bucketingSelection, long requestId, long requestTimeoutMs) {
       _brokerRequest = request;
       _segmentServices = segmentServices;
       _replicaSelection = replicaSelection;
       _replicaSelectionGranularity = replicaSelectionGranularity;
       _hashKey = hashKey;
       _numSpeculativeRequests = numSpeculativeRequests;
+      _speculativeRequestDelayMs = speculativeRequestDelayMs;
+      _segmentReplicas = segmentReplicas;
       _bucketingSelection = bucketingSelection;
       _requestId = requestId;
       _requestTimeoutMs = requestTimeoutMs;
@@ -485,6 +487,16 @@ public class BrokerRequestHandler {
       return _numSpeculativeRequests;
     }
 
+    @Override
+    public long getSpeculativeRequestDelayMs() {
+      return _speculativeRequestDelayMs;
+    }
+
+    @Override
+    public Map<SegmentId, List<ServerInstance>> getSegmentReplicas() {
+      return _segmentReplicas;
+    }
+
     @Override
     public BucketingSelection getPredefinedSelection() {
       return _bucketingSelection;
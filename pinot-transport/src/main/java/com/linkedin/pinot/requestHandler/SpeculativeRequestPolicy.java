@@ -0,0 +1,81 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.requestHandler;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.linkedin.pinot.common.metrics.MetricsHelper;
+import com.linkedin.pinot.transport.config.SpeculativeRequestConfig;
+import com.yammer.metrics.core.Histogram;
+import com.yammer.metrics.core.MetricName;
+
+
+/**
+ * Decides when the broker sends speculative requests for a table: after the fixed delay configured for the table if
+ * any, otherwise after a percentile of its recent scatter-gather latencies, so that only the requests slower than
+ * usual get sent to a second replica.
+ */
+public class SpeculativeRequestPolicy {
+  private final SpeculativeRequestConfig _config;
+
+  // Recent scatter-gather latencies per table, biased towards the last few minutes
+  private final Map<String, Histogram> _latencies = new ConcurrentHashMap<String, Histogram>();
+
+  public SpeculativeRequestPolicy(SpeculativeRequestConfig config) {
+    _config = config;
+  }
+
+  public int getNumSpeculativeRequests() {
+    return _config.getNumSpeculativeRequests();
+  }
+
+  /**
+   * Return the time to wait for a server response before sending a speculative request for the table, or a negative
+   * value if no speculative request should be sent.
+   */
+  public long getDelayMs(String tableName) {
+    if (_config.getNumSpeculativeRequests() <= 0) {
+      return -1;
+    }
+
+    long delayMs = _config.getDelayMs(tableName);
+    if (delayMs >= 0) {
+      return delayMs;
+    }
+
+    Histogram latency = _latencies.get(tableName);
+    if ((null == latency) || (latency.count() < _config.getMinLatencySamples())) {
+      return -1;
+    }
+    long percentileMs = (long) latency.getSnapshot().getValue(_config.getDelayPercentile() / 100);
+    return Math.max(percentileMs, _config.getMinDelayMs());
+  }
+
+  public void recordLatency(String tableName, long latencyMs) {
+    if (_config.getNumSpeculativeRequests() <= 0) {
+      return;
+    }
+
+    Histogram latency = _latencies.get(tableName);
+    if (null == latency) {
+      latency = MetricsHelper.newHistogram(null, new MetricName(SpeculativeRequestPolicy.class,
+          tableName + "ScatterGatherLatencyMs"), true);
+      _latencies.put(tableName, latency);
+    }
+    latency.update(latencyMs);
+  }
+}
@@ -15,9 +15,12 @@
  */
 package com.linkedin.pinot.routing;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.transport.common.SegmentId;
 import com.linkedin.pinot.transport.common.SegmentIdSet;
 import com.linkedin.pinot.transport.config.PerTableRoutingConfig;
 import com.linkedin.pinot.transport.config.RoutingTableConfig;
@@ -50,6 +53,17 @@ public class CfgBasedRouting implements RoutingTable {
     return cfg.buildRequestRoutingMap();
   }
 
+  @Override
+  public Map<SegmentId, List<ServerInstance>> findSegmentReplicas(RoutingTableLookupRequest request) {
+    PerTableRoutingConfig cfg = _cfg.getPerTableRoutingCfg().get(request.getTableName());
+
+    if (null == cfg) {
+      return null;
+    }
+
+    return ServerToSegmentSetMap.getSegmentReplicas(Collections.singletonList(cfg.buildRequestRoutingMap()));
+  }
+
   @Override
   public void start() {
     // Nothing to be done here
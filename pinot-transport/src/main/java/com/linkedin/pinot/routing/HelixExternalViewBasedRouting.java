@@ -15,6 +15,7 @@
  */
 package com.linkedin.pinot.routing;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -41,6 +42,7 @@ import com.linkedin.pinot.common.utils.CommonConstants.Helix.TableType;
 import com.linkedin.pinot.routing.builder.BalancedRandomRoutingTableBuilder;
 import com.linkedin.pinot.routing.builder.KafkaHighLevelConsumerBasedRoutingTableBuilder;
 import com.linkedin.pinot.routing.builder.RoutingTableBuilder;
+import com.linkedin.pinot.transport.common.SegmentId;
 import com.linkedin.pinot.transport.common.SegmentIdSet;
 
 
@@ -59,6 +61,8 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
 
   private final Map<String, List<ServerToSegmentSetMap>> _brokerRoutingTable =
       new ConcurrentHashMap<String, List<ServerToSegmentSetMap>>();
+  private final Map<String, Map<SegmentId, List<ServerInstance>>> _segmentReplicaTable =
+      new ConcurrentHashMap<String, Map<SegmentId, List<ServerInstance>>>();
   private final Map<String, Long> _routingTableModifiedTimeStampMap = new ConcurrentHashMap<String, Long>();
   private final Random _random = new Random(System.currentTimeMillis());
   private final HelixExternalViewBasedTimeBoundaryService _timeBoundaryService;
@@ -100,6 +104,11 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
     return serverToSegmentSetMaps.get(_random.nextInt(serverToSegmentSetMaps.size())).getRouting();
   }
 
+  @Override
+  public Map<SegmentId, List<ServerInstance>> findSegmentReplicas(RoutingTableLookupRequest request) {
+    return _segmentReplicaTable.get(request.getTableName());
+  }
+
   @Override
   public void start() {
     LOGGER.info("Start HelixExternalViewBasedRouting!");
@@ -157,6 +166,13 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
           routingTableBuilder.computeRoutingTableFromExternalView(tableName, externalView, instanceConfigList);
 
       _brokerRoutingTable.put(tableName, serverToSegmentSetMap);
+
+      List<Map<ServerInstance, SegmentIdSet>> routings =
+          new ArrayList<Map<ServerInstance, SegmentIdSet>>(serverToSegmentSetMap.size());
+      for (ServerToSegmentSetMap routing : serverToSegmentSetMap) {
+        routings.add(routing.getRouting());
+      }
+      _segmentReplicaTable.put(tableName, ServerToSegmentSetMap.getSegmentReplicas(routings));
     } catch (Exception e) {
       LOGGER.error("Failed to compute/update the routing table" + e.getCause(), e);
     }
@@ -174,6 +190,7 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
     if (_dataTableSet.contains(tableName)) {
       _dataTableSet.remove(tableName);
       _brokerRoutingTable.remove(tableName);
+      _segmentReplicaTable.remove(tableName);
       _routingTableModifiedTimeStampMap.remove(tableName);
       _timeBoundaryService.remove(tableName);
     }
@@ -15,9 +15,11 @@
  */
 package com.linkedin.pinot.routing;
 
+import java.util.List;
 import java.util.Map;
 
 import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.transport.common.SegmentId;
 import com.linkedin.pinot.transport.common.SegmentIdSet;
 
 
@@ -32,6 +34,14 @@ public interface RoutingTable {
    */
   public Map<ServerInstance, SegmentIdSet> findServers(RoutingTableLookupRequest request);
 
+  /**
+   * Return all the servers each segment of the table can be routed to, so that a request can be sent again to
+   * another replica (speculative request).
+   *
+   * @return Segment to Servers map, or null if the table is unknown.
+   */
+  public Map<SegmentId, List<ServerInstance>> findSegmentReplicas(RoutingTableLookupRequest request);
+
   /**
    * Initialize and start the Routing table population
    */
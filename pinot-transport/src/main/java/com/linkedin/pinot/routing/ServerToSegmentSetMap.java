@@ -15,7 +15,10 @@
  */
 package com.linkedin.pinot.routing;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -79,6 +82,29 @@ public class ServerToSegmentSetMap {
     return _routingTable;
   }
 
+  /**
+   * Invert the given routings into the list of servers any of them sends each segment to.
+   */
+  public static Map<SegmentId, List<ServerInstance>> getSegmentReplicas(
+      Collection<Map<ServerInstance, SegmentIdSet>> routings) {
+    Map<SegmentId, List<ServerInstance>> segmentReplicas = new HashMap<SegmentId, List<ServerInstance>>();
+    for (Map<ServerInstance, SegmentIdSet> routing : routings) {
+      for (Entry<ServerInstance, SegmentIdSet> entry : routing.entrySet()) {
+        for (SegmentId segmentId : entry.getValue().getSegments()) {
+          List<ServerInstance> servers = segmentReplicas.get(segmentId);
+          if (servers == null) {
+            servers = new ArrayList<ServerInstance>();
+            segmentReplicas.put(segmentId, servers);
+          }
+          if (!servers.contains(entry.getKey())) {
+            servers.add(entry.getKey());
+          }
+        }
+      }
+    }
+    return segmentReplicas;
+  }
+
   @Override
   public String toString() {
     try {
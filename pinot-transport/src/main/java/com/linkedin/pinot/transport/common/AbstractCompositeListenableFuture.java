@@ -126,7 +126,7 @@ public abstract class AbstractCompositeListenableFuture<K, T> implements KeyedFu
     }
 
     for (int i = 0; i < _pendingRunnable.size(); i++) {
-      LOGGER.info("Running pending runnable :" + i);
+      LOGGER.debug("Running pending runnable :" + i);
       Executor e = _pendingRunnableExecutors.get(i);
       if (null != e) {
         e.execute(_pendingRunnable.get(i));
@@ -0,0 +1,170 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.transport.common;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.annotation.ThreadSafe;
+
+import com.linkedin.pinot.common.response.ServerInstance;
+
+
+/**
+ * Replica selection keeping the server picked by the routing table, so that the load stays balanced the way the
+ * routing table spread it, unless that server is much more loaded than another replica. Each server gets a load
+ * score from the moving average of its latency, its outstanding requests and its error rate, and the routed server
+ * is compared with the best of two other replicas picked at random (power of two choices). Hot or degraded servers
+ * shed load this way.
+ *
+ * The statistics of a server are dropped when it has not completed any request for a while, so that a server which
+ * stopped getting requests is tried again.
+ */
+@ThreadSafe
+public class AdaptiveReplicaSelection extends ReplicaSelection {
+  // Weight of the newest sample in the moving averages
+  public static final double DEFAULT_DECAY_FACTOR = 0.1;
+  // The routed server is replaced when its score is higher than this ratio times the score of the other replica
+  public static final double DEFAULT_LOAD_RATIO = 2.0;
+  public static final long DEFAULT_STATS_EXPIRY_MS = 10000L;
+
+  private final double _decayFactor;
+  private final double _loadRatio;
+  private final long _statsExpiryMs;
+  private final ConcurrentHashMap<ServerInstance, ServerStats> _serverStats =
+      new ConcurrentHashMap<ServerInstance, ServerStats>();
+  private final Random _random = new Random();
+
+  public AdaptiveReplicaSelection() {
+    this(DEFAULT_DECAY_FACTOR, DEFAULT_LOAD_RATIO, DEFAULT_STATS_EXPIRY_MS);
+  }
+
+  public AdaptiveReplicaSelection(double decayFactor, double loadRatio, long statsExpiryMs) {
+    _decayFactor = decayFactor;
+    _loadRatio = loadRatio;
+    _statsExpiryMs = statsExpiryMs;
+  }
+
+  @Override
+  public void reset(SegmentId p) {
+    // Nothing to be done here as the state is kept per server
+  }
+
+  @Override
+  public void reset(SegmentIdSet p) {
+    // Nothing to be done here as the state is kept per server
+  }
+
+  @Override
+  public boolean selectsAmongReplicas() {
+    return true;
+  }
+
+  @Override
+  public ServerInstance selectServer(SegmentId p, List<ServerInstance> orderedServers, Object hashKey) {
+    int size = orderedServers.size();
+
+    if (size <= 0) {
+      return null;
+    }
+
+    ServerInstance routedServer = orderedServers.get(0);
+    if (size == 1) {
+      return routedServer;
+    }
+
+    ServerInstance candidate = orderedServers.get(1 + _random.nextInt(size - 1));
+    if (size > 2) {
+      ServerInstance candidate2 = orderedServers.get(1 + _random.nextInt(size - 1));
+      if (getScore(candidate2) < getScore(candidate)) {
+        candidate = candidate2;
+      }
+    }
+
+    double routedScore = getScore(routedServer);
+    double candidateScore = getScore(candidate);
+    // Servers without recent statistics are not compared, the routing table decides
+    if ((routedScore < 0) || (candidateScore < 0) || (routedScore <= _loadRatio * candidateScore)) {
+      return routedServer;
+    }
+    return candidate;
+  }
+
+  @Override
+  public void onRequestSent(ServerInstance server) {
+    getServerStats(server)._numInFlightRequests.incrementAndGet();
+  }
+
+  @Override
+  public void onResponse(ServerInstance server, long latencyMs, boolean isError) {
+    ServerStats stats = getServerStats(server);
+    stats._numInFlightRequests.decrementAndGet();
+    stats.update(latencyMs, isError, _decayFactor);
+  }
+
+  /**
+   * Return the load score of the server, the lower the better, or -1 if there are no recent statistics for it.
+   */
+  public double getScore(ServerInstance server) {
+    ServerStats stats = _serverStats.get(server);
+    if (null == stats) {
+      return -1;
+    }
+    return stats.getScore(System.currentTimeMillis() - _statsExpiryMs);
+  }
+
+  private ServerStats getServerStats(ServerInstance server) {
+    ServerStats stats = _serverStats.get(server);
+    if (null == stats) {
+      _serverStats.putIfAbsent(server, new ServerStats());
+      stats = _serverStats.get(server);
+    }
+    return stats;
+  }
+
+  private static class ServerStats {
+    private final AtomicInteger _numInFlightRequests = new AtomicInteger();
+    // Guarded by this
+    private double _latencyMs;
+    private double _errorRate;
+    private long _lastUpdateTimeMs = -1;
+
+    synchronized void update(long latencyMs, boolean isError, double decayFactor) {
+      long now = System.currentTimeMillis();
+      double error = isError ? 1.0 : 0.0;
+      if (_lastUpdateTimeMs < 0) {
+        _latencyMs = latencyMs;
+        _errorRate = error;
+      } else {
+        _latencyMs += decayFactor * (latencyMs - _latencyMs);
+        _errorRate += decayFactor * (error - _errorRate);
+      }
+      _lastUpdateTimeMs = now;
+    }
+
+    synchronized double getScore(long minUpdateTimeMs) {
+      if (_lastUpdateTimeMs < minUpdateTimeMs) {
+        // Expired, the moving averages restart from the next response
+        _lastUpdateTimeMs = -1;
+        return -1;
+      }
+      // A server failing all its requests gets a 100 times higher score than a healthy one
+      return (_latencyMs + 1) * (_numInFlightRequests.get() + 1) / Math.max(1 - _errorRate, 0.01);
+    }
+  }
+}
@@ -15,13 +15,17 @@
  */
 package com.linkedin.pinot.transport.common;
 
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -42,6 +46,8 @@ import org.slf4j.LoggerFactory;
  * on them.
  *
  * This future's value will be a map of each future's key and the corresponding underlying future's value.
+ * Alternatively, the underlying responses can be consumed one at a time in completion order through
+ * {@link #nextResponse()}, without waiting for the slowest underlying future.
  *
  * @param <K> Key to locate the specific future's value
  * @param <V> Value type of the underlying future
@@ -66,6 +72,12 @@ public class CompositeFuture<K, V> extends AbstractCompositeListenableFuture<K,
 
   private final GatherModeOnError _gatherMode;
 
+  // Responses in completion order, for the consumers of nextResponse()
+  private final BlockingQueue<Entry<K, V>> _responseQueue;
+
+  // Queued once this future is done, after all the responses
+  private final Entry<K, V> _endOfResponses;
+
   // Descriptive name of the future
   private final String _name;
 
@@ -75,6 +87,8 @@ public class CompositeFuture<K, V> extends AbstractCompositeListenableFuture<K,
     _delayedResponseMap = new ConcurrentHashMap<K, V>();
     _errorMap = new ConcurrentHashMap<K, Throwable>();
     _gatherMode = mode;
+    _responseQueue = new LinkedBlockingQueue<Entry<K, V>>();
+    _endOfResponses = new SimpleImmutableEntry<K, V>(null, null);
   }
 
   /**
@@ -97,6 +111,18 @@ public class CompositeFuture<K, V> extends AbstractCompositeListenableFuture<K,
     } else {
       _latch = new CountDownLatch(0);
     }
+
+    if (_futures.isEmpty()) {
+      _responseQueue.add(_endOfResponses);
+    } else {
+      addListener(new Runnable() {
+        @Override
+        public void run() {
+          _responseQueue.add(_endOfResponses);
+        }
+      }, null);
+    }
+
     for (KeyedFuture<K, V> entry : _futures) {
       if (null != entry) {
         addResponseFutureListener(entry);
@@ -104,6 +130,27 @@ public class CompositeFuture<K, V> extends AbstractCompositeListenableFuture<K,
     }
   }
 
+  /**
+   * Wait for the next underlying response, in the order the underlying futures complete. Responses returned here are
+   * no longer referenced by this future (they are not part of the map returned by {@link #get()}), so the caller
+   * can release each one as soon as it is processed.
+   *
+   * Errors are not returned here, they are available through {@link #getError()}.
+   *
+   * @return the key and value of the next response, or null once this future is done and all the responses
+   *         have been returned.
+   */
+  public Entry<K, V> nextResponse() throws InterruptedException {
+    Entry<K, V> response = _responseQueue.take();
+    if (response == _endOfResponses) {
+      // Put it back so that subsequent calls return immediately as well
+      _responseQueue.add(_endOfResponses);
+      return null;
+    }
+    _delayedResponseMap.remove(response.getKey());
+    return response;
+  }
+
   /**
    * Call cancel on underlying futures. Dont worry if they are completed.
    * If they are already completed, cancel will be discarded. THis is best-effort only !!.
@@ -164,6 +211,9 @@ public class CompositeFuture<K, V> extends AbstractCompositeListenableFuture<K,
     if (null != response) {
       LOGGER.debug("Response from {} is {}", name, response);
       _delayedResponseMap.putAll(response);
+      for (Entry<K, V> entry : response.entrySet()) {
+        _responseQueue.add(new SimpleImmutableEntry<K, V>(entry.getKey(), entry.getValue()));
+      }
     } else if (null != error) {
       LOGGER.debug("Error from {} is : {}", name, error);
       _errorMap.putAll(error);
@@ -51,6 +51,12 @@ public abstract class ReplicaSelection {
           (ascending) order. A key ( in the request) is hashed
           to determine the replica
     **/
+    ADAPTIVE,
+    /**
+          The node picked by the routing table is kept unless it is
+          much more loaded (latency, outstanding requests, errors)
+          than another replica
+    **/
 
   };
 
@@ -85,4 +91,27 @@ public abstract class ReplicaSelection {
    */
   public abstract ServerInstance selectServer(SegmentId p, List<ServerInstance> orderedServers, Object hashKey);
 
+  /**
+   * Whether the selection should be given all the servers hosting the segments of a segmentId-group instead of
+   * only the server the routing table picked for it. In that case the server picked by the routing table is the
+   * first one of the ordered servers.
+   */
+  public boolean selectsAmongReplicas() {
+    return false;
+  }
+
+  /**
+   * Notification that a request has been sent to the server. Selection policies tracking the load of the servers
+   * can override it.
+   */
+  public void onRequestSent(ServerInstance server) {
+  }
+
+  /**
+   * Notification that a request sent to the server completed, after latencyMs. Cancelled requests are reported
+   * with the time elapsed until they were cancelled.
+   */
+  public void onResponse(ServerInstance server, long latencyMs, boolean isError) {
+  }
+
 }
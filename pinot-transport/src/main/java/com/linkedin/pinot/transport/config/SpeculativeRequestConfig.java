@@ -0,0 +1,124 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.transport.config;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.commons.configuration.Configuration;
+
+
+/**
+ * Settings of the speculative requests, i.e. the requests sent again to another replica when a server is slow to
+ * respond.
+ */
+public class SpeculativeRequestConfig {
+
+  /** the number of speculative requests which can be sent for each server request, 0 turns them off **/
+  public static final String NUM_SPECULATIVE_REQUESTS_KEY = "numRequests";
+
+  /**
+   * the time to wait for a response before sending a speculative request, for all tables. Can be set per table with
+   * "delayMs.<tableName>". When not set, the delay is derived from the recent latencies of the table.
+   **/
+  public static final String DELAY_MS_KEY = "delayMs";
+
+  /** the percentile of the recent latencies of the table used as delay when no fixed delay is set **/
+  public static final String DELAY_PERCENTILE_KEY = "delayPercentile";
+
+  /** lower bound of the delay derived from the latencies **/
+  public static final String MIN_DELAY_MS_KEY = "minDelayMs";
+
+  /** the number of latencies to record for a table before deriving a delay, no speculative request is sent before **/
+  public static final String MIN_LATENCY_SAMPLES_KEY = "minLatencySamples";
+
+  private static final int DEFAULT_NUM_SPECULATIVE_REQUESTS = 0;
+  private static final long DEFAULT_DELAY_MS = -1;
+  private static final double DEFAULT_DELAY_PERCENTILE = 95.0;
+  private static final long DEFAULT_MIN_DELAY_MS = 10;
+  private static final long DEFAULT_MIN_LATENCY_SAMPLES = 100;
+
+  private int _numSpeculativeRequests;
+  private long _delayMs;
+  private final Map<String, Long> _tableDelayMs;
+  private double _delayPercentile;
+  private long _minDelayMs;
+  private long _minLatencySamples;
+
+  public SpeculativeRequestConfig() {
+    _numSpeculativeRequests = DEFAULT_NUM_SPECULATIVE_REQUESTS;
+    _delayMs = DEFAULT_DELAY_MS;
+    _tableDelayMs = new HashMap<String, Long>();
+    _delayPercentile = DEFAULT_DELAY_PERCENTILE;
+    _minDelayMs = DEFAULT_MIN_DELAY_MS;
+    _minLatencySamples = DEFAULT_MIN_LATENCY_SAMPLES;
+  }
+
+  public void init(Configuration cfg) {
+    if (cfg.containsKey(NUM_SPECULATIVE_REQUESTS_KEY)) {
+      _numSpeculativeRequests = cfg.getInt(NUM_SPECULATIVE_REQUESTS_KEY);
+    }
+
+    if (cfg.containsKey(DELAY_MS_KEY)) {
+      _delayMs = cfg.getLong(DELAY_MS_KEY);
+    }
+
+    Iterator<?> keys = cfg.getKeys(DELAY_MS_KEY);
+    while (keys.hasNext()) {
+      String key = (String) keys.next();
+      if (key.length() > DELAY_MS_KEY.length()) {
+        _tableDelayMs.put(key.substring(DELAY_MS_KEY.length() + 1), cfg.getLong(key));
+      }
+    }
+
+    if (cfg.containsKey(DELAY_PERCENTILE_KEY)) {
+      _delayPercentile = cfg.getDouble(DELAY_PERCENTILE_KEY);
+    }
+
+    if (cfg.containsKey(MIN_DELAY_MS_KEY)) {
+      _minDelayMs = cfg.getLong(MIN_DELAY_MS_KEY);
+    }
+
+    if (cfg.containsKey(MIN_LATENCY_SAMPLES_KEY)) {
+      _minLatencySamples = cfg.getLong(MIN_LATENCY_SAMPLES_KEY);
+    }
+  }
+
+  public int getNumSpeculativeRequests() {
+    return _numSpeculativeRequests;
+  }
+
+  /**
+   * Return the fixed delay set for the table, or for all tables, or a negative value if none is set.
+   */
+  public long getDelayMs(String tableName) {
+    Long delayMs = _tableDelayMs.get(tableName);
+    return (null != delayMs) ? delayMs : _delayMs;
+  }
+
+  public double getDelayPercentile() {
+    return _delayPercentile;
+  }
+
+  public long getMinDelayMs() {
+    return _minDelayMs;
+  }
+
+  public long getMinLatencySamples() {
+    return _minLatencySamples;
+  }
+}
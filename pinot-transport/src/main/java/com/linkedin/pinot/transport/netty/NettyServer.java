@@ -17,7 +17,6 @@ package com.linkedin.pinot.transport.netty;
 
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
@@ -26,15 +25,28 @@ import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.linkedin.pinot.common.metrics.AggregatedMetricsRegistry;
 import com.linkedin.pinot.common.metrics.MetricsHelper;
 import com.linkedin.pinot.common.metrics.MetricsHelper.TimerContext;
 import com.linkedin.pinot.common.query.QueryExecutor;
+import com.linkedin.pinot.common.utils.NamedThreadFactory;
 import com.linkedin.pinot.transport.metrics.AggregatedTransportServerMetrics;
 import com.linkedin.pinot.transport.metrics.NettyServerMetrics;
 
@@ -52,6 +64,15 @@ public abstract class NettyServer implements Runnable {
   // Server Metrics Group Name Prefix in Metrics Registry
   public static final String AGGREGATED_SERVER_METRICS_NAME = "Server_Global_Metric_";
 
+  // Defaults for the request executor, the number of threads matches the worker event loops which used to run the
+  // requests
+  public static final int DEFAULT_NUM_REQUEST_THREADS = 20;
+  public static final int DEFAULT_MAX_QUEUED_REQUESTS = 1000;
+  public static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS_PER_CHANNEL = 16;
+
+  // Delay before a request rejected by a full request executor is submitted again
+  private static final long REJECTED_REQUEST_RETRY_DELAY_MS = 10;
+
   /**
    * The request handler callback which processes the incoming request.
    * This method is executed by the Netty worker thread.
@@ -68,12 +89,31 @@ public abstract class NettyServer implements Runnable {
      * If the implementation throws runtime exceptions, then the underlying connection
      * will be terminated.
      *
+     * When the server runs the requests on a request executor, the requests of one channel can be processed
+     * concurrently, up to the max in flight requests per channel.
+     *
      * @param request Serialized request
      * @return Serialized response
      */
     public byte[] processRequest(ByteBuf request);
   }
 
+  /**
+   * Request handler which processes the requests on its own threads. The server calls processRequestAsync() from the
+   * Netty worker thread, so it must not block, and writes the response once the returned future completes.
+   * The request bytebuf is released by the server once the future has completed.
+   *
+   * In case of errors, the implementation is expected to complete the future with an error response. If the future
+   * fails, the underlying connection will be terminated.
+   */
+  public static interface AsyncRequestHandler extends RequestHandler {
+    /**
+     * @param request Serialized request
+     * @return Future of the serialized response
+     */
+    public ListenableFuture<byte[]> processRequestAsync(ByteBuf request);
+  }
+
   public static interface RequestHandlerFactory {
 
     /**
@@ -110,12 +150,27 @@ public abstract class NettyServer implements Runnable {
 
   protected final long _defaultLargeQueryLatencyMs;
 
+  // Executor running the synchronous request handlers, off the worker event loops
+  protected final ListeningExecutorService _requestExecutor;
+
+  protected final int _maxInFlightRequestsPerChannel;
+
   public NettyServer(int port, RequestHandlerFactory handlerFactory, AggregatedMetricsRegistry registry, long defaultLargeQueryLatencyMs) {
+    this(port, handlerFactory, registry, defaultLargeQueryLatencyMs, DEFAULT_NUM_REQUEST_THREADS,
+        DEFAULT_MAX_QUEUED_REQUESTS, DEFAULT_MAX_IN_FLIGHT_REQUESTS_PER_CHANNEL);
+  }
+
+  public NettyServer(int port, RequestHandlerFactory handlerFactory, AggregatedMetricsRegistry registry,
+      long defaultLargeQueryLatencyMs, int numRequestThreads, int maxQueuedRequests, int maxInFlightRequestsPerChannel) {
     _port = port;
     _handlerFactory = handlerFactory;
     _metricsRegistry = registry;
     _metrics = new AggregatedTransportServerMetrics(_metricsRegistry, AGGREGATED_SERVER_METRICS_NAME + port + "_");
     _defaultLargeQueryLatencyMs = defaultLargeQueryLatencyMs;
+    _requestExecutor = MoreExecutors.listeningDecorator(new ThreadPoolExecutor(numRequestThreads, numRequestThreads,
+        0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(maxQueuedRequests),
+        new NamedThreadFactory("netty-server-request-" + port)));
+    _maxInFlightRequestsPerChannel = maxInFlightRequestsPerChannel;
   }
 
   @Override
@@ -155,6 +210,7 @@ public abstract class NettyServer implements Runnable {
       _bossGroup.shutdownGracefully();
       _workerGroup.shutdownGracefully();
     }
+    _requestExecutor.shutdown();
   }
 
   /**
@@ -169,23 +225,37 @@ public abstract class NettyServer implements Runnable {
    * |                    ...............                       |
    * |                    ...............                       |
    * ------------------------------------------------------------
+   *
+   * Requests are processed on the request executor (or by the async request handler), so that a slow request does
+   * not hold the worker event loop shared by many channels. Several requests of one channel can be in flight, their
+   * responses are written in the order of the requests. Once a channel has the max number of requests in flight, or
+   * the request executor is full, the handler stops reading from the channel until a request completes.
+   *
+   * Without a request executor, synchronous handlers are called on the worker event loop.
    */
-  public static class NettyChannelInboundHandler extends ChannelInboundHandlerAdapter implements ChannelFutureListener {
+  public static class NettyChannelInboundHandler extends ChannelInboundHandlerAdapter {
     private final long _defaultLargeQueryLatencyMs;
     private final RequestHandler _handler;
     private final NettyServerMetrics _metric;
+    private final ListeningExecutorService _requestExecutor;
+    private final int _maxInFlightRequests;
 
-    //Metrics Related
-    private long _lastRequsetSizeInBytes;
-    private long _lastResponseSizeInBytes;
-    private TimerContext _lastSendResponseLatency;
-    private TimerContext _lastProcessingLatency;
-    private long _requestStartTime;
+    // Requests in flight in the order they were received, only accessed from the channel event loop
+    private final Deque<InFlightRequest> _inFlightRequests = new ArrayDeque<InFlightRequest>();
+    private long _nextRequestId = 0;
+    private int _numRejectedRequests = 0;
 
-    public NettyChannelInboundHandler(RequestHandler handler, NettyServerMetrics metric, long defaultLargeQueryLatencyMs) {
+    public NettyChannelInboundHandler(RequestHandler handler, NettyServerMetrics metric,
+        long defaultLargeQueryLatencyMs, ListeningExecutorService requestExecutor, int maxInFlightRequests) {
       _handler = handler;
       _metric = metric;
       _defaultLargeQueryLatencyMs = defaultLargeQueryLatencyMs;
+      _requestExecutor = requestExecutor;
+      _maxInFlightRequests = maxInFlightRequests;
+    }
+
+    public NettyChannelInboundHandler(RequestHandler handler, NettyServerMetrics metric, long defaultLargeQueryLatencyMs) {
+      this(handler, metric, defaultLargeQueryLatencyMs, MoreExecutors.sameThreadExecutor(), 1);
     }
 
     public NettyChannelInboundHandler(RequestHandler handler, NettyServerMetrics metric) {
@@ -207,24 +277,101 @@ public abstract class NettyServer implements Runnable {
 
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) {
-      _requestStartTime = System.currentTimeMillis();
       LOGGER.debug("Request received by server !!");
       _state = State.REQUEST_RECEIVED;
       ByteBuf request = (ByteBuf) msg;
-      _lastRequsetSizeInBytes = request.readableBytes();
-
-      //Call processing handler
-      _lastProcessingLatency = MetricsHelper.startTimer();
-      byte[] response = _handler.processRequest(request);
-      _lastProcessingLatency.stop();
-
-      // Send Response
-      ByteBuf responseBuf = Unpooled.wrappedBuffer(response);
-      _lastSendResponseLatency = MetricsHelper.startTimer();
-      ChannelFuture f = ctx.writeAndFlush(responseBuf);
-      _state = State.RESPONSE_WRITTEN;
-      f.addListener(this);
-      request.release();
+      InFlightRequest inFlightRequest = new InFlightRequest(_nextRequestId++, request);
+      _inFlightRequests.addLast(inFlightRequest);
+      if (_inFlightRequests.size() >= _maxInFlightRequests) {
+        ctx.channel().config().setAutoRead(false);
+      }
+      submit(ctx, inFlightRequest);
+    }
+
+    private void submit(final ChannelHandlerContext ctx, final InFlightRequest inFlightRequest) {
+      ListenableFuture<byte[]> response;
+      try {
+        response = processRequest(inFlightRequest._request);
+      } catch (RejectedExecutionException e) {
+        // Request executor is full, stop reading new requests and try again shortly
+        LOGGER.debug("Request executor is full, delaying request {}", inFlightRequest._requestId);
+        _numRejectedRequests++;
+        ctx.channel().config().setAutoRead(false);
+        ctx.executor().schedule(new Runnable() {
+          @Override
+          public void run() {
+            _numRejectedRequests--;
+            if (ctx.channel().isActive()) {
+              submit(ctx, inFlightRequest);
+            } else {
+              inFlightRequest.release();
+            }
+          }
+        }, REJECTED_REQUEST_RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
+        return;
+      }
+
+      Futures.addCallback(response, new FutureCallback<byte[]>() {
+        @Override
+        public void onSuccess(final byte[] result) {
+          ctx.executor().execute(new Runnable() {
+            @Override
+            public void run() {
+              onResponse(ctx, inFlightRequest, result);
+            }
+          });
+        }
+
+        @Override
+        public void onFailure(final Throwable t) {
+          ctx.executor().execute(new Runnable() {
+            @Override
+            public void run() {
+              inFlightRequest.release();
+              exceptionCaught(ctx, t);
+            }
+          });
+        }
+      });
+    }
+
+    private ListenableFuture<byte[]> processRequest(final ByteBuf request) {
+      if (_handler instanceof AsyncRequestHandler) {
+        return ((AsyncRequestHandler) _handler).processRequestAsync(request);
+      }
+      return _requestExecutor.submit(new Callable<byte[]>() {
+        @Override
+        public byte[] call() throws Exception {
+          return _handler.processRequest(request);
+        }
+      });
+    }
+
+    private void onResponse(ChannelHandlerContext ctx, InFlightRequest inFlightRequest, byte[] response) {
+      inFlightRequest.release();
+      if (response == null) {
+        exceptionCaught(ctx, new IllegalStateException("Null response for request " + inFlightRequest._requestId));
+        return;
+      }
+      inFlightRequest._processingLatency.stop();
+      inFlightRequest._response = response;
+
+      // Write the responses which are no longer waiting on an earlier request
+      while (!_inFlightRequests.isEmpty() && _inFlightRequests.peekFirst()._response != null) {
+        InFlightRequest completed = _inFlightRequests.pollFirst();
+        ByteBuf responseBuf = ctx.alloc().directBuffer(completed._response.length);
+        responseBuf.writeBytes(completed._response);
+        completed._responseSizeInBytes = completed._response.length;
+        completed._response = null;
+        completed._sendResponseLatency = MetricsHelper.startTimer();
+        ChannelFuture f = ctx.writeAndFlush(responseBuf);
+        _state = State.RESPONSE_WRITTEN;
+        f.addListener(completed);
+      }
+
+      if (_numRejectedRequests == 0 && _inFlightRequests.size() < _maxInFlightRequests) {
+        ctx.channel().config().setAutoRead(true);
+      }
     }
 
     @Override
@@ -236,25 +383,50 @@ public abstract class NettyServer implements Runnable {
     }
 
     @Override
-    public void operationComplete(ChannelFuture future) throws Exception {
-      LOGGER.debug("Response has been sent !!");
-      _lastSendResponseLatency.stop();
-      _metric.addServingStats(_lastRequsetSizeInBytes, _lastResponseSizeInBytes, 1L, false,
-          _lastProcessingLatency.getLatencyMs(), _lastSendResponseLatency.getLatencyMs());
-      long totalQueryTime = System.currentTimeMillis() - _requestStartTime;
-      if (totalQueryTime > _defaultLargeQueryLatencyMs) {
-        LOGGER.info("Trace Info: request handler processing time : {}, send response latency: {}, total time to handle request: {}", _lastProcessingLatency.getLatencyMs(),
-            _lastSendResponseLatency.getLatencyMs(), totalQueryTime);
-      }
-      _state = State.RESPONSE_SENT;
+    public String toString() {
+      return "NettyChannelInboundHandler [_handler=" + _handler + ", _metric=" + _metric + ", _inFlightRequests="
+          + _inFlightRequests.size() + ", _state=" + _state + "]";
     }
 
-    @Override
-    public String toString() {
-      return "NettyChannelInboundHandler [_handler=" + _handler + ", _metric=" + _metric + ", _lastRequsetSizeInBytes="
-          + _lastRequsetSizeInBytes + ", _lastResponseSizeInBytes=" + _lastResponseSizeInBytes
-          + ", _lastSendResponseLatency=" + _lastSendResponseLatency + ", _lastProcessingLatency="
-          + _lastProcessingLatency + ", _state=" + _state + "]";
+    /**
+     * A request received on the channel whose response has not been sent yet.
+     */
+    private class InFlightRequest implements ChannelFutureListener {
+      private final long _requestId;
+      private final long _requestStartTime = System.currentTimeMillis();
+      private final long _requestSizeInBytes;
+      private final TimerContext _processingLatency = MetricsHelper.startTimer();
+      private ByteBuf _request;
+      private byte[] _response;
+      private long _responseSizeInBytes;
+      private TimerContext _sendResponseLatency;
+
+      private InFlightRequest(long requestId, ByteBuf request) {
+        _requestId = requestId;
+        _request = request;
+        _requestSizeInBytes = request.readableBytes();
+      }
+
+      private void release() {
+        if (_request != null) {
+          _request.release();
+          _request = null;
+        }
+      }
+
+      @Override
+      public void operationComplete(ChannelFuture future) throws Exception {
+        LOGGER.debug("Response has been sent !!");
+        _sendResponseLatency.stop();
+        _metric.addServingStats(_requestSizeInBytes, _responseSizeInBytes, 1L, false,
+            _processingLatency.getLatencyMs(), _sendResponseLatency.getLatencyMs());
+        long totalQueryTime = System.currentTimeMillis() - _requestStartTime;
+        if (totalQueryTime > _defaultLargeQueryLatencyMs) {
+          LOGGER.info("Trace Info: request handler processing time : {}, send response latency: {}, total time to handle request: {}",
+              _processingLatency.getLatencyMs(), _sendResponseLatency.getLatencyMs(), totalQueryTime);
+        }
+        _state = State.RESPONSE_SENT;
+      }
     }
   }
 
@@ -16,6 +16,7 @@
 package com.linkedin.pinot.transport.netty;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.socket.SocketChannel;
@@ -23,6 +24,8 @@ import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.LengthFieldPrepender;
 
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.linkedin.pinot.common.Utils;
 import com.linkedin.pinot.common.metrics.AggregatedMetricsRegistry;
 import com.linkedin.pinot.transport.metrics.AggregatedTransportServerMetrics;
@@ -46,16 +49,24 @@ public class NettyTCPServer extends NettyServer {
     this(port, handlerFactory, registry, 100);
   }
 
+  public NettyTCPServer(int port, RequestHandlerFactory handlerFactory, AggregatedMetricsRegistry registry,
+      long defaultLargeQueryLatencyMs, int numRequestThreads, int maxQueuedRequests, int maxInFlightRequestsPerChannel) {
+    super(port, handlerFactory, registry, defaultLargeQueryLatencyMs, numRequestThreads, maxQueuedRequests,
+        maxInFlightRequestsPerChannel);
+  }
+
   @Override
   protected ServerBootstrap getServerBootstrap() {
     ServerBootstrap b = new ServerBootstrap();
     b.group(_bossGroup, _workerGroup).channel(NioServerSocketChannel.class).childHandler(createChannelInitializer())
-        .option(ChannelOption.SO_BACKLOG, 128).childOption(ChannelOption.SO_KEEPALIVE, true);
+        .option(ChannelOption.SO_BACKLOG, 128).childOption(ChannelOption.SO_KEEPALIVE, true)
+        .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
     return b;
   }
 
   protected ChannelInitializer<SocketChannel> createChannelInitializer() {
-    return new ServerChannelInitializer(_handlerFactory, _metricsRegistry, _metrics, _defaultLargeQueryLatencyMs);
+    return new ServerChannelInitializer(_handlerFactory, _metricsRegistry, _metrics, _defaultLargeQueryLatencyMs,
+        _requestExecutor, _maxInFlightRequestsPerChannel);
   }
 
   /**
@@ -73,13 +84,23 @@ public class NettyTCPServer extends NettyServer {
     private final MetricsRegistry _registry;
     private final AggregatedTransportServerMetrics _globalMetrics;
     private final long _defaultLargeQueryLatencyMs;
+    private final ListeningExecutorService _requestExecutor;
+    private final int _maxInFlightRequestsPerChannel;
 
     public ServerChannelInitializer(RequestHandlerFactory handlerFactory, MetricsRegistry registry,
-        AggregatedTransportServerMetrics globalMetrics, long defaultLargeQueryLatencyMs) {
+        AggregatedTransportServerMetrics globalMetrics, long defaultLargeQueryLatencyMs,
+        ListeningExecutorService requestExecutor, int maxInFlightRequestsPerChannel) {
       _handlerFactory = handlerFactory;
       _registry = registry;
       _globalMetrics = globalMetrics;
       _defaultLargeQueryLatencyMs = defaultLargeQueryLatencyMs;
+      _requestExecutor = requestExecutor;
+      _maxInFlightRequestsPerChannel = maxInFlightRequestsPerChannel;
+    }
+
+    public ServerChannelInitializer(RequestHandlerFactory handlerFactory, MetricsRegistry registry,
+        AggregatedTransportServerMetrics globalMetrics, long defaultLargeQueryLatencyMs) {
+      this(handlerFactory, registry, globalMetrics, defaultLargeQueryLatencyMs, MoreExecutors.sameThreadExecutor(), 1);
     }
 
     public ServerChannelInitializer(RequestHandlerFactory handlerFactory, MetricsRegistry registry,
@@ -102,7 +123,8 @@ public class NettyTCPServer extends NettyServer {
       }
 
       ch.pipeline().addLast("request_handler",
-          new NettyChannelInboundHandler(_handlerFactory.createNewRequestHandler(), serverMetric, _defaultLargeQueryLatencyMs));
+          new NettyChannelInboundHandler(_handlerFactory.createNewRequestHandler(), serverMetric,
+              _defaultLargeQueryLatencyMs, _requestExecutor, _maxInFlightRequestsPerChannel));
     }
   }
 }
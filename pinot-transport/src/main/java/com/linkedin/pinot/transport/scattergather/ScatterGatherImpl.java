@@ -26,6 +26,9 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -49,6 +52,7 @@ import com.linkedin.pinot.transport.netty.NettyClientConnection;
 import com.linkedin.pinot.transport.netty.NettyClientConnection.ResponseFuture;
 import com.linkedin.pinot.transport.pool.KeyedPool;
 import com.yammer.metrics.core.Histogram;
+import com.yammer.metrics.core.Meter;
 import com.yammer.metrics.core.MetricName;
 
 
@@ -66,6 +70,17 @@ public class ScatterGatherImpl implements ScatterGather {
   private final Histogram _latency = MetricsHelper.newHistogram(null, new MetricName(ScatterGatherImpl.class,
       "ScatterGatherLatency"), false);
 
+  private final Meter _speculativeRequestsSent = MetricsHelper.newMeter(null, new MetricName(ScatterGatherImpl.class,
+      "SpeculativeRequestsSent"), "requests", TimeUnit.SECONDS);
+
+  private final Meter _speculativeRequestsWon = MetricsHelper.newMeter(null, new MetricName(ScatterGatherImpl.class,
+      "SpeculativeRequestsWon"), "requests", TimeUnit.SECONDS);
+
+  /**
+   * Timer for sending the speculative requests, created on first use
+   */
+  private ScheduledExecutorService _speculativeRequestScheduler;
+
   /**
    * Connection Pool for sending scatter-gather requests
    */
@@ -137,7 +152,7 @@ public class ScatterGatherImpl implements ScatterGather {
       List<KeyedFuture<ServerInstance, ByteBuf>> responseFutures =
           new ArrayList<KeyedFuture<ServerInstance, ByteBuf>>();
       for (SingleRequestHandler h : handlers) {
-        responseFutures.add(h.getResponseFuture());
+        responseFutures.add(getResponseFuture(ctxt, h));
       }
       response.start(responseFutures);
     } else {
@@ -157,10 +172,128 @@ public class ScatterGatherImpl implements ScatterGather {
     return response;
   }
 
+  /**
+   * Return the future for the response of the request sent by the handler. If speculative requests are turned on,
+   * they get scheduled here and the returned future completes with the first response from any of the servers.
+   */
+  private KeyedFuture<ServerInstance, ByteBuf> getResponseFuture(ScatterGatherRequestContext ctxt,
+      SingleRequestHandler handler) {
+    ScatterGatherRequest request = ctxt.getRequest();
+    long delayMs = request.getSpeculativeRequestDelayMs();
+    if ((request.getNumSpeculativeRequests() <= 0) || (delayMs < 0) || (null == request.getSegmentReplicas())
+        || !handler.isSent()) {
+      return handler.getResponseFuture();
+    }
+
+    List<ServerInstance> servers = selectSpeculativeServers(request, handler.getServer(), handler.getSegmentIds());
+    if (servers.isEmpty()) {
+      return handler.getResponseFuture();
+    }
+
+    SpeculativeResponseFuture future = new SpeculativeResponseFuture(handler, _speculativeRequestsWon);
+    for (int i = 0; i < servers.size(); i++) {
+      long delay = delayMs * (i + 1);
+      if (delay >= ctxt.getTimeRemaining()) {
+        break;
+      }
+      scheduleSpeculativeRequest(ctxt, future, servers.get(i), handler.getSegmentIds(), delay);
+    }
+    return future;
+  }
+
+  /**
+   * Pick the servers, other than the one already queried, which host all the segments of the request.
+   */
+  private List<ServerInstance> selectSpeculativeServers(ScatterGatherRequest request, ServerInstance server,
+      SegmentIdSet segmentIds) {
+    List<ServerInstance> candidates = getOtherReplicas(request, server, segmentIds);
+
+    List<ServerInstance> selectedServers = new ArrayList<ServerInstance>();
+    ReplicaSelection selection = request.getReplicaSelection();
+    while (!candidates.isEmpty() && (selectedServers.size() < request.getNumSpeculativeRequests())) {
+      ServerInstance s = selection.selectServer(segmentIds.getOneSegment(), candidates, request.getHashKey());
+      if (null == s) {
+        break;
+      }
+      candidates.remove(s);
+      selectedServers.add(s);
+    }
+    return selectedServers;
+  }
+
+  /**
+   * Return the servers other than the given one which host all the segments, from the segment replicas of the
+   * request.
+   */
+  private static List<ServerInstance> getOtherReplicas(ScatterGatherRequest request, ServerInstance server,
+      SegmentIdSet segmentIds) {
+    Map<SegmentId, List<ServerInstance>> segmentReplicas = request.getSegmentReplicas();
+    List<ServerInstance> replicas = null;
+    for (SegmentId segmentId : segmentIds.getSegments()) {
+      List<ServerInstance> servers = segmentReplicas.get(segmentId);
+      if (null == servers) {
+        return new ArrayList<ServerInstance>();
+      }
+      if (null == replicas) {
+        replicas = new ArrayList<ServerInstance>(servers);
+      } else {
+        replicas.retainAll(servers);
+      }
+    }
+    if (null == replicas) {
+      return new ArrayList<ServerInstance>();
+    }
+    replicas.remove(server);
+    return replicas;
+  }
+
+  private void scheduleSpeculativeRequest(final ScatterGatherRequestContext ctxt,
+      final SpeculativeResponseFuture future, final ServerInstance server, final SegmentIdSet segmentIds,
+      long delayMs) {
+    getSpeculativeRequestScheduler().schedule(new Runnable() {
+      @Override
+      public void run() {
+        long timeRemaining = ctxt.getTimeRemaining();
+        if (future.isCompleted() || (timeRemaining <= 0)) {
+          return;
+        }
+        final SingleRequestHandler handler =
+            new SingleRequestHandler(_connPool, server, ctxt.getRequest(), segmentIds, timeRemaining,
+                new CountDownLatch(1));
+        _executorService.submit(new Runnable() {
+          @Override
+          public void run() {
+            handler.run();
+            LOGGER.debug("Sent speculative request {} to server {}", ctxt.getRequest().getRequestId(), server);
+            _speculativeRequestsSent.mark();
+            future.addSpeculativeRequest(handler);
+          }
+        });
+      }
+    }, delayMs, TimeUnit.MILLISECONDS);
+  }
+
+  private synchronized ScheduledExecutorService getSpeculativeRequestScheduler() {
+    if (null == _speculativeRequestScheduler) {
+      _speculativeRequestScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(r, "speculative-request-scheduler");
+          t.setDaemon(true);
+          return t;
+        }
+      });
+    }
+    return _speculativeRequestScheduler;
+  }
+
   /**
    * Merge segment-sets which have the same set of servers. If 2 segmentIds have overlapping
    * set of servers, they are not merged. If there is predefined-selection for a segmentId,
    * a separate entry is added for those in the inverted map.
+   *
+   * When the replica selection selects among replicas and the request knows the segment replicas, the candidates of
+   * each segment-set are the server the routing table picked followed by the other servers hosting all its segments.
    * @param requestContext Scatter gather request
    */
   protected void buildInvertedMap(ScatterGatherRequestContext requestContext) {
@@ -170,9 +303,19 @@ public class ScatterGatherImpl implements ScatterGather {
     Map<List<ServerInstance>, SegmentIdSet> instanceToSegmentMap = new HashMap<List<ServerInstance>, SegmentIdSet>();
 
     BucketingSelection sel = request.getPredefinedSelection();
+    boolean selectAmongReplicas =
+        request.getReplicaSelection().selectsAmongReplicas() && (null != request.getSegmentReplicas());
 
     for (ServerInstance serverInstance : segmentIdToInstanceMap.keySet()) {
-      instanceToSegmentMap.put(Arrays.asList(serverInstance), segmentIdToInstanceMap.get(serverInstance));
+      SegmentIdSet segmentIds = segmentIdToInstanceMap.get(serverInstance);
+      if (selectAmongReplicas) {
+        List<ServerInstance> candidates = new ArrayList<ServerInstance>();
+        candidates.add(serverInstance);
+        candidates.addAll(getOtherReplicas(request, serverInstance, segmentIds));
+        instanceToSegmentMap.put(candidates, segmentIds);
+      } else {
+        instanceToSegmentMap.put(Arrays.asList(serverInstance), segmentIds);
+      }
     }
     requestContext.setInvertedMap(instanceToSegmentMap);
   }
@@ -209,7 +352,8 @@ public class ScatterGatherImpl implements ScatterGather {
   }
 
   /**
-   * For each segment-set in the instanceToSegmentMap, we select one (or more speculative) servers
+   * For each segment-set in the instanceToSegmentMap, we select one server. Servers for speculative requests are
+   * selected when sending them, see {@link #getResponseFuture(ScatterGatherRequestContext, SingleRequestHandler)}.
    *
    * @param requestContext
    */
@@ -217,41 +361,16 @@ public class ScatterGatherImpl implements ScatterGather {
     Map<ServerInstance, SegmentIdSet> selectedServers = new HashMap<ServerInstance, SegmentIdSet>();
     ScatterGatherRequest request = requestContext.getRequest();
     Map<List<ServerInstance>, SegmentIdSet> instanceToSegmentMap = requestContext.getInvertedMap();
-    //int numDuplicateRequests = request.getNumSpeculativeRequests();
     ReplicaSelection selection = request.getReplicaSelection();
     for (Entry<List<ServerInstance>, SegmentIdSet> e : instanceToSegmentMap.entrySet()) {
       ServerInstance s = selection.selectServer(e.getValue().getOneSegment(), e.getKey(), request.getHashKey());
       mergePartitionGroup(selectedServers, s, e.getValue());
-
-      /**
-       * TODO:
-       * We can easily add speculative execution here. The below code will pick a distinct server
-       * for the segmentId, This entry needs to be maintained in a separate container in ScatterGatherRequestContext
-       * Then in sndRequest, we need to construct SelectingFuture for the pairs of Future corresponding to original
-       * and speculative(duplicate) request.
-       *
-       int numServers = e.getKey().size();
-
-      // Pick Unique servers for speculative request
-      int numIterations = Math.min(numServers - 1, numDuplicateRequests);
-      for (int i = 0, c = 0; i < numIterations; i++, c++)
-      {
-        ServerInstance s1 = e.getKey().get(c);
-        if ( s.equals(s1))
-        {
-          c++;
-          s1 = e.getKey().get(c);
-        }
-        mergePartitionGroup(selectedServers, s1, e.getValue());
-        //TODO: speculative servers need to be maintained in a separate entry in ScatterGatherRequestContext
-      }
-       **/
     }
     requestContext.setSelectedServers(selectedServers);
   }
 
   /**
-   * For each segmentId in the instanceToSegmentMap, we select one (or more speculative) servers
+   * For each segmentId in the instanceToSegmentMap, we select one server
    *
    * @param requestContext
    */
@@ -398,6 +517,7 @@ public class ScatterGatherImpl implements ScatterGather {
         ByteBuf req = Unpooled.wrappedBuffer(serializedRequest);
         _responseFuture = conn.sendRequest(req, _request.getRequestId(), _timeoutMS);
         _isSent.set(true);
+        trackResponse();
         LOGGER.debug("Response Future is : {}", _responseFuture);
       } catch (TimeoutException e1) {
         LOGGER.error("Timed out waiting for connection for server (" + _server + ") (" + _request.getRequestId()
@@ -411,6 +531,23 @@ public class ScatterGatherImpl implements ScatterGather {
       }
     }
 
+    /**
+     * Let the replica selection know about the outstanding request and its latency once completed
+     */
+    private void trackResponse() {
+      final ReplicaSelection selection = _request.getReplicaSelection();
+      final ResponseFuture responseFuture = _responseFuture;
+      final long sendTimeMs = System.currentTimeMillis();
+      selection.onRequestSent(_server);
+      responseFuture.addListener(new Runnable() {
+        @Override
+        public void run() {
+          boolean isError = !responseFuture.isCancelled() && (null != responseFuture.getError());
+          selection.onResponse(_server, System.currentTimeMillis() - sendTimeMs, isError);
+        }
+      }, null);
+    }
+
     /**
      * Cancel checking-out request if possible. If in unsafe state (request already sent),
      * discard the connection from the pool.
@@ -436,6 +573,14 @@ public class ScatterGatherImpl implements ScatterGather {
       return _server;
     }
 
+    public ScatterGatherRequest getRequest() {
+      return _request;
+    }
+
+    public SegmentIdSet getSegmentIds() {
+      return _segmentIds;
+    }
+
     public ResponseFuture getResponseFuture() {
       return _responseFuture;
     }
@@ -449,6 +594,14 @@ public class ScatterGatherImpl implements ScatterGather {
     return _latency;
   }
 
+  public Meter getSpeculativeRequestsSent() {
+    return _speculativeRequestsSent;
+  }
+
+  public Meter getSpeculativeRequestsWon() {
+    return _speculativeRequestsWon;
+  }
+
   /**
    * This is used to checkin the connections once the responses/errors are obtained
    *
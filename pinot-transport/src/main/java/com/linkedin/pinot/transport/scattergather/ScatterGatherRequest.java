@@ -15,12 +15,14 @@
  */
 package com.linkedin.pinot.transport.scattergather;
 
+import java.util.List;
 import java.util.Map;
 
 import com.linkedin.pinot.common.response.ServerInstance;
 import com.linkedin.pinot.transport.common.BucketingSelection;
 import com.linkedin.pinot.transport.common.ReplicaSelection;
 import com.linkedin.pinot.transport.common.ReplicaSelectionGranularity;
+import com.linkedin.pinot.transport.common.SegmentId;
 import com.linkedin.pinot.transport.common.SegmentIdSet;
 
 
@@ -74,10 +76,23 @@ public interface ScatterGatherRequest {
    * to be sent foe each scattered request. To turn off speculative requests, this method should
    * return 0.
    *
-   * TODO: Currently Not implemented
+   * A speculative request is only sent if the server first queried has not responded after
+   * {@link #getSpeculativeRequestDelayMs()}, to a server hosting all the segments of the scattered request.
    */
   public int getNumSpeculativeRequests();
 
+  /**
+   * Return the time in MS to wait for a response before sending a speculative request, each further speculative
+   * request being sent after the same delay. A negative value turns off speculative requests.
+   */
+  public long getSpeculativeRequestDelayMs();
+
+  /**
+   * Return all the servers hosting each segment, among which the servers of the speculative requests are selected.
+   * Can return null if speculative requests are turned off.
+   */
+  public Map<SegmentId, List<ServerInstance>> getSegmentReplicas();
+
   /**
    * Used for diagnostics, A predefined selection of service can be chosen for each segments
    * and sent to the Scatter-Gather. Scatter-Gather will honor such selection and do not override them.
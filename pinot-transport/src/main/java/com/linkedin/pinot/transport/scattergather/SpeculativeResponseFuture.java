@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.transport.scattergather;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.transport.common.AsyncResponseFuture;
+import com.linkedin.pinot.transport.common.Cancellable;
+import com.linkedin.pinot.transport.netty.NettyClientConnection.ResponseFuture;
+import com.linkedin.pinot.transport.scattergather.ScatterGatherImpl.SingleRequestHandler;
+import com.yammer.metrics.core.Meter;
+
+
+/**
+ * Response future of a scattered request which can also be sent to other replicas (speculative requests) when the
+ * server first queried is slow to respond. It completes with the first response received from any of the servers,
+ * and the requests still pending at that point are cancelled. It only fails once all the requests sent so far have
+ * failed.
+ *
+ * The response is keyed by the server first queried whichever server returned it, so that callers still see one
+ * response per scattered request.
+ */
+public class SpeculativeResponseFuture extends AsyncResponseFuture<ServerInstance, ByteBuf> {
+  private final SingleRequestHandler _handler;
+  private final Meter _speculativeRequestsWon;
+
+  // Guarded by this
+  private final List<SingleRequestHandler> _speculativeHandlers = new ArrayList<SingleRequestHandler>();
+  private int _numFailed = 0;
+  private boolean _completed = false;
+
+  public SpeculativeResponseFuture(SingleRequestHandler handler, Meter speculativeRequestsWon) {
+    super(handler.getServer(), "Speculative response future for request " + handler.getRequest().getRequestId() + " to server "
+        + handler.getServer());
+    _handler = handler;
+    _speculativeRequestsWon = speculativeRequestsWon;
+    setCancellable(new Cancellable() {
+      @Override
+      public boolean cancel() {
+        for (SingleRequestHandler h : complete()) {
+          h.cancel();
+        }
+        return true;
+      }
+    });
+    addResponseListener(handler, false);
+  }
+
+  /**
+   * Track a speculative request, which must already have been dispatched. Returns false (and cancels the request) if
+   * a response was already received.
+   */
+  public boolean addSpeculativeRequest(SingleRequestHandler handler) {
+    boolean completed;
+    synchronized (this) {
+      completed = _completed;
+      if (!completed) {
+        _speculativeHandlers.add(handler);
+      }
+    }
+    if (completed) {
+      handler.cancel();
+      return false;
+    }
+    // Outside of the lock, the listener runs right away if the response is already there
+    addResponseListener(handler, true);
+    return true;
+  }
+
+  private void addResponseListener(final SingleRequestHandler handler, final boolean isSpeculative) {
+    handler.getResponseFuture().addListener(new Runnable() {
+      @Override
+      public void run() {
+        onResponse(handler, isSpeculative);
+      }
+    }, null);
+  }
+
+  private void onResponse(SingleRequestHandler handler, boolean isSpeculative) {
+    ResponseFuture responseFuture = handler.getResponseFuture();
+    ByteBuf response = null;
+    Throwable error = null;
+    try {
+      response = responseFuture.getOne();
+    } catch (Exception e) {
+      error = e;
+    }
+    if (response == null && error == null) {
+      Map<ServerInstance, Throwable> errors = responseFuture.getError();
+      if (errors != null) {
+        error = errors.get(handler.getServer());
+      }
+    }
+
+    List<SingleRequestHandler> pendingHandlers;
+    synchronized (this) {
+      if (_completed) {
+        return;
+      }
+      if (response == null) {
+        _numFailed++;
+        if (_numFailed <= _speculativeHandlers.size()) {
+          // Some requests are still pending
+          return;
+        }
+      }
+      pendingHandlers = complete();
+    }
+
+    for (SingleRequestHandler h : pendingHandlers) {
+      if (h != handler) {
+        h.cancel();
+      }
+    }
+    if (response != null) {
+      if (isSpeculative) {
+        _speculativeRequestsWon.mark();
+      }
+      onSuccess(response);
+    } else {
+      onError(error);
+    }
+  }
+
+  /**
+   * Mark the future completed and return all the requests sent for it.
+   */
+  private synchronized List<SingleRequestHandler> complete() {
+    _completed = true;
+    List<SingleRequestHandler> handlers = new ArrayList<SingleRequestHandler>(_speculativeHandlers.size() + 1);
+    handlers.add(_handler);
+    handlers.addAll(_speculativeHandlers);
+    return handlers;
+  }
+
+  public synchronized boolean isCompleted() {
+    return _completed;
+  }
+}
@@ -328,6 +328,40 @@ public class CompositeFutureTest {
     executor.shutdown();
   }
 
+  @Test
+  /**
+   * Responses are handed out by nextResponse() in completion order, errors are skipped.
+   * @throws Exception
+   */
+  public void testNextResponse() throws Exception {
+    Map<String, KeyedFuture<String, String>> futureMap = new HashMap<String, KeyedFuture<String, String>>();
+    for (int i = 0; i < 3; i++) {
+      String key = "key_" + i;
+      futureMap.put(key, new AsyncResponseFuture<String, String>(key, ""));
+    }
+    CompositeFuture<String, String> compositeFuture = new CompositeFuture<String, String>("test", GatherModeOnError.AND);
+    compositeFuture.start(futureMap.values());
+
+    ((AsyncResponseFuture<String, String>) futureMap.get("key_2")).onSuccess("message_2");
+    Map.Entry<String, String> response = compositeFuture.nextResponse();
+    Assert.assertEquals(response.getKey(), "key_2");
+    Assert.assertEquals(response.getValue(), "message_2");
+    Assert.assertFalse(compositeFuture.isDone());
+
+    ((AsyncResponseFuture<String, String>) futureMap.get("key_0")).onError(new Exception("error_0"));
+    ((AsyncResponseFuture<String, String>) futureMap.get("key_1")).onSuccess("message_1");
+    response = compositeFuture.nextResponse();
+    Assert.assertEquals(response.getKey(), "key_1");
+    Assert.assertEquals(response.getValue(), "message_1");
+
+    Assert.assertNull(compositeFuture.nextResponse());
+    Assert.assertNull(compositeFuture.nextResponse());
+    Assert.assertTrue(compositeFuture.isDone());
+    Assert.assertTrue(compositeFuture.getError().containsKey("key_0"));
+    // Responses already handed out are not kept
+    Assert.assertTrue(compositeFuture.get().isEmpty());
+  }
+
   @Test
   /**
    * Tests Composite future with one underlying future.
@@ -90,6 +90,63 @@ public class ReplicaSelectionTest {
 
   }
 
+  @Test
+  public void testAdaptiveSelection() {
+    AdaptiveReplicaSelection sel1 = new AdaptiveReplicaSelection();
+
+    ServerInstance s1 = new ServerInstance("localhost", 8080);
+    ServerInstance s2 = new ServerInstance("localhost", 8081);
+    ServerInstance s3 = new ServerInstance("localhost", 8082);
+
+    ServerInstance[] servers = { s1, s2, s3 };
+
+    // Verify for an empty list, selectServer returns null
+    List<ServerInstance> candidates = new ArrayList<ServerInstance>();
+    Assert.assertNull(sel1.selectServer(new SegmentId("1"), candidates, null));
+
+    // Without statistics, the server picked by the routing table is kept
+    candidates.addAll(Arrays.asList(servers));
+    Assert.assertEquals(sel1.selectServer(new SegmentId("0"), candidates, null), s1);
+
+    // Similar latencies, the routed server is kept
+    for (ServerInstance server : servers) {
+      sel1.onRequestSent(server);
+      sel1.onResponse(server, 10, false);
+    }
+    for (int i = 0; i < 10; i++) {
+      Assert.assertEquals(sel1.selectServer(new SegmentId("0"), candidates, null), s1, "Round :" + i);
+    }
+
+    // The routed server slows down, its load goes to the other replicas
+    for (int i = 0; i < 20; i++) {
+      sel1.onRequestSent(s1);
+      sel1.onResponse(s1, 200, false);
+    }
+    for (int i = 0; i < 10; i++) {
+      Assert.assertFalse(sel1.selectServer(new SegmentId("0"), candidates, null).equals(s1), "Round :" + i);
+    }
+
+    // Outstanding requests and errors count as load too
+    sel1.onRequestSent(s2);
+    sel1.onRequestSent(s2);
+    sel1.onRequestSent(s2);
+    for (int i = 0; i < 20; i++) {
+      sel1.onRequestSent(s3);
+      sel1.onResponse(s3, 10, true);
+    }
+    List<ServerInstance> routedToS2 = Arrays.asList(s2, s3, s1);
+    for (int i = 0; i < 10; i++) {
+      Assert.assertEquals(sel1.selectServer(new SegmentId("0"), routedToS2, null), s2, "Round :" + i);
+    }
+    Assert.assertTrue(sel1.getScore(s3) > sel1.getScore(s2));
+
+    // Statistics expire when a server stops completing requests
+    AdaptiveReplicaSelection sel2 = new AdaptiveReplicaSelection(0.1, 2.0, -1);
+    sel2.onRequestSent(s1);
+    sel2.onResponse(s1, 200, false);
+    Assert.assertEquals(sel2.getScore(s1), -1.0);
+  }
+
   public static class BucketKey {
     private final int _key;
 
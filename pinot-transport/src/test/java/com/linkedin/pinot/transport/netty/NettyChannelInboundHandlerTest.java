@@ -0,0 +1,109 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.transport.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.linkedin.pinot.transport.metrics.NettyServerMetrics;
+import com.linkedin.pinot.transport.netty.NettyServer.AsyncRequestHandler;
+import com.linkedin.pinot.transport.netty.NettyServer.NettyChannelInboundHandler;
+
+
+public class NettyChannelInboundHandlerTest {
+
+  @Test
+  public void testResponsesInRequestOrder() throws Exception {
+    MyAsyncRequestHandler handler = new MyAsyncRequestHandler();
+    EmbeddedChannel channel = new EmbeddedChannel(new NettyChannelInboundHandler(handler,
+        new NettyServerMetrics(null, "test"), 100, MoreExecutors.sameThreadExecutor(), 2));
+
+    ByteBuf request1 = Unpooled.wrappedBuffer("request1".getBytes());
+    ByteBuf request2 = Unpooled.wrappedBuffer("request2".getBytes());
+    channel.writeInbound(request1);
+    Assert.assertTrue(channel.config().isAutoRead());
+    channel.writeInbound(request2);
+    // Max in flight requests reached, stop reading from the channel
+    Assert.assertFalse(channel.config().isAutoRead());
+    Assert.assertEquals(handler._responses.size(), 2);
+
+    // The second response waits for the first one
+    handler._responses.get(1).set("response2".getBytes());
+    channel.runPendingTasks();
+    Assert.assertNull(channel.readOutbound());
+    Assert.assertEquals(request2.refCnt(), 0);
+    Assert.assertEquals(request1.refCnt(), 1);
+
+    handler._responses.get(0).set("response1".getBytes());
+    channel.runPendingTasks();
+    Assert.assertEquals(readResponse(channel), "response1");
+    Assert.assertEquals(readResponse(channel), "response2");
+    Assert.assertNull(channel.readOutbound());
+    Assert.assertEquals(request1.refCnt(), 0);
+    Assert.assertTrue(channel.config().isAutoRead());
+    channel.finish();
+  }
+
+  @Test
+  public void testFailedRequestClosesChannel() throws Exception {
+    MyAsyncRequestHandler handler = new MyAsyncRequestHandler();
+    EmbeddedChannel channel = new EmbeddedChannel(new NettyChannelInboundHandler(handler,
+        new NettyServerMetrics(null, "test"), 100, MoreExecutors.sameThreadExecutor(), 2));
+
+    ByteBuf request = Unpooled.wrappedBuffer("request".getBytes());
+    channel.writeInbound(request);
+    handler._responses.get(0).setException(new RuntimeException("failed"));
+    channel.runPendingTasks();
+    Assert.assertNull(channel.readOutbound());
+    Assert.assertEquals(request.refCnt(), 0);
+    Assert.assertFalse(channel.isOpen());
+  }
+
+  private static String readResponse(EmbeddedChannel channel) {
+    ByteBuf response = (ByteBuf) channel.readOutbound();
+    Assert.assertNotNull(response);
+    byte[] bytes = new byte[response.readableBytes()];
+    response.readBytes(bytes);
+    response.release();
+    return new String(bytes);
+  }
+
+  private static class MyAsyncRequestHandler implements AsyncRequestHandler {
+    private final List<SettableFuture<byte[]>> _responses = new ArrayList<SettableFuture<byte[]>>();
+
+    @Override
+    public ListenableFuture<byte[]> processRequestAsync(ByteBuf request) {
+      SettableFuture<byte[]> response = SettableFuture.create();
+      _responses.add(response);
+      return response;
+    }
+
+    @Override
+    public byte[] processRequest(ByteBuf request) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -599,6 +599,84 @@ public class ScatterGatherTest {
     server4.shutdownGracefully();
   }
 
+  @Test
+  public void testSpeculativeRequest() throws Exception {
+
+    MetricsRegistry registry = new MetricsRegistry();
+
+    // Server start
+    int serverPort1 = 7101; // Slow server
+    int serverPort2 = 7102;
+    NettyTCPServer server1 = new NettyTCPServer(serverPort1, new TestRequestHandlerFactory(0, 1, 3000, false), null);
+    NettyTCPServer server2 = new NettyTCPServer(serverPort2, new TestRequestHandlerFactory(1, 1), null);
+
+    Thread t1 = new Thread(server1);
+    Thread t2 = new Thread(server2);
+    t1.start();
+    t2.start();
+
+    //Client setup
+    ScheduledExecutorService timedExecutor = new ScheduledThreadPoolExecutor(1);
+    ExecutorService service = new ThreadPoolExecutor(5, 5, 5, TimeUnit.DAYS, new LinkedBlockingDeque<Runnable>());
+    EventLoopGroup eventLoopGroup = new NioEventLoopGroup();
+    NettyClientMetrics clientMetrics = new NettyClientMetrics(registry, "client_");
+    PooledNettyClientResourceManager rm =
+        new PooledNettyClientResourceManager(eventLoopGroup, new HashedWheelTimer(), clientMetrics);
+    KeyedPoolImpl<ServerInstance, NettyClientConnection> pool =
+        new KeyedPoolImpl<ServerInstance, NettyClientConnection>(1, 1, 300000, 1, rm, timedExecutor, service, registry);
+    rm.setPool(pool);
+
+    SegmentIdSet pg1 = new SegmentIdSet();
+    pg1.addSegment(new SegmentId("0"));
+
+    ServerInstance serverInstance1 = new ServerInstance("localhost", serverPort1);
+    ServerInstance serverInstance2 = new ServerInstance("localhost", serverPort2);
+
+    // The request goes to the slow server, both servers host the segment
+    Map<ServerInstance, SegmentIdSet> pgMap = new HashMap<ServerInstance, SegmentIdSet>();
+    pgMap.put(serverInstance1, pg1);
+    Map<SegmentId, List<ServerInstance>> segmentReplicas = new HashMap<SegmentId, List<ServerInstance>>();
+    List<ServerInstance> replicas = new ArrayList<ServerInstance>();
+    replicas.add(serverInstance1);
+    replicas.add(serverInstance2);
+    segmentReplicas.put(new SegmentId("0"), replicas);
+
+    Map<SegmentIdSet, String> pgMapStr = new HashMap<SegmentIdSet, String>();
+    pgMapStr.put(pg1, "request_0");
+
+    ScatterGatherRequest req =
+        new TestScatterGatherRequest(pgMap, pgMapStr, new MyReplicaSelection(),
+            ReplicaSelectionGranularity.SEGMENT_ID_SET, 1, 10000, 100, segmentReplicas);
+    ScatterGatherImpl scImpl = new ScatterGatherImpl(pool, service);
+    long numSent = scImpl.getSpeculativeRequestsSent().count();
+    long numWon = scImpl.getSpeculativeRequestsWon().count();
+    long startTime = System.currentTimeMillis();
+    CompositeFuture<ServerInstance, ByteBuf> fut = scImpl.scatterGather(req);
+    Map<ServerInstance, ByteBuf> v = fut.get();
+    long timeTaken = System.currentTimeMillis() - startTime;
+
+    // The response of the second server is returned for the request sent to the first one
+    Assert.assertEquals(v.size(), 1);
+    ByteBuf b = v.get(serverInstance1);
+    byte[] b2 = new byte[b.readableBytes()];
+    b.readBytes(b2);
+    Assert.assertEquals(new String(b2), "response_1_0");
+    Assert.assertTrue(timeTaken < 3000, "Response did not wait for the slow server, took " + timeTaken + " ms");
+    Map<ServerInstance, Throwable> errorMap = fut.getError();
+    Assert.assertTrue(errorMap == null || errorMap.isEmpty(), "No error");
+    Assert.assertEquals(scImpl.getSpeculativeRequestsSent().count() - numSent, 1);
+    Assert.assertEquals(scImpl.getSpeculativeRequestsWon().count() - numWon, 1);
+
+    // Let the slow server respond before shutting down
+    Thread.sleep(3000);
+    pool.shutdown();
+    service.shutdown();
+    eventLoopGroup.shutdownGracefully();
+
+    server1.shutdownGracefully();
+    server2.shutdownGracefully();
+  }
+
   public static class TestRequestHandlerFactory implements RequestHandlerFactory {
     public final int _numRequests;
     public final int _id;
@@ -679,6 +757,8 @@ public class ScatterGatherTest {
     private final ReplicaSelectionGranularity _granularity;
     private final int _numSpeculativeRequests;
     private final int _timeoutMS;
+    private final long _speculativeRequestDelayMs;
+    private final Map<SegmentId, List<ServerInstance>> _segmentReplicas;
 
     public TestScatterGatherRequest(Map<ServerInstance, SegmentIdSet> partitionServicesMap,
         Map<SegmentIdSet, String> responsesMap) {
@@ -688,17 +768,29 @@ public class ScatterGatherTest {
       _granularity = ReplicaSelectionGranularity.SEGMENT_ID_SET;
       _numSpeculativeRequests = 0;
       _timeoutMS = 10000;
+      _speculativeRequestDelayMs = -1;
+      _segmentReplicas = null;
     }
 
     public TestScatterGatherRequest(Map<ServerInstance, SegmentIdSet> partitionServicesMap,
         Map<SegmentIdSet, String> responsesMap, ReplicaSelection replicaSelection,
         ReplicaSelectionGranularity granularity, int numSpeculativeRequests, int timeoutMS) {
+      this(partitionServicesMap, responsesMap, replicaSelection, granularity, numSpeculativeRequests, timeoutMS, -1,
+          null);
+    }
+
+    public TestScatterGatherRequest(Map<ServerInstance, SegmentIdSet> partitionServicesMap,
+        Map<SegmentIdSet, String> responsesMap, ReplicaSelection replicaSelection,
+        ReplicaSelectionGranularity granularity, int numSpeculativeRequests, int timeoutMS,
+        long speculativeRequestDelayMs, Map<SegmentId, List<ServerInstance>> segmentReplicas) {
       _partitionServicesMap = partitionServicesMap;
       _responsesMap = responsesMap;
       _replicaSelection = replicaSelection;
       _granularity = granularity;
       _numSpeculativeRequests = numSpeculativeRequests;
       _timeoutMS = timeoutMS;
+      _speculativeRequestDelayMs = speculativeRequestDelayMs;
+      _segmentReplicas = segmentReplicas;
     }
 
     @Override
@@ -732,6 +824,16 @@ public class ScatterGatherTest {
       return _numSpeculativeRequests;
     }
 
+    @Override
+    public long getSpeculativeRequestDelayMs() {
+      return _speculativeRequestDelayMs;
+    }
+
+    @Override
+    public Map<SegmentId, List<ServerInstance>> getSegmentReplicas() {
+      return _segmentReplicas;
+    }
+
     @Override
     public BucketingSelection getPredefinedSelection() {
       return null;